@@ -1,9 +1,15 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 
 
 /**
@@ -15,7 +21,22 @@ import java.util.NoSuchElementException;
  * String and edge weights are of type Double.
  */
 public class Backend implements BackendInterface {
+  // the threads that compute the rows of distance matrices, shared by every Backend so that the
+  // searches of all requests together never run on more threads than there are cores
+  private static final ExecutorService MATRIX_POOL = newMatrixPool();
+
   private GraphADT<String, Double> graph;
+  // how many queries have started from each location, so that popular starts get a kept tree
+  private final ConcurrentHashMap<String, AtomicInteger> startCounts = new ConcurrentHashMap<>();
+  // the number of queries from one start after which its shortest path tree is kept
+  private volatile int treeThreshold = 3;
+
+  /**
+   * Constructs a Backend instance over a new, empty DijkstraGraph.
+   */
+  public Backend() {
+    this(new DijkstraGraph<>());
+  }
 
   /**
    * Constructs a Backend instance with the specified graph.
@@ -28,58 +49,103 @@ public class Backend implements BackendInterface {
 
   /**
    * Loads graph data from a .dot file. Clears existing data in the graph before parsing the file
-   * and adding nodes and edges.
+   * and adding nodes and edges. When the graph is a DijkstraGraph and every node in the file has a
+   * position (x and y, or pos attributes), its point to point searches are switched to A* with a
+   * StraightLineHeuristic over those positions. Otherwise they stay plain Dijkstra searches.
    *
    * @param filename the name of the .dot file to load
-   * @throws IOException if there is an error reading the file
+   * @throws IOException if there is an error reading the file, or the file is not valid .dot text,
+   *                     in which case the message names the line and column of the error
    */
   @Override
   public void loadGraphData(String filename) throws IOException {
     // Clear existing graph nodes and edges before loading new data.
-    List<String> nodes = new ArrayList<>(graph.getAllNodes());
-    for (String node : nodes) {
-      graph.removeNode(node);
-    }
-
-    try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-      String line;
-      while ((line = br.readLine()) != null) {
-        line = line.trim();
-
-        // Check if this line defines an edge
-        if (line.contains("->") && line.contains("[seconds=")) {
-          // Extract source, target, and weight
-          int sourceStart = line.indexOf("\"") + 1;
-          int sourceEnd = line.indexOf("\"", sourceStart);
-          String source = line.substring(sourceStart, sourceEnd);
-
-          int targetStart = line.indexOf("\"", sourceEnd + 1) + 1;
-          int targetEnd = line.indexOf("\"", targetStart);
-          String target = line.substring(targetStart, targetEnd);
-
-          int weightStart = line.indexOf("seconds=") + 8;
-          int weightEnd = line.indexOf("]", weightStart);
-          Double weight = Double.parseDouble(line.substring(weightStart, weightEnd).trim());
-
-          // Insert nodes and edge
-          if (!graph.containsNode(source)) {
-            graph.insertNode(source);
-          }
-          if (!graph.containsNode(target)) {
-            graph.insertNode(target);
-          }
-          graph.insertEdge(source, target, weight);
-
-        } else if (line.startsWith("\"") && line.endsWith("\";")) {
-          // This is a standalone node
-          String node = line.substring(1, line.length() - 2).trim();
-          if (!graph.containsNode(node)) {
-            graph.insertNode(node);
-          }
+    graph.clear();
+    startCounts.clear();
+
+    // a single pass over the file adds each location once, the first time it is seen
+    MapADT<String, double[]> positions = new OpenAddressingMap<>();
+    StraightLineHeuristic<String> heuristic = new StraightLineHeuristic<>(positions);
+    List<String> pending = new ArrayList<>(); // pred, succ pairs of edges read before a position
+    List<Double> pendingSeconds = new ArrayList<>();
+    new DotParser().parse(filename, new DotParser.Handler() {
+      @Override
+      public void node(String name) {
+        graph.insertNode(name);
+      }
+
+      @Override
+      public void edge(String pred, String succ, double seconds) {
+        graph.insertEdge(pred, succ, seconds);
+        if (positions.containsKey(pred) && positions.containsKey(succ)) {
+          heuristic.admitEdge(pred, succ, seconds);
+        } else {
+          pending.add(pred);
+          pending.add(succ);
+          pendingSeconds.add(seconds);
+        }
+      }
+
+      @Override
+      public void position(String name, double x, double y) {
+        // the first position given for a node wins, so edges admitted already stay admitted
+        if (!positions.containsKey(name)) {
+          positions.put(name, new double[] {x, y});
         }
       }
-    } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-      throw new IOException("Error parsing .dot file: Invalid format or data.", e);
+    });
+
+    if (graph instanceof DijkstraGraph) {
+      @SuppressWarnings("unchecked")
+      DijkstraGraph<String, Double> dijkstra = (DijkstraGraph<String, Double>) graph;
+      boolean positioned = positions.getSize() == graph.getNodeCount() && graph.getNodeCount() > 0;
+      if (positioned) {
+        for (int i = 0; i < pendingSeconds.size(); i++) {
+          heuristic.admitEdge(pending.get(2 * i), pending.get(2 * i + 1), pendingSeconds.get(i));
+        }
+      }
+      dijkstra.setHeuristic(positioned ? heuristic : null);
+    }
+  }
+
+  /**
+   * Selects after how many queries from the same start location its shortest path tree is built
+   * and kept by a DijkstraGraph, see DijkstraGraph.shortestPathTree, so that later shortest path
+   * and reachability queries from that popular start are answered without searching.
+   *
+   * @param treeThreshold the number of queries from one start before its tree is kept
+   * @throws IllegalArgumentException if treeThreshold is not positive
+   */
+  public void setTreeThreshold(int treeThreshold) {
+    if (treeThreshold <= 0) {
+      throw new IllegalArgumentException("The tree threshold must be positive.");
+    }
+    this.treeThreshold = treeThreshold;
+  }
+
+  /**
+   * Returns after how many queries from the same start location its shortest path tree is kept.
+   *
+   * @return the number of queries from one start before its tree is kept
+   */
+  public int getTreeThreshold() {
+    return treeThreshold;
+  }
+
+  // counts a query from start, and once start is popular enough makes sure that the graph keeps
+  // its shortest path tree; only a DijkstraGraph with a tree cache keeps trees
+  private void countStart(String start) {
+    if (!(graph instanceof DijkstraGraph) || !graph.containsNode(start)) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    DijkstraGraph<String, Double> dijkstra = (DijkstraGraph<String, Double>) graph;
+    if (dijkstra.getTreeCacheSize() == 0) {
+      return;
+    }
+    int count = startCounts.computeIfAbsent(start, s -> new AtomicInteger()).incrementAndGet();
+    if (count >= treeThreshold) {
+      dijkstra.shortestPathTree(start); // returns at once while the tree is still kept
     }
   }
 
@@ -93,6 +159,90 @@ public class Backend implements BackendInterface {
     return graph.getAllNodes();
   }
 
+  /**
+   * Finds the shortest path between two locations in the graph, along with the time of each step
+   * and the total travel time, using a single search, or from the kept shortest path tree of a
+   * popular start location, see setTreeThreshold. If no path exists, an empty result is returned.
+   *
+   * @param startLocation the starting location (node) in the graph
+   * @param endLocation   the destination location (node) in the graph
+   * @return the shortest path from startLocation to endLocation, or an empty result if no path
+   *         exists
+   */
+  @Override
+  public PathResult<String> findShortestPath(String startLocation, String endLocation) {
+    countStart(startLocation);
+    try {
+      return graph.shortestPath(startLocation, endLocation);
+    } catch (NoSuchElementException e) {
+      return PathResult.empty(); // No path? Return an empty result.
+    }
+  }
+
+  /**
+   * Finds up to count of the fastest loopless routes between two locations in the graph, fastest
+   * first, with Yen's algorithm. If no path exists, or either location does not exist, an empty
+   * list is returned.
+   *
+   * @param startLocation the starting location (node) in the graph
+   * @param endLocation   the destination location (node) in the graph
+   * @param count         the largest number of routes to return
+   * @return the fastest routes from startLocation to endLocation, shortest path first
+   * @throws IllegalArgumentException if count is not positive, or is larger than
+   *                                  MAX_ALTERNATIVE_PATHS
+   */
+  @Override
+  public List<PathResult<String>> findAlternativePaths(String startLocation,
+      String endLocation, int count) {
+    if (count > MAX_ALTERNATIVE_PATHS) {
+      throw new IllegalArgumentException(
+          "At most " + MAX_ALTERNATIVE_PATHS + " routes can be found, not " + count + ".");
+    }
+    try {
+      return graph.kShortestPaths(startLocation, endLocation, count);
+    } catch (NoSuchElementException e) {
+      return new ArrayList<>(); // No such location? No routes.
+    }
+  }
+
+  /**
+   * Finds the shortest paths from one location to each of several others, with a single search
+   * from the start location that stops once every end location has been reached, or from its
+   * kept shortest path tree. End locations that do not exist get an empty result, as does every
+   * end location when the start location does not exist.
+   *
+   * @param startLocation the starting location (node) in the graph
+   * @param endLocations  the destination locations (nodes) in the graph
+   * @return the shortest path from startLocation to each of endLocations, in the same order, with
+   *         an empty result for each one that cannot be reached
+   */
+  @Override
+  public List<PathResult<String>> findShortestPaths(String startLocation,
+      List<String> endLocations) {
+    List<PathResult<String>> paths = new ArrayList<>(endLocations.size());
+    if (!graph.containsNode(startLocation)) {
+      for (int i = 0; i < endLocations.size(); i++) {
+        paths.add(PathResult.empty());
+      }
+      return paths;
+    }
+    countStart(startLocation);
+
+    // search only for the locations that exist, and leave the others empty
+    List<String> known = new ArrayList<>(endLocations.size());
+    for (String end : endLocations) {
+      if (graph.containsNode(end)) {
+        known.add(end);
+      }
+    }
+    List<PathResult<String>> found = graph.shortestPaths(startLocation, known);
+    int next = 0;
+    for (String end : endLocations) {
+      paths.add(graph.containsNode(end) ? found.get(next++) : PathResult.empty());
+    }
+    return paths;
+  }
+
   /**
    * Finds the shortest path between two locations in the graph. If no path exists, an empty list is
    * returned.
@@ -104,46 +254,27 @@ public class Backend implements BackendInterface {
    */
   @Override
   public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
-    try {
-      List<String> path = graph.shortestPathData(startLocation, endLocation);
-      if (path.isEmpty()) {
-        throw new NoSuchElementException("No path found between the locations.");
-      }
-      return path;
-    } catch (NoSuchElementException e) {
-      return new ArrayList<>(); // No path? Return an empty list.
-    }
+    return new ArrayList<>(findShortestPath(startLocation, endLocation).getNodes());
   }
 
   /**
    * Retrieves the edge weights (times) for each step along the shortest path between two locations.
-   * If any edge is missing, an empty list is returned.
+   * The times are read from the edges traversed by the search itself, so no edges are looked up.
    *
    * @param startLocation the starting location (node) in the graph
    * @param endLocation   the destination location (node) in the graph
    * @return a List of Doubles representing the edge weights on the shortest path, or an empty list
-   *         if any edge is missing or if no path exists
+   *         if no path exists
    */
   @Override
   public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
-    List<Double> times = new ArrayList<>();
-    List<String> path = findLocationsOnShortestPath(startLocation, endLocation);
-
-    // We go through each step on the path, fetching the time for each edge.
-    for (int i = 0; i < path.size() - 1; i++) {
-      try {
-        Double time = graph.getEdge(path.get(i), path.get(i + 1));
-        times.add(time);
-      } catch (NoSuchElementException e) {
-        return new ArrayList<>(); // Missing an edge? We’ll just return an empty list.
-      }
-    }
-    return times;
+    return findShortestPath(startLocation, endLocation).getLegCostList();
   }
 
   /**
-   * Finds all locations reachable from a starting location within a specified travel time. Throws
-   * an exception if the starting location does not exist.
+   * Finds all locations reachable from a starting location within a specified travel time, with
+   * one bounded search or from the kept shortest path tree of a popular start location. Throws an
+   * exception if the starting location does not exist.
    *
    * @param startLocation the starting location (node) in the graph
    * @param travelTime    the maximum travel time allowed
@@ -157,20 +288,109 @@ public class Backend implements BackendInterface {
       throw new NoSuchElementException("Start location does not exist"); // Can't start from
                                                                          // nowhere!
     }
+    countStart(startLocation);
 
+    // One bounded search from the start finds everything within the allowed travel time
     List<String> reachableLocations = new ArrayList<>();
-    List<String> allNodes = graph.getAllNodes();
-
-    // For each node, we check if we can reach it within the allowed travel time
-    for (String node : allNodes) {
-      try {
-        if (!node.equals(startLocation)
-            && graph.shortestPathCost(startLocation, node) <= travelTime) {
-          reachableLocations.add(node);
-        }
-      } catch (NoSuchElementException e) {
+    for (String node : graph.reachableWithin(startLocation, travelTime).getKeys()) {
+      if (!node.equals(startLocation)) {
+        reachableLocations.add(node);
       }
     }
     return reachableLocations;
   }
+
+  /**
+   * Computes the walking times of the shortest paths from each source to each target. Each row
+   * comes from a single search from its source that stops once every target is settled, and the
+   * rows are computed in parallel on the threads of MATRIX_POOL, since searches on a graph that is
+   * not being modified can run in any number of threads at once.
+   *
+   * @param sources the start locations of the paths
+   * @param targets the end locations of the paths
+   * @return matrix[i][j] is the walking time from sources.get(i) to targets.get(j), or
+   *         Double.POSITIVE_INFINITY if no such path exists
+   * @throws NoSuchElementException if any of the locations does not exist in the graph
+   */
+  @Override
+  public double[][] distanceMatrix(List<String> sources, List<String> targets)
+      throws NoSuchElementException {
+    // check every location up front, rather than failing part way through the searches
+    for (List<String> locations : List.of(sources, targets)) {
+      for (String location : locations) {
+        if (!graph.containsNode(location)) {
+          throw new NoSuchElementException("Location " + location + " does not exist");
+        }
+      }
+    }
+
+    double[][] matrix = new double[sources.size()][];
+    List<Future<?>> rows = new ArrayList<>(matrix.length);
+    for (int i = 0; i < matrix.length; i++) {
+      int row = i;
+      rows.add(MATRIX_POOL.submit(
+          () -> matrix[row] = graph.shortestPathCosts(sources.get(row), targets)));
+    }
+    try {
+      for (Future<?> row : rows) {
+        row.get();
+      }
+    } catch (InterruptedException e) {
+      rows.forEach(row -> row.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while computing a distance matrix.", e);
+    } catch (ExecutionException e) {
+      rows.forEach(row -> row.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to compute a distance matrix.", e.getCause());
+    }
+    return matrix;
+  }
+
+  // creates a fixed pool of daemon threads, one per core, for the rows of distance matrices
+  private static ExecutorService newMatrixPool() {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+      Thread thread = new Thread(task, "backend-matrix-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * treeThresholdTest: Checks that a start location's shortest path tree is kept once it has been
+   * queried treeThreshold times, and that queries from it then give the same answers as before.
+   */
+  @Test
+  public void treeThresholdTest() {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    for (String node : new String[] {"A", "B", "C", "D"}) {
+      graph.insertNode(node);
+    }
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 2.0);
+    graph.insertEdge("A", "C", 4.0);
+    Backend backend = new Backend(graph);
+    backend.setTreeThreshold(2);
+
+    PathResult<String> searched = backend.findShortestPath("A", "C");
+    Assertions.assertNull(graph.cachedTree("A"),
+        "treeThresholdTest() [1.1]: FAILED kept a TREE before the start was popular.");
+    List<String> reached = backend.getReachableFromWithin("A", 2.5);
+    Assertions.assertNotNull(graph.cachedTree("A"),
+        "treeThresholdTest() [1.2]: FAILED did not keep the TREE of a popular start.");
+    Assertions.assertNull(graph.cachedTree("B"),
+        "treeThresholdTest() [1.3]: FAILED kept the TREE of another start.");
+
+    Assertions.assertEquals(searched.getNodes(), backend.findShortestPath("A", "C").getNodes(),
+        "treeThresholdTest() [2.1]: FAILED the kept TREE gave a different PATH.");
+    Assertions.assertEquals(reached, backend.getReachableFromWithin("A", 2.5),
+        "treeThresholdTest() [2.2]: FAILED the kept TREE reached different locations.");
+    Assertions.assertTrue(backend.findShortestPath("A", "D").getNodes().isEmpty(),
+        "treeThresholdTest() [2.3]: FAILED the kept TREE found a PATH that does not exist.");
+    Assertions.assertThrows(IllegalArgumentException.class, () -> backend.setTreeThreshold(0),
+        "treeThresholdTest() [3.1]: FAILED accepted a THRESHOLD that is not positive.");
+  }
 }
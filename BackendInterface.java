@@ -9,6 +9,12 @@ import java.util.NoSuchElementException;
  */
 public interface BackendInterface {
 
+  /**
+   * The largest number of routes that findAlternativePaths may be asked
+   * for, since each further route costs another round of searches.
+   */
+  public static final int MAX_ALTERNATIVE_PATHS = 20;
+
   /*
    * Implementing classes should support the constructor below.
    * @param graph object to store the backend's graph data
@@ -51,6 +57,46 @@ public interface BackendInterface {
    *         list if no such path exists
    */
   public List<Double> findTimesOnShortestPath(String startLocation, String endLocation);
+
+  /**
+   * Return the locations, the walking time in seconds of each leg, the 
+   * cumulative walking times, and the total walking time along the shortest
+   * path from startLocation to endLocation, all computed by a single search.
+   * When no such path exists, the returned result is empty.
+   * @param startLocation the start location of the path
+   * @param endLocation the end location of the path
+   * @return the shortest path from startLocation to endLocation, or an empty
+   *         result if no such path exists
+   */
+  public PathResult<String> findShortestPath(String startLocation, String endLocation);
+
+  /**
+   * Return up to count of the fastest routes from startLocation to 
+   * endLocation that never visit a location twice, fastest first. The first
+   * of them is the shortest path, and the others are alternatives to it.
+   * When no path exists, or either location does not exist, the returned 
+   * list is empty.
+   * @param startLocation the start location of the routes
+   * @param endLocation the end location of the routes
+   * @param count the largest number of routes to return
+   * @return the fastest routes from startLocation to endLocation
+   * @throws IllegalArgumentException if count is not positive, or is larger
+   *         than MAX_ALTERNATIVE_PATHS
+   */
+  public List<PathResult<String>> findAlternativePaths(String startLocation,
+      String endLocation, int count);
+
+  /**
+   * Return the shortest paths from startLocation to each of the endLocations,
+   * in the order of endLocations, all computed by a single search from 
+   * startLocation. Each path to a location that does not exist or cannot be
+   * reached is empty, like those returned by findShortestPath.
+   * @param startLocation the start location of the paths
+   * @param endLocations the end locations of the paths
+   * @return the shortest path from startLocation to each of endLocations
+   */
+  public List<PathResult<String>> findShortestPaths(String startLocation,
+      List<String> endLocations);
     
   /**
    * Returns the list of locations that can be reached when starting from the 
@@ -64,4 +110,17 @@ public interface BackendInterface {
    */
     public List<String> getReachableFromWithin(String startLocation, double travelTime) throws NoSuchElementException;
 
+  /**
+   * Returns the walking times in seconds of the shortest paths from each of
+   * the sources to each of the targets, as a dense matrix whose rows follow
+   * the order of sources and whose columns follow the order of targets.
+   * @param sources the start locations of the paths
+   * @param targets the end locations of the paths
+   * @return matrix[i][j] is the walking time from sources.get(i) to 
+   *         targets.get(j), or Double.POSITIVE_INFINITY if no such path exists
+   * @throws NoSuchElementException if any of the locations does not exist
+   */
+  public double[][] distanceMatrix(List<String> sources, List<String> targets)
+      throws NoSuchElementException;
+
 }
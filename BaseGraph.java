@@ -1,18 +1,22 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
 /**
  * This BaseGraph class contains stores a set of nodes, along with a set of
  * directed and weighted edges connecting those nodes.
  */
-public class BaseGraph<NodeType, EdgeType extends Number> {
+public class BaseGraph<NodeType, EdgeType extends Number>
+        implements IndexedGraph<NodeType> {
 
-    // Each node contains unique data along with two lists of directed edges
+    // Each node contains unique data along with two lists of directed edges,
+    // and a small integer id that searches can use to index into arrays
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        public int id;
+        public List<Edge> edgesLeaving = new ArrayList<>();
+        public List<Edge> edgesEntering = new ArrayList<>();
 
         public Node(NodeType data) {
             this.data = data;
@@ -22,21 +26,50 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     // Nodes can be retrieved from this map by their unique data
     protected MapADT<NodeType, Node> nodes = null;
 
-    // Each edge contains data/weight, and two nodes that it connects
+    // Nodes can also be retrieved by id; the ids of removed nodes are reused,
+    // so ids stay below the largest number of nodes the graph has ever held
+    protected ArrayList<Node> nodesById = new ArrayList<>();
+    protected ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+
+    // Each edge contains data/weight, and two nodes that it connects, along
+    // with a small integer id that searches can store instead of the edge
     protected class Edge {
         public EdgeType data; // the weight or cost of this edge
+        // data.doubleValue(), kept as a primitive so that searches never unbox data
+        public double weight;
         public Node predecessor;
         public Node successor;
+        public int id;
+        // the positions of this edge in predecessor.edgesLeaving and in
+        // successor.edgesEntering, so that it can be removed from either in O(1)
+        public int leavingIndex;
+        public int enteringIndex;
 
         public Edge(EdgeType data, Node pred, Node succ) {
-            this.data = data;
+            setData(data);
             this.predecessor = pred;
             this.successor = succ;
         }
+
+        // changes the weight of this edge, keeping data and weight in step
+        public void setData(EdgeType data) {
+            this.data = data;
+            this.weight = data.doubleValue(); // throws NPE when data is null
+        }
     }
 
     protected int edgeCount = 0;
-    // Edges can be retrieved through the edge lists in either connected node
+    // Edges can be retrieved through the edge lists in either connected node,
+    // or by id, with ids of removed edges being reused just like node ids
+    protected ArrayList<Edge> edgesById = new ArrayList<>();
+    protected ArrayDeque<Integer> freeEdgeIds = new ArrayDeque<>();
+    // Finds the edge between two nodes by their ids, or null unless the graph
+    // keeps an edge index
+    protected EdgeIndex edgeIndex = null;
+
+    // Counts every change to the nodes, edges or weights of this graph, so that
+    // results computed from the graph can tell whether they are out of date
+    protected int modifications = 0;
 
     /**
      * Constructor for BaseGraph that provides the map the graph uses.
@@ -59,7 +92,17 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     public boolean insertNode(NodeType data) {
         if (nodes.containsKey(data))
             return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        Node newNode = new Node(data);
+        nodes.put(data, newNode);
+        // reuse the id of a removed node when there is one
+        if (freeIds.isEmpty()) {
+            newNode.id = nodesById.size();
+            nodesById.add(newNode);
+        } else {
+            newNode.id = freeIds.pop();
+            nodesById.set(newNode.id, newNode);
+        }
+        modifications++;
         return true;
     }
 
@@ -77,15 +120,62 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         if (!nodes.containsKey(data))
             return false; // throws NPE when data==null
         Node oldNode = nodes.remove(data);
+        nodesById.set(oldNode.id, null);
+        freeIds.push(oldNode.id);
         // remove all edges entering neighboring nodes from this one
-        for (Edge edge : oldNode.edgesLeaving)
-            edge.successor.edgesEntering.remove(edge);
-        // remove all edges leaving neighboring nodes toward this one
-        for (Edge edge : oldNode.edgesEntering)
-            edge.predecessor.edgesLeaving.remove(edge);
+        for (Edge edge : oldNode.edgesLeaving) {
+            unlinkEntering(edge);
+            releaseEdgeId(edge);
+        }
+        // remove all edges leaving neighboring nodes toward this one, which
+        // no longer include a loop from this node to itself
+        for (Edge edge : oldNode.edgesEntering) {
+            unlinkLeaving(edge);
+            releaseEdgeId(edge);
+        }
+        this.edgeCount -= oldNode.edgesLeaving.size() + oldNode.edgesEntering.size();
+        modifications++;
         return true;
     }
 
+    /**
+     * Insert a new node for each of the provided data items, growing the
+     * graph's tables once for all of them rather than node by node. Data
+     * items that are already in the graph are skipped, as insertNode does.
+     * 
+     * @param data the data items to store in the new nodes
+     * @return the number of nodes that were inserted
+     * @throws NullPointerException if any of the data items is null
+     */
+    public int insertNodes(List<NodeType> data) {
+        int expected = getNodeCount() + data.size();
+        nodes.ensureCapacity(expected);
+        nodesById.ensureCapacity(expected);
+        int inserted = 0;
+        for (NodeType item : data)
+            if (insertNode(item))
+                inserted++;
+        return inserted;
+    }
+
+    /**
+     * Remove every node and edge from the graph. Unlike removing the nodes
+     * one at a time, this takes time proportional to the capacity of the
+     * graph's tables, whatever the number of edges, and it restarts node and
+     * edge ids from 0.
+     */
+    public void clear() {
+        nodes.clear();
+        nodesById.clear();
+        freeIds.clear();
+        edgesById.clear();
+        freeEdgeIds.clear();
+        if (edgeIndex != null)
+            edgeIndex.clear();
+        this.edgeCount = 0;
+        modifications++;
+    }
+
     /**
      * Check whether the graph contains a node with the provided data.
      * 
@@ -106,6 +196,17 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return nodes.getKeys();
     }
 
+    /**
+     * Return a bound on the ids of the nodes in this graph: every node's id is
+     * at least 0 and less than this bound, so arrays of this length can be
+     * indexed by node id.
+     * 
+     * @return one more than the largest id that a node may currently have
+     */
+    public int getNodeIdBound() {
+        return nodesById.size();
+    }
+
     /**
      * Return the number of nodes in the graph
      * 
@@ -128,25 +229,58 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
+        Node predNode = nodeOf(pred);
+        Node succNode = nodeOf(succ);
         if (predNode == null || succNode == null)
             return false;
-        try {
+        Edge existingEdge = findEdge(predNode, succNode);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
-            existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
+            existingEdge.setData(weight);
+        } else {
             // otherwise create a new edges
             Edge newEdge = new Edge(weight, predNode, succNode);
+            assignEdgeId(newEdge);
             this.edgeCount++;
             // and insert it into each of its adjacent nodes' respective lists
+            newEdge.leavingIndex = predNode.edgesLeaving.size();
             predNode.edgesLeaving.add(newEdge);
+            newEdge.enteringIndex = succNode.edgesEntering.size();
             succNode.edgesEntering.add(newEdge);
+            if (edgeIndex != null)
+                edgeIndex.put(predNode.id, succNode.id, newEdge.id);
         }
+        modifications++;
         return true;
     }
 
+    /**
+     * Insert or update the directed edge from preds.get(i) to succs.get(i)
+     * with weight weights.get(i) for every index i, as insertEdge does, after
+     * growing the graph's tables once for all of them.
+     * 
+     * @param preds   the data items contained in the edges' predecessor nodes
+     * @param succs   the data items contained in the edges' successor nodes
+     * @param weights the non-negative data items stored in the edges
+     * @return the number of edges that were inserted or updated
+     * @throws IllegalArgumentException if the three lists differ in size
+     */
+    public int insertEdges(List<NodeType> preds, List<NodeType> succs,
+            List<EdgeType> weights) {
+        if (preds.size() != succs.size() || preds.size() != weights.size())
+            throw new IllegalArgumentException("Expected as many successors and"
+                    + " weights as predecessors: " + preds.size() + ", "
+                    + succs.size() + ", " + weights.size());
+        edgesById.ensureCapacity(edgesById.size() + preds.size());
+        if (edgeIndex != null)
+            edgeIndex.ensureCapacity(edgeCount + preds.size());
+        int inserted = 0;
+        for (int i = 0; i < preds.size(); i++)
+            if (insertEdge(preds.get(i), succs.get(i), weights.get(i)))
+                inserted++;
+        return inserted;
+    }
+
     /**
      * Remove an edge from the graph.
      * 
@@ -156,19 +290,18 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdge(nodeOf(pred), nodeOf(succ));
+        // when no such edge exists, return false instead
+        if (oldEdge == null)
             return false;
-        }
+        // remove it from the edge lists of each adjacent node
+        unlinkLeaving(oldEdge);
+        unlinkEntering(oldEdge);
+        releaseEdgeId(oldEdge);
+        // and decrement the edge count before removing
+        this.edgeCount--;
+        modifications++;
+        return true;
     }
 
     /**
@@ -179,12 +312,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdge(nodeOf(pred), nodeOf(succ)) != null;
     }
 
     /**
@@ -201,15 +329,153 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
+        Edge edge = findEdge(nodeOf(pred), nodeOf(succ));
+        // when no such edge can be found, throw NSE
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+        return edge;
+    }
+
+    // returns the node containing data, or null when there is none
+    protected Node nodeOf(NodeType data) {
+        return nodes.containsKey(data) ? nodes.get(data) : null;
+    }
+
+    // returns the edge from predNode to succNode, or null when either node
+    // is null or there is no such edge, without building an exception
+    protected Edge findEdge(Node predNode, Node succNode) {
+        if (predNode == null || succNode == null)
+            return null;
+        if (edgeIndex != null) {
+            int id = edgeIndex.get(predNode.id, succNode.id);
+            return id < 0 ? null : edgesById.get(id);
+        }
+        // search for edge through the predecessor's list of leaving edges,
+        // where each node's data is stored in exactly one node object
         for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
+            if (edge.successor == succNode)
                 return edge;
-        // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        return null;
+    }
+
+    /**
+     * Turns the edge index on or off. While it is on, the graph keeps a hash
+     * table from the ids of the nodes of every edge to that edge, so that
+     * getEdge, containsEdge, insertEdge and removeEdge find an edge in O(1)
+     * expected time instead of scanning the edges leaving its predecessor,
+     * at the cost of about 24 more bytes of memory per edge. It is off by
+     * default, and turning it on indexes the edges already in the graph.
+     * 
+     * @param indexed true to keep an edge index, or false to drop it
+     */
+    public void setEdgeIndexed(boolean indexed) {
+        if (!indexed) {
+            edgeIndex = null;
+        } else if (edgeIndex == null) {
+            edgeIndex = new EdgeIndex(edgeCount);
+            for (Edge edge : edgesById)
+                if (edge != null)
+                    edgeIndex.put(edge.predecessor.id, edge.successor.id, edge.id);
+        }
+    }
+
+    /**
+     * Returns whether the graph keeps an edge index, see setEdgeIndexed.
+     * 
+     * @return true if the graph keeps an edge index
+     */
+    public boolean isEdgeIndexed() {
+        return edgeIndex != null;
+    }
+
+    /**
+     * Return a bound on the ids of the edges in this graph: every edge's id is
+     * at least 0 and less than this bound.
+     * 
+     * @return one more than the largest id that an edge may currently have
+     */
+    public int getEdgeIdBound() {
+        return edgesById.size();
+    }
+
+    @Override
+    public int getModificationCount() {
+        return modifications;
+    }
+
+    @Override
+    public int idOf(NodeType data) {
+        if (data == null || !nodes.containsKey(data))
+            return -1;
+        return nodes.get(data).id;
+    }
+
+    @Override
+    public NodeType dataOf(int id) {
+        return nodesById.get(id).data;
+    }
+
+    @Override
+    public int successorOf(int edge) {
+        return edgesById.get(edge).successor.id;
+    }
+
+    @Override
+    public double weightOf(int edge) {
+        return edgesById.get(edge).weight;
+    }
+
+    @Override
+    public void forEachEdgeLeaving(int node, EdgeVisitor visitor) {
+        for (Edge edge : nodesById.get(node).edgesLeaving)
+            visitor.visit(edge.id, edge.successor.id, edge.weight);
+    }
+
+    @Override
+    public void forEachEdgeEntering(int node, EdgeVisitor visitor) {
+        for (Edge edge : nodesById.get(node).edgesEntering)
+            visitor.visit(edge.id, edge.predecessor.id, edge.weight);
+    }
+
+    // gives a new edge an id, reusing the id of a removed edge when possible
+    private void assignEdgeId(Edge edge) {
+        if (freeEdgeIds.isEmpty()) {
+            edge.id = edgesById.size();
+            edgesById.add(edge);
+        } else {
+            edge.id = freeEdgeIds.pop();
+            edgesById.set(edge.id, edge);
+        }
+    }
+
+    // removes edge from its predecessor's leaving edges in O(1), by moving the
+    // last edge of that list into its place
+    private void unlinkLeaving(Edge edge) {
+        List<Edge> list = edge.predecessor.edgesLeaving;
+        Edge last = list.remove(list.size() - 1);
+        if (last != edge) {
+            list.set(edge.leavingIndex, last);
+            last.leavingIndex = edge.leavingIndex;
+        }
+    }
+
+    // removes edge from its successor's entering edges in O(1), by moving the
+    // last edge of that list into its place
+    private void unlinkEntering(Edge edge) {
+        List<Edge> list = edge.successor.edgesEntering;
+        Edge last = list.remove(list.size() - 1);
+        if (last != edge) {
+            list.set(edge.enteringIndex, last);
+            last.enteringIndex = edge.enteringIndex;
+        }
+    }
+
+    // makes the id of a removed edge available for reuse
+    private void releaseEdgeId(Edge edge) {
+        if (edgeIndex != null)
+            edgeIndex.remove(edge.predecessor.id, edge.successor.id);
+        edgesById.set(edge.id, null);
+        freeEdgeIds.push(edge.id);
     }
 
     /**
@@ -221,5 +487,29 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return this.edgeCount;
     }
 
+    /**
+     * Creates an immutable compressed sparse row copy of this graph, in which
+     * nodes are numbered by int ids and edges are stored in primitive arrays.
+     * Later changes to this graph are not reflected in the returned copy.
+     * 
+     * @return a CsrGraph with the same nodes, edges and weights as this graph
+     * @throws IllegalArgumentException if any edge weight is negative
+     */
+    public CsrGraph<NodeType> freeze() {
+        CsrGraph.Builder<NodeType> builder =
+                new CsrGraph.Builder<>(getNodeCount(), getEdgeCount());
+        List<NodeType> allNodes = getAllNodes();
+        // number every node first, so that edges can refer to any of them
+        for (NodeType data : allNodes)
+            builder.addNode(data);
+        // then copy each node's leaving edges, which keeps them in list order
+        for (NodeType data : allNodes) {
+            int pred = builder.addNode(data);
+            for (Edge edge : nodes.get(data).edgesLeaving)
+                builder.addEdge(pred, builder.addNode(edge.successor.data), edge.weight);
+        }
+        return builder.build();
+    }
+
 }
 
@@ -0,0 +1,425 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class answers large batches of shortest path queries, such as the millions of (start, end)
+ * pairs of a nightly job, against a BackendInterface that is not modified while the batch runs,
+ * like a GraphSnapshot. Run from the command line with:
+ *     java BatchQueryEngine graph.dot queries.tsv results.tsv [threads]
+ * where each line of queries.tsv holds a start and an end location separated by a tab, and each
+ * line of results.tsv holds the start, the end, the total walking time in seconds and the
+ * locations along the path separated by |, or just the start and end followed by two empty fields
+ * when there is no path.
+ *
+ * Queries are read in windows of a fixed number of queries. The queries of a window are grouped by
+ * their start, and each group is answered by a single call to findShortestPaths, so that queries
+ * from the same start share one search. The groups of a window run in parallel on a pool of
+ * threads, while later windows are read and submitted, up to a fixed number of windows in flight.
+ * Results are emitted in the order that the queries were read, one whole window at a time, and no
+ * more windows are read until the oldest one has been emitted. So at most windowSize times
+ * windowsInFlight queries and their paths are held in memory, however long the batch is.
+ */
+public class BatchQueryEngine implements AutoCloseable {
+
+  /**
+   * One shortest path query, from the start location to the end location.
+   */
+  public static class Query {
+    public final String start;
+    public final String end;
+
+    public Query(String start, String end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /**
+   * The answer to one query: its start and end locations, and the shortest path between them,
+   * which is empty when there is no such path.
+   */
+  public static class Result {
+    public final String start;
+    public final String end;
+    public final PathResult<String> path;
+
+    public Result(String start, String end, PathResult<String> path) {
+      this.start = start;
+      this.end = end;
+      this.path = path;
+    }
+  }
+
+  private final BackendInterface backend; // answers every group of queries
+  private final ExecutorService pool; // the threads that the groups run on
+  private final boolean ownsPool; // whether close() shuts the pool down
+  private final int windowSize; // the number of queries read into each window
+  private final int windowsInFlight; // the number of windows submitted but not yet emitted
+
+  /**
+   * Creates an engine with its own pool of threads, and windows of 4096 queries, up to twice as
+   * many of them in flight as there are threads.
+   *
+   * @param backend the read-only backend that answers the queries
+   * @param threads the number of threads that answer queries
+   * @throws IllegalArgumentException if threads is not positive
+   */
+  public BatchQueryEngine(BackendInterface backend, int threads) {
+    this(backend, newPool(threads), true, 4096, 2 * threads);
+  }
+
+  /**
+   * Creates an engine that runs on the provided pool, which it does not shut down when closed.
+   *
+   * @param backend         the read-only backend that answers the queries
+   * @param pool            the threads that answer queries
+   * @param windowSize      the number of queries read into each window
+   * @param windowsInFlight the number of windows that may be submitted before the oldest of them
+   *                        is emitted
+   * @throws IllegalArgumentException if windowSize or windowsInFlight is not positive
+   */
+  public BatchQueryEngine(BackendInterface backend, ExecutorService pool, int windowSize,
+      int windowsInFlight) {
+    this(backend, pool, false, windowSize, windowsInFlight);
+  }
+
+  private BatchQueryEngine(BackendInterface backend, ExecutorService pool, boolean ownsPool,
+      int windowSize, int windowsInFlight) {
+    if (windowSize <= 0 || windowsInFlight <= 0) {
+      throw new IllegalArgumentException("Window size and windows in flight must be positive.");
+    }
+    this.backend = backend;
+    this.pool = pool;
+    this.ownsPool = ownsPool;
+    this.windowSize = windowSize;
+    this.windowsInFlight = windowsInFlight;
+  }
+
+  private static ExecutorService newPool(int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive.");
+    }
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory factory = task -> {
+      Thread thread = new Thread(task, "batch-query-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    return Executors.newFixedThreadPool(threads, factory);
+  }
+
+  /**
+   * Answers every query, passing the results to the provided consumer in the order of the
+   * queries, on the calling thread.
+   *
+   * @param queries the queries to answer, which are read no faster than results are consumed
+   * @param results receives the result of each query
+   * @return the number of queries answered
+   * @throws InterruptedException if the calling thread is interrupted while waiting for results
+   */
+  public long run(Iterator<Query> queries, Consumer<? super Result> results)
+      throws InterruptedException {
+    try {
+      return run(() -> queries.hasNext() ? queries.next() : null, results::accept);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // neither source nor sink does any I/O
+    }
+  }
+
+  /**
+   * Answers the queries read from in, one per line as a start and an end location separated by a
+   * tab, and writes their results to out in the same order, in the format of results.tsv above.
+   * Blank lines are skipped.
+   *
+   * @param in  the queries to answer
+   * @param out receives one line per query
+   * @return the number of queries answered
+   * @throws IOException          if reading or writing fails, or a line of in is not a start and
+   *                              an end location separated by a tab, in which case the message
+   *                              names the line
+   * @throws InterruptedException if the calling thread is interrupted while waiting for results
+   */
+  public long run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+    int[] lineNumber = {0};
+    Source source = () -> {
+      String line;
+      do {
+        line = in.readLine();
+        lineNumber[0]++;
+      } while (line != null && line.isBlank());
+      if (line == null) {
+        return null;
+      }
+      int tab = line.indexOf('\t');
+      if (tab < 0 || line.indexOf('\t', tab + 1) >= 0) {
+        throw new IOException("Line " + lineNumber[0] + " is not a start and an end location"
+            + " separated by a tab.");
+      }
+      return new Query(line.substring(0, tab), line.substring(tab + 1));
+    };
+    long count = run(source, result -> writeResult(out, result));
+    out.flush();
+    return count;
+  }
+
+  // writes one line of results.tsv
+  private static void writeResult(Writer out, Result result) throws IOException {
+    out.write(result.start);
+    out.write('\t');
+    out.write(result.end);
+    out.write('\t');
+    if (!result.path.isEmpty()) {
+      out.write(Double.toString(result.path.getTotalCost()));
+      out.write('\t');
+      out.write(String.join("|", result.path.getNodes()));
+    } else {
+      out.write('\t');
+    }
+    out.write('\n');
+  }
+
+  /**
+   * A source of queries that returns null when there are no more of them.
+   */
+  private interface Source {
+    Query next() throws IOException;
+  }
+
+  /**
+   * Receives the result of each query.
+   */
+  private interface Sink {
+    void accept(Result result) throws IOException;
+  }
+
+  /**
+   * The queries of one window, the paths found for them so far, and the groups still answering.
+   */
+  private static class Window {
+    final List<Query> queries;
+    final PathResult<?>[] paths;
+    final List<Future<?>> groups = new ArrayList<>();
+
+    Window(List<Query> queries) {
+      this.queries = queries;
+      this.paths = new PathResult<?>[queries.size()];
+    }
+  }
+
+  private long run(Source source, Sink sink) throws IOException, InterruptedException {
+    ArrayDeque<Window> inFlight = new ArrayDeque<>();
+    long count = 0;
+    try {
+      boolean more = true;
+      while (more || !inFlight.isEmpty()) {
+        // emit the oldest window when no more can be submitted, or all of them at the end
+        if (!more || inFlight.size() == windowsInFlight) {
+          count += emit(inFlight.removeFirst(), sink);
+          continue;
+        }
+        List<Query> queries = new ArrayList<>(windowSize);
+        Query query;
+        while (queries.size() < windowSize && (query = source.next()) != null) {
+          queries.add(query);
+        }
+        more = queries.size() == windowSize;
+        if (!queries.isEmpty()) {
+          inFlight.addLast(submit(queries));
+        }
+      }
+      return count;
+    } finally {
+      // nothing is left when all went well, otherwise there is no one left to read the results
+      for (Window window : inFlight) {
+        for (Future<?> group : window.groups) {
+          group.cancel(true);
+        }
+      }
+    }
+  }
+
+  // groups the queries by start, and submits one task per group
+  private Window submit(List<Query> queries) {
+    Window window = new Window(queries);
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < queries.size(); i++) {
+      groups.computeIfAbsent(queries.get(i).start, start -> new ArrayList<>()).add(i);
+    }
+    for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+      List<Integer> indices = group.getValue();
+      window.groups.add(pool.submit(() -> {
+        List<String> ends = new ArrayList<>(indices.size());
+        for (int i : indices) {
+          ends.add(queries.get(i).end);
+        }
+        List<PathResult<String>> paths = backend.findShortestPaths(group.getKey(), ends);
+        for (int i = 0; i < indices.size(); i++) {
+          window.paths[indices.get(i)] = paths.get(i);
+        }
+      }));
+    }
+    return window;
+  }
+
+  // waits for every group of the window, then passes its results to sink in order
+  @SuppressWarnings("unchecked")
+  private long emit(Window window, Sink sink) throws IOException, InterruptedException {
+    for (Future<?> group : window.groups) {
+      try {
+        group.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    for (int i = 0; i < window.paths.length; i++) {
+      Query query = window.queries.get(i);
+      sink.accept(new Result(query.start, query.end, (PathResult<String>) window.paths[i]));
+    }
+    return window.paths.length;
+  }
+
+  /**
+   * Shuts down the pool of threads when this engine created it.
+   */
+  @Override
+  public void close() {
+    if (ownsPool) {
+      pool.shutdownNow();
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println("Usage: java BatchQueryEngine graph.dot queries.tsv results.tsv"
+          + " [threads]");
+      System.exit(2);
+    }
+    int threads = args.length == 4 ? Integer.parseInt(args[3])
+        : Runtime.getRuntime().availableProcessors();
+    GraphSnapshot snapshot = new GraphSnapshot(args[0]);
+    long begin = System.nanoTime();
+    long count;
+    try (BatchQueryEngine engine = new BatchQueryEngine(snapshot, threads);
+        BufferedReader in = new BufferedReader(new FileReader(args[1]));
+        Writer out = new BufferedWriter(new FileWriter(args[2]))) {
+      count = engine.run(in, out);
+    }
+    System.err.printf("Answered %d queries in %.1f s%n", count,
+        (System.nanoTime() - begin) / 1e9);
+  }
+
+  /**
+   * Tests of BatchQueryEngine against a Backend answering the same queries one at a time.
+   */
+  static class Tests {
+
+    /**
+     * batchQueryEngineTest: Checks that a BatchQueryEngine answers queries from a few repeated
+     * starts, over several small windows, with the same paths as one query at a time, in the order
+     * of the queries, with empty results for unknown locations, and that a malformed line of a
+     * queries file is reported with its number.
+     */
+    @Test
+    public void batchQueryEngineTest() throws Exception {
+      java.util.Random random = new java.util.Random(1100);
+      DijkstraGraph<String, Double> graphTester = new DijkstraGraph<>();
+      for (int i = 0; i < 100; i++) {
+        graphTester.insertNode("n" + i);
+      }
+      for (int i = 0; i < 300; i++) {
+        graphTester.insertEdge("n" + random.nextInt(100), "n" + random.nextInt(100),
+            (double) random.nextInt(20));
+      }
+      Backend backend = new Backend(graphTester);
+      List<BatchQueryEngine.Query> queries = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        String end = i % 50 == 7 ? "nowhere" : "n" + random.nextInt(100);
+        queries.add(new BatchQueryEngine.Query("n" + random.nextInt(8), end));
+      }
+      queries.add(new BatchQueryEngine.Query("nowhere", "n1"));
+
+      List<BatchQueryEngine.Result> results = new ArrayList<>();
+      java.util.concurrent.ExecutorService pool =
+          java.util.concurrent.Executors.newFixedThreadPool(3);
+      Backend edgeBackend =
+          new Backend(TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()));
+      try (BatchQueryEngine engine = new BatchQueryEngine(backend, pool, 37, 2);
+          BatchQueryEngine edgeEngine = new BatchQueryEngine(edgeBackend, pool, 1, 1)) {
+        Assertions.assertEquals(501L, engine.run(queries.iterator(), results::add),
+            "batchQueryEngineTest() [1.1]: FAILED answered the wrong number of QUERIES.");
+        for (int i = 0; i < queries.size(); i++) {
+          BatchQueryEngine.Query query = queries.get(i);
+          PathResult<String> expected = backend.findShortestPath(query.start, query.end);
+          Assertions.assertEquals(query.end, results.get(i).end,
+              "batchQueryEngineTest() [1.2]: FAILED emitted RESULTS out of order.");
+          Assertions.assertEquals(expected.getNodes(), results.get(i).path.getNodes(),
+              "batchQueryEngineTest() [1.3]: FAILED found a different PATH.");
+          Assertions.assertEquals(expected.getTotalCost(), results.get(i).path.getTotalCost(),
+              "batchQueryEngineTest() [1.4]: FAILED found a different COST.");
+        }
+
+        java.io.StringWriter out = new java.io.StringWriter();
+        engine.run(new java.io.BufferedReader(new java.io.StringReader("n0\tn0\n\nn1\tnowhere\n")),
+            out);
+        Assertions.assertEquals("n0\tn0\t0.0\tn0\nn1\tnowhere\t\t\n", out.toString(),
+            "batchQueryEngineTest() [2.1]: FAILED wrote the wrong RESULTS.");
+        java.io.IOException error = Assertions.assertThrows(java.io.IOException.class,
+            () -> engine.run(new java.io.BufferedReader(new java.io.StringReader("n0\tn1\nn2\n")),
+                new java.io.StringWriter()),
+            "batchQueryEngineTest() [2.2]: FAILED accepted a malformed LINE.");
+        Assertions.assertTrue(error.getMessage().contains("Line 2"),
+            "batchQueryEngineTest() [2.3]: FAILED did not name the malformed LINE.");
+
+        List<BatchQueryEngine.Result> none = new ArrayList<>();
+        Assertions.assertEquals(0L,
+            engine.run(java.util.Collections.<BatchQueryEngine.Query>emptyIterator(), none::add),
+            "batchQueryEngineTest() [3.1]: FAILED answered QUERIES that were never asked.");
+        Assertions.assertTrue(none.isEmpty(),
+            "batchQueryEngineTest() [3.2]: FAILED emitted RESULTS without queries.");
+
+        List<BatchQueryEngine.Result> edgeResults = new ArrayList<>();
+        edgeEngine.run(List.of(new BatchQueryEngine.Query("A", "A"),
+            new BatchQueryEngine.Query("A", "D"), new BatchQueryEngine.Query("A", "C"),
+            new BatchQueryEngine.Query("A", "E")).iterator(), edgeResults::add);
+        Assertions.assertEquals(List.of("A"), edgeResults.get(0).path.getNodes(),
+            "batchQueryEngineTest() [4.1]: FAILED the PATH to START is not just START.");
+        Assertions.assertTrue(edgeResults.get(1).path.getNodes().isEmpty()
+            && edgeResults.get(3).path.getNodes().isEmpty(),
+            "batchQueryEngineTest() [4.2]: FAILED found a PATH to an isolated or removed NODE.");
+        Assertions.assertEquals(1.0, edgeResults.get(2).path.getTotalCost(),
+            "batchQueryEngineTest() [4.3]: FAILED with a window of one QUERY.");
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new BatchQueryEngine(backend, pool, 0, 1),
+            "batchQueryEngineTest() [4.4]: FAILED accepted an empty WINDOW.");
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,1176 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Micro benchmarks for the hot paths of the maps, graphs, searches, backend and frontend. Run with:
+ *     java Benchmarks [name ...]
+ * where each name selects one benchmark (all of them run when no name is given):
+ *     maps       put (with every rehash along the way), get and remove on HashtableMap and
+ *                OpenAddressingMap
+ *     edges      insertEdge, insertEdges, getEdge, removeNode and clear on a BaseGraph, and
+ *                insertEdge and getEdge at a hub with and without an edge index
+ *     queues     compares the priority queue strategies of DijkstraGraph and CsrDijkstra
+ *     bidirectional  compares forward and bidirectional searches on grids
+ *     astar      compares Dijkstra's algorithm and A* with a StraightLineHeuristic on grids
+ *     landmarks  builds LandmarkHeuristics on campus.dot and a grid, and compares Dijkstra's
+ *                algorithm and A* with them
+ *     ch         builds ContractionHierarchies of grids, and compares their queries with
+ *                CsrDijkstra
+ *     overlay    builds an OverlayGraph of a grid, customizes batches of weight updates, and
+ *                compares its queries with DijkstraGraph
+ *     matrix     distance matrices on a grid, from pairwise shortestPathCost calls, from
+ *                Backend.distanceMatrix, and from a ContractionHierarchy's buckets
+ *     trees      builds shortest path trees on a grid, and compares queries from a few popular
+ *                starts with and without the kept trees
+ *     intweights compares CsrDijkstra over double weights with IntCsrDijkstra over the same whole
+ *                number weights as ints, on a grid
+ *     mapped     loading a grid from a .dot file and from a MappedGraph snapshot, and queries on
+ *                both, with and without landmarks
+ *     offheap    loading a grid from a .dot file into a DijkstraGraph and into an OffHeapGraph,
+ *                the heap each of them keeps, and queries on both
+ *     kpaths     kShortestPaths on a grid for k up to 20, next to shortestPathData
+ *     batch      2000 queries from 50 starts of a grid, one at a time through the Backend and
+ *                as one batch through a BatchQueryEngine
+ *     delta      one to all costs on grid graphs with the numbers of nodes listed in the
+ *                benchmarks.deltaSizes system property (default 100000,1000000, and 10000000
+ *                can be added when the heap is large enough), with CsrDijkstra and with
+ *                DeltaStepping at several deltas on all cores
+ *     campus     shortestPathData between random locations of campus.dot
+ *     synthetic  shortestPathData on grid graphs with the numbers of nodes listed in the
+ *                benchmarks.sizes system property (default 10000,100000,1000000, and 10000000
+ *                can be added when the heap is large enough)
+ *     backend    Backend.loadGraphData and Backend.getReachableFromWithin
+ *     frontend   the HTML responses that Frontend generates, end to end through the Backend
+ *
+ * The campus benchmarks read the file named by the benchmarks.campus system property, which
+ * defaults to campus.dot in the working directory.
+ *
+ * Each measurement warms the JIT up first, and then reports the average time per operation, the
+ * average number of bytes allocated per operation by the measuring thread, and the number of
+ * garbage collections and the time they took during the measured rounds. Run the same benchmarks
+ * before and after a change to compare the two.
+ */
+public class Benchmarks {
+
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int MEASURED_ROUNDS = 5;
+  private static final String[] ALL = {"maps", "edges", "queues", "bidirectional", "astar",
+      "landmarks", "ch", "overlay", "matrix", "trees", "intweights", "mapped", "offheap",
+      "kpaths", "batch", "delta", "campus", "synthetic", "backend", "frontend"};
+
+  public static void main(String[] args) throws IOException {
+    for (String name : args.length == 0 ? ALL : args) {
+      switch (name) {
+        case "maps":
+          mapBenchmark(1_000);
+          mapBenchmark(100_000);
+          break;
+        case "edges":
+          edgeBenchmark(100);
+          edgeBenchmark(300);
+          hubBenchmark(20_000);
+          break;
+        case "queues":
+          queueBenchmark(100);
+          queueBenchmark(300);
+          break;
+        case "bidirectional":
+          bidirectionalBenchmark(100);
+          bidirectionalBenchmark(300);
+          break;
+        case "astar":
+          aStarBenchmark(100);
+          aStarBenchmark(300);
+          break;
+        case "landmarks":
+          landmarkBenchmark();
+          break;
+        case "ch":
+          hierarchyBenchmark(100);
+          hierarchyBenchmark(200);
+          break;
+        case "overlay":
+          overlayBenchmark(300);
+          break;
+        case "matrix":
+          matrixBenchmark(100, 50);
+          break;
+        case "trees":
+          treeBenchmark(200);
+          break;
+        case "intweights":
+          intWeightBenchmark(300);
+          break;
+        case "mapped":
+          mappedBenchmark(300);
+          break;
+        case "offheap":
+          offHeapBenchmark(300);
+          break;
+        case "kpaths":
+          kPathsBenchmark(100);
+          break;
+        case "batch":
+          batchBenchmark(100);
+          break;
+        case "delta":
+          for (String size : System.getProperty("benchmarks.deltaSizes", "100000,1000000")
+              .split(",")) {
+            deltaBenchmark(Integer.parseInt(size.trim()));
+          }
+          break;
+        case "campus":
+          campusBenchmark();
+          break;
+        case "synthetic":
+          for (String size : System.getProperty("benchmarks.sizes", "10000,100000,1000000")
+              .split(",")) {
+            syntheticBenchmark(Integer.parseInt(size.trim()));
+          }
+          break;
+        case "backend":
+          backendBenchmark();
+          break;
+        case "frontend":
+          frontendBenchmark();
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown benchmark: " + name);
+      }
+    }
+  }
+
+  /**
+   * Measures put, get and remove of size String keys on both MapADT implementations. Every map
+   * starts out at its default capacity, so the puts include all of the rehashing needed to grow
+   * it to size keys.
+   */
+  private static void mapBenchmark(int size) {
+    System.out.println("== maps with " + size + " keys ==");
+    String[] keys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "location " + i;
+    }
+
+    for (String kind : new String[] {"HashtableMap", "OpenAddressingMap"}) {
+      // one map per measured run, filled by the put benchmark and emptied by the remove benchmark
+      MapADT<String, Integer>[] maps = newMaps(kind, WARMUP_ROUNDS + MEASURED_ROUNDS);
+      int[] run = {0};
+      measure(kind + " put", size, () -> {
+        MapADT<String, Integer> map = maps[run[0]++];
+        for (int i = 0; i < keys.length; i++) {
+          map.put(keys[i], i);
+        }
+      });
+      measure(kind + " get", size, () -> {
+        MapADT<String, Integer> map = maps[0];
+        for (String key : keys) {
+          map.get(key);
+        }
+      });
+      run[0] = 0;
+      measure(kind + " remove", size, () -> {
+        MapADT<String, Integer> map = maps[run[0]++];
+        for (String key : keys) {
+          map.remove(key);
+        }
+      });
+    }
+  }
+
+  // creates count empty maps of the named kind
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static MapADT<String, Integer>[] newMaps(String kind, int count) {
+    MapADT<String, Integer>[] maps = new MapADT[count];
+    for (int i = 0; i < count; i++) {
+      maps[i] = kind.equals("HashtableMap") ? new HashtableMap<>() : new OpenAddressingMap<>();
+    }
+    return maps;
+  }
+
+  /**
+   * Measures inserting and looking up the edges between a hub and each of leaves other nodes, in
+   * both directions, with and without an edge index.
+   */
+  private static void hubBenchmark(int leaves) {
+    System.out.println("== edges of a hub with " + leaves + " leaves ==");
+    for (boolean indexed : new boolean[] {false, true}) {
+      String name = indexed ? "BaseGraph edge index " : "BaseGraph ";
+      measure(name + "insertEdge", 2 * leaves, () -> {
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        graph.setEdgeIndexed(indexed);
+        for (int i = 0; i <= leaves; i++) {
+          graph.insertNode(i);
+        }
+        for (int i = 1; i <= leaves; i++) {
+          graph.insertEdge(0, i, 1.0);
+          graph.insertEdge(i, 0, 1.0);
+        }
+      });
+
+      DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+      graph.setEdgeIndexed(indexed);
+      for (int i = 0; i <= leaves; i++) {
+        graph.insertNode(i);
+      }
+      for (int i = 1; i <= leaves; i++) {
+        graph.insertEdge(0, i, 1.0);
+      }
+      measure(name + "getEdge", leaves, () -> {
+        for (int i = 1; i <= leaves; i++) {
+          graph.getEdge(0, i);
+        }
+      });
+    }
+  }
+
+  /**
+   * Measures building a side x side grid with insertEdge and with insertNodes and insertEdges,
+   * looking every one of its edges up again with getEdge, and emptying it again with removeNode
+   * and with clear.
+   */
+  private static void edgeBenchmark(int side) {
+    System.out.println("== edges on a " + side + "x" + side + " grid ==");
+    int edges = 4 * side * (side - 1);
+    measure("BaseGraph insertNode+insertEdge", edges, () -> {
+      buildGrid(new DijkstraGraph<Integer, Double>(), side, 42);
+    });
+
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    List<Integer> nodes = graph.getAllNodes();
+    List<Integer> preds = new ArrayList<>(edges);
+    List<Integer> succs = new ArrayList<>(edges);
+    List<Double> weights = new ArrayList<>(edges);
+    for (Integer pred : nodes) {
+      for (Integer succ : List.of(pred - side, pred - 1, pred + 1, pred + side)) {
+        if (graph.containsEdge(pred, succ)) {
+          preds.add(pred);
+          succs.add(succ);
+          weights.add(graph.getEdge(pred, succ));
+        }
+      }
+    }
+    measure("BaseGraph insertNodes+insertEdges", edges, () -> {
+      DijkstraGraph<Integer, Double> bulk = new DijkstraGraph<>();
+      bulk.insertNodes(nodes);
+      bulk.insertEdges(preds, succs, weights);
+    });
+
+    long removeNanos = 0;
+    long clearNanos = 0;
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      DijkstraGraph<Integer, Double> removed = new DijkstraGraph<>();
+      buildGrid(removed, side, 42);
+      long start = System.nanoTime();
+      for (Integer node : nodes) {
+        removed.removeNode(node);
+      }
+      removeNanos += System.nanoTime() - start;
+      DijkstraGraph<Integer, Double> cleared = new DijkstraGraph<>();
+      buildGrid(cleared, side, 42);
+      start = System.nanoTime();
+      cleared.clear();
+      clearNanos += System.nanoTime() - start;
+    }
+    System.out.printf("    emptied in %.1f ms with removeNode, in %.2f ms with clear%n",
+        removeNanos / 1e6 / MEASURED_ROUNDS, clearNanos / 1e6 / MEASURED_ROUNDS);
+    measure("BaseGraph getEdge", edges, () -> {
+      for (int node = 0; node < side * side; node++) {
+        if (node % side + 1 < side) {
+          graph.getEdge(node, node + 1);
+          graph.getEdge(node + 1, node);
+        }
+        if (node + side < side * side) {
+          graph.getEdge(node, node + side);
+          graph.getEdge(node + side, node);
+        }
+      }
+    });
+  }
+
+  /**
+   * Compares the time and queue size of random point to point queries on a side x side grid, for
+   * every QueueStrategy in both DijkstraGraph and CsrDijkstra.
+   */
+  private static void queueBenchmark(int side) {
+    System.out.println("== queues on a " + side + "x" + side + " grid ==");
+    InstrumentedGraph graph = new InstrumentedGraph();
+    buildGrid(graph, side, 42);
+    int[][] queries = randomQueries(side * side, 100, 7);
+
+    for (QueueStrategy strategy : QueueStrategy.values()) {
+      graph.setQueueStrategy(strategy);
+      measure("DijkstraGraph " + strategy, queries.length, () -> {
+        for (int[] query : queries) {
+          graph.shortestPathCost(query[0], query[1]);
+        }
+      });
+      long peakTotal = 0;
+      for (int[] query : queries) {
+        graph.shortestPathCost(query[0], query[1]);
+        peakTotal += graph.lastPeakQueueSize();
+      }
+      System.out.printf("    average peak queue size: %d%n", peakTotal / queries.length);
+    }
+
+    CsrGraph<Integer> frozen = graph.freeze();
+    for (QueueStrategy strategy : QueueStrategy.values()) {
+      CsrDijkstra<Integer> engine = new CsrDijkstra<>(frozen, strategy);
+      measure("CsrDijkstra " + strategy, queries.length, () -> {
+        for (int[] query : queries) {
+          engine.shortestPathCost(query[0], query[1]);
+        }
+      });
+    }
+  }
+
+  /**
+   * Compares the time and number of settled nodes of random point to point queries on a side x
+   * side grid, searching forward only and from both ends.
+   */
+  private static void bidirectionalBenchmark(int side) {
+    System.out.println("== bidirectional on a " + side + "x" + side + " grid ==");
+    InstrumentedGraph graph = new InstrumentedGraph();
+    buildGrid(graph, side, 42);
+    int[][] queries = randomQueries(side * side, 100, 7);
+
+    for (boolean bidirectional : new boolean[] {false, true}) {
+      graph.setBidirectional(bidirectional);
+      String name = bidirectional ? "bidirectional" : "forward";
+      measure("DijkstraGraph shortestPathData " + name, queries.length, () -> {
+        for (int[] query : queries) {
+          graph.shortestPathData(query[0], query[1]);
+        }
+      });
+      long settledTotal = 0;
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+        settledTotal += graph.lastSettledCount();
+      }
+      System.out.printf("    average settled nodes: %d%n", settledTotal / queries.length);
+    }
+  }
+
+  /**
+   * Compares the time and number of settled nodes of random point to point queries on a side x
+   * side grid, with Dijkstra's algorithm and with A* directed by the straight line distance between
+   * the grid positions of the nodes. Every grid edge has length 1 and costs at least 1, so the top
+   * speed of the heuristic is 1.
+   */
+  private static void aStarBenchmark(int side) {
+    System.out.println("== A* on a " + side + "x" + side + " grid ==");
+    InstrumentedGraph graph = new InstrumentedGraph();
+    buildGrid(graph, side, 42);
+    MapADT<Integer, double[]> positions = new OpenAddressingMap<>();
+    for (int i = 0; i < side * side; i++) {
+      positions.put(i, new double[] {i % side, i / side});
+    }
+    SearchHeuristic<Integer> straightLine = new StraightLineHeuristic<>(positions, 1.0);
+    int[][] queries = randomQueries(side * side, 100, 7);
+
+    for (boolean directed : new boolean[] {false, true}) {
+      graph.setHeuristic(directed ? straightLine : null);
+      String name = directed ? "A* straight line" : "Dijkstra";
+      measure("DijkstraGraph shortestPathData " + name, queries.length, () -> {
+        for (int[] query : queries) {
+          graph.shortestPathData(query[0], query[1]);
+        }
+      });
+      long settledTotal = 0;
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+        settledTotal += graph.lastSettledCount();
+      }
+      System.out.printf("    average settled nodes: %d%n", settledTotal / queries.length);
+    }
+  }
+
+  /**
+   * Measures how long it takes to build a LandmarkHeuristic with 8 landmarks, to write it out and
+   * to read it back, and compares the time and number of settled nodes of random queries with
+   * Dijkstra's algorithm and with A* directed by the landmarks, on campus.dot and on a grid.
+   */
+  private static void landmarkBenchmark() throws IOException {
+    System.out.println("== landmarks on " + campusFile() + " ==");
+    DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+    new Backend(campus).loadGraphData(campusFile());
+    List<String> locations = campus.getAllNodes();
+    int[][] campusQueries = randomQueries(locations.size(), 1000, 7);
+    LandmarkHeuristic<String> campusLandmarks = buildLandmarks(campus);
+    for (boolean directed : new boolean[] {false, true}) {
+      campus.setHeuristic(directed ? campusLandmarks : null);
+      measure("DijkstraGraph shortestPathData " + (directed ? "ALT" : "Dijkstra"),
+          campusQueries.length, () -> {
+            for (int[] query : campusQueries) {
+              pathOrNull(campus, locations.get(query[0]), locations.get(query[1]));
+            }
+          });
+    }
+
+    System.out.println("== landmarks on a 300x300 grid ==");
+    InstrumentedGraph grid = new InstrumentedGraph();
+    buildGrid(grid, 300, 42);
+    int[][] queries = randomQueries(300 * 300, 100, 7);
+    LandmarkHeuristic<Integer> gridLandmarks = buildLandmarks(grid);
+    for (boolean directed : new boolean[] {false, true}) {
+      grid.setHeuristic(directed ? gridLandmarks : null);
+      measure("DijkstraGraph shortestPathData " + (directed ? "ALT" : "Dijkstra"), queries.length,
+          () -> {
+            for (int[] query : queries) {
+              grid.shortestPathData(query[0], query[1]);
+            }
+          });
+      long settledTotal = 0;
+      for (int[] query : queries) {
+        grid.shortestPathData(query[0], query[1]);
+        settledTotal += grid.lastSettledCount();
+      }
+      System.out.printf("    average settled nodes: %d%n", settledTotal / queries.length);
+    }
+  }
+
+  // builds, writes and reads back the landmarks of graph, reporting the time of each step
+  private static <NodeType> LandmarkHeuristic<NodeType> buildLandmarks(
+      DijkstraGraph<NodeType, Double> graph) throws IOException {
+    long start = System.nanoTime();
+    LandmarkHeuristic<NodeType> landmarks = LandmarkHeuristic.build(graph, 8);
+    long built = System.nanoTime();
+    java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+    landmarks.write(bytes);
+    long written = System.nanoTime();
+    landmarks = LandmarkHeuristic.read(new java.io.ByteArrayInputStream(bytes.toByteArray()),
+        graph);
+    long read = System.nanoTime();
+    System.out.printf("    built in %.1f ms, wrote %d bytes in %.1f ms, read in %.1f ms%n",
+        (built - start) / 1e6, bytes.size(), (written - built) / 1e6, (read - written) / 1e6);
+    return landmarks;
+  }
+
+  /**
+   * Measures how long it takes to build the ContractionHierarchy of a side x side grid, and
+   * compares its shortestPathCost and shortestPathData queries with those of CsrDijkstra.
+   */
+  private static void hierarchyBenchmark(int side) {
+    System.out.println("== contraction hierarchy of a " + side + "x" + side + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    CsrGraph<Integer> frozen = graph.freeze();
+    long start = System.nanoTime();
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(frozen);
+    System.out.printf("    built in %.1f s with %d shortcuts for %d edges%n",
+        (System.nanoTime() - start) / 1e9, hierarchy.getShortcutCount(), frozen.getEdgeCount());
+    CsrDijkstra<Integer> dijkstra = new CsrDijkstra<>(frozen);
+    int[][] queries = randomQueries(side * side, 1000, 7);
+
+    measure("CsrDijkstra shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        dijkstra.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("ContractionHierarchy shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        hierarchy.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("ContractionHierarchy shortestPathData", queries.length, () -> {
+      for (int[] query : queries) {
+        hierarchy.shortestPathData(query[0], query[1]);
+      }
+    });
+  }
+
+  /**
+   * Measures how long it takes to partition and customize the OverlayGraph of a side x side grid,
+   * and to customize batches of weight updates spread over the whole grid, and compares its
+   * shortestPathCost and shortestPathData queries with those of DijkstraGraph.
+   */
+  private static void overlayBenchmark(int side) {
+    System.out.println("== overlay graph of a " + side + "x" + side + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    long start = System.nanoTime();
+    OverlayGraph<Integer> overlay = OverlayGraph.build(graph, 64, 1024);
+    System.out.printf("    built in %.1f s with %d and %d cells%n",
+        (System.nanoTime() - start) / 1e9, overlay.getCellCount(0), overlay.getCellCount(1));
+    start = System.nanoTime();
+    overlay.customizeAll();
+    System.out.printf("    customized every cell in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+    Random random = new Random(11);
+    for (int batch : new int[] {1, 100, 1000}) {
+      for (int i = 0; i < batch; i++) {
+        int node = random.nextInt(side * side - 1);
+        int next = node % side + 1 < side ? node + 1 : node - 1;
+        graph.insertEdge(node, next, 1 + 9 * random.nextDouble());
+        overlay.edgeUpdated(node, next);
+      }
+      start = System.nanoTime();
+      int cells = overlay.customize();
+      System.out.printf("    customized %d updates in %.1f ms (%d cells)%n", batch,
+          (System.nanoTime() - start) / 1e6, cells);
+    }
+
+    int[][] queries = randomQueries(side * side, 200, 7);
+    measure("DijkstraGraph shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        graph.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("OverlayGraph shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        overlay.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("OverlayGraph shortestPathData", queries.length, () -> {
+      for (int[] query : queries) {
+        overlay.shortestPathData(query[0], query[1]);
+      }
+    });
+  }
+
+  /**
+   * Measures count x count distance matrices between random nodes of a side x side grid, computed
+   * with one shortestPathCost call per pair, with one search per source through
+   * Backend.distanceMatrix, and with the buckets of a ContractionHierarchy.
+   */
+  private static void matrixBenchmark(int side, int count) {
+    System.out.println("== " + count + "x" + count + " distance matrix on a " + side + "x" + side
+        + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    Backend backend = new Backend(nameGrid(graph, side));
+    ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(graph.freeze());
+
+    int[][] pairs = randomQueries(side * side, count, 7);
+    List<Integer> sources = new java.util.ArrayList<>();
+    List<Integer> targets = new java.util.ArrayList<>();
+    for (int[] pair : pairs) {
+      sources.add(pair[0]);
+      targets.add(pair[1]);
+    }
+    List<String> sourceNames = sources.stream().map(String::valueOf).toList();
+    List<String> targetNames = targets.stream().map(String::valueOf).toList();
+
+    measure("pairwise shortestPathCost", 1, () -> {
+      for (int source : sources) {
+        for (int target : targets) {
+          graph.shortestPathCost(source, target);
+        }
+      }
+    });
+    measure("Backend distanceMatrix", 1, () -> backend.distanceMatrix(sourceNames, targetNames));
+    measure("ContractionHierarchy distanceMatrix", 1,
+        () -> hierarchy.distanceMatrix(sources, targets));
+  }
+
+  /**
+   * Compares shortestPathCost, shortestPath and costsFrom on a side x side grid whose weights are
+   * whole numbers of tenths, between CsrDijkstra over those weights as doubles and IntCsrDijkstra
+   * over them as ints.
+   */
+  private static void intWeightBenchmark(int side) {
+    System.out.println("== int weights on a " + side + "x" + side + " grid ==");
+    CsrGraph<Integer> grid = buildCsrGrid(side, 42);
+    CsrGraph.Builder<Integer> builder = new CsrGraph.Builder<>(side * side, grid.getEdgeCount());
+    for (int u = 0; u < grid.getNodeCount(); u++) {
+      builder.addNode(grid.dataOf(u));
+    }
+    for (int u = 0; u < grid.getNodeCount(); u++) {
+      for (int e = grid.firstEdge(u); e < grid.endEdge(u); e++) {
+        builder.addEdge(u, grid.target(e), Math.rint(grid.weight(e) * 10));
+      }
+    }
+    CsrGraph<Integer> whole = builder.build();
+    CsrDijkstra<Integer> doubles = new CsrDijkstra<>(whole);
+    IntCsrDijkstra<Integer> ints = new IntCsrDijkstra<>(new IntCsrGraph<>(whole));
+    int[][] queries = randomQueries(side * side, 200, 7);
+
+    measure("CsrDijkstra shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        doubles.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("IntCsrDijkstra shortestPathCost", queries.length, () -> {
+      for (int[] query : queries) {
+        ints.shortestPathCost(query[0], query[1]);
+      }
+    });
+    measure("CsrDijkstra shortestPath", queries.length, () -> {
+      for (int[] query : queries) {
+        doubles.shortestPath(query[0], query[1]);
+      }
+    });
+    measure("IntCsrDijkstra shortestPathLegs", queries.length, () -> {
+      for (int[] query : queries) {
+        ints.shortestPathLegs(query[0], query[1]);
+      }
+    });
+    measure("CsrDijkstra costsFrom", 20, () -> {
+      for (int i = 0; i < 20; i++) {
+        doubles.costsFrom(queries[i][0]);
+      }
+    });
+    measure("IntCsrDijkstra costsFrom", 20, () -> {
+      for (int i = 0; i < 20; i++) {
+        ints.costsFrom(queries[i][0]);
+      }
+    });
+  }
+
+  /**
+   * Compares loading a .dot file of a side x side grid into a Backend with opening a snapshot of
+   * the same graph as a MappedGraph, and shortestPathCost queries on the loaded DijkstraGraph and
+   * on the mapped snapshot, without and with 8 landmarks.
+   */
+  private static void mappedBenchmark(int side) throws IOException {
+    System.out.println("== snapshots of a " + side + "x" + side + " grid ==");
+    File dot = writeGridDot(side, 42);
+    java.nio.file.Path plain = java.nio.file.Files.createTempFile("grid", ".snapshot");
+    java.nio.file.Path directed = java.nio.file.Files.createTempFile("grid", ".snapshot");
+    try {
+      DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+      Backend backend = new Backend(graph);
+      measure("Backend loadGraphData", 1, () -> load(backend, dot.getPath()));
+      MappedGraph.write(graph, plain, true, 0);
+      MappedGraph.write(graph, directed, true, 8);
+      System.out.printf("    %.1f MB of .dot, %.1f MB of snapshot, %.1f MB with landmarks%n",
+          dot.length() / 1e6, java.nio.file.Files.size(plain) / 1e6,
+          java.nio.file.Files.size(directed) / 1e6);
+      measure("MappedGraph open", 1, () -> {
+        try {
+          MappedGraph.open(plain);
+        } catch (IOException e) {
+          throw new java.io.UncheckedIOException(e);
+        }
+      });
+
+      MappedGraph mapped = MappedGraph.open(plain);
+      MappedGraph landmarks = MappedGraph.open(directed);
+      int[][] queries = randomQueries(side * side, 200, 7);
+      String[][] names = new String[queries.length][];
+      for (int i = 0; i < queries.length; i++) {
+        names[i] = new String[] {"node " + queries[i][0], "node " + queries[i][1]};
+      }
+      measure("DijkstraGraph shortestPathCost", names.length, () -> {
+        for (String[] query : names) {
+          graph.shortestPathCost(query[0], query[1]);
+        }
+      });
+      measure("MappedGraph shortestPathCost", names.length, () -> {
+        for (String[] query : names) {
+          mapped.shortestPathCost(query[0], query[1]);
+        }
+      });
+      measure("MappedGraph shortestPathCost, 8 landmarks", names.length, () -> {
+        for (String[] query : names) {
+          landmarks.shortestPathCost(query[0], query[1]);
+        }
+      });
+    } finally {
+      dot.delete();
+      java.nio.file.Files.deleteIfExists(plain);
+      java.nio.file.Files.deleteIfExists(directed);
+    }
+  }
+
+  /**
+   * Compares loading a .dot file of a side x side grid into a Backend over a DijkstraGraph and over
+   * an OffHeapGraph, the heap that stays in use once each graph is loaded, and shortestPathCost
+   * and shortestPath queries on both.
+   */
+  private static void offHeapBenchmark(int side) throws IOException {
+    System.out.println("== off-heap storage of a " + side + "x" + side + " grid ==");
+    File dot = writeGridDot(side, 42);
+    try {
+      long baseline = usedHeap();
+      DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+      measure("Backend loadGraphData, DijkstraGraph", 1,
+          () -> load(new Backend(graph), dot.getPath()));
+      long onHeap = usedHeap() - baseline;
+      OffHeapGraph offHeap = new OffHeapGraph(side * side);
+      measure("Backend loadGraphData, OffHeapGraph", 1,
+          () -> load(new Backend(offHeap), dot.getPath()));
+      long offHeapHeap = Math.max(0, usedHeap() - baseline - onHeap); // within the noise of gc
+      System.out.printf("    DijkstraGraph %.1f MB of heap, OffHeapGraph %.1f MB of heap and %.1f"
+          + " MB of direct memory%n", onHeap / 1e6, offHeapHeap / 1e6,
+          offHeap.getOffHeapBytes() / 1e6);
+
+      int[][] queries = randomQueries(side * side, 200, 7);
+      String[][] names = new String[queries.length][];
+      for (int i = 0; i < queries.length; i++) {
+        names[i] = new String[] {"node " + queries[i][0], "node " + queries[i][1]};
+      }
+      measure("DijkstraGraph shortestPathCost", names.length, () -> {
+        for (String[] query : names) {
+          graph.shortestPathCost(query[0], query[1]);
+        }
+      });
+      measure("OffHeapGraph shortestPathCost", names.length, () -> {
+        for (String[] query : names) {
+          offHeap.shortestPathCost(query[0], query[1]);
+        }
+      });
+      measure("DijkstraGraph shortestPath", names.length, () -> {
+        for (String[] query : names) {
+          graph.shortestPath(query[0], query[1]);
+        }
+      });
+      measure("OffHeapGraph shortestPath", names.length, () -> {
+        for (String[] query : names) {
+          offHeap.shortestPath(query[0], query[1]);
+        }
+      });
+    } finally {
+      dot.delete();
+    }
+  }
+
+  // bytes of heap in use after collecting garbage
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Measures kShortestPaths between random nodes of a side x side grid for k from 1 to 20, next to
+   * a single shortestPathData query.
+   */
+  private static void kPathsBenchmark(int side) {
+    System.out.println("== k shortest paths on a " + side + "x" + side + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    int[][] queries = randomQueries(side * side, 20, 7);
+
+    measure("shortestPathData", queries.length, () -> {
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+      }
+    });
+    for (int k : new int[] {1, 5, 10, 20}) {
+      measure("kShortestPaths, k = " + k, queries.length, () -> {
+        for (int[] query : queries) {
+          graph.kShortestPaths(query[0], query[1], k);
+        }
+      });
+    }
+  }
+
+  /**
+   * Compares answering 2000 queries from 50 starts of a side x side grid one at a time with
+   * Backend.findLocationsOnShortestPath, and as one batch with a BatchQueryEngine on all cores.
+   */
+  private static void batchBenchmark(int side) {
+    System.out.println("== batch of shortest path queries on a " + side + "x" + side
+        + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    Backend backend = new Backend(nameGrid(graph, side));
+    int[][] pairs = randomQueries(side * side, 2000, 7);
+    List<BatchQueryEngine.Query> queries = new java.util.ArrayList<>();
+    for (int[] pair : pairs) {
+      queries.add(new BatchQueryEngine.Query(Integer.toString(pair[0] % 50),
+          Integer.toString(pair[1])));
+    }
+
+    measure("Backend findLocationsOnShortestPath", queries.size(), () -> {
+      for (BatchQueryEngine.Query query : queries) {
+        backend.findLocationsOnShortestPath(query.start, query.end);
+      }
+    });
+    int threads = Runtime.getRuntime().availableProcessors();
+    try (BatchQueryEngine engine = new BatchQueryEngine(backend, threads)) {
+      measure("BatchQueryEngine, " + threads + " threads", queries.size(), () -> {
+        try {
+          engine.run(queries.iterator(), result -> {
+          });
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Measures how long a shortest path tree of a side x side grid takes to build, and compares
+   * shortestPathData queries from four popular starts to random ends with and without the graph
+   * keeping their trees.
+   */
+  private static void treeBenchmark(int side) {
+    System.out.println("== shortest path trees on a " + side + "x" + side + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    buildGrid(graph, side, 42);
+    int[][] queries = randomQueries(side * side, 1000, 7);
+    for (int[] query : queries) {
+      query[0] = query[0] % 4; // every query starts from one of nodes 0 to 3
+    }
+
+    graph.setTreeCacheSize(0);
+    measure("DijkstraGraph shortestPathTree", 10, () -> {
+      for (int start = 0; start < 10; start++) {
+        graph.shortestPathTree(start);
+      }
+    });
+    measure("shortestPathData, no kept trees", queries.length, () -> {
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+      }
+    });
+    graph.setTreeCacheSize(8);
+    for (int start = 0; start < 4; start++) {
+      graph.shortestPathTree(start);
+    }
+    measure("shortestPathData, kept trees", queries.length, () -> {
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+      }
+    });
+  }
+
+  /**
+   * Measures one to all costs from the corner of a grid with about nodes nodes, computed
+   * sequentially by CsrDijkstra and in parallel by DeltaStepping with deltas of 1, 5 and 25 (the
+   * edge weights are between 1 and 10), on the common ForkJoinPool.
+   */
+  private static void deltaBenchmark(int nodes) {
+    int side = (int) Math.ceil(Math.sqrt(nodes));
+    System.out.println("== one to all costs on a " + side + "x" + side + " grid, "
+        + java.util.concurrent.ForkJoinPool.commonPool().getParallelism() + " worker threads ==");
+    long start = System.nanoTime();
+    CsrGraph<Integer> graph = buildCsrGrid(side, 42);
+    System.out.printf("    built in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    int runs = Math.max(1, 1_000_000 / nodes);
+
+    CsrDijkstra<Integer> dijkstra = new CsrDijkstra<>(graph);
+    double[] expected = dijkstra.costsFrom(0);
+    measure("CsrDijkstra costsFrom", runs, () -> {
+      for (int i = 0; i < runs; i++) {
+        dijkstra.costsFrom(0);
+      }
+    });
+    for (double delta : new double[] {1.0, 5.0, 25.0}) {
+      DeltaStepping<Integer> engine =
+          new DeltaStepping<>(graph, delta, java.util.concurrent.ForkJoinPool.commonPool());
+      if (!java.util.Arrays.equals(expected, engine.costsFrom(0))) {
+        throw new IllegalStateException("DeltaStepping found different costs");
+      }
+      measure("DeltaStepping costsFrom, delta " + delta, runs, () -> {
+        for (int i = 0; i < runs; i++) {
+          engine.costsFrom(0);
+        }
+      });
+    }
+  }
+
+  /**
+   * Measures shortestPathData between random pairs of locations in campus.dot.
+   */
+  private static void campusBenchmark() throws IOException {
+    System.out.println("== shortestPathData on " + campusFile() + " ==");
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData(campusFile());
+    List<String> locations = graph.getAllNodes();
+    int[][] queries = randomQueries(locations.size(), 1000, 7);
+    measure("DijkstraGraph shortestPathData", queries.length, () -> {
+      for (int[] query : queries) {
+        pathOrNull(graph, locations.get(query[0]), locations.get(query[1]));
+      }
+    });
+  }
+
+  /**
+   * Measures shortestPathData between random pairs of nodes of a grid with about nodes nodes. The
+   * number of queries shrinks as the grid grows, so that every size takes a similar time.
+   */
+  private static void syntheticBenchmark(int nodes) {
+    int side = (int) Math.ceil(Math.sqrt(nodes));
+    System.out.println("== shortestPathData on a " + side + "x" + side + " grid ==");
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    long start = System.nanoTime();
+    buildGrid(graph, side, 42);
+    System.out.printf("    built in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    int[][] queries = randomQueries(side * side, Math.max(2, Math.min(200, 2_000_000 / nodes)), 7);
+    measure("DijkstraGraph shortestPathData", queries.length, () -> {
+      for (int[] query : queries) {
+        graph.shortestPathData(query[0], query[1]);
+      }
+    });
+  }
+
+  /**
+   * Measures loading campus.dot and a synthetic .dot file of a 100x100 grid into a Backend, and
+   * getReachableFromWithin from every campus location.
+   */
+  private static void backendBenchmark() throws IOException {
+    System.out.println("== backend ==");
+    String campus = campusFile();
+    Backend backend = new Backend(new DijkstraGraph<>());
+    measure("Backend loadGraphData campus", 1, () -> load(backend, campus));
+
+    File grid = writeGridDot(100, 42);
+    try {
+      Backend gridBackend = new Backend(new DijkstraGraph<>());
+      measure("Backend loadGraphData 100x100 grid", 1, () -> load(gridBackend, grid.getPath()));
+    } finally {
+      grid.delete();
+    }
+
+    List<String> locations = backend.getListOfAllLocations();
+    for (double seconds : new double[] {300, 1200}) {
+      measure("Backend getReachableFromWithin " + (int) seconds + "s", locations.size(), () -> {
+        for (String location : locations) {
+          backend.getReachableFromWithin(location, seconds);
+        }
+      });
+    }
+  }
+
+  /**
+   * Measures generating the HTML responses of the Frontend, including the searches the Backend
+   * runs to answer them.
+   */
+  private static void frontendBenchmark() throws IOException {
+    System.out.println("== frontend ==");
+    Backend backend = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData(campusFile());
+    Frontend frontend = new Frontend(backend);
+    List<String> locations = backend.getListOfAllLocations();
+    int[][] queries = randomQueries(locations.size(), 200, 7);
+    measure("Frontend shortest path HTML", queries.length, () -> {
+      for (int[] query : queries) {
+        frontend.generateShortestPathResponseHTML(locations.get(query[0]),
+            locations.get(query[1]));
+      }
+    });
+    measure("Frontend reachable within HTML", locations.size(), () -> {
+      for (String location : locations) {
+        frontend.generateReachableFromWithinResponseHTML(location, 600);
+      }
+    });
+  }
+
+  // the .dot file that the campus benchmarks load
+  private static String campusFile() {
+    return System.getProperty("benchmarks.campus", "campus.dot");
+  }
+
+  // loads filename into backend, turning a failure into an unchecked exception
+  private static void load(Backend backend, String filename) {
+    try {
+      backend.loadGraphData(filename);
+    } catch (IOException e) {
+      throw new java.io.UncheckedIOException(e);
+    }
+  }
+
+  // finds the shortest path between two nodes, or returns null when there is none
+  private static <NodeType> List<NodeType> pathOrNull(DijkstraGraph<NodeType, Double> graph,
+      NodeType start, NodeType end) {
+    try {
+      return graph.shortestPathData(start, end);
+    } catch (java.util.NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the grid that buildGrid would build to a temporary .dot file in the format of
+   * campus.dot, with nodes named "node 0", "node 1" and so on.
+   */
+  static File writeGridDot(int side, long seed) throws IOException {
+    File file = File.createTempFile("grid", ".dot");
+    Random random = new Random(seed);
+    try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+      out.println("digraph grid {");
+      for (int row = 0; row < side; row++) {
+        for (int col = 0; col < side; col++) {
+          int node = row * side + col;
+          if (col + 1 < side) {
+            writeDotEdge(out, node, node + 1, 1 + 9 * random.nextDouble());
+            writeDotEdge(out, node + 1, node, 1 + 9 * random.nextDouble());
+          }
+          if (row + 1 < side) {
+            writeDotEdge(out, node, node + side, 1 + 9 * random.nextDouble());
+            writeDotEdge(out, node + side, node, 1 + 9 * random.nextDouble());
+          }
+        }
+      }
+      out.println("}");
+    }
+    return file;
+  }
+
+  // writes one edge line in the format of campus.dot
+  private static void writeDotEdge(PrintWriter out, int pred, int succ, double seconds) {
+    out.println("\t\"node " + pred + "\" -> \"node " + succ + "\" [seconds=" + seconds + "];");
+  }
+
+  /**
+   * Adds a side x side grid of nodes to graph, numbered row by row, in which every node has an
+   * edge to and from each of its horizontal and vertical neighbours. Edge weights are random
+   * between 1 and 10.
+   */
+  static void buildGrid(DijkstraGraph<Integer, Double> graph, int side, long seed) {
+    Random random = new Random(seed);
+    for (int i = 0; i < side * side; i++) {
+      graph.insertNode(i);
+    }
+    for (int row = 0; row < side; row++) {
+      for (int col = 0; col < side; col++) {
+        int node = row * side + col;
+        if (col + 1 < side) {
+          graph.insertEdge(node, node + 1, 1 + 9 * random.nextDouble());
+          graph.insertEdge(node + 1, node, 1 + 9 * random.nextDouble());
+        }
+        if (row + 1 < side) {
+          graph.insertEdge(node, node + side, 1 + 9 * random.nextDouble());
+          graph.insertEdge(node + side, node, 1 + 9 * random.nextDouble());
+        }
+      }
+    }
+  }
+
+  // builds the same grid as buildGrid straight into a CsrGraph, without the objects of a BaseGraph
+  static CsrGraph<Integer> buildCsrGrid(int side, long seed) {
+    Random random = new Random(seed);
+    CsrGraph.Builder<Integer> builder = new CsrGraph.Builder<>(side * side, 4 * side * side);
+    for (int i = 0; i < side * side; i++) {
+      builder.addNode(i);
+    }
+    for (int row = 0; row < side; row++) {
+      for (int col = 0; col < side; col++) {
+        int node = row * side + col;
+        if (col + 1 < side) {
+          builder.addEdge(node, node + 1, 1 + 9 * random.nextDouble());
+          builder.addEdge(node + 1, node, 1 + 9 * random.nextDouble());
+        }
+        if (row + 1 < side) {
+          builder.addEdge(node, node + side, 1 + 9 * random.nextDouble());
+          builder.addEdge(node + side, node, 1 + 9 * random.nextDouble());
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  // copies the grid built by buildGrid into a graph whose nodes are named by their numbers
+  static DijkstraGraph<String, Double> nameGrid(DijkstraGraph<Integer, Double> graph, int side) {
+    DijkstraGraph<String, Double> named = new DijkstraGraph<>();
+    for (int i = 0; i < side * side; i++) {
+      named.insertNode(Integer.toString(i));
+    }
+    for (int i = 0; i < side * side; i++) {
+      for (int j : new int[] {i + 1, i - 1, i + side, i - side}) {
+        if (graph.containsEdge(i, j)) {
+          named.insertEdge(Integer.toString(i), Integer.toString(j), graph.getEdge(i, j));
+        }
+      }
+    }
+    return named;
+  }
+
+  // returns count random (start, end) pairs of node numbers below nodeCount
+  static int[][] randomQueries(int nodeCount, int count, long seed) {
+    Random random = new Random(seed);
+    int[][] queries = new int[count][];
+    for (int i = 0; i < count; i++) {
+      queries[i] = new int[] {random.nextInt(nodeCount), random.nextInt(nodeCount)};
+    }
+    return queries;
+  }
+
+  /**
+   * Runs operation for a few warm up rounds, then for a few measured rounds, and prints the
+   * average time and allocation per single operation, where each run of operation performs
+   * operationsPerRun operations, followed by the garbage collections of the measured rounds.
+   */
+  static void measure(String name, int operationsPerRun, Runnable operation) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      operation.run();
+    }
+    long bytesBefore = allocatedBytes();
+    long collectionsBefore = gcCount();
+    long gcMillisBefore = gcMillis();
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      operation.run();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = allocatedBytes() - bytesBefore;
+    long operations = (long) operationsPerRun * MEASURED_ROUNDS;
+    System.out.printf("%-40s %12.1f us/op %14d B/op %5d gc %6d ms%n", name,
+        elapsed / 1000.0 / operations, allocated / operations, gcCount() - collectionsBefore,
+        gcMillis() - gcMillisBefore);
+  }
+
+  // total number of garbage collections so far, over every collector
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+
+  // total time spent in garbage collection so far, over every collector
+  private static long gcMillis() {
+    long millis = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      millis += Math.max(0, collector.getCollectionTime());
+    }
+    return millis;
+  }
+
+  // bytes allocated so far by the current thread, or 0 when the JVM cannot report it
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  /**
+   * A DijkstraGraph that records the largest size its priority queue reaches.
+   */
+  static class InstrumentedGraph extends DijkstraGraph<Integer, Double> {
+    private int peakQueueSize = 0; // peak of the most recent LAZY search
+
+    @Override
+    protected PriorityQueue<SearchNode> newSearchQueue() {
+      peakQueueSize = 0;
+      return new PriorityQueue<SearchNode>() {
+        @Override
+        public boolean offer(SearchNode node) {
+          boolean added = super.offer(node);
+          peakQueueSize = Math.max(peakQueueSize, size());
+          return added;
+        }
+      };
+    }
+
+    // the number of nodes settled by the most recent indexed search
+    int lastSettledCount() {
+      int settled = workspaces.get().settledCount();
+      return bidirectional ? settled + reverseWorkspaces.get().settledCount() : settled;
+    }
+
+    // the largest size reached by the queue of the most recent search
+    int lastPeakQueueSize() {
+      // the indexed searches leave their queue in this thread's workspace
+      return queueStrategy == QueueStrategy.LAZY ? peakQueueSize
+          : workspaces.get().queue().peakSize();
+    }
+  }
+}
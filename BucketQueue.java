@@ -0,0 +1,96 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A monotone min-queue of ids with non-negative long keys for Dijkstra's algorithm over whole
+ * number weights no larger than a known maximum (Dial's algorithm). While a search runs, every key
+ * in the queue lies between the last key polled and that key plus the largest weight, so the
+ * queue keeps one bucket per key in that window, in a circular array, and an id is filed in the
+ * bucket of its key without storing the key at all. Adds cost O(1), and polls move a cursor over
+ * the buckets, so all the polls of a search together cost at most the largest cost it settles.
+ */
+public class BucketQueue implements MonotoneIntQueue {
+
+  private final int span; // the number of buckets, one more than the largest step between keys
+  private final int[][] ids; // ids[b] holds the ids in bucket b
+  private final int[] sizes;
+  private int cursor = 0; // the bucket of the smallest key
+  private long current = 0; // the smallest key that may still be in the queue
+  private int size = 0;
+
+  /**
+   * Creates an empty queue.
+   *
+   * @param maxStep the largest amount by which a key added may exceed the last key polled
+   */
+  public BucketQueue(int maxStep) {
+    this.span = maxStep + 1;
+    this.ids = new int[span][];
+    this.sizes = new int[span];
+    for (int b = 0; b < span; b++) {
+      ids[b] = new int[2];
+    }
+  }
+
+  @Override
+  public void add(int id, long key) {
+    if (key < current || key - current >= span) {
+      throw new IllegalArgumentException("Key " + key + " lies outside of " + current + " .. "
+          + (current + span - 1) + ".");
+    }
+    int bucket = cursor + (int) (key - current);
+    if (bucket >= span) {
+      bucket -= span;
+    }
+    int at = sizes[bucket]++;
+    if (at == ids[bucket].length) {
+      ids[bucket] = Arrays.copyOf(ids[bucket], at * 2);
+    }
+    ids[bucket][at] = id;
+    size++;
+  }
+
+  @Override
+  public long minKey() {
+    advance();
+    return current;
+  }
+
+  @Override
+  public int pollMin() {
+    advance();
+    size--;
+    return ids[cursor][--sizes[cursor]];
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    if (size > 0) {
+      Arrays.fill(sizes, 0);
+    }
+    size = 0;
+    cursor = 0;
+    current = 0;
+  }
+
+  // moves the cursor to the first bucket that holds ids
+  private void advance() {
+    if (size == 0) {
+      throw new NoSuchElementException("The queue is empty.");
+    }
+    while (sizes[cursor] == 0) {
+      cursor = cursor + 1 == span ? 0 : cursor + 1;
+      current++;
+    }
+  }
+}
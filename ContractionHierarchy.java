@@ -0,0 +1,844 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A ContractionHierarchy answers shortest path queries on a CsrGraph after a one time
+ * preprocessing step, and is meant for large maps where even a fast Dijkstra search takes too long.
+ *
+ * Preprocessing contracts the nodes one at a time, in order of importance: when a node v is
+ * contracted, it is removed from the remaining graph, and a shortcut edge u -> w with the cost of
+ * u -> v -> w is added for each pair of remaining neighbors whose shortest path went through v. A
+ * short witness search from u checks whether some other path is at least as cheap, in which case
+ * the shortcut is not needed. The order of contraction gives each node its rank. Nodes are picked
+ * by a lazily updated priority: twice the number of shortcuts contracting them adds minus the
+ * number of edges that contracting them removes, plus the number of their neighbors that are
+ * already contracted, so that contraction spreads evenly over the graph.
+ *
+ * The original edges and the shortcuts are then kept in two CSR arrays: the upward edges leaving
+ * each node towards nodes of higher rank, and the downward edges entering each node from nodes of
+ * higher rank. A query runs a forward search from the start over upward edges, and a backward
+ * search from the end over downward edges, so both searches only ever climb in rank and settle
+ * few nodes. Each shortcut remembers the node it bypasses, which is enough to unpack it back into
+ * the original edges, so paths are reported as the same node sequences that Dijkstra's algorithm
+ * finds (or another one of equal cost, when there are ties).
+ *
+ * The hierarchy describes the graph as it was when it was built, and is immutable. Each thread
+ * searches in its own pair of SearchWorkspaces, so one instance can be shared by many threads.
+ */
+public class ContractionHierarchy<NodeType> {
+
+  // witness searches give up after settling this many nodes, and keep the shortcut, with a lower
+  // limit for the searches that only estimate a node's priority
+  private static final int WITNESS_SETTLE_LIMIT = 200;
+  private static final int ESTIMATE_SETTLE_LIMIT = 20;
+
+  protected final CsrGraph<NodeType> graph; // the graph the hierarchy was built for
+  protected final int[] rank; // rank[v] is the position of v in the contraction order
+  protected final int shortcutCount; // number of edges that are shortcuts
+
+  // upward edges: the edges at indices upOffsets[u] .. upOffsets[u+1]-1 leave u for nodes of a
+  // higher rank
+  protected final int[] upOffsets;
+  protected final int[] upTargets;
+  protected final double[] upWeights;
+  protected final int[] upMiddles; // the bypassed node of each shortcut, or -1 for original edges
+  // downward edges: the edges at indices downOffsets[v] .. downOffsets[v+1]-1 enter v from nodes
+  // of a higher rank
+  protected final int[] downOffsets;
+  protected final int[] downSources;
+  protected final double[] downWeights;
+  protected final int[] downMiddles;
+
+  // the search state of each thread's forward and backward searches, reused from query to query
+  protected final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+  protected final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+  private ContractionHierarchy(CsrGraph<NodeType> graph, int[] rank, int shortcutCount,
+      int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddles, int[] downOffsets,
+      int[] downSources, double[] downWeights, int[] downMiddles) {
+    this.graph = graph;
+    this.rank = rank;
+    this.shortcutCount = shortcutCount;
+    this.upOffsets = upOffsets;
+    this.upTargets = upTargets;
+    this.upWeights = upWeights;
+    this.upMiddles = upMiddles;
+    this.downOffsets = downOffsets;
+    this.downSources = downSources;
+    this.downWeights = downWeights;
+    this.downMiddles = downMiddles;
+    int n = graph.getNodeCount();
+    this.forwardWorkspaces =
+        ThreadLocal.withInitial(() -> new SearchWorkspace(n, QueueStrategy.BINARY_HEAP));
+    this.backwardWorkspaces =
+        ThreadLocal.withInitial(() -> new SearchWorkspace(n, QueueStrategy.BINARY_HEAP));
+  }
+
+  /**
+   * Orders and contracts the nodes of graph, and lays out the resulting hierarchy for queries.
+   *
+   * @param graph the frozen graph to build a hierarchy for, see BaseGraph.freeze()
+   * @return the contraction hierarchy of graph
+   */
+  public static <NodeType> ContractionHierarchy<NodeType> build(CsrGraph<NodeType> graph) {
+    return new Contractor<>(graph).contractAll();
+  }
+
+  /**
+   * Returns the graph that this hierarchy was built for.
+   *
+   * @return the frozen graph
+   */
+  public CsrGraph<NodeType> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the number of shortcut edges that contraction added.
+   *
+   * @return the number of shortcuts
+   */
+  public int getShortcutCount() {
+    return shortcutCount;
+  }
+
+  /**
+   * Returns the position of a node in the contraction order, where less important nodes have lower
+   * ranks.
+   *
+   * @param data the data in a node of the graph
+   * @return the rank of that node, from 0 to getNodeCount()-1 of the graph
+   * @throws NoSuchElementException when data does not correspond to a graph node
+   */
+  public int rankOf(NodeType data) {
+    return rank[requireId(data)];
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node with
+   * the provided start value through the node with the provided end value. Shortcuts are unpacked,
+   * so every leg is an edge of the original graph.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    SearchWorkspace forward = forwardWorkspaces.get();
+    SearchWorkspace backward = backwardWorkspaces.get();
+    int meeting = search(source, target, forward, backward);
+
+    // the forward parent links lead back from meeting to source along upward edges
+    int upCount = 0;
+    for (int v = meeting; v != source; v = forward.parent(v)) {
+      upCount++;
+    }
+    int[] upNodes = new int[upCount]; // the node each upward edge enters
+    for (int i = upCount - 1, v = meeting; i >= 0; i--, v = forward.parent(v)) {
+      upNodes[i] = v;
+    }
+
+    PathBuilder path = new PathBuilder(source);
+    for (int v : upNodes) {
+      unpack(path, forward.parent(v), v, forward.parentEdge(v), true);
+    }
+    // the backward parent links lead from meeting on to target along downward edges
+    for (int v = meeting; v != target; v = backward.parent(v)) {
+      unpack(path, v, backward.parent(v), backward.parentEdge(v), false);
+    }
+
+    List<NodeType> nodes = new ArrayList<>(path.size);
+    for (int i = 0; i < path.size; i++) {
+      nodes.add(graph.dataOf(path.nodes[i]));
+    }
+    return new PathResult<>(nodes, Arrays.copyOf(path.legs, path.size - 1));
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to the node
+   * containing the end data, without unpacking any shortcuts.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public double shortestPathCost(NodeType start, NodeType end) {
+    SearchWorkspace forward = forwardWorkspaces.get();
+    SearchWorkspace backward = backwardWorkspaces.get();
+    int meeting = search(requireId(start), requireId(end), forward, backward);
+    return forward.dist(meeting) + backward.dist(meeting);
+  }
+
+  /**
+   * Returns the costs of the shortest paths from each source to each target, with the bucket based
+   * many to many algorithm. A full backward search over downward edges from each target leaves an
+   * entry (target, cost) in a bucket at every node it settles. A full forward search over upward
+   * edges from each source then scans the bucket of every node it settles, since the highest
+   * ranked node of every shortest path is settled by the searches from both of its ends. Both
+   * searches only climb in rank, so each settles few nodes, and the forward searches, which only
+   * read the buckets, run in parallel.
+   *
+   * @param sources the data items in the starting nodes for the paths
+   * @param targets the data items in the destination nodes for the paths
+   * @return matrix[i][j] is the cost from sources.get(i) to targets.get(j), or
+   *         Double.POSITIVE_INFINITY when there is no path
+   * @throws NoSuchElementException when any of the data does not correspond to a graph node
+   */
+  public double[][] distanceMatrix(List<NodeType> sources, List<NodeType> targets) {
+    int n = graph.getNodeCount();
+    int[] sourceIds = new int[sources.size()];
+    for (int i = 0; i < sourceIds.length; i++) {
+      sourceIds[i] = requireId(sources.get(i));
+    }
+    int[] targetIds = new int[targets.size()];
+    for (int j = 0; j < targetIds.length; j++) {
+      targetIds[j] = requireId(targets.get(j));
+    }
+
+    // collect the settled nodes of each backward search, then group the entries by node in CSR
+    // form, so that the entries at node v are at indices bucketOffsets[v] .. bucketOffsets[v+1]-1
+    SearchWorkspace backward = backwardWorkspaces.get();
+    int[][] settled = new int[targetIds.length][];
+    double[][] settledCosts = new double[targetIds.length][];
+    int[] bucketOffsets = new int[n + 1];
+    for (int j = 0; j < targetIds.length; j++) {
+      climb(targetIds[j], false, backward);
+      settled[j] = new int[backward.settledCount()];
+      settledCosts[j] = new double[settled[j].length];
+      for (int k = 0; k < settled[j].length; k++) {
+        settled[j][k] = backward.settledAt(k);
+        settledCosts[j][k] = backward.dist(settled[j][k]);
+        bucketOffsets[settled[j][k] + 1]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      bucketOffsets[v + 1] += bucketOffsets[v];
+    }
+    int[] next = Arrays.copyOf(bucketOffsets, n);
+    int[] bucketTargets = new int[bucketOffsets[n]];
+    double[] bucketCosts = new double[bucketOffsets[n]];
+    for (int j = 0; j < targetIds.length; j++) {
+      for (int k = 0; k < settled[j].length; k++) {
+        int slot = next[settled[j][k]]++;
+        bucketTargets[slot] = j;
+        bucketCosts[slot] = settledCosts[j][k];
+      }
+    }
+
+    double[][] matrix = new double[sourceIds.length][];
+    java.util.stream.IntStream.range(0, matrix.length).parallel().forEach(i -> {
+      double[] row = new double[targetIds.length];
+      Arrays.fill(row, Double.POSITIVE_INFINITY);
+      SearchWorkspace forward = forwardWorkspaces.get();
+      climb(sourceIds[i], true, forward);
+      for (int k = 0; k < forward.settledCount(); k++) {
+        int v = forward.settledAt(k);
+        double cost = forward.dist(v);
+        for (int b = bucketOffsets[v]; b < bucketOffsets[v + 1]; b++) {
+          row[bucketTargets[b]] = Math.min(row[bucketTargets[b]], cost + bucketCosts[b]);
+        }
+      }
+      matrix[i] = row;
+    });
+    return matrix;
+  }
+
+  // settles every node that source can reach over upward edges, or over downward edges backward
+  private void climb(int source, boolean up, SearchWorkspace workspace) {
+    workspace.reset(graph.getNodeCount(), QueueStrategy.BINARY_HEAP);
+    workspace.start(source);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(u);
+      if (up) {
+        for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+          workspace.relax(upTargets[e], cost + upWeights[e], u, e);
+        }
+      } else {
+        for (int e = downOffsets[u]; e < downOffsets[u + 1]; e++) {
+          workspace.relax(downSources[e], cost + downWeights[e], u, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the bidirectional hierarchy search between source and target. The two sides take turns
+   * settling one node each, and a side stops once the cheapest entry in its queue costs at least
+   * as much as the best path found so far, since every node it could still settle is then too
+   * expensive to be on a better path. Each node settled by one side that the other side has also
+   * reached is a candidate meeting node.
+   *
+   * @param source   the id of the start node
+   * @param target   the id of the destination node
+   * @param forward  the workspace of the search over upward edges from source
+   * @param backward the workspace of the search over downward edges from target
+   * @return the id of the node where the cheapest forward and backward paths meet
+   * @throws NoSuchElementException when target cannot be reached from source
+   */
+  protected int search(int source, int target, SearchWorkspace forward,
+      SearchWorkspace backward) {
+    int n = graph.getNodeCount();
+    forward.reset(n, QueueStrategy.BINARY_HEAP);
+    backward.reset(n, QueueStrategy.BINARY_HEAP);
+    forward.start(source);
+    backward.start(target);
+
+    double best = Double.POSITIVE_INFINITY; // cost of the cheapest path found so far
+    int meeting = -1; // the node that path goes through
+    boolean forwardTurn = true;
+    while (true) {
+      boolean forwardDone = forward.queue().isEmpty() || forward.queue().minKey() >= best;
+      boolean backwardDone = backward.queue().isEmpty() || backward.queue().minKey() >= best;
+      if (forwardDone && backwardDone) {
+        break;
+      }
+      boolean isForward = backwardDone || (!forwardDone && forwardTurn);
+      forwardTurn = !forwardTurn;
+
+      SearchWorkspace side = isForward ? forward : backward;
+      SearchWorkspace other = isForward ? backward : forward;
+      int u = side.settleNext();
+      if (u < 0) {
+        continue;
+      }
+      double cost = side.dist(u);
+      if (other.isReached(u) && cost + other.dist(u) < best) {
+        best = cost + other.dist(u);
+        meeting = u;
+      }
+      if (isForward) {
+        for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+          side.relax(upTargets[e], cost + upWeights[e], u, e);
+        }
+      } else {
+        for (int e = downOffsets[u]; e < downOffsets[u + 1]; e++) {
+          side.relax(downSources[e], cost + downWeights[e], u, e);
+        }
+      }
+    }
+    if (meeting < 0) {
+      throw new NoSuchElementException("No path from " + graph.dataOf(source) + " to "
+          + graph.dataOf(target) + " was found.");
+    }
+    return meeting;
+  }
+
+  /**
+   * Appends the original edges that a hierarchy edge stands for to path. Shortcuts are unpacked
+   * with an explicit stack, since hierarchies of large graphs can nest shortcuts deeply: a shortcut
+   * u -> w that bypasses m stands for the downward edge u -> m followed by the upward edge m -> w,
+   * which both belong to m.
+   *
+   * @param path the path to append to, which ends at from
+   * @param from the id of the node that the edge leaves
+   * @param to   the id of the node that the edge enters
+   * @param edge the index of the edge among the upward or the downward edges
+   * @param up   true for an upward edge, false for a downward one
+   */
+  protected void unpack(PathBuilder path, int from, int to, int edge, boolean up) {
+    // each stack entry is the ids of the nodes an edge leaves and enters, and the edge's index,
+    // stored as ~index for downward edges
+    int[] stack = path.stack;
+    int top = 0;
+    stack[top++] = from;
+    stack[top++] = to;
+    stack[top++] = up ? edge : ~edge;
+    while (top > 0) {
+      int encoded = stack[--top];
+      int w = stack[--top];
+      int u = stack[--top];
+      boolean isUp = encoded >= 0;
+      int e = isUp ? encoded : ~encoded;
+      int middle = isUp ? upMiddles[e] : downMiddles[e];
+      if (middle < 0) {
+        path.append(w, isUp ? upWeights[e] : downWeights[e]);
+        continue;
+      }
+      if (top + 6 > stack.length) {
+        stack = path.stack = Arrays.copyOf(stack, stack.length * 2);
+      }
+      // push the second half first, so that the first half is unpacked first
+      stack[top++] = middle;
+      stack[top++] = w;
+      stack[top++] = findUp(middle, w);
+      stack[top++] = u;
+      stack[top++] = middle;
+      stack[top++] = ~findDown(middle, u);
+    }
+  }
+
+  // returns the index of the upward edge from m to w
+  private int findUp(int m, int w) {
+    for (int e = upOffsets[m]; e < upOffsets[m + 1]; e++) {
+      if (upTargets[e] == w) {
+        return e;
+      }
+    }
+    throw new IllegalStateException("Missing upward edge from " + m + " to " + w);
+  }
+
+  // returns the index of the downward edge from u to m
+  private int findDown(int m, int u) {
+    for (int e = downOffsets[m]; e < downOffsets[m + 1]; e++) {
+      if (downSources[e] == u) {
+        return e;
+      }
+    }
+    throw new IllegalStateException("Missing downward edge from " + u + " to " + m);
+  }
+
+  // looks up the id of a node, throwing like DijkstraGraph does for missing or null data
+  protected int requireId(NodeType data) {
+    if (data == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    int id = graph.idOf(data);
+    if (id < 0) {
+      throw new NoSuchElementException("No node contains " + data + ".");
+    }
+    return id;
+  }
+
+  /**
+   * Collects the node ids and leg costs of an unpacked path, along with the stack that unpacking
+   * uses.
+   */
+  protected static class PathBuilder {
+    int[] nodes = new int[16];
+    double[] legs = new double[16];
+    int size = 1;
+    int[] stack = new int[16];
+
+    PathBuilder(int source) {
+      nodes[0] = source;
+    }
+
+    void append(int node, double leg) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+        legs = Arrays.copyOf(legs, size * 2);
+      }
+      legs[size - 1] = leg;
+      nodes[size++] = node;
+    }
+  }
+
+  /**
+   * Contracts the nodes of a graph one by one, keeping the edges between the nodes that are not
+   * contracted yet in growable adjacency lists, and records the edges each node has left when it
+   * is contracted, which are exactly its upward and downward edges.
+   */
+  private static class Contractor<NodeType> {
+    private final CsrGraph<NodeType> graph;
+    private final int n;
+    private final Adjacency out; // edges leaving each uncontracted node
+    private final Adjacency in; // edges entering each uncontracted node
+    private final boolean[] contracted;
+    private final int[] contractedNeighbors; // number of neighbors contracted before each node
+    private final double[] priority; // the latest priority each node was queued with
+    private final SearchWorkspace witness;
+    private final boolean[] isTarget; // marks the nodes the current witness search looks for
+    private int shortcutCount = 0;
+
+    private Contractor(CsrGraph<NodeType> graph) {
+      this.graph = graph;
+      this.n = graph.getNodeCount();
+      this.out = new Adjacency(n);
+      this.in = new Adjacency(n);
+      this.contracted = new boolean[n];
+      this.contractedNeighbors = new int[n];
+      this.priority = new double[n];
+      this.witness = new SearchWorkspace(n, QueueStrategy.BINARY_HEAP);
+      this.isTarget = new boolean[n];
+      // copy the graph, keeping only the cheapest of parallel edges and dropping self loops
+      for (int u = 0; u < n; u++) {
+        for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+          int v = graph.target(e);
+          if (v != u && out.lower(u, v, graph.weight(e), -1)) {
+            in.lower(v, u, graph.weight(e), -1);
+          }
+        }
+      }
+    }
+
+    private ContractionHierarchy<NodeType> contractAll() {
+      int[] rank = new int[n];
+      Adjacency up = new Adjacency(n);
+      Adjacency down = new Adjacency(n);
+
+      IntPriorityQueue queue = new LazyIntHeap(n);
+      for (int v = 0; v < n; v++) {
+        priority[v] = computePriority(v);
+        queue.insertOrDecrease(v, priority[v]);
+      }
+      int next = 0;
+      while (!queue.isEmpty()) {
+        double key = queue.minKey();
+        int v = queue.pollMin();
+        if (contracted[v] || key != priority[v]) {
+          continue; // a stale entry
+        }
+        // priorities go stale as neighbors are contracted, so check this one before using it
+        double fresh = computePriority(v);
+        if (fresh > key && !queue.isEmpty() && fresh > queue.minKey()) {
+          priority[v] = fresh;
+          queue.insertOrDecrease(v, fresh);
+          continue;
+        }
+
+        rank[v] = next++;
+        up.copyRow(v, out);
+        down.copyRow(v, in);
+        contract(v, false);
+        contracted[v] = true;
+        // take v out of the remaining graph before any neighbor's priority is estimated again
+        for (int i = 0; i < out.size[v]; i++) {
+          in.remove(out.targets[v][i], v);
+        }
+        for (int i = 0; i < in.size[v]; i++) {
+          out.remove(in.targets[v][i], v);
+        }
+        for (int i = 0; i < out.size[v]; i++) {
+          updateNeighbor(out.targets[v][i], v, queue);
+        }
+        for (int i = 0; i < in.size[v]; i++) {
+          if (out.find(v, in.targets[v][i]) < 0) { // neighbors both ways were updated already
+            updateNeighbor(in.targets[v][i], v, queue);
+          }
+        }
+        out.clear(v);
+        in.clear(v);
+      }
+
+      int[] upOffsets = up.offsets();
+      int[] downOffsets = down.offsets();
+      int upCount = upOffsets[n];
+      int downCount = downOffsets[n];
+      int[] upTargets = new int[upCount];
+      double[] upWeights = new double[upCount];
+      int[] upMiddles = new int[upCount];
+      int[] downSources = new int[downCount];
+      double[] downWeights = new double[downCount];
+      int[] downMiddles = new int[downCount];
+      up.layOut(upOffsets, upTargets, upWeights, upMiddles);
+      down.layOut(downOffsets, downSources, downWeights, downMiddles);
+      return new ContractionHierarchy<>(graph, rank, shortcutCount, upOffsets, upTargets,
+          upWeights, upMiddles, downOffsets, downSources, downWeights, downMiddles);
+    }
+
+    // counts v as a contracted neighbor of neighbor, and queues neighbor's new priority
+    private void updateNeighbor(int neighbor, int v, IntPriorityQueue queue) {
+      contractedNeighbors[neighbor]++;
+      priority[neighbor] = computePriority(neighbor);
+      queue.insertOrDecrease(neighbor, priority[neighbor]);
+    }
+
+    // twice the number of shortcuts contracting v would add minus the edges it removes, plus the
+    // number of v's neighbors that are already contracted
+    private double computePriority(int v) {
+      return 2 * (contract(v, true) - out.size[v] - in.size[v]) + contractedNeighbors[v];
+    }
+
+    /**
+     * Finds the shortcuts that contracting v needs, and adds them unless simulate is true.
+     *
+     * @return the number of shortcuts needed
+     */
+    private int contract(int v, boolean simulate) {
+      int needed = 0;
+      for (int i = 0; i < in.size[v]; i++) {
+        int u = in.targets[v][i];
+        double toV = in.weights[v][i];
+        double limit = -1.0;
+        for (int j = 0; j < out.size[v]; j++) {
+          if (out.targets[v][j] != u) {
+            limit = Math.max(limit, toV + out.weights[v][j]);
+          }
+        }
+        if (limit < 0.0) {
+          continue; // v leads nowhere but back to u
+        }
+        witnessSearch(u, v, limit, simulate ? ESTIMATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+        for (int j = 0; j < out.size[v]; j++) {
+          int w = out.targets[v][j];
+          double via = toV + out.weights[v][j];
+          if (w == u || witness.dist(w) <= via) {
+            continue; // some path that avoids v is at least as cheap
+          }
+          needed++;
+          if (!simulate && out.lower(u, w, via, v)) {
+            in.lower(w, u, via, v);
+            shortcutCount++;
+          }
+        }
+      }
+      return needed;
+    }
+
+    // runs Dijkstra's algorithm from u among the uncontracted nodes other than v, until every
+    // out neighbor of v is settled, every path left costs more than limit or the settle limit is
+    // reached
+    private void witnessSearch(int u, int v, double limit, int settleLimit) {
+      int remaining = 0;
+      for (int j = 0; j < out.size[v]; j++) {
+        if (out.targets[v][j] != u) {
+          isTarget[out.targets[v][j]] = true;
+          remaining++;
+        }
+      }
+      witness.reset(n, QueueStrategy.BINARY_HEAP);
+      witness.start(u);
+      while (remaining > 0 && !witness.queue().isEmpty() && witness.queue().minKey() <= limit
+          && witness.settledCount() < settleLimit) {
+        int x = witness.settleNext();
+        if (x < 0) {
+          break;
+        }
+        if (isTarget[x]) {
+          remaining--;
+        }
+        double cost = witness.dist(x);
+        for (int i = 0; i < out.size[x]; i++) {
+          int y = out.targets[x][i];
+          if (y != v) {
+            witness.relax(y, cost + out.weights[x][i], x, -1);
+          }
+        }
+      }
+      for (int j = 0; j < out.size[v]; j++) {
+        isTarget[out.targets[v][j]] = false;
+      }
+    }
+  }
+
+  /**
+   * Growable rows of weighted edges, one row per node, where each edge also records the node a
+   * shortcut bypasses. Each row holds at most one edge per neighbor.
+   */
+  private static class Adjacency {
+    private final int[][] targets;
+    private final double[][] weights;
+    private final int[][] middles;
+    private final int[] size;
+
+    private Adjacency(int n) {
+      targets = new int[n][];
+      weights = new double[n][];
+      middles = new int[n][];
+      size = new int[n];
+    }
+
+    // adds the edge to row u, or lowers the weight of u's edge to x, returning true if either
+    // happened
+    private boolean lower(int u, int x, double weight, int middle) {
+      for (int i = 0; i < size[u]; i++) {
+        if (targets[u][i] == x) {
+          if (weight >= weights[u][i]) {
+            return false;
+          }
+          weights[u][i] = weight;
+          middles[u][i] = middle;
+          return true;
+        }
+      }
+      if (targets[u] == null) {
+        targets[u] = new int[4];
+        weights[u] = new double[4];
+        middles[u] = new int[4];
+      } else if (size[u] == targets[u].length) {
+        targets[u] = Arrays.copyOf(targets[u], size[u] * 2);
+        weights[u] = Arrays.copyOf(weights[u], size[u] * 2);
+        middles[u] = Arrays.copyOf(middles[u], size[u] * 2);
+      }
+      targets[u][size[u]] = x;
+      weights[u][size[u]] = weight;
+      middles[u][size[u]] = middle;
+      size[u]++;
+      return true;
+    }
+
+    // returns the position of the edge to x in row u, or -1 when there is none
+    private int find(int u, int x) {
+      for (int i = 0; i < size[u]; i++) {
+        if (targets[u][i] == x) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // removes the edge to x from row u, moving the last edge of the row into its place
+    private void remove(int u, int x) {
+      for (int i = 0; i < size[u]; i++) {
+        if (targets[u][i] == x) {
+          int last = --size[u];
+          targets[u][i] = targets[u][last];
+          weights[u][i] = weights[u][last];
+          middles[u][i] = middles[u][last];
+          return;
+        }
+      }
+    }
+
+    // copies row u of other into row u of this
+    private void copyRow(int u, Adjacency other) {
+      size[u] = other.size[u];
+      if (size[u] > 0) {
+        targets[u] = Arrays.copyOf(other.targets[u], size[u]);
+        weights[u] = Arrays.copyOf(other.weights[u], size[u]);
+        middles[u] = Arrays.copyOf(other.middles[u], size[u]);
+      }
+    }
+
+    // empties row u and releases its memory
+    private void clear(int u) {
+      size[u] = 0;
+      targets[u] = null;
+      weights[u] = null;
+      middles[u] = null;
+    }
+
+    // returns the CSR offsets of the rows
+    private int[] offsets() {
+      int[] offsets = new int[size.length + 1];
+      for (int u = 0; u < size.length; u++) {
+        offsets[u + 1] = offsets[u] + size[u];
+      }
+      return offsets;
+    }
+
+    // copies every row into the provided CSR arrays
+    private void layOut(int[] offsets, int[] csrTargets, double[] csrWeights, int[] csrMiddles) {
+      for (int u = 0; u < size.length; u++) {
+        if (size[u] == 0) {
+          continue;
+        }
+        System.arraycopy(targets[u], 0, csrTargets, offsets[u], size[u]);
+        System.arraycopy(weights[u], 0, csrWeights, offsets[u], size[u]);
+        System.arraycopy(middles[u], 0, csrMiddles, offsets[u], size[u]);
+      }
+    }
+  }
+
+  /**
+   * Tests of ContractionHierarchy. They live in a nested class because hierarchies are only
+   * created by build().
+   */
+  static class Tests {
+
+    /**
+     * contractionHierarchyTest: Checks that a ContractionHierarchy built from random graphs of
+     * different densities finds paths of the same cost as Dijkstra's algorithm between every pair
+     * of nodes, that its unpacked paths only use edges of the original graph and add up to that
+     * cost, and that it reports unreachable ends the same way.
+     */
+    @Test
+    public void contractionHierarchyTest() {
+      for (int density : new int[] {2, 4, 8}) {
+        DijkstraGraph<Integer, Double> graphTester =
+            TestGraphs.randomGraph(80, 80 * density, 600 + density);
+        CsrGraph<Integer> frozen = graphTester.freeze();
+        ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(frozen);
+
+        for (int start = 0; start < 80; start++) {
+          for (int end = 0; end < 80; end++) {
+            int s = start;
+            int t = end;
+            double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+            TestGraphs.assertShortestPath("contractionHierarchyTest", graphTester, s, t, expected,
+                () -> hierarchy.shortestPathCost(s, t), () -> hierarchy.shortestPath(s, t));
+          }
+        }
+      }
+
+      ContractionHierarchy<String> edgeCases = ContractionHierarchy.build(
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()).freeze());
+      Assertions.assertTrue(edgeCases.shortestPathCost("A", "A") == 0.0
+          && edgeCases.shortestPathData("A", "A").equals(List.of("A")),
+          "contractionHierarchyTest() [2.1]: FAILED the PATH to START is not just START.");
+      Assertions.assertEquals(List.of("A", "B", "C"), edgeCases.shortestPathData("A", "C"),
+          "contractionHierarchyTest() [2.2]: FAILED did not unpack a 0 weight LEG.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeCases.shortestPathCost("A", "D"),
+          "contractionHierarchyTest() [2.3]: FAILED found a path to an isolated NODE.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeCases.shortestPathCost("A", "E"),
+          "contractionHierarchyTest() [2.4]: FAILED found a path to a removed NODE.");
+      Assertions.assertEquals(0, ContractionHierarchy.build(
+          new DijkstraGraph<String, Double>().freeze()).getShortcutCount(),
+          "contractionHierarchyTest() [2.5]: FAILED added SHORTCUTS to an empty graph.");
+    }
+
+    /**
+     * distanceMatrixTest: Checks that shortestPathCosts and ContractionHierarchy.distanceMatrix
+     * agree with shortestPathCost on every pair of a list of sources and targets in a random graph,
+     * with a repeated target and unreachable targets reported as infinity, and that
+     * shortestPathCosts rejects ends that are not in the graph.
+     */
+    @Test
+    public void distanceMatrixTest() {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(80, 160, 800);
+      ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(graphTester.freeze());
+      List<Integer> sources = List.of(0, 5, 17, 42, 79);
+      List<Integer> targets = List.of(3, 17, 64, 3, 0, 71);
+
+      double[][] matrix = hierarchy.distanceMatrix(sources, targets);
+      for (int i = 0; i < sources.size(); i++) {
+        double[] row = graphTester.shortestPathCosts(sources.get(i), targets);
+        for (int j = 0; j < targets.size(); j++) {
+          int s = sources.get(i);
+          int t = targets.get(j);
+          double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          Assertions.assertEquals(expected, row[j],
+              "distanceMatrixTest() [1.1]: FAILED shortestPathCosts found a different COST.");
+          Assertions.assertEquals(expected, matrix[i][j],
+              "distanceMatrixTest() [1.2]: FAILED distanceMatrix found a different COST.");
+        }
+      }
+
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> graphTester.shortestPathCosts(0, List.of(1, 100)),
+          "distanceMatrixTest() [2.1]: FAILED accepted an END that is not in the graph.");
+
+      ContractionHierarchy<String> edgeCases = ContractionHierarchy.build(
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()).freeze());
+      double inf = Double.POSITIVE_INFINITY;
+      Assertions.assertArrayEquals(new double[] {1.0, inf, 0.0},
+          edgeCases.distanceMatrix(List.of("A"), List.of("C", "D", "A"))[0],
+          "distanceMatrixTest() [3.1]: FAILED found the wrong COSTS from a node.");
+      Assertions.assertArrayEquals(new double[] {inf, 0.0, inf},
+          edgeCases.distanceMatrix(List.of("D"), List.of("C", "D", "A"))[0],
+          "distanceMatrixTest() [3.2]: FAILED found the wrong COSTS from an isolated node.");
+      Assertions.assertEquals(0, edgeCases.distanceMatrix(List.of(), List.of("C")).length,
+          "distanceMatrixTest() [3.3]: FAILED returned ROWS without sources.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeCases.distanceMatrix(List.of("A"), List.of("E")),
+          "distanceMatrixTest() [3.4]: FAILED accepted a removed TARGET.");
+    }
+  }
+}
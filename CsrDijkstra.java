@@ -0,0 +1,293 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class runs Dijkstra's shortest path algorithm directly over the primitive arrays of a
+ * CsrGraph. Tentative costs, predecessors and the priority queue are all kept in primitive arrays
+ * indexed by node id, so a search allocates no SearchNode, Edge or boxed Double objects.
+ *
+ * Each thread searches in its own SearchWorkspace, which is reused from query to query, so one
+ * instance can be shared by many threads and a query only allocates its result.
+ */
+public class CsrDijkstra<NodeType> {
+
+  protected final CsrGraph<NodeType> graph; // the frozen graph that is searched
+  protected final QueueStrategy queueStrategy; // kind of priority queue each search uses
+  // the search state of each thread, reused by every query that thread runs
+  protected final ThreadLocal<SearchWorkspace> workspaces;
+
+  /**
+   * Creates a search engine over the provided frozen graph, using an indexed binary heap.
+   *
+   * @param graph the graph to search
+   */
+  public CsrDijkstra(CsrGraph<NodeType> graph) {
+    this(graph, QueueStrategy.BINARY_HEAP);
+  }
+
+  /**
+   * Creates a search engine over the provided frozen graph, using the provided kind of queue.
+   *
+   * @param graph         the graph to search
+   * @param queueStrategy the kind of priority queue to use
+   */
+  public CsrDijkstra(CsrGraph<NodeType> graph, QueueStrategy queueStrategy) {
+    this.graph = graph;
+    this.queueStrategy = queueStrategy;
+    this.workspaces = ThreadLocal
+        .withInitial(() -> new SearchWorkspace(graph.getNodeCount(), queueStrategy));
+  }
+
+  /**
+   * Returns the graph that this engine searches.
+   *
+   * @return the frozen graph
+   */
+  public CsrGraph<NodeType> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node with
+   * the provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    SearchWorkspace workspace = workspaces.get();
+    search(source, target, workspace);
+    return toPathResult(source, target, workspace);
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to the node
+   * containing the end data.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public double shortestPathCost(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    return search(source, target, workspaces.get());
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to every node,
+   * computed by one full search.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return costs[id] is the cost from start to the node with that id, or Double.POSITIVE_INFINITY
+   *         when it cannot be reached
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  public double[] costsFrom(NodeType start) {
+    int source = requireId(start);
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+    double[] weights = graph.weights;
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(graph.getNodeCount(), queueStrategy);
+
+    double[] costs = new double[graph.getNodeCount()];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    workspace.start(source);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(u);
+      costs[u] = cost;
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        workspace.relax(targets[e], cost + weights[e], u, e);
+      }
+    }
+    return costs;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until target is settled. The workspace is reset first,
+   * and is left holding the costs and parent links of every node the search reached.
+   *
+   * @param source    the id of the start node
+   * @param target    the id of the destination node
+   * @param workspace the search state to reuse, parent edges are recorded as edge indexes
+   * @return the cost of the shortest path from source to target
+   * @throws NoSuchElementException when target cannot be reached from source
+   */
+  protected double search(int source, int target, SearchWorkspace workspace) {
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+    double[] weights = graph.weights;
+    workspace.reset(graph.getNodeCount(), queueStrategy);
+
+    workspace.start(source);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(u);
+      if (u == target) {
+        return cost;
+      }
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        workspace.relax(targets[e], cost + weights[e], u, e);
+      }
+    }
+    throw new NoSuchElementException("No path from " + graph.dataOf(source) + " to "
+        + graph.dataOf(target) + " was found.");
+  }
+
+  /**
+   * Helper method that follows the parent links in workspace back from target to build a
+   * PathResult.
+   */
+  protected PathResult<NodeType> toPathResult(int source, int target, SearchWorkspace workspace) {
+    int length = 1;
+    for (int v = target; v != source; v = workspace.parent(v)) {
+      length++;
+    }
+
+    // walk back from target, filling the path and its legs from the end
+    int[] order = new int[length];
+    double[] legs = new double[length - 1];
+    int v = target;
+    for (int i = length - 1; i > 0; i--) {
+      order[i] = v;
+      legs[i - 1] = graph.weights[workspace.parentEdge(v)];
+      v = workspace.parent(v);
+    }
+    order[0] = source;
+
+    List<NodeType> path = new ArrayList<>(length);
+    for (int id : order) {
+      path.add(graph.dataOf(id));
+    }
+    return new PathResult<>(path, legs);
+  }
+
+  // looks up the id of a node, throwing like DijkstraGraph does for missing or null data
+  protected int requireId(NodeType data) {
+    if (data == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    int id = graph.idOf(data);
+    if (id < 0) {
+      throw new NoSuchElementException("No node contains " + data + ".");
+    }
+    return id;
+  }
+
+  /**
+   * Tests of CsrDijkstra against the searches of the DijkstraGraph that was frozen for it.
+   */
+  static class Tests {
+
+    /**
+     * frozenGraphTest: Checks that a CsrGraph created by freeze() keeps every node and edge, and
+     * that searching it with CsrDijkstra finds the same path, leg costs and total cost as the
+     * DijkstraGraph it was frozen from.
+     */
+    @Test
+    public void frozenGraphTest() {
+      // creating graph for testing
+      DijkstraGraph<String, Integer> graphTester = new DijkstraGraph<String, Integer>();
+
+      // inserting nodes into the graph
+      graphTester.insertNode("A");
+      graphTester.insertNode("B");
+      graphTester.insertNode("C");
+      graphTester.insertNode("D");
+      graphTester.insertNode("E");
+      graphTester.insertNode("F");
+      graphTester.insertNode("G");
+      graphTester.insertNode("H");
+
+      // inserting edges to the nodes
+      graphTester.insertEdge("A", "B", 4);
+      graphTester.insertEdge("A", "C", 2);
+      graphTester.insertEdge("A", "E", 15);
+      graphTester.insertEdge("B", "E", 10);
+      graphTester.insertEdge("B", "D", 1);
+      graphTester.insertEdge("C", "D", 5);
+      graphTester.insertEdge("D", "E", 3);
+      graphTester.insertEdge("D", "F", 0);
+      graphTester.insertEdge("F", "H", 4);
+      graphTester.insertEdge("F", "D", 2);
+      graphTester.insertEdge("G", "H", 4);
+
+      // Test 01: the frozen copy has the same size and edge weights
+      CsrGraph<String> frozen = graphTester.freeze();
+      Assertions.assertTrue(frozen.getNodeCount() == 8 && frozen.getEdgeCount() == 11
+          && frozen.getEdge(frozen.idOf("B"), frozen.idOf("E")) == 10.0,
+          "frozenGraphTest() [1.1]: FAILED freeze() did not copy every node and edge.");
+
+      // Test 02: every pair of nodes has the same shortest path in both representations
+      CsrDijkstra<String> engine = new CsrDijkstra<>(frozen);
+      for (String start : graphTester.getAllNodes()) {
+        for (String end : graphTester.getAllNodes()) {
+          PathResult<String> expected;
+          try {
+            expected = graphTester.shortestPath(start, end);
+          } catch (NoSuchElementException e) {
+            // both representations must agree that there is no path
+            Assertions.assertThrows(NoSuchElementException.class,
+                () -> engine.shortestPath(start, end),
+                "frozenGraphTest() [2.3]: FAILED found a path that does not exist.");
+            continue;
+          }
+          PathResult<String> actual = null;
+          try {
+            actual = engine.shortestPath(start, end);
+          } catch (NoSuchElementException e) {
+            Assertions.fail("frozenGraphTest() [2.4]: FAILED did not find a path that exists.");
+          }
+          Assertions.assertEquals(expected.getNodes(), actual.getNodes(),
+              "frozenGraphTest() [2.1]: FAILED did not find the expected PATH.");
+          Assertions.assertArrayEquals(expected.getLegCosts(), actual.getLegCosts(),
+              "frozenGraphTest() [2.2]: FAILED did not find the expected LEG costs.");
+        }
+      }
+
+      // Test 03: freezing drops a removed node and its edges, and keeps 0 weight and self edges
+      CsrGraph<String> edgeCases =
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()).freeze();
+      CsrDijkstra<String> edgeEngine = new CsrDijkstra<>(edgeCases);
+      Assertions.assertTrue(edgeCases.getNodeCount() == 4 && edgeCases.getEdgeCount() == 3
+          && edgeCases.idOf("E") < 0,
+          "frozenGraphTest() [3.1]: FAILED kept a removed NODE or its EDGES.");
+      double[] costs = edgeEngine.costsFrom("A");
+      Assertions.assertTrue(costs[edgeCases.idOf("A")] == 0.0 && costs[edgeCases.idOf("C")] == 1.0
+          && costs[edgeCases.idOf("D")] == Double.POSITIVE_INFINITY,
+          "frozenGraphTest() [3.2]: FAILED costsFrom found the wrong COSTS.");
+      Assertions.assertEquals(List.of("A"), edgeEngine.shortestPathData("A", "A"),
+          "frozenGraphTest() [3.3]: FAILED the PATH to START is not just START.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeEngine.shortestPathCost("A", "E"),
+          "frozenGraphTest() [3.4]: FAILED found a path to a removed NODE.");
+    }
+  }
+}
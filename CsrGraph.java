@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A CsrGraph is an immutable, compressed sparse row (CSR) copy of a directed and weighted graph,
+ * meant for serving many queries over a map that rarely changes. Each node is identified by an int
+ * id from 0 to getNodeCount()-1, and the edges leaving node u are stored contiguously:
+ *
+ * - targets[offsets[u]] .. targets[offsets[u+1]-1] are the ids of u's successors
+ * - weights[offsets[u]] .. weights[offsets[u+1]-1] are the weights of those edges
+ *
+ * Walking a node's edges is therefore a scan over two primitive arrays, with no linked list nodes,
+ * Edge objects or boxed weights involved. CsrGraphs are created with BaseGraph.freeze(), or
+ * directly through a CsrGraph.Builder.
+ */
+public class CsrGraph<NodeType> {
+
+  protected final Object[] nodeData; // nodeData[id] is the data stored in node id
+  protected final MapADT<NodeType, Integer> ids; // maps node data back to its id
+  protected final int[] offsets; // edges of node u are at indices offsets[u] .. offsets[u+1]-1
+  protected final int[] targets; // successor id of each edge
+  protected final double[] weights; // weight of each edge
+
+  /**
+   * Creates a CsrGraph from already laid out arrays. Use a Builder instead of calling this
+   * directly.
+   */
+  protected CsrGraph(Object[] nodeData, MapADT<NodeType, Integer> ids, int[] offsets,
+      int[] targets, double[] weights) {
+    this.nodeData = nodeData;
+    this.ids = ids;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  public int getNodeCount() {
+    return nodeData.length;
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  public int getEdgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * Returns the id of the node containing the provided data.
+   *
+   * @param data the node contents to look up
+   * @return the id of that node, or -1 when no node contains data
+   */
+  public int idOf(NodeType data) {
+    if (data == null || !ids.containsKey(data)) {
+      return -1;
+    }
+    return ids.get(data);
+  }
+
+  /**
+   * Returns the data stored in the node with the provided id.
+   *
+   * @param id the id of a node in this graph
+   * @return the data stored in that node
+   */
+  @SuppressWarnings("unchecked")
+  public NodeType dataOf(int id) {
+    return (NodeType) nodeData[id];
+  }
+
+  /**
+   * Retrieves a list of all node data from this graph, in id order.
+   *
+   * @return list of all node data
+   */
+  @SuppressWarnings("unchecked")
+  public List<NodeType> getAllNodes() {
+    List<NodeType> list = new ArrayList<>(nodeData.length);
+    for (Object data : nodeData) {
+      list.add((NodeType) data);
+    }
+    return list;
+  }
+
+  /**
+   * Returns the index of the first edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index into targets and weights of u's first edge
+   */
+  public int firstEdge(int u) {
+    return offsets[u];
+  }
+
+  /**
+   * Returns the index one past the last edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index into targets and weights just after u's last edge
+   */
+  public int endEdge(int u) {
+    return offsets[u + 1];
+  }
+
+  /**
+   * Returns the id of the node that edge e leads to.
+   *
+   * @param e the index of an edge
+   * @return the id of e's successor
+   */
+  public int target(int e) {
+    return targets[e];
+  }
+
+  /**
+   * Returns the weight of edge e.
+   *
+   * @param e the index of an edge
+   * @return the weight of e
+   */
+  public double weight(int e) {
+    return weights[e];
+  }
+
+  /**
+   * Return the weight of the cheapest edge from pred to succ.
+   *
+   * @param pred the id of the source node for the edge
+   * @param succ the id of the target node for the edge
+   * @return the weight of that edge
+   * @throws NoSuchElementException if there is no edge from pred to succ
+   */
+  public double getEdge(int pred, int succ) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int e = offsets[pred]; e < offsets[pred + 1]; e++) {
+      if (targets[e] == succ) {
+        best = Math.min(best, weights[e]);
+      }
+    }
+    if (best == Double.POSITIVE_INFINITY) {
+      throw new NoSuchElementException("No edge from " + dataOf(pred) + " to " + dataOf(succ));
+    }
+    return best;
+  }
+
+  /**
+   * A Builder collects nodes and edges in any order, and then lays them out as a CsrGraph with a
+   * single counting sort of the edges by their source node. Nodes get ids in insertion order.
+   */
+  public static class Builder<NodeType> {
+    private final List<NodeType> nodeData = new ArrayList<>();
+    private final MapADT<NodeType, Integer> ids;
+    private int[] sources; // source id of each edge, in insertion order
+    private int[] targets; // target id of each edge, in insertion order
+    private double[] weights; // weight of each edge, in insertion order
+    private int edgeCount = 0;
+    private boolean built = false; // the node map is handed to the graph by build()
+
+    /**
+     * Creates a builder with room for the provided number of nodes and edges, which grows as
+     * needed.
+     *
+     * @param expectedNodes the number of nodes expected to be added
+     * @param expectedEdges the number of edges expected to be added
+     */
+    public Builder(int expectedNodes, int expectedEdges) {
+      this.ids = new OpenAddressingMap<>(Math.max(1, expectedNodes * 2));
+      this.sources = new int[Math.max(1, expectedEdges)];
+      this.targets = new int[Math.max(1, expectedEdges)];
+      this.weights = new double[Math.max(1, expectedEdges)];
+    }
+
+    /**
+     * Creates a builder with a small initial capacity.
+     */
+    public Builder() {
+      this(16, 16);
+    }
+
+    /**
+     * Adds a node, or finds the node that already contains this data.
+     *
+     * @param data the data to store in the node
+     * @return the id of the node containing data
+     * @throws NullPointerException  if data is null
+     * @throws IllegalStateException if build() was already called
+     */
+    public int addNode(NodeType data) {
+      if (built) {
+        throw new IllegalStateException("Cannot add to a builder after calling build().");
+      }
+      if (ids.containsKey(data)) {
+        return ids.get(data);
+      }
+      int id = nodeData.size();
+      ids.put(data, id);
+      nodeData.add(data);
+      return id;
+    }
+
+    /**
+     * Adds a directed edge between two nodes that were already added.
+     *
+     * @param pred   the id of the edge's source node
+     * @param succ   the id of the edge's target node
+     * @param weight the non-negative weight of the edge
+     * @throws IndexOutOfBoundsException if either id does not belong to an added node
+     * @throws IllegalArgumentException  if the weight is negative or not a number
+     * @throws IllegalStateException     if build() was already called
+     */
+    public void addEdge(int pred, int succ, double weight) {
+      if (built) {
+        throw new IllegalStateException("Cannot add to a builder after calling build().");
+      }
+      if (pred < 0 || pred >= nodeData.size() || succ < 0 || succ >= nodeData.size()) {
+        throw new IndexOutOfBoundsException("Edge " + pred + " -> " + succ + " refers to a node"
+            + " that has not been added.");
+      }
+      if (!(weight >= 0.0)) {
+        throw new IllegalArgumentException("Edge weights must be non-negative: " + weight);
+      }
+      if (edgeCount == targets.length) {
+        int capacity = targets.length * 2;
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+      }
+      sources[edgeCount] = pred;
+      targets[edgeCount] = succ;
+      weights[edgeCount] = weight;
+      edgeCount++;
+    }
+
+    /**
+     * Adds a directed edge, adding either node first if needed.
+     *
+     * @param pred   the data in the edge's source node
+     * @param succ   the data in the edge's target node
+     * @param weight the non-negative weight of the edge
+     */
+    public void addEdge(NodeType pred, NodeType succ, double weight) {
+      addEdge(addNode(pred), addNode(succ), weight);
+    }
+
+    /**
+     * Lays the collected nodes and edges out as an immutable CsrGraph. Edges leaving each node keep
+     * the order in which they were added. A builder can only be built once.
+     *
+     * @return the newly built graph
+     * @throws IllegalStateException if build() was already called
+     */
+    public CsrGraph<NodeType> build() {
+      if (built) {
+        throw new IllegalStateException("This builder was already built.");
+      }
+      built = true;
+      int n = nodeData.size();
+      int[] offsets = new int[n + 1];
+      // count the edges leaving each node, then turn the counts into starting offsets
+      for (int e = 0; e < edgeCount; e++) {
+        offsets[sources[e] + 1]++;
+      }
+      for (int u = 0; u < n; u++) {
+        offsets[u + 1] += offsets[u];
+      }
+
+      int[] next = Arrays.copyOf(offsets, n); // next free slot in each node's row
+      int[] csrTargets = new int[edgeCount];
+      double[] csrWeights = new double[edgeCount];
+      for (int e = 0; e < edgeCount; e++) {
+        int slot = next[sources[e]]++;
+        csrTargets[slot] = targets[e];
+        csrWeights[slot] = weights[e];
+      }
+      return new CsrGraph<>(nodeData.toArray(), ids, offsets, csrTargets, csrWeights);
+    }
+  }
+}
@@ -0,0 +1,389 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class computes the cost of the shortest path from one node to every node of a CsrGraph with
+ * the delta-stepping algorithm, relaxing the edges of many nodes at once on the threads of a
+ * ForkJoinPool. It is meant for one to all computations on graphs large enough that a sequential
+ * search (see CsrDijkstra.costsFrom) leaves most cores idle.
+ *
+ * Nodes are grouped into buckets of width delta by their tentative cost, and the buckets are
+ * processed in order. All nodes of the current bucket form a frontier whose light edges (weight at
+ * most delta) are relaxed in parallel, which may add nodes to the current bucket again, until the
+ * bucket stays empty. Then the heavy edges of every node that passed through the bucket are
+ * relaxed in parallel once, since they can only reach later buckets. Tentative costs are kept as
+ * the bits of doubles in an AtomicLongArray and only ever lowered with compare and set, so
+ * concurrent relaxations of the same node keep the cheapest one.
+ *
+ * A small delta processes few nodes per bucket, close to Dijkstra's order, while a large one puts
+ * more nodes in each frontier, at the cost of relaxing nodes again when their cost drops after
+ * they were processed. Whatever delta is used, each cost ends up as the minimum of the final cost
+ * of a predecessor plus an edge weight, so the costs are identical to those of CsrDijkstra.
+ *
+ * Every computation allocates its own state, so one instance can be shared by many threads.
+ */
+public class DeltaStepping<NodeType> {
+
+  // frontiers smaller than this are relaxed on the calling thread, since splitting them up costs
+  // more than it saves
+  private static final int PARALLEL_THRESHOLD = 256;
+  // the largest number of buckets in the ring
+  private static final int MAX_BUCKETS = 1 << 20;
+
+  protected final CsrGraph<NodeType> graph; // the frozen graph that is searched
+  protected final double delta; // the width of each bucket
+  protected final ForkJoinPool pool; // the threads that relax large frontiers
+  protected final int bucketCount; // the number of buckets that can hold nodes at the same time
+
+  /**
+   * Creates an engine over the provided frozen graph that runs on the common ForkJoinPool, with a
+   * delta of the average edge weight.
+   *
+   * @param graph the graph to search
+   */
+  public DeltaStepping(CsrGraph<NodeType> graph) {
+    this(graph, averageWeight(graph), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates an engine over the provided frozen graph.
+   *
+   * @param graph the graph to search
+   * @param delta the width of each bucket, and the largest weight of a light edge
+   * @param pool  the threads that relax large frontiers
+   * @throws IllegalArgumentException if delta is not positive and finite
+   */
+  public DeltaStepping(CsrGraph<NodeType> graph, double delta, ForkJoinPool pool) {
+    if (!(delta > 0.0) || Double.isInfinite(delta)) {
+      throw new IllegalArgumentException("Delta must be positive and finite: " + delta);
+    }
+    this.graph = graph;
+    this.delta = delta;
+    this.pool = pool;
+    // a node's tentative cost is less than the largest weight past the current bucket's end, so
+    // this many buckets in a ring are enough to tell every pending bucket apart; past the limit,
+    // entries of later buckets wait in the ring until their turn comes
+    double maxWeight = 0.0;
+    for (double weight : graph.weights) {
+      maxWeight = Math.max(maxWeight, weight);
+    }
+    this.bucketCount = (int) Math.min(MAX_BUCKETS, Math.ceil(maxWeight / delta) + 2);
+  }
+
+  // returns the average weight of the edges of graph, or 1.0 when it has none or they are all 0.0
+  private static double averageWeight(CsrGraph<?> graph) {
+    double total = 0.0;
+    for (double weight : graph.weights) {
+      total += weight;
+    }
+    return total > 0.0 ? total / graph.weights.length : 1.0;
+  }
+
+  /**
+   * Returns the graph that this engine searches.
+   *
+   * @return the frozen graph
+   */
+  public CsrGraph<NodeType> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the width of each bucket, which is also the largest weight of a light edge.
+   *
+   * @return delta
+   */
+  public double getDelta() {
+    return delta;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to every node.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return costs[id] is the cost from start to the node with that id, or Double.POSITIVE_INFINITY
+   *         when it cannot be reached
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  public double[] costsFrom(NodeType start) {
+    if (start == null) {
+      throw new NullPointerException("START data must not be NULL.");
+    }
+    int source = graph.idOf(start);
+    if (source < 0) {
+      throw new NoSuchElementException("No node contains " + start + ".");
+    }
+    return costsFrom(source);
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node with id source to every node.
+   *
+   * @param source the id of the start node
+   * @return costs[id] is the cost from source to the node with that id, or
+   *         Double.POSITIVE_INFINITY when it cannot be reached
+   */
+  public double[] costsFrom(int source) {
+    return new Run(source).run();
+  }
+
+  /**
+   * The state of one computation. Buckets form a ring of growable lists indexed by bucket number
+   * modulo bucketCount. A node is added to a bucket whenever its cost drops into it, so a bucket
+   * can hold stale entries for nodes whose cost dropped further since, which are skipped when the
+   * bucket is taken.
+   */
+  private class Run {
+    final int n = graph.getNodeCount();
+    final AtomicLongArray dist = new AtomicLongArray(n); // the bits of each tentative cost
+    final IntList[] buckets = new IntList[bucketCount];
+    int pending = 0; // the number of entries in all buckets
+
+    // the nodes whose cost dropped in the current phase, and the phase each node last dropped in
+    final int[] changed = new int[n];
+    final AtomicInteger changedCount = new AtomicInteger();
+    final AtomicIntegerArray changedPhase = new AtomicIntegerArray(n);
+    int phase = 0;
+
+    // the nodes in the frontier of the current phase, and the bucket that each node was last
+    // processed in, plus one, so that the nodes of a bucket are listed once in processed
+    int[] frontier = new int[16];
+    int frontierSize = 0;
+    final long[] processedIn;
+    IntList processed = new IntList();
+    final int[] takenIn; // the number of the last take that moved each node into the frontier
+    int takes = 0;
+
+    Run(int source) {
+      long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+      for (int v = 0; v < n; v++) {
+        dist.set(v, infinity);
+      }
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new IntList();
+      }
+      processedIn = new long[n];
+      takenIn = new int[n];
+      dist.set(source, Double.doubleToRawLongBits(0.0));
+      add(0, source);
+    }
+
+    double[] run() {
+      long current = 0;
+      while (pending > 0) {
+        // find the next bucket with entries, and take the nodes that still belong to it
+        while (buckets[(int) (current % bucketCount)].size == 0) {
+          current++;
+        }
+        take(current);
+        processed.clear();
+        while (frontierSize > 0) {
+          while (frontierSize > 0) {
+            for (int i = 0; i < frontierSize; i++) {
+              if (processedIn[frontier[i]] != current + 1) {
+                processedIn[frontier[i]] = current + 1;
+                processed.add(frontier[i]);
+              }
+            }
+            relax(frontier, 0, frontierSize, true);
+            frontierSize = 0;
+            settle(current);
+          }
+          // heavy edges only lead to later buckets, unless rounding puts a cost just past the
+          // bucket's end back into it, in which case the bucket is processed again, heavy edges
+          // and all, since the costs of nodes processed earlier may have dropped
+          relax(processed.items, 0, processed.size, false);
+          settle(current);
+        }
+        current++;
+      }
+
+      double[] costs = new double[n];
+      for (int v = 0; v < n; v++) {
+        costs[v] = cost(v);
+      }
+      return costs;
+    }
+
+    /**
+     * Moves the entries of bucket number index that still belong to it into the frontier, once
+     * each, since a node whose cost dropped twice within the bucket was added to it twice. Entries
+     * of later buckets that share its place in the ring stay, and entries of nodes whose cost has
+     * dropped into an earlier bucket since are dropped.
+     */
+    void take(long index) {
+      IntList bucket = buckets[(int) (index % bucketCount)];
+      int kept = 0;
+      takes++;
+      for (int i = 0; i < bucket.size; i++) {
+        int v = bucket.items[i];
+        long at = bucketOf(cost(v));
+        if (at > index) {
+          bucket.items[kept++] = v;
+        } else if (at == index && takenIn[v] != takes) {
+          takenIn[v] = takes;
+          addToFrontier(v);
+        }
+      }
+      pending -= bucket.size - kept;
+      bucket.size = kept;
+    }
+
+    // sorts the nodes whose cost dropped in the last phase into the frontier, when they are in the
+    // current bucket, or into later buckets
+    void settle(long current) {
+      int count = changedCount.getAndSet(0);
+      for (int i = 0; i < count; i++) {
+        int v = changed[i];
+        long index = bucketOf(cost(v));
+        if (index <= current) {
+          addToFrontier(v);
+        } else {
+          add(index, v);
+        }
+      }
+    }
+
+    /**
+     * Relaxes the light or the heavy edges of nodes[from] .. nodes[to-1], in parallel when there
+     * are enough of them. Each node whose cost drops is recorded in changed once per phase.
+     */
+    void relax(int[] nodes, int from, int to, boolean light) {
+      phase++;
+      if (to - from < PARALLEL_THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          relaxEdges(nodes[i], light);
+        }
+        return;
+      }
+      pool.submit(() -> IntStream.range(from, to).parallel()
+          .forEach(i -> relaxEdges(nodes[i], light))).join();
+    }
+
+    void relaxEdges(int u, boolean light) {
+      int[] offsets = graph.offsets;
+      int[] targets = graph.targets;
+      double[] weights = graph.weights;
+      double cost = cost(u);
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        double weight = weights[e];
+        if ((weight <= delta) != light) {
+          continue;
+        }
+        int v = targets[e];
+        if (lower(v, cost + weight) && changedPhase.getAndSet(v, phase) != phase) {
+          changed[changedCount.getAndIncrement()] = v;
+        }
+      }
+    }
+
+    // lowers the tentative cost of v to cost, returning whether it was higher
+    boolean lower(int v, double cost) {
+      long bits = Double.doubleToRawLongBits(cost);
+      long old = dist.get(v);
+      while (cost < Double.longBitsToDouble(old)) {
+        if (dist.compareAndSet(v, old, bits)) {
+          return true;
+        }
+        old = dist.get(v);
+      }
+      return false;
+    }
+
+    double cost(int v) {
+      return Double.longBitsToDouble(dist.get(v));
+    }
+
+    long bucketOf(double cost) {
+      return (long) (cost / delta);
+    }
+
+    void add(long index, int v) {
+      buckets[(int) (index % bucketCount)].add(v);
+      pending++;
+    }
+
+    void addToFrontier(int v) {
+      if (frontierSize == frontier.length) {
+        frontier = Arrays.copyOf(frontier, frontier.length * 2);
+      }
+      frontier[frontierSize++] = v;
+    }
+  }
+
+  /**
+   * A growable list of ints.
+   */
+  private static class IntList {
+    int[] items = new int[4];
+    int size = 0;
+
+    void add(int item) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = item;
+    }
+
+    void clear() {
+      size = 0;
+    }
+  }
+
+  /**
+   * Tests of DeltaStepping against CsrDijkstra on the same frozen graph.
+   */
+  static class Tests {
+
+    /**
+     * deltaSteppingTest: Checks that DeltaStepping finds exactly the same costs as
+     * CsrDijkstra.costsFrom from several starts of a random graph, for deltas below, around and
+     * above the edge weights, with frontiers large enough to be relaxed on several threads.
+     */
+    @Test
+    public void deltaSteppingTest() {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(3000, 12000, 1000);
+      CsrGraph<Integer> frozen = graphTester.freeze();
+      CsrDijkstra<Integer> dijkstra = new CsrDijkstra<>(frozen);
+      java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+      try {
+        for (double delta : new double[] {0.5, 3.0, 7.5, 100.0}) {
+          DeltaStepping<Integer> engine = new DeltaStepping<>(frozen, delta, pool);
+          for (int start : new int[] {0, 1234, 2999}) {
+            double[] expected = dijkstra.costsFrom(start);
+            double[] actual = engine.costsFrom(start);
+            for (int v = 0; v < expected.length; v++) {
+              Assertions.assertEquals(expected[v], actual[v],
+                  "deltaSteppingTest() [1.1]: FAILED found a different COST with delta " + delta);
+            }
+          }
+        }
+
+        CsrGraph<String> edgeCases =
+            TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()).freeze();
+        for (double delta : new double[] {0.5, 100.0}) {
+          Assertions.assertArrayEquals(new CsrDijkstra<>(edgeCases).costsFrom("A"),
+              new DeltaStepping<>(edgeCases, delta, pool).costsFrom("A"),
+              "deltaSteppingTest() [2.1]: FAILED found different COSTS with 0 weight edges.");
+        }
+        DeltaStepping<String> edgeEngine = new DeltaStepping<>(edgeCases);
+        Assertions.assertThrows(NoSuchElementException.class, () -> edgeEngine.costsFrom("E"),
+            "deltaSteppingTest() [2.2]: FAILED searched from a removed NODE.");
+        for (double delta : new double[] {0.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY}) {
+          Assertions.assertThrows(IllegalArgumentException.class,
+              () -> new DeltaStepping<>(edgeCases, delta, pool),
+              "deltaSteppingTest() [2.3]: FAILED accepted a delta of " + delta);
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+}
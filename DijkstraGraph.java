@@ -7,8 +7,12 @@
 
 import java.util.PriorityQueue;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.Assertions;
@@ -28,7 +32,9 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * specific path between the start node and another node in the graph. The final node in this path
    * is stored in its node field. The total cost of this path is stored in its cost field. And the
    * predecessor SearchNode within this path is referened by the predecessor field (this field is
-   * null within the SearchNode containing the starting node in its node field).
+   * null within the SearchNode containing the starting node in its node field). The edge field
+   * references the edge that was traversed from the predecessor to reach this node, so that the
+   * cost of each leg can be read off a path without looking edges up again.
    *
    * SearchNodes are Comparable and are sorted by cost so that the lowest cost SearchNode has the
    * highest priority within a java.util.PriorityQueue.
@@ -37,11 +43,17 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     public Node node;
     public double cost;
     public SearchNode predecessor;
+    public Edge edge;
 
     public SearchNode(Node node, double cost, SearchNode predecessor) {
+      this(node, cost, predecessor, null);
+    }
+
+    public SearchNode(Node node, double cost, SearchNode predecessor, Edge edge) {
       this.node = node;
       this.cost = cost;
       this.predecessor = predecessor;
+      this.edge = edge;
     }
 
     public int compareTo(SearchNode other) {
@@ -53,6 +65,42 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     }
   }
 
+  // the kind of priority queue used by computeShortestPath
+  protected QueueStrategy queueStrategy = QueueStrategy.BINARY_HEAP;
+  // whether point to point searches expand from both ends at once
+  protected boolean bidirectional = false;
+  // lower bounds that direct point to point searches towards their end, null for plain Dijkstra
+  protected SearchHeuristic<NodeType> heuristic = null;
+  // the search state of each thread, reused by every indexed search that thread runs
+  protected final ThreadLocal<SearchWorkspace> workspaces =
+      ThreadLocal.withInitial(() -> new SearchWorkspace(getNodeIdBound(), queueStrategy));
+  // the state of the backward half of each thread's bidirectional searches
+  protected final ThreadLocal<SearchWorkspace> reverseWorkspaces =
+      ThreadLocal.withInitial(() -> new SearchWorkspace(getNodeIdBound(), queueStrategy));
+  // the most recently used shortest path trees, by the data of their start node; queries read it
+  // without locking, while trees are only added or evicted while holding treeCacheLock
+  protected final ConcurrentHashMap<NodeType, KeptTree<NodeType>> treeCache =
+      new ConcurrentHashMap<>();
+  protected final Object treeCacheLock = new Object();
+  // counts uses of kept trees, so that the least recently used one can be found for eviction
+  protected final AtomicLong treeCacheClock = new AtomicLong();
+  // the number of trees that treeCache keeps
+  protected volatile int treeCacheSize = 8;
+
+  /**
+   * A shortest path tree kept in treeCache, together with the tick of treeCacheClock at which it
+   * was last used.
+   */
+  protected static class KeptTree<NodeType> {
+    public final ShortestPathTree<NodeType> tree;
+    public volatile long lastUsed;
+
+    public KeptTree(ShortestPathTree<NodeType> tree, long lastUsed) {
+      this.tree = tree;
+      this.lastUsed = lastUsed;
+    }
+  }
+
   /**
    * Constructor that sets the map that the graph uses.
    */
@@ -60,6 +108,204 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     super(new HashtableMap<>());
   }
 
+  /**
+   * Constructor that lets the caller choose the map that nodes are looked up in, for example an
+   * OpenAddressingMap instead of the default chained HashtableMap.
+   *
+   * @param map the map the graph uses to map a data object to the node object it is stored in
+   */
+  public DijkstraGraph(MapADT<NodeType, Node> map) {
+    super(map);
+  }
+
+  /**
+   * Selects the kind of priority queue used to compute shortest paths. QueueStrategy.LAZY uses a
+   * java.util.PriorityQueue that receives a new SearchNode for every edge relaxation, while the
+   * indexed heap strategies lower the cost of an already queued node in place, so that the queue
+   * never holds more than one entry per node.
+   *
+   * @param queueStrategy the kind of priority queue to use
+   */
+  public void setQueueStrategy(QueueStrategy queueStrategy) {
+    this.queueStrategy = queueStrategy;
+  }
+
+  /**
+   * Returns the kind of priority queue used to compute shortest paths.
+   *
+   * @return the current queue strategy
+   */
+  public QueueStrategy getQueueStrategy() {
+    return queueStrategy;
+  }
+
+  /**
+   * Selects whether shortest paths between two nodes are found by a bidirectional search, which
+   * expands forward from the start over edgesLeaving and backward from the end over edgesEntering
+   * at the same time, and stops once the two searches cannot improve on the best path through a
+   * node that both of them have reached. On long queries this settles far fewer nodes than a
+   * search that only expands forward, and the costs it finds are the same. Paths only differ when
+   * there are several shortest paths, in which case either search may return any of them.
+   *
+   * @param bidirectional true to search from both ends, false to only search forward
+   */
+  public void setBidirectional(boolean bidirectional) {
+    this.bidirectional = bidirectional;
+  }
+
+  /**
+   * Returns whether shortest paths between two nodes are found by a bidirectional search.
+   *
+   * @return true if searches expand from both ends
+   */
+  public boolean isBidirectional() {
+    return bidirectional;
+  }
+
+  /**
+   * Selects the heuristic that turns shortest path searches between two nodes into A* searches.
+   * An A* search queues each node by its cost from the start plus the heuristic's estimate of its
+   * cost to the end, so it settles the nodes in the direction of the end first and usually stops
+   * after settling far fewer nodes than Dijkstra's algorithm does. As long as the heuristic is
+   * consistent (see SearchHeuristic), the costs it finds are the same. Bidirectional searches and
+   * reachableWithin do not use the heuristic.
+   *
+   * @param heuristic the heuristic to direct searches with, or null to use Dijkstra's algorithm
+   */
+  public void setHeuristic(SearchHeuristic<NodeType> heuristic) {
+    this.heuristic = heuristic;
+  }
+
+  /**
+   * Returns the heuristic that directs shortest path searches between two nodes.
+   *
+   * @return the current heuristic, or null when searches use Dijkstra's algorithm
+   */
+  public SearchHeuristic<NodeType> getHeuristic() {
+    return heuristic;
+  }
+
+  /**
+   * Selects how many shortest path trees are kept for reuse, see shortestPathTree. When more trees
+   * are built, the least recently used ones are dropped first.
+   *
+   * @param treeCacheSize the number of trees to keep, 0 to keep none
+   * @throws IllegalArgumentException if treeCacheSize is negative
+   */
+  public void setTreeCacheSize(int treeCacheSize) {
+    if (treeCacheSize < 0) {
+      throw new IllegalArgumentException("The tree cache size must not be negative.");
+    }
+    synchronized (treeCacheLock) {
+      this.treeCacheSize = treeCacheSize;
+      evictTrees();
+    }
+  }
+
+  /**
+   * Returns how many shortest path trees are kept for reuse.
+   *
+   * @return the number of trees kept
+   */
+  public int getTreeCacheSize() {
+    return treeCacheSize;
+  }
+
+  /**
+   * Returns the tree of shortest paths from the node containing the start data to every node it
+   * can reach, computed by one full Dijkstra search that is not directed by the heuristic. The
+   * most recently used trees are kept, so asking again for the tree of a popular start costs no
+   * search at all until the graph changes. While a tree for start is kept, shortestPath,
+   * shortestPathData, shortestPathCost, shortestPathCosts and reachableWithin from start are
+   * answered from it as well.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree from start
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(NodeType start) {
+    if (start == null) {
+      throw new NullPointerException("START data must not be NULL.");
+    }
+    if (!containsNode(start)) {
+      throw new NoSuchElementException("START data does not exist in the graph.");
+    }
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      return tree;
+    }
+
+    int n = getNodeIdBound();
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(n, queueStrategy);
+    int source = this.nodes.get(start).id;
+    workspace.start(source);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(id);
+      for (Edge nodeEdge : nodesById.get(id).edgesLeaving) {
+        workspace.relax(nodeEdge.successor.id, cost + nodeEdge.weight, id, nodeEdge.id);
+      }
+    }
+
+    // copy the settled part of the workspace out into arrays that the tree can keep
+    double[] dist = new double[n];
+    int[] parent = new int[n];
+    double[] legs = new double[n];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, -1);
+    for (int i = 0; i < workspace.settledCount(); i++) {
+      int v = workspace.settledAt(i);
+      dist[v] = workspace.dist(v);
+      if (v != source) {
+        parent[v] = workspace.parent(v);
+        legs[v] = edgesById.get(workspace.parentEdge(v)).weight;
+      }
+    }
+    tree = new ShortestPathTree<>(this, source, dist, parent, legs, workspace.settledCount());
+    synchronized (treeCacheLock) {
+      if (treeCacheSize > 0) {
+        treeCache.put(start, new KeptTree<>(tree, treeCacheClock.incrementAndGet()));
+        evictTrees();
+      }
+    }
+    return tree;
+  }
+
+  // returns the kept tree of start when there is one that is still current, or null otherwise;
+  // this runs on every query, so it never locks
+  protected ShortestPathTree<NodeType> cachedTree(NodeType start) {
+    if (treeCache.isEmpty()) {
+      return null;
+    }
+    KeptTree<NodeType> kept = treeCache.get(start);
+    if (kept == null) {
+      return null;
+    }
+    if (!kept.tree.isCurrent()) {
+      treeCache.clear(); // the graph changed, so every kept tree is out of date
+      return null;
+    }
+    kept.lastUsed = treeCacheClock.incrementAndGet();
+    return kept.tree;
+  }
+
+  // drops the least recently used trees until at most treeCacheSize are kept; the caller must
+  // hold treeCacheLock
+  protected void evictTrees() {
+    while (treeCache.size() > treeCacheSize) {
+      NodeType eldest = null;
+      long eldestUse = Long.MAX_VALUE;
+      for (Map.Entry<NodeType, KeptTree<NodeType>> entry : treeCache.entrySet()) {
+        if (entry.getValue().lastUsed < eldestUse) {
+          eldest = entry.getKey();
+          eldestUse = entry.getValue().lastUsed;
+        }
+      }
+      treeCache.remove(eldest);
+    }
+  }
+
   /**
    * This helper method creates a network of SearchNodes while computing the shortest path between
    * the provided start and end locations. The SearchNode that is returned by this method is
@@ -74,19 +320,18 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    *                                end data do not correspond to a graph node
    */
   protected SearchNode computeShortestPath(NodeType start, NodeType end) {
-    // check if the START and END node exist in the graph
-    if (!containsNode(start) || !containsNode(end)) {
-      throw new NoSuchElementException("Either START or END data does not exist in the graph.");
-    }
-
     // getting the Nodes from the graph
-    Node startNode = this.nodes.get(start);
+    Node startNode = requireNode(start, end);
     Node endNode = this.nodes.get(end);
 
+    if (queueStrategy != QueueStrategy.LAZY || bidirectional || heuristic != null) {
+      return computeShortestPathIndexed(startNode, endNode);
+    }
+
     // initializing a priority queue to hold all the nodes with their edges
-    PriorityQueue<SearchNode> queue = new PriorityQueue<>();
+    PriorityQueue<SearchNode> queue = newSearchQueue();
     // initializing a map placeholder to hold the visited nodes
-    HashtableMap<Node, SearchNode> visited = new HashtableMap<>();
+    OpenAddressingMap<Node, SearchNode> visited = new OpenAddressingMap<>();
 
     // adding the first node to the priority queue
     queue.add(new SearchNode(startNode, 0.0, null));
@@ -109,16 +354,356 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
         // insert all the nodes from the current node to the priority queue
         for (Edge nodeEdge : currentNode.node.edgesLeaving) {
           Node neighbor = nodeEdge.successor;
-          double newCost = currentNode.cost + nodeEdge.data.doubleValue();
+          double newCost = currentNode.cost + nodeEdge.weight;
 
-          // adding the edges to the priority queue in (curr, cost, pre) format
-          queue.add(new SearchNode(neighbor, newCost, currentNode));
+          // adding the edges to the priority queue in (curr, cost, pre, edge) format
+          queue.add(new SearchNode(neighbor, newCost, currentNode, nodeEdge));
         }
       }
     }
     throw new NoSuchElementException("No path from START to END was found.");
   }
 
+  /**
+   * This helper method computes the same shortest path as computeShortestPath, but runs the search
+   * in this thread's SearchWorkspace (or in both of its workspaces, for a bidirectional search) and
+   * only then builds the chain of SearchNodes along the path that was found, so no SearchNode is
+   * created for nodes off that path.
+   *
+   * @param startNode the node to start from
+   * @param endNode   the node to find the shortest path to
+   * @return SearchNode for the final end node within the shortest path
+   * @throws NoSuchElementException when no path from start to end is found
+   */
+  protected SearchNode computeShortestPathIndexed(Node startNode, Node endNode) {
+    SearchNode current = new SearchNode(startNode, 0.0, null);
+    for (int edgeId : pathEdges(startNode, endNode)) {
+      Edge edge = edgesById.get(edgeId);
+      current = new SearchNode(edge.successor, current.cost + edge.weight, current,
+          edge);
+    }
+    return current;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from startNode in this thread's SearchWorkspace until endNode is
+   * settled, or an A* search when a heuristic is set. The workspace records the id of the Edge
+   * that leads into each reached node.
+   *
+   * @param startNode the node to start from
+   * @param endNode   the node to find the shortest path to
+   * @return the workspace, holding the costs and parent links of every node that was reached
+   * @throws NoSuchElementException when no path from start to end is found
+   */
+  protected SearchWorkspace search(Node startNode, Node endNode) {
+    if (heuristic != null) {
+      return searchAStar(startNode, endNode, heuristic);
+    }
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(getNodeIdBound(), queueStrategy);
+    workspace.start(startNode.id);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      if (id == endNode.id) {
+        return workspace;
+      }
+      double cost = workspace.dist(id);
+      for (Edge nodeEdge : nodesById.get(id).edgesLeaving) {
+        workspace.relax(nodeEdge.successor.id, cost + nodeEdge.weight, id, nodeEdge.id);
+      }
+    }
+    throw new NoSuchElementException("No path from START to END was found.");
+  }
+
+  /**
+   * Runs an A* search from startNode in this thread's SearchWorkspace until endNode is settled.
+   * Each node is queued by its cost from startNode plus the heuristic's estimate of its cost to
+   * endNode, while the workspace keeps its actual cost, so the costs and parent links it records
+   * are the same as those of Dijkstra's algorithm along the path that is found. The heuristic is
+   * only asked about nodes that are not settled yet.
+   *
+   * @param startNode the node to start from
+   * @param endNode   the node to find the shortest path to
+   * @param heuristic a consistent lower bound on the cost from each node to endNode
+   * @return the workspace, holding the costs and parent links of every node that was reached
+   * @throws NoSuchElementException when no path from start to end is found
+   */
+  @SuppressWarnings("unchecked")
+  protected SearchWorkspace searchAStar(Node startNode, Node endNode,
+      SearchHeuristic<NodeType> heuristic) {
+    // landmark tables built for this graph are indexed by node id, so skip the lookups by data
+    LandmarkHeuristic<NodeType> landmarks = heuristic instanceof LandmarkHeuristic
+        && ((LandmarkHeuristic<NodeType>) heuristic).getGraph() == this
+            ? (LandmarkHeuristic<NodeType>) heuristic : null;
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(getNodeIdBound(), queueStrategy);
+    workspace.start(startNode.id);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      if (id == endNode.id) {
+        return workspace;
+      }
+      double cost = workspace.dist(id);
+      for (Edge nodeEdge : nodesById.get(id).edgesLeaving) {
+        Node neighbor = nodeEdge.successor;
+        if (workspace.isSettled(neighbor.id)) {
+          continue;
+        }
+        double newCost = cost + nodeEdge.weight;
+        if (workspace.isReached(neighbor.id) && newCost >= workspace.dist(neighbor.id)) {
+          continue; // no improvement, so there is no need to estimate
+        }
+        double estimate = landmarks != null ? landmarks.estimate(neighbor.id, endNode.id)
+            : heuristic.estimate(neighbor.data, endNode.data);
+        workspace.relax(neighbor.id, newCost, newCost + estimate, id, nodeEdge.id);
+      }
+    }
+    throw new NoSuchElementException("No path from START to END was found.");
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from the node with id source until every node it can reach is
+   * settled, following edgesLeaving, or edgesEntering when reverse is true so that the costs are
+   * those of the paths from each node to source instead.
+   *
+   * @param source  the id of the node to start from
+   * @param reverse true to follow edges backward
+   * @param costs   receives the cost of each node id at costs[offset + id], or
+   *                Double.POSITIVE_INFINITY for nodes that cannot be reached
+   * @param offset  the index in costs of the entry for node id 0
+   */
+  protected void singleSourceCosts(int source, boolean reverse, double[] costs, int offset) {
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(getNodeIdBound(), queueStrategy);
+    workspace.start(source);
+    Arrays.fill(costs, offset, offset + getNodeIdBound(), Double.POSITIVE_INFINITY);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(id);
+      costs[offset + id] = cost;
+      Node node = nodesById.get(id);
+      for (Edge nodeEdge : reverse ? node.edgesEntering : node.edgesLeaving) {
+        int neighbor = (reverse ? nodeEdge.predecessor : nodeEdge.successor).id;
+        workspace.relax(neighbor, cost + nodeEdge.weight, id, nodeEdge.id);
+      }
+    }
+  }
+
+  /**
+   * Runs a bidirectional Dijkstra search between startNode and endNode. The forward search runs in
+   * this thread's workspace and follows edgesLeaving from startNode, while the backward search runs
+   * in its reverse workspace and follows edgesEntering from endNode, so that the parent of a node
+   * in the backward search is the next node on its path to endNode. Each step settles one node on
+   * the side whose queue has the cheaper top entry. Whenever a node has been reached from both
+   * sides, the path through it is a candidate, and the search stops as soon as the top entries of
+   * the two queues add up to at least the cheapest candidate, since no path left to find can then
+   * be cheaper.
+   *
+   * @param startNode the node to start from
+   * @param endNode   the node to find the shortest path to
+   * @return the id of the node where the cheapest forward and backward paths meet
+   * @throws NoSuchElementException when no path from start to end is found
+   */
+  protected int searchBidirectional(Node startNode, Node endNode) {
+    SearchWorkspace forward = workspaces.get();
+    SearchWorkspace backward = reverseWorkspaces.get();
+    forward.reset(getNodeIdBound(), queueStrategy);
+    backward.reset(getNodeIdBound(), queueStrategy);
+    forward.start(startNode.id);
+    backward.start(endNode.id);
+    if (startNode == endNode) {
+      return startNode.id;
+    }
+
+    double best = Double.POSITIVE_INFINITY; // cost of the cheapest path found so far
+    int meeting = -1; // the node that path goes through
+    while (!forward.queue().isEmpty() && !backward.queue().isEmpty()) {
+      double forwardTop = forward.queue().minKey();
+      double backwardTop = backward.queue().minKey();
+      if (forwardTop + backwardTop >= best) {
+        break;
+      }
+      boolean isForward = forwardTop <= backwardTop;
+      SearchWorkspace side = isForward ? forward : backward;
+      SearchWorkspace other = isForward ? backward : forward;
+      int id = side.settleNext();
+      if (id < 0) {
+        break; // only stale entries were left on this side
+      }
+      double cost = side.dist(id);
+      Node node = nodesById.get(id);
+      for (Edge nodeEdge : isForward ? node.edgesLeaving : node.edgesEntering) {
+        int neighbor = (isForward ? nodeEdge.successor : nodeEdge.predecessor).id;
+        side.relax(neighbor, cost + nodeEdge.weight, id, nodeEdge.id);
+        if (other.isReached(neighbor)) {
+          double candidate = side.dist(neighbor) + other.dist(neighbor);
+          if (candidate < best) {
+            best = candidate;
+            meeting = neighbor;
+          }
+        }
+      }
+    }
+    if (meeting < 0) {
+      throw new NoSuchElementException("No path from START to END was found.");
+    }
+    return meeting;
+  }
+
+  /**
+   * Finds the shortest path from startNode to endNode with the configured kind of search, and
+   * returns the ids of the edges along it.
+   *
+   * @param startNode the node to start from
+   * @param endNode   the node to find the shortest path to
+   * @return the ids of the edges along the path, in order from startNode to endNode
+   * @throws NoSuchElementException when no path from start to end is found
+   */
+  protected int[] pathEdges(Node startNode, Node endNode) {
+    if (!bidirectional) {
+      SearchWorkspace workspace = search(startNode, endNode);
+      return forwardEdges(workspace, startNode.id, endNode.id);
+    }
+    int meeting = searchBidirectional(startNode, endNode);
+    int[] first = forwardEdges(workspaces.get(), startNode.id, meeting);
+
+    // the backward search's parent links lead from the meeting node on to endNode
+    SearchWorkspace backward = reverseWorkspaces.get();
+    int length = first.length;
+    for (int id = meeting; id != endNode.id; id = backward.parent(id)) {
+      length++;
+    }
+    int[] edges = Arrays.copyOf(first, length);
+    for (int i = first.length, id = meeting; id != endNode.id; i++, id = backward.parent(id)) {
+      edges[i] = backward.parentEdge(id);
+    }
+    return edges;
+  }
+
+  // returns the ids of the edges along the path from source to target that workspace recorded
+  private int[] forwardEdges(SearchWorkspace workspace, int source, int target) {
+    int length = 0;
+    for (int id = target; id != source; id = workspace.parent(id)) {
+      length++;
+    }
+    int[] edges = new int[length];
+    for (int i = length - 1, id = target; i >= 0; i--, id = workspace.parent(id)) {
+      edges[i] = workspace.parentEdge(id);
+    }
+    return edges;
+  }
+
+  // looks up the node containing start, after checking that both start and end are in the graph
+  private Node requireNode(NodeType start, NodeType end) {
+    // check for NULL inputs
+    if (start == null || end == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+
+    // check if the START and END node exist in the graph
+    if (!containsNode(start) || !containsNode(end)) {
+      throw new NoSuchElementException("Either START or END data does not exist in the graph.");
+    }
+    return this.nodes.get(start);
+  }
+
+  /**
+   * Creates the priority queue used by the QueueStrategy.LAZY search. Subclasses can override this
+   * to instrument the queue, for example to measure how large it grows.
+   *
+   * @return an empty priority queue of SearchNodes
+   */
+  protected PriorityQueue<SearchNode> newSearchQueue() {
+    return new PriorityQueue<>();
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node with
+   * the provided start value through the node with the provided end value. All of this information
+   * comes from a single run of Dijkstra's algorithm, since each SearchNode along the path remembers
+   * the edge that was traversed to reach it.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      requireNode(start, end);
+      return tree.pathTo(end);
+    }
+    if (queueStrategy == QueueStrategy.LAZY && !bidirectional && heuristic == null) {
+      return toPathResult(computeShortestPath(start, end));
+    }
+    Node startNode = requireNode(start, end);
+    Node endNode = this.nodes.get(end);
+
+    // read the nodes and legs of the path straight off the edges along it
+    int[] edges = pathEdges(startNode, endNode);
+    List<NodeType> path = new ArrayList<>(edges.length + 1);
+    double[] legCosts = new double[edges.length];
+    path.add(startNode.data);
+    for (int i = 0; i < edges.length; i++) {
+      Edge edge = edgesById.get(edges[i]);
+      path.add(edge.successor.data);
+      legCosts[i] = edge.weight;
+    }
+    return new PathResult<>(path, legCosts);
+  }
+
+  /**
+   * Returns up to k of the cheapest loopless paths from the node containing the start data to the
+   * node containing the end data, cheapest first, found by Yen's algorithm (see KShortestPaths).
+   * The first path is a shortest path, and each of the others is an alternative that differs from
+   * all the paths before it. Spur searches mask nodes and edges in arrays of their own, so the
+   * graph is never modified and can be queried by other threads at the same time.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param end   the data item in the destination node for the paths
+   * @param k     the largest number of paths to return
+   * @return the paths, fewer than k when there are no more loopless paths, and none when no path
+   *         from start to end exists
+   * @throws IllegalArgumentException when k is not positive
+   * @throws NoSuchElementException   when either start or end data do not correspond to a graph
+   *                                  node
+   */
+  public List<PathResult<NodeType>> kShortestPaths(NodeType start, NodeType end, int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("K must be positive: " + k);
+    }
+    Node startNode = requireNode(start, end);
+    return new KShortestPaths<>(this, workspaces.get(), reverseWorkspaces.get(), queueStrategy,
+        startNode.id, this.nodes.get(end).id).find(k);
+  }
+
+  /**
+   * Helper method that converts the chain of SearchNodes ending at endNode into a PathResult.
+   *
+   * @param endNode the SearchNode for the final node of a path
+   * @return the path that ends at endNode
+   */
+  protected PathResult<NodeType> toPathResult(SearchNode endNode) {
+    LinkedList<NodeType> path = new LinkedList<>();
+    LinkedList<Double> legs = new LinkedList<>();
+    // iterating from end to the start point, collecting each node and the edge leading into it
+    for (SearchNode current = endNode; current != null; current = current.predecessor) {
+      path.addFirst(current.node.data);
+      if (current.edge != null) {
+        legs.addFirst(current.edge.weight);
+      }
+    }
+
+    double[] legCosts = new double[legs.size()];
+    int i = 0;
+    for (double leg : legs) {
+      legCosts[i++] = leg;
+    }
+    return new PathResult<>(path, legCosts);
+  }
+
   /**
    * Returns the list of data values from nodes along the shortest path from the node with the
    * provided start value through the node with the provided end value. This list of data values
@@ -131,6 +716,11 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * @return list of data item from node along this shortest path
    */
   public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      requireNode(start, end);
+      return tree.pathDataTo(end);
+    }
     // call to helper method to compute the shortest path
     SearchNode endNode = computeShortestPath(start, end);
     // initializing a list to store all the path
@@ -155,7 +745,202 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * @return the cost of the shortest path between these nodes
    */
   public double shortestPathCost(NodeType start, NodeType end) {
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      requireNode(start, end);
+      return tree.costTo(end);
+    }
+    if (queueStrategy == QueueStrategy.LAZY && !bidirectional && heuristic == null) {
       return computeShortestPath(start, end).cost;
+    }
+    Node startNode = requireNode(start, end);
+    Node endNode = this.nodes.get(end);
+    if (!bidirectional) {
+      return search(startNode, endNode).dist(endNode.id);
+    }
+    // add the legs up from the start, in the same order as a forward search would
+    double cost = 0.0;
+    for (int edgeId : pathEdges(startNode, endNode)) {
+      cost += edgesById.get(edgeId).weight;
+    }
+    return cost;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to every node that
+   * can be reached from it at a cost of budget or less, including the start node itself at a cost of
+   * 0.0. Rather than searching for each destination separately, this method expands outward from
+   * start once and stops as soon as the cheapest path left in the priority queue exceeds the budget.
+   *
+   * @param start  the data item in the starting node for the paths
+   * @param budget the maximum path cost for a node to be included
+   * @return map from the data in each reachable node to its shortest path cost
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget) {
+    // check if the START node exists in the graph
+    if (!containsNode(start)) {
+      throw new NoSuchElementException("START data does not exist in the graph.");
+    }
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      return tree.reachableWithin(budget);
+    }
+
+    // expand outward from start in this thread's workspace, one settled node at a time
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(getNodeIdBound(), queueStrategy);
+    workspace.start(this.nodes.get(start).id);
+    OpenAddressingMap<NodeType, Double> reached = new OpenAddressingMap<>();
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(id);
+
+      // every path left in the queue is at least this expensive, so we are done
+      if (cost > budget) {
+        break;
+      }
+      reached.put(nodesById.get(id).data, cost);
+      for (Edge nodeEdge : nodesById.get(id).edgesLeaving) {
+        double newCost = cost + nodeEdge.weight;
+        if (newCost <= budget) {
+          workspace.relax(nodeEdge.successor.id, newCost, id, nodeEdge.id);
+        }
+      }
+    }
+    return reached;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to each of the
+   * nodes containing the end data, in the order of ends. A single search expands outward from start
+   * in this thread's workspace, and stops as soon as every end has been settled, so a row of a
+   * distance matrix costs one search instead of one per end. Ends may repeat.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends  the data items in the destination nodes for the paths
+   * @return the cost of the shortest path to each end, or Double.POSITIVE_INFINITY for ends that
+   *         cannot be reached
+   * @throws NoSuchElementException when start or any of ends does not correspond to a graph node
+   */
+  public double[] shortestPathCosts(NodeType start, List<NodeType> ends) {
+    if (!containsNode(start)) {
+      throw new NoSuchElementException("START data does not exist in the graph.");
+    }
+    int[] endIds = new int[ends.size()];
+    for (int i = 0; i < endIds.length; i++) {
+      if (!containsNode(ends.get(i))) {
+        throw new NoSuchElementException("END data does not exist in the graph.");
+      }
+      endIds[i] = this.nodes.get(ends.get(i)).id;
+    }
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      double[] costs = new double[endIds.length];
+      for (int i = 0; i < costs.length; i++) {
+        costs[i] = tree.isReachable(ends.get(i)) ? tree.costTo(ends.get(i))
+            : Double.POSITIVE_INFINITY;
+      }
+      return costs;
+    }
+
+    SearchWorkspace workspace = searchToAll(this.nodes.get(start).id, endIds);
+    double[] costs = new double[endIds.length];
+    for (int i = 0; i < endIds.length; i++) {
+      costs[i] = workspace.isSettled(endIds[i]) ? workspace.dist(endIds[i])
+          : Double.POSITIVE_INFINITY;
+    }
+    return costs;
+  }
+
+  /**
+   * Returns the shortest paths from the node containing the start data to each of the nodes
+   * containing the end data, in the order of ends, all read off a single search from start that
+   * stops as soon as every end has been settled. Ends may repeat.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends  the data items in the destination nodes for the paths
+   * @return the shortest path to each end, or an empty result for ends that cannot be reached
+   * @throws NoSuchElementException when start or any of ends does not correspond to a graph node
+   */
+  public List<PathResult<NodeType>> shortestPaths(NodeType start, List<NodeType> ends) {
+    if (!containsNode(start)) {
+      throw new NoSuchElementException("START data does not exist in the graph.");
+    }
+    int[] endIds = new int[ends.size()];
+    for (int i = 0; i < endIds.length; i++) {
+      if (!containsNode(ends.get(i))) {
+        throw new NoSuchElementException("END data does not exist in the graph.");
+      }
+      endIds[i] = this.nodes.get(ends.get(i)).id;
+    }
+    List<PathResult<NodeType>> paths = new ArrayList<>(endIds.length);
+    ShortestPathTree<NodeType> tree = cachedTree(start);
+    if (tree != null) {
+      for (NodeType end : ends) {
+        paths.add(tree.isReachable(end) ? tree.pathTo(end) : PathResult.empty());
+      }
+      return paths;
+    }
+
+    int source = this.nodes.get(start).id;
+    SearchWorkspace workspace = searchToAll(source, endIds);
+    for (int target : endIds) {
+      if (!workspace.isSettled(target)) {
+        paths.add(PathResult.empty());
+        continue;
+      }
+      // follow the parent edges back from target, then read the path off them in order
+      int length = 0;
+      for (int id = target; id != source; id = workspace.parent(id)) {
+        length++;
+      }
+      int[] edges = new int[length];
+      for (int i = length - 1, id = target; i >= 0; i--, id = workspace.parent(id)) {
+        edges[i] = workspace.parentEdge(id);
+      }
+      List<NodeType> path = new ArrayList<>(length + 1);
+      double[] legCosts = new double[length];
+      path.add(start);
+      for (int i = 0; i < length; i++) {
+        Edge edge = edgesById.get(edges[i]);
+        path.add(edge.successor.data);
+        legCosts[i] = edge.weight;
+      }
+      paths.add(new PathResult<>(path, legCosts));
+    }
+    return paths;
+  }
+
+  /**
+   * Runs a search from source in this thread's workspace until every one of the targets has been
+   * settled, or every node that source can reach has been, and returns the workspace.
+   */
+  protected SearchWorkspace searchToAll(int source, int[] targets) {
+    // the search is done once it has settled each distinct target
+    int[] sortedTargets = targets.clone();
+    Arrays.sort(sortedTargets);
+    int remaining = 0;
+    for (int i = 0; i < sortedTargets.length; i++) {
+      if (i == 0 || sortedTargets[i] != sortedTargets[i - 1]) {
+        remaining++;
+      }
+    }
+
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(getNodeIdBound(), queueStrategy);
+    workspace.start(source);
+    int id;
+    while (remaining > 0 && (id = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(id);
+      if (Arrays.binarySearch(sortedTargets, id) >= 0) {
+        remaining--;
+      }
+      for (Edge nodeEdge : nodesById.get(id).edgesLeaving) {
+        workspace.relax(nodeEdge.successor.id, cost + nodeEdge.weight, id, nodeEdge.id);
+      }
+    }
+    return workspace;
   }
 
   /**
@@ -428,4 +1213,390 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     Assertions.assertTrue(exceptionThrown,
         "shortestPathTest03() [3.2]: FAILED shortestPathCost() did not throw EXPECTED exception for NULL input.");
   }
+
+  /**
+   * shortestPathTreeTest: Checks that a ShortestPathTree gives the same costs as shortestPathCost
+   * from its start to every node, with paths made of edges of the graph, that trees are kept and
+   * reused up to the cache size, and that a change to the graph makes kept trees stale so that
+   * queries search again.
+   */
+  @Test
+  public void shortestPathTreeTest() {
+    DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(60, 150, 900);
+    graphTester.setTreeCacheSize(2);
+    for (int start = 0; start < 60; start += 7) {
+      ShortestPathTree<Integer> tree = graphTester.shortestPathTree(start);
+      for (int end = 0; end < 60; end++) {
+        int s = start;
+        int t = end;
+        graphTester.setTreeCacheSize(0); // so that shortestPathCost searches
+        double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+        graphTester.setTreeCacheSize(2);
+        TestGraphs.assertShortestPath("shortestPathTreeTest", graphTester, s, t, expected,
+            () -> tree.costTo(t), () -> tree.pathTo(t));
+        Assertions.assertEquals(expected != Double.POSITIVE_INFINITY, tree.isReachable(t),
+            "shortestPathTreeTest() [1.5]: FAILED REACHABLE does not match the COST.");
+      }
+    }
+
+    // the two most recently used trees are kept, and answer queries from their starts
+    ShortestPathTree<Integer> first = graphTester.shortestPathTree(1);
+    ShortestPathTree<Integer> second = graphTester.shortestPathTree(2);
+    Assertions.assertSame(first, graphTester.shortestPathTree(1),
+        "shortestPathTreeTest() [2.1]: FAILED did not reuse a kept TREE.");
+    graphTester.shortestPathTree(3);
+    Assertions.assertNotSame(second, graphTester.shortestPathTree(2),
+        "shortestPathTreeTest() [2.2]: FAILED kept the least recently used TREE.");
+    Assertions.assertEquals(TestGraphs.costOrInfinity(() -> first.costTo(40)),
+        TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(1, 40)),
+        "shortestPathTreeTest() [2.3]: FAILED a query from a kept TREE found a different COST.");
+
+    // changing a weight makes every tree stale
+    graphTester.insertEdge(1, 2, 0.5);
+    Assertions.assertFalse(first.isCurrent(),
+        "shortestPathTreeTest() [3.1]: FAILED a TREE stayed current after a change.");
+    Assertions.assertThrows(IllegalStateException.class, () -> first.costTo(2),
+        "shortestPathTreeTest() [3.2]: FAILED a stale TREE answered a query.");
+    Assertions.assertEquals(0.5, graphTester.shortestPathCost(1, 2),
+        "shortestPathTreeTest() [3.3]: FAILED a query used a stale TREE.");
+    Assertions.assertNotSame(first, graphTester.shortestPathTree(1),
+        "shortestPathTreeTest() [3.4]: FAILED reused a stale TREE.");
+
+    // an infinite budget reaches neither an isolated node nor the freed id of a removed one
+    DijkstraGraph<String, Double> small = TestGraphs.edgeCaseGraph(new DijkstraGraph<>());
+    OffHeapGraph offHeap = TestGraphs.edgeCaseGraph(new OffHeapGraph());
+    Assertions.assertEquals(3, small.reachableWithin("A", Double.POSITIVE_INFINITY).getSize(),
+        "shortestPathTreeTest() [4.1]: FAILED a search reached an unreachable node.");
+    Assertions.assertEquals(3, small.shortestPathTree("A").reachableWithin(
+        Double.POSITIVE_INFINITY).getSize(),
+        "shortestPathTreeTest() [4.2]: FAILED a TREE reached an unreachable node.");
+    Assertions.assertEquals(3, small.reachableWithin("A", Double.POSITIVE_INFINITY).getSize(),
+        "shortestPathTreeTest() [4.3]: FAILED a kept TREE reached an unreachable node.");
+    Assertions.assertFalse(small.shortestPathTree("A").isReachable("D"),
+        "shortestPathTreeTest() [4.4]: FAILED an isolated node is REACHABLE.");
+    Assertions.assertEquals(3, offHeap.shortestPathTree("A").reachableWithin(
+        Double.POSITIVE_INFINITY).getSize(),
+        "shortestPathTreeTest() [4.5]: FAILED an off-heap TREE reached a freed id.");
+  }
+
+  /**
+   * bulkLoadTest: Checks that DijkstraGraph and OffHeapGraph hold the same nodes, edges and costs
+   * after insertNodes and insertEdges as a graph built one node and edge at a time, that removing
+   * nodes keeps the edge count right, and that clear empties the graph for the next load.
+   */
+  @Test
+  public void bulkLoadTest() {
+    java.util.Random random = new java.util.Random(1600);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      names.add("Node " + i);
+    }
+    List<String> preds = new ArrayList<>();
+    List<String> succs = new ArrayList<>();
+    List<Double> weights = new ArrayList<>();
+    DijkstraGraph<String, Double> expected = new DijkstraGraph<>();
+    for (String name : names) {
+      expected.insertNode(name);
+    }
+    for (int i = 0; i < 300; i++) {
+      preds.add(names.get(random.nextInt(names.size())));
+      succs.add(i % 25 == 0 ? preds.get(i) : names.get(random.nextInt(names.size())));
+      weights.add((double) random.nextInt(20));
+      expected.insertEdge(preds.get(i), succs.get(i), weights.get(i));
+    }
+    List<String> removed = List.of(names.get(3), names.get(17), names.get(40));
+    for (String name : removed) {
+      expected.removeNode(name);
+    }
+
+    List<GraphADT<String, Double>> graphs = List.of(new DijkstraGraph<>(), new OffHeapGraph());
+    for (GraphADT<String, Double> graph : graphs) {
+      List<String> nodes = new ArrayList<>(names);
+      nodes.add(names.get(0));
+      Assertions.assertEquals(names.size(), graph.insertNodes(nodes),
+          "bulkLoadTest() [1.1]: FAILED inserted a different number of NODES.");
+      Assertions.assertEquals(preds.size(), graph.insertEdges(preds, succs, weights),
+          "bulkLoadTest() [1.2]: FAILED inserted a different number of EDGES.");
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> graph.insertEdges(preds, succs, List.of()),
+          "bulkLoadTest() [1.3]: FAILED accepted lists of different sizes.");
+      for (String name : removed) {
+        graph.removeNode(name);
+      }
+
+      int edges = 0;
+      for (String pred : expected.getAllNodes()) {
+        for (String succ : expected.getAllNodes()) {
+          if (expected.containsEdge(pred, succ)) {
+            edges++;
+            Assertions.assertEquals(expected.getEdge(pred, succ), graph.getEdge(pred, succ),
+                "bulkLoadTest() [2.1]: FAILED holds a different EDGE.");
+          } else {
+            Assertions.assertFalse(graph.containsEdge(pred, succ),
+                "bulkLoadTest() [2.2]: FAILED holds an EDGE that is not in the graph.");
+          }
+        }
+      }
+      Assertions.assertTrue(edges == graph.getEdgeCount() && edges == expected.getEdgeCount(),
+          "bulkLoadTest() [2.3]: FAILED counted the EDGES wrong after removing nodes.");
+      for (int i = 0; i < 20; i++) {
+        String start = expected.getAllNodes().get(random.nextInt(expected.getNodeCount()));
+        String end = expected.getAllNodes().get(random.nextInt(expected.getNodeCount()));
+        Assertions.assertEquals(
+            TestGraphs.costOrInfinity(() -> expected.shortestPathCost(start, end)),
+            TestGraphs.costOrInfinity(() -> graph.shortestPathCost(start, end)),
+            "bulkLoadTest() [2.4]: FAILED found a different COST.");
+      }
+
+      graph.clear();
+      Assertions.assertTrue(graph.getNodeCount() == 0 && graph.getEdgeCount() == 0
+          && graph.getAllNodes().isEmpty() && !graph.containsNode(names.get(0)),
+          "bulkLoadTest() [3.1]: FAILED did not remove every NODE and EDGE.");
+      Assertions.assertTrue(graph.insertNode(names.get(5)) && graph.insertNode(names.get(6))
+          && graph.insertEdge(names.get(5), names.get(6), 2.0)
+          && graph.shortestPathCost(names.get(5), names.get(6)) == 2.0
+          && ((IndexedGraph<?>) graph).getNodeIdBound() == 2,
+          "bulkLoadTest() [3.2]: FAILED could not be loaded again after clear.");
+    }
+  }
+
+  /**
+   * queueStrategyTest: Checks that every QueueStrategy finds shortest paths of the same cost, in
+   * both DijkstraGraph and CsrDijkstra, for every pair of nodes in a random graph.
+   */
+  @Test
+  public void queueStrategyTest() {
+    DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(60, 240, 400);
+    CsrGraph<Integer> frozen = graphTester.freeze();
+
+    for (int start = 0; start < 60; start++) {
+      for (int end = 0; end < 60; end++) {
+        int s = start;
+        int t = end;
+        // the original lazy search decides what the expected cost is
+        graphTester.setQueueStrategy(QueueStrategy.LAZY);
+        double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+
+        for (QueueStrategy strategy : QueueStrategy.values()) {
+          graphTester.setQueueStrategy(strategy);
+          CsrDijkstra<Integer> engine = new CsrDijkstra<>(frozen, strategy);
+          double actual = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          double actualFrozen = TestGraphs.costOrInfinity(() -> engine.shortestPathCost(s, t));
+          Assertions.assertEquals(expected, actual,
+              "queueStrategyTest() [1.1]: FAILED " + strategy + " found a different COST.");
+          Assertions.assertEquals(expected, actualFrozen,
+              "queueStrategyTest() [1.2]: FAILED frozen " + strategy + " found a different COST.");
+        }
+      }
+    }
+  }
+
+  /**
+   * workspaceReuseTest: Checks that the workspace reused by successive searches never leaks state
+   * from one search into the next, by repeating queries (including unreachable ones) on a graph
+   * that grows and shrinks between them and comparing each result with the original lazy search.
+   */
+  @Test
+  public void workspaceReuseTest() {
+    DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(40, 100, 500);
+    java.util.Random random = new java.util.Random(501);
+
+    for (int round = 0; round < 200; round++) {
+      // change the graph a little, so that node and edge ids get released and reused
+      if (round % 10 == 0) {
+        int node = random.nextInt(40);
+        graphTester.removeNode(node);
+        graphTester.insertNode(node);
+        graphTester.insertEdge(node, random.nextInt(40), 1.0 + random.nextInt(9));
+      }
+      int s = random.nextInt(40);
+      int t = random.nextInt(40);
+
+      graphTester.setQueueStrategy(QueueStrategy.LAZY);
+      double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+      graphTester.setQueueStrategy(QueueStrategy.values()[round % 3]);
+      double actual = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+      Assertions.assertEquals(expected, actual,
+          "workspaceReuseTest() [1.1]: FAILED a reused workspace found a different COST.");
+
+      if (expected != Double.POSITIVE_INFINITY) {
+        PathResult<Integer> path = graphTester.shortestPath(s, t);
+        Assertions.assertEquals(expected, path.getTotalCost(), 1e-9,
+            "workspaceReuseTest() [1.2]: FAILED the PATH does not add up to the shortest COST.");
+        Assertions.assertEquals(graphTester.shortestPathData(s, t), path.getNodes(),
+            "workspaceReuseTest() [1.3]: FAILED the PATH does not match shortestPathData().");
+      }
+    }
+  }
+
+  /**
+   * bidirectionalTest: Checks that the bidirectional search finds paths of the same cost as the
+   * forward search for every pair of nodes in a random graph, that every path it returns is made of
+   * edges of the graph and adds up to that cost, and that it reports unreachable ends the same way.
+   */
+  @Test
+  public void bidirectionalTest() {
+    DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(60, 200, 600);
+
+    for (QueueStrategy strategy : QueueStrategy.values()) {
+      graphTester.setQueueStrategy(strategy);
+      for (int start = 0; start < 60; start++) {
+        for (int end = 0; end < 60; end++) {
+          int s = start;
+          int t = end;
+          graphTester.setBidirectional(false);
+          double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          graphTester.setBidirectional(true);
+          double actual = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          Assertions.assertEquals(expected, actual,
+              "bidirectionalTest() [1.1]: FAILED found a different COST with " + strategy + ".");
+          if (expected == Double.POSITIVE_INFINITY) {
+            continue;
+          }
+
+          List<Integer> path = graphTester.shortestPathData(s, t);
+          Assertions.assertEquals((Integer) s, path.get(0),
+              "bidirectionalTest() [1.2]: FAILED the PATH does not begin at START.");
+          Assertions.assertEquals((Integer) t, path.get(path.size() - 1),
+              "bidirectionalTest() [1.3]: FAILED the PATH does not end at END.");
+          double cost = 0.0;
+          for (int i = 1; i < path.size(); i++) {
+            cost += graphTester.getEdge(path.get(i - 1), path.get(i));
+          }
+          Assertions.assertEquals(expected, cost,
+              "bidirectionalTest() [1.4]: FAILED the PATH does not add up to the shortest COST.");
+        }
+      }
+    }
+
+    // both directions of search, with every queue strategy, on 0 weight and self edges
+    DijkstraGraph<String, Double> edgeCases = TestGraphs.edgeCaseGraph(new DijkstraGraph<>());
+    for (QueueStrategy strategy : QueueStrategy.values()) {
+      for (boolean bidirectional : new boolean[] {false, true}) {
+        edgeCases.setQueueStrategy(strategy);
+        edgeCases.setBidirectional(bidirectional);
+        String mode = strategy + (bidirectional ? " both ways." : " forward.");
+        Assertions.assertEquals(List.of("A", "B", "C"), edgeCases.shortestPathData("A", "C"),
+            "bidirectionalTest() [2.1]: FAILED did not follow a 0 weight EDGE with " + mode);
+        Assertions.assertEquals(List.of("A"), edgeCases.shortestPathData("A", "A"),
+            "bidirectionalTest() [2.2]: FAILED the PATH to START is not just START with " + mode);
+        Assertions.assertThrows(NoSuchElementException.class,
+            () -> edgeCases.shortestPathCost("A", "D"),
+            "bidirectionalTest() [2.3]: FAILED found a path to an isolated NODE with " + mode);
+      }
+    }
+  }
+
+  /**
+   * aStarTest: Checks that A* searches with a StraightLineHeuristic find paths of the same cost as
+   * Dijkstra's algorithm between every pair of nodes of a grid whose nodes have positions, with
+   * every queue strategy, and that they never settle more nodes doing so.
+   */
+  @Test
+  public void aStarTest() {
+    int side = 12;
+    java.util.Random random = new java.util.Random(7);
+    DijkstraGraph<Integer, Double> graphTester = new DijkstraGraph<>();
+    MapADT<Integer, double[]> positions = new OpenAddressingMap<>();
+    StraightLineHeuristic<Integer> heuristic = new StraightLineHeuristic<>(positions);
+    for (int i = 0; i < side * side; i++) {
+      graphTester.insertNode(i);
+      positions.put(i, new double[] {i % side, i / side});
+    }
+    for (int i = 0; i < side * side; i++) {
+      int right = i % side + 1 < side ? i + 1 : -1;
+      int down = i + side < side * side ? i + side : -1;
+      for (int next : new int[] {right, down}) {
+        if (next >= 0 && random.nextInt(10) > 0) { // leave a few edges out
+          double forward = 1 + 4 * random.nextDouble();
+          double backward = 1 + 4 * random.nextDouble();
+          graphTester.insertEdge(i, next, forward);
+          graphTester.insertEdge(next, i, backward);
+          heuristic.admitEdge(i, next, forward);
+          heuristic.admitEdge(next, i, backward);
+        }
+      }
+    }
+
+    for (QueueStrategy strategy : QueueStrategy.values()) {
+      graphTester.setQueueStrategy(strategy);
+      for (int start = 0; start < side * side; start += 5) {
+        for (int end = 0; end < side * side; end += 3) {
+          int s = start;
+          int t = end;
+          graphTester.setHeuristic(null);
+          double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          int dijkstraSettled = graphTester.workspaces.get().settledCount();
+          graphTester.setHeuristic(heuristic);
+          double actual = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          Assertions.assertEquals(expected, actual, 1e-9,
+              "aStarTest() [1.1]: FAILED found a different COST with " + strategy + ".");
+          if (expected == Double.POSITIVE_INFINITY) {
+            continue;
+          }
+          // LAZY Dijkstra searches do not run in the workspace, so there is nothing to compare
+          Assertions.assertTrue(strategy == QueueStrategy.LAZY
+              || graphTester.workspaces.get().settledCount() <= dijkstraSettled,
+              "aStarTest() [1.2]: FAILED settled MORE nodes than Dijkstra's algorithm.");
+          List<Integer> path = graphTester.shortestPathData(s, t);
+          Assertions.assertEquals(actual, graphTester.shortestPath(s, t).getTotalCost(), 1e-9,
+              "aStarTest() [1.3]: FAILED the PATH does not add up to the shortest COST.");
+          Assertions.assertEquals((Integer) t, path.get(path.size() - 1),
+              "aStarTest() [1.4]: FAILED the PATH does not end at END.");
+        }
+      }
+    }
+  }
+
+  /**
+   * reachableWithinTest: Checks that the single search performed by reachableWithin() reports
+   * exactly the nodes whose shortest path cost is within the budget, with the same costs that
+   * shortestPathCost() computes for each of them, and that an unknown start node is rejected.
+   */
+  @Test
+  public void reachableWithinTest() {
+    // creating graph for testing
+    DijkstraGraph<String, Integer> graphTester = new DijkstraGraph<String, Integer>();
+
+    // inserting nodes into the graph
+    graphTester.insertNode("A");
+    graphTester.insertNode("B");
+    graphTester.insertNode("C");
+    graphTester.insertNode("D");
+    graphTester.insertNode("E");
+    graphTester.insertNode("F");
+    graphTester.insertNode("G");
+    graphTester.insertNode("H");
+
+    // inserting edges to the nodes
+    graphTester.insertEdge("A", "B", 4);
+    graphTester.insertEdge("A", "C", 2);
+    graphTester.insertEdge("A", "E", 15);
+    graphTester.insertEdge("B", "E", 10);
+    graphTester.insertEdge("B", "D", 1);
+    graphTester.insertEdge("C", "D", 5);
+    graphTester.insertEdge("D", "E", 3);
+    graphTester.insertEdge("D", "F", 0);
+    graphTester.insertEdge("F", "H", 4);
+    graphTester.insertEdge("F", "D", 2);
+    graphTester.insertEdge("G", "H", 4);
+
+    // Test 01: A reaches A(0), C(2), B(4), D(5) and F(5) within 5, but not E(8) or H(9)
+    MapADT<String, Double> reached = graphTester.reachableWithin("A", 5);
+    Assertions.assertEquals(5, reached.getSize(),
+        "reachableWithinTest() [1.1]: FAILED did not reach the expected NUMBER of nodes.");
+    for (String node : Arrays.asList("A", "B", "C", "D", "F")) {
+      Assertions.assertEquals(graphTester.shortestPathCost("A", node), (double) reached.get(node),
+          "reachableWithinTest() [1.2]: FAILED did not report the expected COST for " + node);
+    }
+    Assertions.assertFalse(reached.containsKey("E") || reached.containsKey("H"),
+        "reachableWithinTest() [1.3]: FAILED reported a node BEYOND the budget.");
+
+    // Test 02: G is never reachable from A, and unknown start nodes throw
+    Assertions.assertFalse(graphTester.reachableWithin("A", 100).containsKey("G"),
+        "reachableWithinTest() [2.1]: FAILED reported an UNREACHABLE node.");
+    Assertions.assertThrows(NoSuchElementException.class,
+        () -> graphTester.reachableWithin("Z", 100),
+        "reachableWithinTest() [2.2]: FAILED did not throw EXPECTED exception for INVALID start.");
+  }
 }
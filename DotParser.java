@@ -0,0 +1,629 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A single pass parser for the subset of the DOT language that our map files use:
+ *
+ *     digraph campus {
+ *         "Memorial Union" -> "Science Hall" [seconds=105.8];
+ *         "Helen C White Hall" [x=-89.4012, y=43.0766];
+ *     }
+ *
+ * Node ids can be quoted strings (with \" escapes) or bare words and numbers. An edge statement
+ * needs a seconds attribute. A node statement can give the node a position, either with x and y
+ * attributes or with a pos="x,y" attribute. Other attributes are skipped, and so are statements
+ * that set graph, node or edge defaults, comments and semicolons.
+ *
+ * The parser reads the input in fixed size blocks of bytes, so it never holds more than one block
+ * of a file in memory and never creates a String per line. Every distinct node name is decoded
+ * into a String only once, the first time it is seen, and handed to the Handler's node method
+ * before any edge uses it. Numbers are converted straight from their digits, falling back on
+ * Double.parseDouble only for numbers that cannot be converted exactly that way. Syntax errors are
+ * reported as IOExceptions that name the line and column where parsing failed.
+ *
+ * A DotParser can be reused, but not by several threads at once.
+ */
+public class DotParser {
+
+  /**
+   * Receives the nodes and edges of a .dot file, in the order in which they appear.
+   */
+  public interface Handler {
+    /**
+     * Called once for every distinct node, before any edge that uses it.
+     *
+     * @param name the name of the node
+     */
+    void node(String name);
+
+    /**
+     * Called once for every edge statement.
+     *
+     * @param pred    the name of the node the edge leaves
+     * @param succ    the name of the node the edge enters
+     * @param seconds the value of the edge's seconds attribute
+     */
+    void edge(String pred, String succ, double seconds);
+
+    /**
+     * Called for every node statement that gives the node a position, after node has been called
+     * for that node. Handlers that have no use for positions can ignore them.
+     *
+     * @param name the name of the node
+     * @param x    the x coordinate of the node
+     * @param y    the y coordinate of the node
+     */
+    default void position(String name, double x, double y) {
+    }
+  }
+
+  private static final int BLOCK_SIZE = 1 << 16;
+  // exact powers of ten, the largest that a double can represent without rounding is 10^22
+  private static final double[] POWERS_OF_TEN = new double[23];
+  static {
+    POWERS_OF_TEN[0] = 1.0;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+  }
+
+  // input state
+  private ReadableByteChannel channel;
+  private String sourceName;
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private final ByteBuffer blockBuffer = ByteBuffer.wrap(block);
+  private int position = 0; // index of the next unread byte in block
+  private int limit = 0; // number of valid bytes in block
+  private int line = 1;
+  private int column = 1;
+
+  // bytes of the token that was read last
+  private byte[] token = new byte[64];
+  private int tokenLength = 0;
+  private boolean tokenQuoted = false;
+  private int tokenLine = 1;
+  private int tokenColumn = 1;
+
+  // values of the attributes of the statement that was read last, NaN when missing
+  private double seconds;
+  private double x;
+  private double y;
+
+  // node names seen so far, in an open addressing table keyed by the bytes of the name
+  private String[] names = new String[1024];
+  private byte[][] nameBytes = new byte[1024][];
+  private int[] nameHashes = new int[1024];
+  private int nameCount = 0;
+
+  /**
+   * Parses the .dot file with the provided name.
+   *
+   * @param filename the name of the file to parse
+   * @param handler  receives the nodes and edges in the file
+   * @throws IOException if the file cannot be read or is not valid
+   */
+  public void parse(String filename, Handler handler) throws IOException {
+    try (FileChannel file = FileChannel.open(Paths.get(filename))) {
+      parse(file, filename, handler);
+    }
+  }
+
+  /**
+   * Parses .dot text read from the provided channel, which is not closed.
+   *
+   * @param channel    the channel to read from
+   * @param sourceName the name to report in error messages
+   * @param handler    receives the nodes and edges in the text
+   * @throws IOException if the channel cannot be read or the text is not valid
+   */
+  public void parse(ReadableByteChannel channel, String sourceName, Handler handler)
+      throws IOException {
+    this.channel = channel;
+    this.sourceName = sourceName;
+    position = limit = 0;
+    line = column = 1;
+    Arrays.fill(names, null);
+    Arrays.fill(nameBytes, null);
+    nameCount = 0;
+    try {
+      parseGraph(handler);
+    } finally {
+      this.channel = null;
+    }
+  }
+
+  // graph : [strict] digraph [ID] '{' statement* '}'
+  private void parseGraph(Handler handler) throws IOException {
+    if (!readToken()) {
+      throw error("expected digraph");
+    }
+    if (tokenIs("strict") && !readToken()) {
+      throw error("expected digraph");
+    }
+    if (!tokenIs("digraph")) {
+      throw error("expected digraph");
+    }
+    int next = skipSpace();
+    if (next != '{') {
+      if (!readToken()) {
+        throw error("expected {");
+      }
+      next = skipSpace();
+    }
+    if (next != '{') {
+      throw error("expected {");
+    }
+    read();
+
+    while (true) {
+      next = skipSpace();
+      if (next == '}') {
+        read();
+        break;
+      }
+      if (next == ';') {
+        read();
+        continue;
+      }
+      if (next < 0) {
+        throw error("expected }");
+      }
+      parseStatement(handler);
+    }
+    if (skipSpace() >= 0) {
+      throw error("unexpected text after }");
+    }
+  }
+
+  // statement : ID ['->' ID] [attributes] | ID '=' ID
+  private void parseStatement(Handler handler) throws IOException {
+    if (!readToken()) {
+      throw error("expected a node name");
+    }
+    boolean defaults = !tokenQuoted && (tokenIs("graph") || tokenIs("node") || tokenIs("edge"));
+    int next = skipSpace();
+    if (defaults && next == '[') {
+      parseAttributes(); // default attributes for the graph, its nodes or its edges
+      return;
+    }
+    if (next == '=') {
+      read();
+      if (!readToken()) { // a graph attribute such as rankdir=LR
+        throw error("expected a value");
+      }
+      return;
+    }
+
+    String pred = intern(handler);
+    if (next != '-') {
+      if (next == '[') {
+        int openLine = line;
+        int openColumn = column;
+        parseAttributes();
+        if (Double.isNaN(x) != Double.isNaN(y)) {
+          throw new IOException(location(openLine, openColumn) + "node has only one coordinate");
+        }
+        if (!Double.isNaN(x)) {
+          handler.position(pred, x, y);
+        }
+      }
+      return;
+    }
+    read();
+    if (read() != '>') {
+      throw error("expected ->");
+    }
+    if (!readToken()) {
+      throw error("expected a node name");
+    }
+    String succ = intern(handler);
+    if (skipSpace() != '[') {
+      throw error("expected [seconds=...]");
+    }
+    int openLine = line;
+    int openColumn = column;
+    parseAttributes();
+    if (Double.isNaN(seconds)) {
+      throw new IOException(location(openLine, openColumn) + "edge has no seconds attribute");
+    }
+    handler.edge(pred, succ, seconds);
+  }
+
+  // attributes : '[' (ID '=' ID [',' | ';'])* ']', setting seconds, x and y to their values
+  private void parseAttributes() throws IOException {
+    read(); // the [
+    seconds = x = y = Double.NaN;
+    while (true) {
+      int next = skipSpace();
+      if (next == ']') {
+        read();
+        break;
+      }
+      if (next == ',' || next == ';') {
+        read();
+        continue;
+      }
+      if (!readToken()) {
+        throw error("expected an attribute name");
+      }
+      int name = tokenQuoted ? 0 : tokenIs("seconds") ? 1 : tokenIs("x") ? 2 : tokenIs("y") ? 3
+          : tokenIs("pos") ? 4 : 0;
+      if (skipSpace() != '=') {
+        throw error("expected =");
+      }
+      read();
+      if (!readToken()) {
+        throw error("expected an attribute value");
+      }
+      if (name == 1) {
+        seconds = parseNumber(0, tokenLength);
+      } else if (name == 2) {
+        x = parseNumber(0, tokenLength);
+      } else if (name == 3) {
+        y = parseNumber(0, tokenLength);
+      } else if (name == 4) {
+        // pos="x,y", possibly followed by a ! that pins the node in place
+        int end = tokenLength > 0 && token[tokenLength - 1] == '!' ? tokenLength - 1 : tokenLength;
+        int comma = 0;
+        while (comma < end && token[comma] != ',') {
+          comma++;
+        }
+        if (comma == end) {
+          throw new IOException(location(tokenLine, tokenColumn) + "pos needs an x and a y");
+        }
+        x = parseNumber(0, comma);
+        y = parseNumber(comma + 1, end);
+      }
+    }
+  }
+
+  /**
+   * Converts the bytes of the current token from index from up to index to into a double. Numbers
+   * of at most 15 significant digits with a small exponent are exact in a double, as is the power
+   * of ten they are scaled by, so a single multiplication or division rounds them correctly. Every
+   * other number is handed to Double.parseDouble.
+   */
+  private double parseNumber(int from, int to) throws IOException {
+    int i = from;
+    boolean negative = false;
+    if (i < to && (token[i] == '-' || token[i] == '+')) {
+      negative = token[i++] == '-';
+    }
+    long mantissa = 0;
+    int digits = 0; // number of significant digits, which start at the first non zero digit
+    int scale = 0; // number of digits after the decimal point
+    boolean point = false;
+    boolean any = false;
+    for (; i < to; i++) {
+      int b = token[i];
+      if (b >= '0' && b <= '9') {
+        any = true;
+        if (point) {
+          scale++;
+        }
+        if (mantissa != 0 || b != '0') {
+          if (++digits > 15) {
+            break;
+          }
+          mantissa = mantissa * 10 + (b - '0');
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    if (i == to && any && digits <= 15 && scale < POWERS_OF_TEN.length) {
+      double value = mantissa / POWERS_OF_TEN[scale];
+      return negative ? -value : value;
+    }
+    try {
+      return Double.parseDouble(new String(token, from, to - from, StandardCharsets.US_ASCII));
+    } catch (NumberFormatException e) {
+      throw new IOException(location(tokenLine, tokenColumn) + "invalid number "
+          + new String(token, from, to - from, StandardCharsets.UTF_8), e);
+    }
+  }
+
+  /**
+   * Returns the node name in the current token, creating its String and calling handler.node for
+   * it the first time that the name is seen.
+   */
+  private String intern(Handler handler) {
+    int hash = 1;
+    for (int i = 0; i < tokenLength; i++) {
+      hash = 31 * hash + token[i];
+    }
+    hash ^= hash >>> 16;
+    int mask = names.length - 1;
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      if (names[slot] == null) {
+        byte[] bytes = Arrays.copyOf(token, tokenLength);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+        names[slot] = name;
+        nameBytes[slot] = bytes;
+        nameHashes[slot] = hash;
+        if (++nameCount * 2 > names.length) {
+          growNames();
+        }
+        handler.node(name);
+        return name;
+      }
+      if (nameHashes[slot] == hash && Arrays.equals(nameBytes[slot], 0, nameBytes[slot].length,
+          token, 0, tokenLength)) {
+        return names[slot];
+      }
+    }
+  }
+
+  // doubles the capacity of the name table
+  private void growNames() {
+    String[] oldNames = names;
+    byte[][] oldBytes = nameBytes;
+    int[] oldHashes = nameHashes;
+    names = new String[oldNames.length * 2];
+    nameBytes = new byte[names.length][];
+    nameHashes = new int[names.length];
+    int mask = names.length - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] == null) {
+        continue;
+      }
+      int slot = oldHashes[i] & mask;
+      while (names[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      names[slot] = oldNames[i];
+      nameBytes[slot] = oldBytes[i];
+      nameHashes[slot] = oldHashes[i];
+    }
+  }
+
+  /**
+   * Reads the next id into token: either a quoted string, with its quotes removed and escaped
+   * quotes resolved, or a run of letters, digits, underscores, dots, signs and non ASCII bytes.
+   *
+   * @return false when the next character cannot start an id
+   */
+  private boolean readToken() throws IOException {
+    int b = skipSpace();
+    tokenLength = 0;
+    tokenLine = line;
+    tokenColumn = column;
+    if (b == '"') {
+      tokenQuoted = true;
+      read();
+      while (true) {
+        b = read();
+        if (b < 0) {
+          throw new IOException(location(tokenLine, tokenColumn) + "unterminated string");
+        }
+        if (b == '"') {
+          return true;
+        }
+        if (b == '\\' && peek() == '"') {
+          b = read();
+        }
+        append(b);
+      }
+    }
+    tokenQuoted = false;
+    if (b == '-') {
+      append(read()); // a negative number
+      b = peek();
+    }
+    while (isIdByte(b) || ((b == '-' || b == '+') && endsWithExponent())) {
+      append(read());
+      b = peek();
+    }
+    return tokenLength > 0;
+  }
+
+  private static boolean isIdByte(int b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_'
+        || b == '.' || b >= 0x80;
+  }
+
+  // checks whether the current token is a number that ends in the E of its exponent
+  private boolean endsWithExponent() {
+    if (tokenLength < 2 || (token[tokenLength - 1] | 0x20) != 'e') {
+      return false;
+    }
+    int first = token[0] == '-' ? token[1] : token[0];
+    return (first >= '0' && first <= '9') || first == '.';
+  }
+
+  // checks whether the current token is exactly the provided ASCII word
+  private boolean tokenIs(String word) {
+    if (tokenLength != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < tokenLength; i++) {
+      if (token[i] != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void append(int b) {
+    if (tokenLength == token.length) {
+      token = Arrays.copyOf(token, tokenLength * 2);
+    }
+    token[tokenLength++] = (byte) b;
+  }
+
+  /**
+   * Skips white space and comments (C and C++ style, and # lines).
+   *
+   * @return the next byte after them, without consuming it, or -1 at the end of the input
+   */
+  private int skipSpace() throws IOException {
+    while (true) {
+      int b = peek();
+      if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+        read();
+      } else if (b == '#' && column == 1) {
+        skipLine();
+      } else if (b == '/') {
+        read();
+        int c = peek();
+        if (c == '/') {
+          skipLine();
+        } else if (c == '*') {
+          read();
+          int last = 0;
+          while ((b = read()) >= 0 && !(last == '*' && b == '/')) {
+            last = b;
+          }
+          if (b < 0) {
+            throw error("unterminated comment");
+          }
+        } else {
+          throw error("unexpected /");
+        }
+      } else {
+        return b;
+      }
+    }
+  }
+
+  private void skipLine() throws IOException {
+    int b;
+    while ((b = peek()) >= 0 && b != '\n') {
+      read();
+    }
+  }
+
+  // returns the next byte without consuming it, or -1 at the end of the input
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return block[position] & 0xFF;
+  }
+
+  // consumes and returns the next byte, or -1 at the end of the input
+  private int read() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    int b = block[position++] & 0xFF;
+    if (b == '\n') {
+      line++;
+      column = 1;
+    } else {
+      column++;
+    }
+    return b;
+  }
+
+  // reads the next block of input, returning false at the end of the input
+  private boolean fill() throws IOException {
+    blockBuffer.clear();
+    int n;
+    do {
+      n = channel.read(blockBuffer);
+    } while (n == 0);
+    position = 0;
+    limit = Math.max(0, n);
+    return n > 0;
+  }
+
+  // creates the exception for a syntax error at the current position
+  private IOException error(String message) throws IOException {
+    int b = peek();
+    String found = b < 0 ? "end of file" : "'" + (char) b + "'";
+    return new IOException(location(line, column) + message + " but found " + found);
+  }
+
+  private String location(int line, int column) {
+    return "Error parsing " + sourceName + " at line " + line + ", column " + column + ": ";
+  }
+
+  // parses text, recording each node as "name", each edge as "pred->succ=seconds" and each
+  // position as "name@x,y"
+  private static List<String> parseForTest(String text) throws IOException {
+    List<String> events = new ArrayList<>();
+    new DotParser().parse(
+        Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))),
+        "test.dot", new Handler() {
+          public void node(String name) {
+            events.add(name);
+          }
+
+          public void edge(String pred, String succ, double seconds) {
+            events.add(pred + "->" + succ + "=" + seconds);
+          }
+
+          public void position(String name, double x, double y) {
+            events.add(name + "@" + x + "," + y);
+          }
+        });
+    return events;
+  }
+
+  /**
+   * dotParserTest01: Checks that nodes are reported once each and before their first edge, across
+   * quoted and bare names, standalone nodes, comments, skipped attributes and default statements,
+   * and that node positions are reported in both of their forms.
+   */
+  @Test
+  public void dotParserTest01() throws IOException {
+    String text = "// a test map\n"
+        + "digraph campus {\n"
+        + "  rankdir=LR; node [shape=box];\n"
+        + "\t\"Memorial Union\" -> \"Science Hall\" [seconds=105.8];\n"
+        + "\t\"Science Hall\" -> Bascom [color=red, seconds=\"42\"]; /* both ways */\n"
+        + "\tBascom -> \"Memorial Union\" [seconds=1e2]\n"
+        + "\t\"Say \\\"Cheese\\\"\";\n"
+        + "\t\"Science Hall\" [x=-89.4012, y=43.0766];\n"
+        + "\tBascom [pos=\"3,4.5!\"];\n"
+        + "}\n";
+    List<String> expected = Arrays.asList("Memorial Union", "Science Hall",
+        "Memorial Union->Science Hall=105.8", "Bascom", "Science Hall->Bascom=42.0",
+        "Bascom->Memorial Union=100.0", "Say \"Cheese\"", "Science Hall@-89.4012,43.0766",
+        "Bascom@3.0,4.5");
+    Assertions.assertEquals(expected, parseForTest(text),
+        "dotParserTest01() [1.1]: FAILED did not report the expected NODES and EDGES.");
+  }
+
+  /**
+   * dotParserTest02: Checks that the fast number conversion agrees exactly with
+   * Double.parseDouble, including numbers that need the fallback, and that syntax errors name the
+   * line and column where they occur.
+   */
+  @Test
+  public void dotParserTest02() throws IOException {
+    String[] numbers = {"105.8", "156.49999999999997", "0.1", "0", "007.50", "123456789012345",
+        "1234567890.123456789", "-3.25", "2.5E-3", "4e+1", ".5", "99999999999999999999"};
+    for (String number : numbers) {
+      List<String> events = parseForTest("digraph { a -> b [seconds=" + number + "] }");
+      Assertions.assertEquals("a->b=" + Double.parseDouble(number), events.get(2),
+          "dotParserTest02() [1.1]: FAILED converted " + number + " to the wrong DOUBLE.");
+    }
+
+    String[] invalid = {"digraph {\n  a -> b [seconds=1;\n}", "digraph {\n  a -> b;\n}",
+        "digraph {\n  a -> b [seconds=x1]\n}", "digraph {\n  \"a -> b\n}"};
+    String[] expectedLocations = {"line 3, column 1", "line 2, column 9", "line 2, column 19",
+        "line 2, column 3"};
+    for (int i = 0; i < invalid.length; i++) {
+      String text = invalid[i];
+      IOException e = Assertions.assertThrows(IOException.class, () -> parseForTest(text),
+          "dotParserTest02() [1.2]: FAILED accepted invalid text.");
+      Assertions.assertTrue(e.getMessage().contains(expectedLocations[i]),
+          "dotParserTest02() [1.3]: FAILED reported the wrong LOCATION: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,286 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * An EdgeIndex maps the (predecessor id, successor id) pair of every edge of a graph to the id of
+ * that edge, so that a graph can find the edge between two nodes in O(1) expected time, however
+ * many edges leave the predecessor. Both ids are packed into one long key, and keys and edge ids
+ * are kept in primitive arrays with linear probing, like an OpenAddressingMap, so that neither
+ * lookups nor inserts allocate.
+ *
+ * Node ids are never negative, so the key -1 marks an empty slot.
+ */
+public class EdgeIndex {
+
+  private static final long EMPTY = -1L;
+  private static final double LOAD_FACTOR_THRESHOLD = 0.75;
+
+  private long[] keys; // keys[i] is the packed node ids of an edge, or EMPTY
+  private int[] edges; // edges[i] is the id of the edge with key keys[i]
+  private int mask; // capacity - 1, capacity is always a power of two
+  private int size = 0;
+
+  /**
+   * Creates an empty index with room for the provided number of edges before it needs to grow.
+   *
+   * @param expectedEdges the number of edges the index is expected to hold
+   */
+  public EdgeIndex(int expectedEdges) {
+    allocate(capacityFor(expectedEdges));
+  }
+
+  /**
+   * Returns the id of the edge from node pred to node succ.
+   *
+   * @param pred the id of the edge's predecessor node
+   * @param succ the id of the edge's successor node
+   * @return the id of that edge, or -1 when the index holds no such edge
+   */
+  public int get(int pred, int succ) {
+    long key = keyOf(pred, succ);
+    for (int index = slotOf(key); keys[index] != EMPTY; index = (index + 1) & mask) {
+      if (keys[index] == key) {
+        return edges[index];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds the edge from node pred to node succ, or changes the id stored for it.
+   *
+   * @param pred the id of the edge's predecessor node
+   * @param succ the id of the edge's successor node
+   * @param edge the id of the edge
+   */
+  public void put(int pred, int succ, int edge) {
+    long key = keyOf(pred, succ);
+    int index = slotOf(key);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        edges[index] = edge;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    edges[index] = edge;
+    if (++size >= LOAD_FACTOR_THRESHOLD * keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  /**
+   * Removes the edge from node pred to node succ, if the index holds it.
+   *
+   * @param pred the id of the edge's predecessor node
+   * @param succ the id of the edge's successor node
+   */
+  public void remove(int pred, int succ) {
+    long key = keyOf(pred, succ);
+    int gap = slotOf(key);
+    while (keys[gap] != key) {
+      if (keys[gap] == EMPTY) {
+        return;
+      }
+      gap = (gap + 1) & mask;
+    }
+    // shift later entries of the same probe run back into the gap, as OpenAddressingMap does
+    for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+      int home = slotOf(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        edges[gap] = edges[next];
+        gap = next;
+      }
+    }
+    keys[gap] = EMPTY;
+    size--;
+  }
+
+  /**
+   * Grows the index, when needed, so that it can hold size edges without growing again.
+   *
+   * @param size the number of edges the index is expected to hold
+   */
+  public void ensureCapacity(int size) {
+    int capacity = capacityFor(size);
+    if (capacity > keys.length) {
+      resize(capacity);
+    }
+  }
+
+  /**
+   * Removes every edge from the index, keeping its capacity.
+   */
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  /**
+   * Returns the number of edges in the index.
+   *
+   * @return the number of edges in the index
+   */
+  public int size() {
+    return size;
+  }
+
+  // packs the ids of an edge's nodes into one key
+  private static long keyOf(int pred, int succ) {
+    return ((long) pred << 32) | (succ & 0xFFFFFFFFL);
+  }
+
+  // the slot that a key's probe sequence starts at, from the high bits of a multiplicative hash
+  private int slotOf(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+
+  // the smallest power of two capacity that holds size keys below the load factor
+  private static int capacityFor(int size) {
+    int capacity = 16;
+    while (size >= LOAD_FACTOR_THRESHOLD * capacity) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+
+  // replaces the arrays with empty arrays of the provided power of two capacity
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    edges = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  // moves every entry into arrays of the new capacity
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldEdges = edges;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int index = slotOf(oldKeys[i]);
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        edges[index] = oldEdges[i];
+      }
+    }
+  }
+
+  /**
+   * Tests of a DijkstraGraph that looks its edges up through an EdgeIndex, against one that does
+   * not.
+   */
+  static class Tests {
+
+    /**
+     * edgeIndexTest: Checks that a graph with an edge index holds the same edges as one without
+     * through random inserts, updates and removals of edges and nodes, including at a hub with many
+     * edges, that the index can be turned on and off at any time, and that edges between missing
+     * nodes are reported as absent without exceptions.
+     */
+    @Test
+    public void edgeIndexTest() {
+      java.util.Random random = new java.util.Random(1700);
+      DijkstraGraph<Integer, Double> expected = new DijkstraGraph<>();
+      DijkstraGraph<Integer, Double> indexed = new DijkstraGraph<>();
+      indexed.setEdgeIndexed(true);
+      List<Integer> nodes = new ArrayList<>();
+      for (int i = 0; i < 80; i++) {
+        nodes.add(i);
+      }
+      expected.insertNodes(nodes);
+      indexed.insertNodes(nodes);
+      for (int round = 0; round < 4; round++) {
+        for (int i = 0; i < 400; i++) {
+          // every fourth edge touches the hub, node 0
+          int pred = i % 4 == 0 ? 0 : nodes.get(random.nextInt(nodes.size()));
+          int succ = nodes.get(random.nextInt(nodes.size()));
+          double weight = random.nextInt(20);
+          Assertions.assertEquals(expected.insertEdge(pred, succ, weight),
+              indexed.insertEdge(pred, succ, weight),
+              "edgeIndexTest() [1.1]: FAILED inserted a different EDGE.");
+        }
+        for (int i = 0; i < 100; i++) {
+          int pred = random.nextInt(4) == 0 ? 0 : random.nextInt(100);
+          int succ = random.nextInt(100);
+          Assertions.assertEquals(expected.removeEdge(pred, succ), indexed.removeEdge(pred, succ),
+              "edgeIndexTest() [1.2]: FAILED removed a different EDGE.");
+        }
+        for (int i = 0; i < 5; i++) {
+          Integer node = nodes.remove(1 + random.nextInt(nodes.size() - 1));
+          expected.removeNode(node);
+          indexed.removeNode(node);
+          nodes.add(100 * (round + 1) + i);
+          expected.insertNode(nodes.get(nodes.size() - 1));
+          indexed.insertNode(nodes.get(nodes.size() - 1));
+        }
+        if (round == 2) {
+          indexed.setEdgeIndexed(false);
+          indexed.setEdgeIndexed(true);
+        }
+
+        int edges = 0;
+        for (int pred : nodes) {
+          for (int succ : nodes) {
+            Assertions.assertEquals(expected.containsEdge(pred, succ),
+                indexed.containsEdge(pred, succ),
+                "edgeIndexTest() [2.1]: FAILED holds a different EDGE.");
+            if (expected.containsEdge(pred, succ)) {
+              edges++;
+              Assertions.assertEquals(expected.getEdge(pred, succ), indexed.getEdge(pred, succ),
+                  "edgeIndexTest() [2.2]: FAILED holds an EDGE of a different weight.");
+            }
+          }
+        }
+        Assertions.assertTrue(indexed.isEdgeIndexed() && edges == indexed.getEdgeCount()
+            && edges == indexed.edgeIndex.size(),
+            "edgeIndexTest() [2.3]: FAILED indexed a different number of EDGES.");
+      }
+
+      Assertions.assertFalse(indexed.containsEdge(0, -1) || indexed.removeEdge(-1, 0)
+          || indexed.insertEdge(-1, 0, 1.0) || indexed.containsEdge(null, 0),
+          "edgeIndexTest() [3.1]: FAILED found an EDGE of a missing node.");
+      Assertions.assertThrows(NoSuchElementException.class, () -> indexed.getEdge(0, -1),
+          "edgeIndexTest() [3.2]: FAILED returned an EDGE of a missing node.");
+      indexed.clear();
+      indexed.insertNodes(List.of(1, 2));
+      Assertions.assertTrue(!indexed.containsEdge(1, 2) && indexed.insertEdge(1, 2, 3.0)
+          && indexed.getEdge(1, 2) == 3.0 && indexed.edgeIndex.size() == 1,
+          "edgeIndexTest() [3.3]: FAILED kept EDGES after clear.");
+
+      // the index on its own, with keys that use every bit of both ids
+      EdgeIndex index = new EdgeIndex(0);
+      index.put(0, 0, 5);
+      index.put(Integer.MAX_VALUE, 0, 6);
+      index.put(0, Integer.MAX_VALUE, 7);
+      index.put(0, 0, 8);
+      index.remove(1, 1);
+      Assertions.assertTrue(index.size() == 3 && index.get(0, 0) == 8
+          && index.get(Integer.MAX_VALUE, 0) == 6 && index.get(0, Integer.MAX_VALUE) == 7,
+          "edgeIndexTest() [4.1]: FAILED mixed up EDGES whose ids differ in one node.");
+      Assertions.assertEquals(-1, index.get(1, 1),
+          "edgeIndexTest() [4.2]: FAILED found an EDGE that was never put.");
+      for (int i = 0; i < 1000; i++) {
+        index.put(i, i + 1, i);
+      }
+      for (int i = 0; i < 1000; i += 2) {
+        index.remove(i, i + 1);
+      }
+      boolean kept = true;
+      for (int i = 0; i < 1000; i++) {
+        kept &= index.get(i, i + 1) == (i % 2 == 0 ? -1 : i);
+      }
+      Assertions.assertTrue(kept && index.size() == 503,
+          "edgeIndexTest() [4.3]: FAILED lost an EDGE after growing and removing others.");
+    }
+  }
+}
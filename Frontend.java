@@ -33,9 +33,10 @@ public class Frontend implements FrontendInterface {
   /**
    * Returns an HTML fragment that can be embedded within the body of a larger html page. This HTML
    * output should include: - a text input field with the id="start", for the start location - a
-   * text input field with the id="end", for the destination - a button labelled "Find Shortest
-   * Path" to request this computation Ensure that these text fields are clearly labelled, so that
-   * the user can understand how to use them.
+   * text input field with the id="end", for the destination - a text input field with the
+   * id="alternatives", for the number of routes to show - a button labelled "Find Shortest Path"
+   * to request this computation Ensure that these text fields are clearly labelled, so that the
+   * user can understand how to use them.
    * 
    * @return an HTML string that contains input controls that the user can make use of to request a
    *         shortest path computation
@@ -46,6 +47,8 @@ public class Frontend implements FrontendInterface {
         + "<input type=\"text\" id=\"start\" placeholder=\"Enter location here...\" />\n"
         + "<label for=\"end\"> Destination: </label>\n"
         + "<input type=\"text\" id=\"end\" placeholder=\"Enter location here...\" />\n"
+        + "<label for=\"alternatives\"> Routes: </label>\n"
+        + "<input type=\"text\" id=\"alternatives\" placeholder=\"1\" />\n"
         + "<input type=\"button\"value=\"Find Shortest Path\" />\n" + "<br/><br/>";
   }
 
@@ -62,27 +65,64 @@ public class Frontend implements FrontendInterface {
    */
   @Override
   public String generateShortestPathResponseHTML(String start, String end) {
-    // extracting path from start to end
-    List<String> path = backend.findLocationsOnShortestPath(start, end);
+    // extracting path, leg times and total time from start to end with a single search
+    PathResult<String> result = backend.findShortestPath(start, end);
 
     // check if there is a path
-    if (path.isEmpty()) {
+    if (result.isEmpty()) {
       return "<p>No shortest path found from " + start + " to " + end + ".</p>";
     }
     // add HTML response
     StringBuilder htmlResponse = new StringBuilder();
     htmlResponse.append("<p>Shortest path from " + start + " to " + end + ":</p>\n");
     htmlResponse.append("<ol>\n");
-    htmlResponse.append(generateListHTML(path));
+    htmlResponse.append(generateListHTML(result.getNodes()));
     htmlResponse.append("</ol>\n");
 
-    // Calculate the total travel time for the shortest path
-    List<Double> timeList = backend.findTimesOnShortestPath(start, end);
-    double totalTime = 0.0;
-    for (double time : timeList) {
-      totalTime += time;
+    // the total travel time was accumulated by the search itself
+    htmlResponse.append("<p>Total travel time: " + result.getTotalCost() + " seconds.</p>");
+
+    return htmlResponse.toString();
+  }
+
+  /**
+   * Returns an HTML fragment that can be embedded within the body of a larger html page. This HTML
+   * output should include: - a paragraph (p) that describes the routes' start and end locations -
+   * for each route, fastest first, a paragraph (p) with its number and total travel time, followed
+   * by an ordered list (ol) of the locations along it Or if there is no such route, the HTML
+   * returned should instead indicate the kind of problem encountered.
+   * 
+   * @param start is the starting location of the routes
+   * @param end   is the destination that the routes should end at
+   * @param count is the largest number of routes to show
+   * @return an HTML string that describes the fastest routes between these two locations
+   */
+  @Override
+  public String generateAlternativePathsResponseHTML(String start, String end, int count) {
+    // the fastest routes, all found without modifying the graph
+    List<PathResult<String>> routes;
+    try {
+      routes = backend.findAlternativePaths(start, end, count);
+    } catch (IllegalArgumentException e) {
+      return "<p>The number of routes must be between 1 and "
+          + BackendInterface.MAX_ALTERNATIVE_PATHS + ", not " + count + ".</p>";
+    }
+
+    // check if there is a route
+    if (routes.isEmpty()) {
+      return "<p>No shortest path found from " + start + " to " + end + ".</p>";
+    }
+    // add HTML response
+    StringBuilder htmlResponse = new StringBuilder();
+    htmlResponse.append("<p>" + routes.size() + " fastest routes from " + start + " to " + end
+        + ":</p>\n");
+    for (int i = 0; i < routes.size(); i++) {
+      htmlResponse.append("<p>Route " + (i + 1) + ": " + routes.get(i).getTotalCost()
+          + " seconds.</p>\n");
+      htmlResponse.append("<ol>\n");
+      htmlResponse.append(generateListHTML(routes.get(i).getNodes()));
+      htmlResponse.append("</ol>\n");
     }
-    htmlResponse.append("<p>Total travel time: " + totalTime + " seconds.</p>");
 
     return htmlResponse.toString();
   }
@@ -24,6 +24,8 @@ public interface FrontendInterface {
      * larger html page.  This HTML output should include:
      * - a text input field with the id="start", for the start location
      * - a text input field with the id="end", for the destination
+     * - a text input field with the id="alternatives", for the number of
+     *   alternative routes to show (optional, one route when left empty)
      * - a button labelled "Find Shortest Path" to request this computation
      * Ensure that these text fields are clearly labelled, so that the user
      * can understand how to use them.
@@ -47,6 +49,23 @@ public interface FrontendInterface {
      */
     public String generateShortestPathResponseHTML(String start, String end);
 
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a paragraph (p) that describes the routes' start and end locations
+     * - for each route, fastest first, a paragraph (p) with its number and
+     *   total travel time, followed by an ordered list (ol) of the locations
+     *   along it
+     * Or if there is no such route, the HTML returned should instead indicate
+     * the kind of problem encountered.
+     * @param start is the starting location of the routes
+     * @param end is the destination that the routes should end at
+     * @param count is the largest number of routes to show
+     * @return an HTML string that describes the fastest routes between these
+     *         two locations
+     */
+    public String generateAlternativePathsResponseHTML(String start, String end, int count);
+
     /**
      * Returns an HTML fragment that can be embedded within the body of a
      * larger html page.  This HTML output should include:
@@ -32,6 +32,23 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    */
   public boolean removeNode(NodeType data);
 
+  /**
+   * Insert a new node for each of the provided data items, sizing the 
+   * graph's tables for all of them at once. Data items that are already in
+   * the graph are skipped, as they are by insertNode().
+   *
+   * @param data the data items stored in the new nodes
+   * @return the number of nodes that were inserted
+   * @throws NullPointerException if any of the data items is null
+   */
+  public int insertNodes(List<NodeType> data);
+
+  /**
+   * Remove every node and every edge from the graph, in time proportional to
+   * the capacity of the graph's tables rather than to the number of edges.
+   */
+  public void clear();
+
   /**
    * Check whether the graph contains a node with the provided data.
    *
@@ -79,6 +96,19 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    */
   public boolean removeEdge(NodeType pred, NodeType succ);
 
+  /**
+   * Insert or update the directed edge from preds.get(i) to succs.get(i) 
+   * with the weight weights.get(i) for every index i, as insertEdge() does,
+   * sizing the graph's tables for all of them at once.
+   *
+   * @param preds the data items contained in the edges' predecessor nodes
+   * @param succs the data items contained in the edges' successor nodes
+   * @param weights the data items stored in the edges
+   * @return the number of edges that were inserted or updated
+   * @throws IllegalArgumentException if the three lists differ in size
+   */
+  public int insertEdges(List<NodeType> preds, List<NodeType> succs, List<EdgeType> weights);
+
   /**
    * Check if edge is in the graph.
    *
@@ -137,5 +167,95 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    *         start node to the end node
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Returns the node data, the cost of each edge, and the cumulative costs
+   * along the shortest path from the node with the provided start value 
+   * through the node with the provided end value. This is computed with a
+   * single run of Dijkstra's shortest path algorithm.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException if either the start or end node cannot
+   *         be found in the graph, or if there is no directed path from the
+   *         start node to the end node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end);
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start
+   * data to every node that can be reached from it at a cost of budget or 
+   * less, including the start node itself at a cost of 0.0. This method runs
+   * a single Dijkstra search from start that stops as soon as every remaining
+   * path costs more than the budget.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param budget the maximum path cost for a node to be included
+   * @return map from the data in each reachable node to its shortest path cost
+   * @throws NoSuchElementException if the start node cannot be found in the 
+   *         graph
+   */
+  public MapADT<NodeType, Double> reachableWithin(NodeType start, double budget);
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start
+   * data to each of the nodes containing the end data, in the order of ends.
+   * This method runs a single Dijkstra search from start that stops as soon
+   * as every end node has been settled, rather than one search per end.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends the data items in the destination nodes for the paths
+   * @return the cost of the shortest path to each end, or 
+   *         Double.POSITIVE_INFINITY for ends that cannot be reached
+   * @throws NoSuchElementException if the start node or any of the end nodes
+   *         cannot be found in the graph
+   */
+  public double[] shortestPathCosts(NodeType start, List<NodeType> ends);
+
+  /**
+   * Returns the shortest paths from the node containing the start data to
+   * each of the nodes containing the end data, in the order of ends. This 
+   * method runs a single Dijkstra search from start that stops as soon as 
+   * every end node has been settled, rather than one search per end.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends the data items in the destination nodes for the paths
+   * @return the shortest path to each end, or an empty result for ends that
+   *         cannot be reached
+   * @throws NoSuchElementException if the start node or any of the end nodes
+   *         cannot be found in the graph
+   */
+  public List<PathResult<NodeType>> shortestPaths(NodeType start, List<NodeType> ends);
+
+  /**
+   * Returns the tree of shortest paths from the node containing the start
+   * data to every node that can be reached from it, computed by a single 
+   * full Dijkstra search. Any path from start can be read off the tree in
+   * time proportional to its length.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree from start
+   * @throws NoSuchElementException if the start node cannot be found in the 
+   *         graph
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(NodeType start);
+
+  /**
+   * Returns up to k of the cheapest loopless paths from the node containing
+   * the start data to the node containing the end data, cheapest first. The
+   * first of them is a shortest path, and the others are the next best 
+   * alternatives, each differing from all of the paths before it.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param end the data item in the destination node for the paths
+   * @param k the largest number of paths to return
+   * @return the paths, fewer than k when there are no more loopless paths,
+   *         and none when no path from start to end exists
+   * @throws IllegalArgumentException if k is not positive
+   * @throws NoSuchElementException if the start or end node cannot be found
+   *         in the graph
+   */
+  public List<PathResult<NodeType>> kShortestPaths(NodeType start, NodeType end, int k);
     
 }
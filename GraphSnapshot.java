@@ -0,0 +1,151 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A GraphSnapshot is a read-only BackendInterface over a graph that is loaded exactly once, when
+ * the snapshot is constructed. Because nothing ever modifies the underlying DijkstraGraph after
+ * construction, a single snapshot can safely be queried by many request threads at the same time.
+ *
+ * To pick up changes to the .dot file, build a new snapshot (see GraphStore) instead of calling
+ * loadGraphData on this one.
+ *
+ * When the webapp.landmarks system property is set to a number of landmarks and the file gives no
+ * node positions, queries are directed by a LandmarkHeuristic. Its tables are cached next to the
+ * .dot file, in a file with .landmarks appended to its name, and are only built again when that
+ * file is missing or was built for a different graph or number of landmarks.
+ *
+ * When the webapp.offheap system property is true, the graph is loaded into an OffHeapGraph
+ * instead, which keeps it outside the Java heap and ignores webapp.landmarks.
+ */
+public class GraphSnapshot implements BackendInterface {
+
+  private final String filename; // file this snapshot was loaded from
+  private final long loadedAt; // time (ms since epoch) at which loading completed
+  private final Backend backend; // never reloaded after construction
+
+  /**
+   * Loads the graph stored in the provided .dot file into a new read-only snapshot.
+   *
+   * @param filename the path to a dot file to read graph data from
+   * @throws IOException if there was any problem reading from this file
+   */
+  public GraphSnapshot(String filename) throws IOException {
+    this.filename = filename;
+    if (Boolean.getBoolean("webapp.offheap")) {
+      this.backend = new Backend(new OffHeapGraph());
+      this.backend.loadGraphData(filename);
+      this.loadedAt = System.currentTimeMillis();
+      return;
+    }
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+    graph.setEdgeIndexed(Boolean.getBoolean("webapp.edgeindex"));
+    this.backend = new Backend(graph);
+    this.backend.loadGraphData(filename);
+    int landmarkCount = Integer.getInteger("webapp.landmarks", 0);
+    if (landmarkCount > 0 && graph.getHeuristic() == null && graph.getNodeCount() > 0) {
+      graph.setHeuristic(loadLandmarks(graph, filename + ".landmarks", landmarkCount));
+    }
+    this.loadedAt = System.currentTimeMillis();
+  }
+
+  // reads the landmark tables cached in cacheFile, or builds them and caches them there
+  private static LandmarkHeuristic<String> loadLandmarks(DijkstraGraph<String, Double> graph,
+      String cacheFile, int count) {
+    try (InputStream in = new FileInputStream(cacheFile)) {
+      LandmarkHeuristic<String> landmarks = LandmarkHeuristic.read(in, graph);
+      if (landmarks.getLandmarks().size() == Math.min(count, graph.getNodeCount())) {
+        return landmarks;
+      }
+    } catch (IOException e) {
+      // missing or stale, so build new tables below
+    }
+    LandmarkHeuristic<String> landmarks = LandmarkHeuristic.build(graph, count);
+    try (OutputStream out = new FileOutputStream(cacheFile)) {
+      landmarks.write(out);
+    } catch (IOException e) {
+      // the tables still work, they will just be built again next time
+      System.out.println("Unable to cache landmarks in " + cacheFile + ": " + e);
+    }
+    return landmarks;
+  }
+
+  /**
+   * Returns the name of the file that this snapshot was loaded from.
+   *
+   * @return the path of the .dot file backing this snapshot
+   */
+  public String getFilename() {
+    return filename;
+  }
+
+  /**
+   * Returns the time at which this snapshot finished loading.
+   *
+   * @return milliseconds since the epoch when loading completed
+   */
+  public long getLoadedAt() {
+    return loadedAt;
+  }
+
+  /**
+   * Snapshots are immutable, so this method always throws.
+   *
+   * @param filename ignored
+   * @throws UnsupportedOperationException always, use GraphStore.reload() instead
+   */
+  @Override
+  public void loadGraphData(String filename) throws IOException {
+    throw new UnsupportedOperationException(
+        "Graph snapshots are read-only, use GraphStore.reload() to load new data.");
+  }
+
+  @Override
+  public List<String> getListOfAllLocations() {
+    return Collections.unmodifiableList(backend.getListOfAllLocations());
+  }
+
+  @Override
+  public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
+    return backend.findLocationsOnShortestPath(startLocation, endLocation);
+  }
+
+  @Override
+  public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
+    return backend.findTimesOnShortestPath(startLocation, endLocation);
+  }
+
+  @Override
+  public PathResult<String> findShortestPath(String startLocation, String endLocation) {
+    return backend.findShortestPath(startLocation, endLocation);
+  }
+
+  @Override
+  public List<PathResult<String>> findAlternativePaths(String startLocation,
+      String endLocation, int count) {
+    return backend.findAlternativePaths(startLocation, endLocation, count);
+  }
+
+  @Override
+  public List<PathResult<String>> findShortestPaths(String startLocation,
+      List<String> endLocations) {
+    return backend.findShortestPaths(startLocation, endLocations);
+  }
+
+  @Override
+  public List<String> getReachableFromWithin(String startLocation, double travelTime)
+      throws NoSuchElementException {
+    return backend.getReachableFromWithin(startLocation, travelTime);
+  }
+
+  @Override
+  public double[][] distanceMatrix(List<String> sources, List<String> targets)
+      throws NoSuchElementException {
+    return backend.distanceMatrix(sources, targets);
+  }
+}
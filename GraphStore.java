@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The GraphStore owns the GraphSnapshot that a long running server answers its requests from. The
+ * graph is loaded once when the store is created, and every request simply reads the current
+ * snapshot. Calling reload() (or enabling the file watcher) builds a complete new snapshot in the
+ * background and then atomically swaps it in, so queries that are already running keep using the
+ * snapshot they started with and are never blocked by a reload.
+ */
+public class GraphStore {
+
+  private final String filename; // the .dot file that snapshots are loaded from
+  private volatile GraphSnapshot current; // the snapshot handed out to new requests
+  private final ReentrantLock reloading = new ReentrantLock(); // held while a reload runs
+  private WatchService watcher = null; // non-null while the file watcher is running
+
+  /**
+   * Creates a store and loads the initial snapshot from the provided .dot file.
+   *
+   * @param filename the path to a dot file to read graph data from
+   * @throws IOException if there was any problem reading from this file
+   */
+  public GraphStore(String filename) throws IOException {
+    this.filename = filename;
+    this.current = new GraphSnapshot(filename);
+  }
+
+  /**
+   * Returns the most recently loaded snapshot. This never blocks, even while a reload is running.
+   *
+   * @return the current read-only snapshot
+   */
+  public GraphSnapshot current() {
+    return current;
+  }
+
+  /**
+   * Loads a fresh snapshot from this store's file and swaps it in once it is completely built. If
+   * loading fails, the previous snapshot stays in place. Concurrent calls to reload are serialized
+   * so that an older file can never replace a newer one.
+   *
+   * @return the newly installed snapshot
+   * @throws IOException if there was any problem reading from the file
+   */
+  public GraphSnapshot reload() throws IOException {
+    reloading.lock();
+    try {
+      return load();
+    } finally {
+      reloading.unlock();
+    }
+  }
+
+  /**
+   * Reloads like reload(), unless another reload is already running, in which case this returns
+   * at once instead of waiting for it, since that reload will pick up the file as well.
+   *
+   * @return the newly installed snapshot, or null if another reload was already running
+   * @throws IOException if there was any problem reading from the file
+   */
+  public GraphSnapshot tryReload() throws IOException {
+    if (!reloading.tryLock()) {
+      return null;
+    }
+    try {
+      return load();
+    } finally {
+      reloading.unlock();
+    }
+  }
+
+  // builds a fresh snapshot and swaps it in; the caller must hold the reloading lock
+  private GraphSnapshot load() throws IOException {
+    GraphSnapshot fresh = new GraphSnapshot(filename);
+    current = fresh;
+    return fresh;
+  }
+
+  /**
+   * Starts a daemon thread that calls reload() whenever this store's file is created or modified.
+   * Calling this method while the watcher is already running has no effect.
+   *
+   * @throws IOException if the file's directory cannot be watched
+   */
+  public synchronized void startWatching() throws IOException {
+    if (watcher != null) {
+      return;
+    }
+    Path file = Paths.get(filename).toAbsolutePath();
+    WatchService service = FileSystems.getDefault().newWatchService();
+    file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    watcher = service;
+
+    Thread thread = new Thread(() -> watchLoop(service, file.getFileName()), "graph-file-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the file watcher started by startWatching(), if it is running.
+   */
+  public synchronized void stopWatching() {
+    if (watcher == null) {
+      return;
+    }
+    try {
+      watcher.close();
+    } catch (IOException e) {
+      // nothing left to release
+    }
+    watcher = null;
+  }
+
+  // waits for changes to the watched file and reloads after each one, until the service closes
+  private void watchLoop(WatchService service, Path watchedName) {
+    try {
+      while (true) {
+        WatchKey key = service.take();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (watchedName.equals(event.context())) {
+            changed = true;
+          }
+        }
+        key.reset();
+        if (!changed) {
+          continue;
+        }
+        try {
+          reload();
+          System.out.println("Reloaded graph data from " + filename);
+        } catch (IOException | RuntimeException e) {
+          // keep serving the previous snapshot when the new file is broken or half-written
+          System.out.println("Unable to reload " + filename + ": " + e);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // watcher was stopped
+    }
+  }
+}
@@ -207,6 +207,23 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
     return table.length;
   }
 
+  /**
+   * Grows this collection's capacity, when needed, so that it can hold size keys without being
+   * rehashed again, by rehashing it at most once.
+   *
+   * @param size the number of keys this collection is expected to hold
+   */
+  @Override
+  public void ensureCapacity(int size) {
+    int capacity = getCapacity();
+    while ((double) size / capacity >= LOAD_FACTOR_THRESHOLD) {
+      capacity *= 2;
+    }
+    if (capacity > getCapacity()) {
+      rehash(capacity);
+    }
+  }
+
   /**
    * Retrieves this collection's keys.
    * 
@@ -247,9 +264,17 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
    * Helper method that rehashes the hashtable by doubling its capacity and reinserting all existing
    * key-value pairs.
    */
-  @SuppressWarnings("unchecked")
   private void rehash() {
-    int newCapacity = getCapacity() * 2;
+    rehash(getCapacity() * 2);
+  }
+
+  /**
+   * Helper method that rehashes the hashtable into the provided capacity.
+   *
+   * @param newCapacity the new capacity of the hashtable
+   */
+  @SuppressWarnings("unchecked")
+  private void rehash(int newCapacity) {
     LinkedList<Pair>[] oldTable = table;
 
     // initialize table with increased capacity
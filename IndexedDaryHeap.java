@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min-heap of int ids. Besides the heap itself, this class remembers the heap
+ * position of every queued id, so that lowering the key of a queued id moves its existing entry up
+ * the heap (a true decrease-key) instead of adding a duplicate. The heap therefore never holds more
+ * entries than there are distinct ids, and polling never has to skip stale entries.
+ *
+ * Ids and keys are stored in parallel primitive arrays ordered by heap position, so sifting only
+ * reads contiguous memory.
+ */
+public class IndexedDaryHeap implements IntPriorityQueue {
+
+  private final int arity; // number of children of each heap entry
+  private int[] heap; // heap[i] is the id stored at heap position i
+  private double[] keys; // keys[i] is the key of heap[i]
+  private int[] position; // position[id] is the heap position of id, or -1 when not queued
+  private int size = 0;
+  private int peakSize = 0;
+
+  /**
+   * Creates an empty heap.
+   *
+   * @param arity    the number of children per entry, at least 2
+   * @param capacity the number of distinct ids to make room for, the heap grows as needed
+   * @throws IllegalArgumentException if arity is less than 2
+   */
+  public IndexedDaryHeap(int arity, int capacity) {
+    if (arity < 2) {
+      throw new IllegalArgumentException("A heap needs at least 2 children per entry.");
+    }
+    this.arity = arity;
+    capacity = Math.max(1, capacity);
+    this.heap = new int[capacity];
+    this.keys = new double[capacity];
+    this.position = new int[capacity];
+    Arrays.fill(position, -1);
+  }
+
+  @Override
+  public void insertOrDecrease(int id, double key) {
+    if (id >= position.length) {
+      growPositions(id + 1);
+    }
+    int i = position[id];
+    if (i < 0) {
+      // append a new entry at the bottom of the heap
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, size * 2);
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      i = size++;
+      peakSize = Math.max(peakSize, size);
+    } else if (key >= keys[i]) {
+      return; // never raise a key
+    }
+    siftUp(i, id, key);
+  }
+
+  @Override
+  public double minKey() {
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty.");
+    }
+    return keys[0];
+  }
+
+  @Override
+  public int pollMin() {
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty.");
+    }
+    int top = heap[0];
+    position[top] = -1;
+    size--;
+    if (size > 0) {
+      siftDown(0, heap[size], keys[size]);
+    }
+    return top;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int peakSize() {
+    return peakSize;
+  }
+
+  /**
+   * Removes every entry. This only touches the ids that are still queued, so clearing a heap that
+   * was polled empty costs nothing.
+   */
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      position[heap[i]] = -1;
+    }
+    size = 0;
+    peakSize = 0;
+  }
+
+  /**
+   * Checks whether an id is currently queued.
+   *
+   * @param id the id to check
+   * @return true if id is in the heap
+   */
+  public boolean contains(int id) {
+    return id < position.length && position[id] >= 0;
+  }
+
+  // moves the entry (id, key) up from position i until its parent's key is no larger
+  private void siftUp(int i, int id, double key) {
+    while (i > 0) {
+      int parent = (i - 1) / arity;
+      if (keys[parent] <= key) {
+        break;
+      }
+      heap[i] = heap[parent];
+      keys[i] = keys[parent];
+      position[heap[i]] = i;
+      i = parent;
+    }
+    heap[i] = id;
+    keys[i] = key;
+    position[id] = i;
+  }
+
+  // moves the entry (id, key) down from position i until no child has a smaller key
+  private void siftDown(int i, int id, double key) {
+    while (true) {
+      int first = i * arity + 1;
+      if (first >= size) {
+        break;
+      }
+      // find the child with the smallest key
+      int best = first;
+      int last = Math.min(first + arity, size);
+      for (int child = first + 1; child < last; child++) {
+        if (keys[child] < keys[best]) {
+          best = child;
+        }
+      }
+      if (key <= keys[best]) {
+        break;
+      }
+      heap[i] = heap[best];
+      keys[i] = keys[best];
+      position[heap[i]] = i;
+      i = best;
+    }
+    heap[i] = id;
+    keys[i] = key;
+    position[id] = i;
+  }
+
+  // grows the position index so that it covers ids below the provided bound
+  private void growPositions(int bound) {
+    int old = position.length;
+    position = Arrays.copyOf(position, Math.max(bound, old * 2));
+    Arrays.fill(position, old, position.length, -1);
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * A directed and weighted graph whose nodes and edges are numbered by small int ids, as seen by
+ * the searches that keep their state in arrays indexed by id. Searches walk the edges of a node by
+ * handing an EdgeVisitor to the graph, so they never depend on how the graph stores its edges:
+ * BaseGraph keeps them in lists of Edge objects, and OffHeapGraph in records outside the Java
+ * heap. ShortestPathTree and KShortestPaths work with any IndexedGraph.
+ *
+ * @param NodeType the data type stored at each graph node
+ */
+public interface IndexedGraph<NodeType> {
+
+  /**
+   * Receives the edges of a node, one at a time.
+   */
+  public interface EdgeVisitor {
+    /**
+     * Visits one edge.
+     *
+     * @param edge     the id of the edge
+     * @param neighbor the id of the node at the other end of the edge
+     * @param weight   the weight of the edge
+     */
+    public void visit(int edge, int neighbor, double weight);
+  }
+
+  /**
+   * Return a bound on the ids of the nodes in this graph: every node's id is at least 0 and less
+   * than this bound, so arrays of this length can be indexed by node id.
+   *
+   * @return one more than the largest id that a node may currently have
+   */
+  public int getNodeIdBound();
+
+  /**
+   * Return a bound on the ids of the edges in this graph: every edge's id is at least 0 and less
+   * than this bound.
+   *
+   * @return one more than the largest id that an edge may currently have
+   */
+  public int getEdgeIdBound();
+
+  /**
+   * Returns the number of changes made to the nodes, edges or weights of this graph so far, so
+   * that results computed from the graph can tell whether they are out of date.
+   *
+   * @return a count that changes whenever the graph does
+   */
+  public int getModificationCount();
+
+  /**
+   * Returns the id of the node containing the provided data.
+   *
+   * @param data the node contents to look up
+   * @return the id of that node, or -1 when no node contains data
+   */
+  public int idOf(NodeType data);
+
+  /**
+   * Returns the data stored in the node with the provided id.
+   *
+   * @param id the id of a node in this graph
+   * @return the data stored in that node
+   */
+  public NodeType dataOf(int id);
+
+  /**
+   * Returns the id of the node that an edge leads to.
+   *
+   * @param edge the id of an edge in this graph
+   * @return the id of the edge's successor
+   */
+  public int successorOf(int edge);
+
+  /**
+   * Returns the weight of an edge.
+   *
+   * @param edge the id of an edge in this graph
+   * @return the weight of the edge
+   */
+  public double weightOf(int edge);
+
+  /**
+   * Hands every edge leaving a node to visitor, with the id of the edge's successor.
+   *
+   * @param node    the id of a node in this graph
+   * @param visitor receives each edge
+   */
+  public void forEachEdgeLeaving(int node, EdgeVisitor visitor);
+
+  /**
+   * Hands every edge entering a node to visitor, with the id of the edge's predecessor.
+   *
+   * @param node    the id of a node in this graph
+   * @param visitor receives each edge
+   */
+  public void forEachEdgeEntering(int node, EdgeVisitor visitor);
+}
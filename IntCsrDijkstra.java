@@ -0,0 +1,364 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class runs Dijkstra's shortest path algorithm over the int weights of an IntCsrGraph, the
+ * whole number counterpart of CsrDijkstra. Costs are added up exactly in long arithmetic, and the
+ * priority queue files nodes into buckets by their costs instead of comparing them: a BucketQueue
+ * with a bucket per cost when the largest weight is at most MAX_BUCKET_STEP, and otherwise a
+ * RadixHeap with a bucket per bit of the costs. Besides PathResults, whose legs are doubles like
+ * those of every other engine, queries can return their results as primitives: the total cost as
+ * a long, and the leg costs as an int array.
+ *
+ * Each thread searches in its own workspace, which is reused from query to query, so one instance
+ * can be shared by many threads and a query only allocates its result.
+ */
+public class IntCsrDijkstra<NodeType> {
+
+  // the largest weight for which searches use a BucketQueue, with one bucket per cost up to it
+  public static final int MAX_BUCKET_STEP = 1 << 16;
+
+  protected final IntCsrGraph<NodeType> graph; // the frozen graph that is searched
+  // the search state of each thread, reused by every query that thread runs
+  protected final ThreadLocal<Workspace> workspaces;
+
+  /**
+   * The per-node state of one search in primitive arrays indexed by node id, where an entry only
+   * counts as reached or settled when its stamp equals the current generation, as in
+   * SearchWorkspace.
+   */
+  protected static class Workspace {
+    final long[] dist; // tentative cost of each reached node
+    final int[] parent; // node id each reached node was reached from, or -1 for the source
+    final int[] parentEdge; // index of the edge each reached node was reached through
+    final int[] reachedStamp;
+    final int[] settledStamp;
+    int generation = 0;
+    final MonotoneIntQueue heap;
+
+    Workspace(int capacity, int maxWeight) {
+      heap = maxWeight <= MAX_BUCKET_STEP ? new BucketQueue(maxWeight) : new RadixHeap();
+      dist = new long[capacity];
+      parent = new int[capacity];
+      parentEdge = new int[capacity];
+      reachedStamp = new int[capacity];
+      settledStamp = new int[capacity];
+    }
+
+    void reset() {
+      heap.clear();
+      generation++;
+      if (generation == Integer.MAX_VALUE) {
+        Arrays.fill(reachedStamp, 0);
+        Arrays.fill(settledStamp, 0);
+        generation = 1;
+      }
+    }
+
+    // lowers the cost of v to cost through edge e from u, if that is cheaper than before
+    void relax(int v, long cost, int u, int e) {
+      if (reachedStamp[v] != generation || cost < dist[v]) {
+        reachedStamp[v] = generation;
+        dist[v] = cost;
+        parent[v] = u;
+        parentEdge[v] = e;
+        heap.add(v, cost);
+      }
+    }
+
+    // settles the cheapest node that is not settled yet, and returns it, or -1 when none is left
+    int settleNext() {
+      while (!heap.isEmpty()) {
+        int u = heap.pollMin();
+        if (settledStamp[u] != generation) {
+          settledStamp[u] = generation;
+          return u;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Creates a search engine over the provided frozen graph.
+   *
+   * @param graph the graph to search
+   */
+  public IntCsrDijkstra(IntCsrGraph<NodeType> graph) {
+    this.graph = graph;
+    this.workspaces = ThreadLocal.withInitial(() -> new Workspace(graph.getNodeCount(),
+        graph.getMaxWeight()));
+  }
+
+  /**
+   * Returns the graph that this engine searches.
+   *
+   * @return the frozen graph
+   */
+  public IntCsrGraph<NodeType> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node with
+   * the provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    Workspace workspace = workspaces.get();
+    search(source, target, workspace);
+    int[] order = pathIds(source, target, workspace);
+    List<NodeType> path = new ArrayList<>(order.length);
+    double[] legs = new double[order.length - 1];
+    for (int i = 0; i < order.length; i++) {
+      path.add(graph.dataOf(order[i]));
+      if (i > 0) {
+        legs[i - 1] = graph.weights[workspace.parentEdge[order[i]]];
+      }
+    }
+    return new PathResult<>(path, legs);
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to the node
+   * containing the end data.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public long shortestPathCost(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    return search(source, target, workspaces.get());
+  }
+
+  /**
+   * Returns the cost of each edge along the shortest path from the node containing the start data
+   * to the node containing the end data, in order, without boxing any of them.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the weights of the edges along the path, empty when start is end
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public int[] shortestPathLegs(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    Workspace workspace = workspaces.get();
+    search(source, target, workspace);
+    int[] order = pathIds(source, target, workspace);
+    int[] legs = new int[order.length - 1];
+    for (int i = 1; i < order.length; i++) {
+      legs[i - 1] = graph.weights[workspace.parentEdge[order[i]]];
+    }
+    return legs;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to every node,
+   * computed by one full search.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return costs[id] is the cost from start to the node with that id, or Long.MAX_VALUE when it
+   *         cannot be reached
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  public long[] costsFrom(NodeType start) {
+    int source = requireId(start);
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+    int[] weights = graph.weights;
+    Workspace workspace = workspaces.get();
+    workspace.reset();
+
+    long[] costs = new long[graph.getNodeCount()];
+    Arrays.fill(costs, Long.MAX_VALUE);
+    workspace.relax(source, 0, -1, -1);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      long cost = workspace.dist[u];
+      costs[u] = cost;
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        workspace.relax(targets[e], cost + weights[e], u, e);
+      }
+    }
+    return costs;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until target is settled. The workspace is reset first,
+   * and is left holding the costs and parent links of every node the search reached.
+   *
+   * @param source    the id of the start node
+   * @param target    the id of the destination node
+   * @param workspace the search state to reuse
+   * @return the cost of the shortest path from source to target
+   * @throws NoSuchElementException when target cannot be reached from source
+   */
+  protected long search(int source, int target, Workspace workspace) {
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+    int[] weights = graph.weights;
+    workspace.reset();
+
+    workspace.relax(source, 0, -1, -1);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      long cost = workspace.dist[u];
+      if (u == target) {
+        return cost;
+      }
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        workspace.relax(targets[e], cost + weights[e], u, e);
+      }
+    }
+    throw new NoSuchElementException("No path from " + graph.dataOf(source) + " to "
+        + graph.dataOf(target) + " was found.");
+  }
+
+  // returns the ids of the nodes along the path to target, by following the parent links back
+  private int[] pathIds(int source, int target, Workspace workspace) {
+    int length = 1;
+    for (int v = target; v != source; v = workspace.parent[v]) {
+      length++;
+    }
+    int[] order = new int[length];
+    for (int i = length - 1, v = target; i >= 0; i--, v = workspace.parent[v]) {
+      order[i] = v;
+    }
+    return order;
+  }
+
+  // looks up the id of a node, throwing like CsrDijkstra does for missing or null data
+  protected int requireId(NodeType data) {
+    if (data == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    int id = graph.idOf(data);
+    if (id < 0) {
+      throw new NoSuchElementException("No node contains " + data + ".");
+    }
+    return id;
+  }
+
+  /**
+   * Tests of IntCsrDijkstra and the monotone queues it searches with, against CsrDijkstra over the
+   * same frozen graph.
+   */
+  static class Tests {
+
+    /**
+     * intWeightTest: Checks that IntCsrDijkstra over the int weights of a frozen random graph finds
+     * the same costs as CsrDijkstra over its double weights, with legs that add up to them, that a
+     * RadixHeap and a BucketQueue poll keys in order, and that weights that are not whole numbers
+     * are rejected.
+     */
+    @Test
+    public void intWeightTest() {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(40, 160, 1500);
+      CsrGraph<Integer> frozen = graphTester.freeze();
+      CsrDijkstra<Integer> expected = new CsrDijkstra<>(frozen);
+      IntCsrDijkstra<Integer> engine = new IntCsrDijkstra<>(new IntCsrGraph<>(frozen));
+      for (int start = 0; start < 40; start++) {
+        double[] costs = expected.costsFrom(start);
+        long[] intCosts = engine.costsFrom(start);
+        for (int end = 0; end < 40; end++) {
+          int id = frozen.idOf(end);
+          Assertions.assertEquals(costs[id], intCosts[id] == Long.MAX_VALUE
+              ? Double.POSITIVE_INFINITY : (double) intCosts[id],
+              "intWeightTest() [1.1]: FAILED costsFrom found a different COST.");
+          if (costs[id] < Double.POSITIVE_INFINITY) {
+            long cost = engine.shortestPathCost(start, end);
+            Assertions.assertEquals(costs[id], (double) cost,
+                "intWeightTest() [1.2]: FAILED found a different COST.");
+            long legs = java.util.Arrays.stream(engine.shortestPathLegs(start, end))
+                .asLongStream().sum();
+            Assertions.assertEquals(cost, legs,
+                "intWeightTest() [1.3]: FAILED found LEGS of a different cost.");
+            Assertions.assertEquals(costs[id], engine.shortestPath(start, end).getTotalCost(),
+                "intWeightTest() [1.4]: FAILED found a PATH of a different cost.");
+          } else {
+            final int unreachable = end;
+            final int from = start;
+            Assertions.assertThrows(NoSuchElementException.class,
+                () -> engine.shortestPathCost(from, unreachable),
+                "intWeightTest() [1.5]: FAILED found a path that does not exist.");
+          }
+        }
+      }
+
+      java.util.Random random = new java.util.Random(1501);
+      for (MonotoneIntQueue heap : List.of(new RadixHeap(), new BucketQueue(50))) {
+        boolean radix = heap instanceof RadixHeap;
+        java.util.PriorityQueue<Long> keys = new java.util.PriorityQueue<>();
+        long last = 0;
+        for (int i = 0; i < 2000; i++) {
+          if (keys.isEmpty() || random.nextInt(3) > 0) {
+            long key = last + random.nextInt(radix && i % 7 == 0 ? 1 << 20 : 51);
+            heap.add(i, key);
+            keys.add(key);
+          } else {
+            last = keys.poll();
+            Assertions.assertEquals(last, heap.minKey(),
+                "intWeightTest() [2.1]: FAILED queue did not poll the smallest KEY.");
+            heap.pollMin();
+          }
+        }
+        Assertions.assertEquals(keys.size(), heap.size(),
+            "intWeightTest() [2.2]: FAILED queue lost an ENTRY.");
+      }
+      BucketQueue buckets = new BucketQueue(10);
+      buckets.add(0, 5);
+      Assertions.assertThrows(IllegalArgumentException.class, () -> buckets.add(1, 11),
+          "intWeightTest() [2.3]: FAILED accepted a key beyond the largest STEP.");
+
+      graphTester.insertEdge(0, 1, 2.5);
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> new IntCsrGraph<>(graphTester.freeze()),
+          "intWeightTest() [3.1]: FAILED accepted a weight that is not a whole number.");
+
+      IntCsrDijkstra<String> edgeEngine = new IntCsrDijkstra<>(new IntCsrGraph<>(
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>()).freeze()));
+      Assertions.assertTrue(edgeEngine.shortestPathCost("A", "A") == 0
+          && edgeEngine.shortestPathLegs("A", "A").length == 0,
+          "intWeightTest() [4.1]: FAILED found a COST from a node to itself.");
+      Assertions.assertArrayEquals(new int[] {1, 0}, edgeEngine.shortestPathLegs("A", "C"),
+          "intWeightTest() [4.2]: FAILED did not keep the 0 weight LEG.");
+      Assertions.assertEquals(Long.MAX_VALUE,
+          edgeEngine.costsFrom("A")[edgeEngine.getGraph().idOf("D")],
+          "intWeightTest() [4.3]: FAILED reached an isolated NODE.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeEngine.shortestPathCost("A", "E"),
+          "intWeightTest() [4.4]: FAILED found a path to a removed NODE.");
+    }
+  }
+}
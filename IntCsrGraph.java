@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An IntCsrGraph is an immutable compressed sparse row graph, like CsrGraph, whose edge weights
+ * are whole numbers stored in an int array, such as travel times in whole seconds. The weights
+ * take half the memory of a CsrGraph's doubles, and IntCsrDijkstra adds them up exactly in long
+ * arithmetic with bucketed queues instead of comparing doubles.
+ *
+ * An IntCsrGraph is made from a CsrGraph whose weights are all whole numbers, and shares its node
+ * data, node map, offsets and targets, which are never modified.
+ */
+public class IntCsrGraph<NodeType> {
+
+  protected final Object[] nodeData; // nodeData[id] is the data stored in node id
+  protected final MapADT<NodeType, Integer> ids; // maps node data back to its id
+  protected final int[] offsets; // edges of node u are at indices offsets[u] .. offsets[u+1]-1
+  protected final int[] targets; // successor id of each edge
+  protected final int[] weights; // weight of each edge
+  protected final int maxWeight; // the largest weight, 0 without edges
+
+  /**
+   * Creates an int weighted copy of a graph whose weights are all whole numbers.
+   *
+   * @param graph the graph to copy
+   * @throws IllegalArgumentException if a weight is not a whole number or does not fit in an int
+   */
+  public IntCsrGraph(CsrGraph<NodeType> graph) {
+    this.nodeData = graph.nodeData;
+    this.ids = graph.ids;
+    this.offsets = graph.offsets;
+    this.targets = graph.targets;
+    this.weights = new int[graph.weights.length];
+    int max = 0;
+    for (int e = 0; e < weights.length; e++) {
+      double weight = graph.weights[e];
+      if (weight != Math.rint(weight) || weight > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Edge weights must be whole numbers that fit in an"
+            + " int: " + weight);
+      }
+      weights[e] = (int) weight;
+      max = Math.max(max, weights[e]);
+    }
+    this.maxWeight = max;
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  public int getNodeCount() {
+    return nodeData.length;
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  public int getEdgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * Returns the id of the node containing the provided data.
+   *
+   * @param data the node contents to look up
+   * @return the id of that node, or -1 when no node contains data
+   */
+  public int idOf(NodeType data) {
+    if (data == null || !ids.containsKey(data)) {
+      return -1;
+    }
+    return ids.get(data);
+  }
+
+  /**
+   * Returns the data stored in the node with the provided id.
+   *
+   * @param id the id of a node in this graph
+   * @return the data stored in that node
+   */
+  @SuppressWarnings("unchecked")
+  public NodeType dataOf(int id) {
+    return (NodeType) nodeData[id];
+  }
+
+  /**
+   * Retrieves a list of all node data from this graph, in id order.
+   *
+   * @return list of all node data
+   */
+  @SuppressWarnings("unchecked")
+  public List<NodeType> getAllNodes() {
+    List<NodeType> list = new ArrayList<>(nodeData.length);
+    for (Object data : nodeData) {
+      list.add((NodeType) data);
+    }
+    return list;
+  }
+
+  /**
+   * Returns the index of the first edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index into targets and weights of u's first edge
+   */
+  public int firstEdge(int u) {
+    return offsets[u];
+  }
+
+  /**
+   * Returns the index one past the last edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index into targets and weights just after u's last edge
+   */
+  public int endEdge(int u) {
+    return offsets[u + 1];
+  }
+
+  /**
+   * Returns the id of the node that edge e leads to.
+   *
+   * @param e the index of an edge
+   * @return the id of e's successor
+   */
+  public int target(int e) {
+    return targets[e];
+  }
+
+  /**
+   * Returns the weight of edge e.
+   *
+   * @param e the index of an edge
+   * @return the weight of e
+   */
+  public int weight(int e) {
+    return weights[e];
+  }
+
+  /**
+   * Returns the largest weight of any edge.
+   *
+   * @return the largest weight, or 0 when the graph has no edges
+   */
+  public int getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Return the weight of the cheapest edge from pred to succ.
+   *
+   * @param pred the id of the source node for the edge
+   * @param succ the id of the target node for the edge
+   * @return the weight of that edge
+   * @throws NoSuchElementException if there is no edge from pred to succ
+   */
+  public int getEdge(int pred, int succ) {
+    int best = -1;
+    for (int e = offsets[pred]; e < offsets[pred + 1]; e++) {
+      if (targets[e] == succ && (best < 0 || weights[e] < best)) {
+        best = weights[e];
+      }
+    }
+    if (best < 0) {
+      throw new NoSuchElementException("No edge from " + dataOf(pred) + " to " + dataOf(succ));
+    }
+    return best;
+  }
+}
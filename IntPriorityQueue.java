@@ -0,0 +1,61 @@
+/**
+ * This interface represents a min-priority queue of int ids (like node ids) keyed by double
+ * priorities, as used by the shortest path searches. Implementations that support a true
+ * decrease-key hold each id at most once. Implementations with lazy deletion instead add a new
+ * entry every time an id's key is lowered, so pollMin() may later return the same id again with a
+ * larger key; callers are expected to skip ids they have already settled.
+ */
+public interface IntPriorityQueue {
+
+  /**
+   * Adds id to the queue with the provided key, or lowers the key of id when it is already queued
+   * with a larger one. Larger keys for an already queued id are ignored.
+   *
+   * @param id  the non-negative id to queue
+   * @param key the priority of id, smaller keys are polled first
+   */
+  public void insertOrDecrease(int id, double key);
+
+  /**
+   * Returns the smallest key in the queue without removing it.
+   *
+   * @return the key of the id that pollMin() would return next
+   * @throws java.util.NoSuchElementException if the queue is empty
+   */
+  public double minKey();
+
+  /**
+   * Removes and returns the id with the smallest key.
+   *
+   * @return the id with the smallest key
+   * @throws java.util.NoSuchElementException if the queue is empty
+   */
+  public int pollMin();
+
+  /**
+   * Checks whether the queue is empty.
+   *
+   * @return true if there is nothing left to poll
+   */
+  public boolean isEmpty();
+
+  /**
+   * Returns the number of entries in the queue, including stale entries of lazy implementations.
+   *
+   * @return the number of entries currently held
+   */
+  public int size();
+
+  /**
+   * Returns the largest number of entries this queue has held since it was created or last
+   * cleared, which shows how much work a search spent on queue maintenance.
+   *
+   * @return the peak number of entries
+   */
+  public int peakSize();
+
+  /**
+   * Removes every entry, keeping any memory already allocated for reuse.
+   */
+  public void clear();
+}
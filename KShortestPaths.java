@@ -0,0 +1,395 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class finds the k shortest loopless paths between two nodes of an IndexedGraph with Yen's
+ * algorithm, see DijkstraGraph.kShortestPaths(). Each new path is the cheapest of the candidates
+ * made by leaving an earlier path at one of its nodes, the spur node, for the cheapest path to the
+ * end that avoids the nodes before the spur node (so that paths stay loopless) and the edges that
+ * earlier paths with the same start take out of it. Nodes and edges are masked by stamping them in
+ * arrays owned by the query, so the graph itself is never modified, and no spur search is run from
+ * nodes before the point where the previous path left its own parent (Lawler's refinement).
+ *
+ * All spur searches share one backward search from the end, which gives the exact cost from each
+ * node to the end in the unmasked graph. Masking only makes paths more expensive, so these costs
+ * are a consistent A* heuristic for every spur search, and a spur search stops as soon as it
+ * settles a node whose path to the end in the backward search's tree avoids every masked node,
+ * which is then the rest of the spur path. The backward search is resumed only as far as the spur
+ * searches need costs, rather than run over the whole graph up front.
+ *
+ * A query runs in the workspaces it is given, and must not be shared with other threads.
+ */
+public class KShortestPaths<NodeType> {
+
+  private final IndexedGraph<NodeType> graph; // the graph to find paths in
+  private final QueueStrategy strategy; // the priority queue that searches use
+  private final int source; // the id of the start node
+  private final int target; // the id of the end node
+  private final SearchWorkspace reverse; // the backward search from the end, resumed on demand
+  private boolean reverseDone = false; // whether the backward search has settled all it can
+  private final SearchWorkspace forward; // the workspace that spur searches run in
+
+  // the masks of the current spur search, where a node or edge is masked when its entry equals
+  // stamp, so that moving on to the next spur search unmasks everything at once
+  private final int[] maskedNode;
+  private final int[] maskedEdge;
+  private int stamp = 0;
+  // whether the tree path from each node to the end avoids masked nodes, valid when checkedIn
+  // equals stamp, and a stack for the nodes along a tree path whose answer is not known yet
+  private final int[] checkedIn;
+  private final boolean[] treePathFree;
+  private final int[] pending;
+
+  // the edge visitors of the two searches, and for each the node whose edges it is visiting with
+  // the cost of that node; the backward search can be resumed from inside a spur search's visit
+  private final IndexedGraph.EdgeVisitor spurStep = this::spurStep;
+  private final IndexedGraph.EdgeVisitor reverseStep = this::reverseStep;
+  private int visiting;
+  private double visitingCost;
+  private int reverseFrom;
+  private double reverseCost;
+
+  /**
+   * A loopless path from the start to the end, as the ids of its nodes and edges, with the cost
+   * of reaching each of its nodes. Paths are equal when they take the same edges.
+   */
+  private static class Path {
+    final int[] nodes;
+    final int[] edges;
+    final double[] costs; // costs[i] is the cost from the start to nodes[i]
+    final int deviation; // the index of the node where this path left the one it was spurred from
+
+    Path(int[] nodes, int[] edges, double[] costs, int deviation) {
+      this.nodes = nodes;
+      this.edges = edges;
+      this.costs = costs;
+      this.deviation = deviation;
+    }
+
+    double cost() {
+      return costs[costs.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Path && Arrays.equals(edges, ((Path) other).edges);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(edges);
+    }
+  }
+
+  /**
+   * Prepares a query for the paths from the node with id source to the node with id target, whose
+   * searches run in the workspaces forward and reverse with the queue that strategy selects.
+   */
+  KShortestPaths(IndexedGraph<NodeType> graph, SearchWorkspace forward, SearchWorkspace reverse,
+      QueueStrategy strategy, int source, int target) {
+    this.graph = graph;
+    this.strategy = strategy;
+    this.source = source;
+    this.target = target;
+    int nodeBound = graph.getNodeIdBound();
+    this.reverse = reverse;
+    this.reverse.reset(nodeBound, strategy);
+    this.reverse.start(target);
+    this.forward = forward;
+    this.maskedNode = new int[nodeBound];
+    this.maskedEdge = new int[graph.getEdgeIdBound()];
+    this.checkedIn = new int[nodeBound];
+    this.treePathFree = new boolean[nodeBound];
+    this.pending = new int[nodeBound];
+  }
+
+  /**
+   * Returns up to k of the cheapest loopless paths from the start to the end, cheapest first.
+   *
+   * @param k the largest number of paths to return
+   * @return the paths, fewer than k when there are no more loopless paths, and none when the end
+   *         cannot be reached from the start
+   */
+  List<PathResult<NodeType>> find(int k) {
+    List<PathResult<NodeType>> results = new ArrayList<>();
+    if (k <= 0 || costToEnd(source) == Double.POSITIVE_INFINITY) {
+      return results;
+    }
+    // the first path follows the backward search's tree from the start
+    List<Path> found = new ArrayList<>();
+    found.add(join(null, 0, new int[0], source));
+    PriorityQueue<Path> candidates = new PriorityQueue<>(
+        Comparator.comparingDouble(Path::cost).thenComparingInt(path -> path.edges.length));
+    Set<Path> seen = new HashSet<>(found);
+
+    while (found.size() < k) {
+      Path last = found.get(found.size() - 1);
+      for (int i = last.deviation; i < last.edges.length; i++) {
+        // mask the nodes up to the spur node, and the edges out of it that earlier paths with the
+        // same nodes up to it take
+        stamp++;
+        for (int j = 0; j <= i; j++) {
+          maskedNode[last.nodes[j]] = stamp;
+        }
+        for (Path path : found) {
+          if (path.edges.length > i && Arrays.equals(path.edges, 0, i, last.edges, 0, i)) {
+            maskedEdge[path.edges[i]] = stamp;
+          }
+        }
+        int[] spurEdges = spurSearch(last.nodes[i]);
+        if (spurEdges != null) {
+          Path candidate = join(last, i, spurEdges, last.nodes[i]);
+          if (seen.add(candidate)) {
+            candidates.add(candidate);
+          }
+        }
+      }
+      Path next = candidates.poll();
+      if (next == null) {
+        break;
+      }
+      found.add(next);
+    }
+
+    for (Path path : found) {
+      List<NodeType> data = new ArrayList<>(path.nodes.length);
+      double[] legCosts = new double[path.edges.length];
+      for (int i = 0; i < path.nodes.length; i++) {
+        data.add(graph.dataOf(path.nodes[i]));
+      }
+      for (int i = 0; i < path.edges.length; i++) {
+        legCosts[i] = graph.weightOf(path.edges[i]);
+      }
+      results.add(new PathResult<>(data, legCosts));
+    }
+    return results;
+  }
+
+  /**
+   * Runs an A* search from spur to the end that avoids masked nodes and edges, and stops at the
+   * first settled node whose tree path to the end is free of them.
+   *
+   * @return the ids of the edges of the cheapest such path from spur to the end, or null when
+   *         there is none
+   */
+  private int[] spurSearch(int spur) {
+    forward.reset(graph.getNodeIdBound(), strategy);
+    forward.start(spur);
+    int id;
+    while ((id = forward.settleNext()) >= 0) {
+      // spur itself is masked, so its tree path is free when its first edge and the rest are
+      boolean free = id == spur
+          ? maskedEdge[reverse.parentEdge(spur)] != stamp && isTreePathFree(reverse.parent(spur))
+          : isTreePathFree(id);
+      if (free) {
+        // the edges back to spur, followed by the tree path from id to the end
+        int length = 0;
+        for (int v = id; v != spur; v = forward.parent(v)) {
+          length++;
+        }
+        int[] edges = new int[length];
+        for (int i = length - 1, v = id; i >= 0; i--, v = forward.parent(v)) {
+          edges[i] = forward.parentEdge(v);
+        }
+        return appendTreePath(edges, id);
+      }
+      visiting = id;
+      visitingCost = forward.dist(id);
+      graph.forEachEdgeLeaving(id, spurStep);
+    }
+    return null;
+  }
+
+  // relaxes one edge out of the node that the spur search is visiting, unless it is masked
+  private void spurStep(int edge, int next, double weight) {
+    if (maskedEdge[edge] == stamp || maskedNode[next] == stamp) {
+      return;
+    }
+    double estimate = costToEnd(next);
+    if (estimate < Double.POSITIVE_INFINITY) {
+      double newCost = visitingCost + weight;
+      forward.relax(next, newCost, newCost + estimate, visiting, edge);
+    }
+  }
+
+  /**
+   * Checks whether the path from v to the end in the backward search's tree avoids every masked
+   * node, remembering the answer for each node along the way until the masks change.
+   */
+  private boolean isTreePathFree(int v) {
+    int count = 0;
+    boolean free;
+    while (true) {
+      if (v == target) {
+        free = true;
+        break;
+      }
+      if (checkedIn[v] == stamp) {
+        free = treePathFree[v];
+        break;
+      }
+      if (maskedNode[v] == stamp || costToEnd(v) == Double.POSITIVE_INFINITY) {
+        free = false;
+        break;
+      }
+      pending[count++] = v;
+      v = reverse.parent(v);
+    }
+    for (int i = 0; i < count; i++) {
+      checkedIn[pending[i]] = stamp;
+      treePathFree[pending[i]] = free;
+    }
+    return free;
+  }
+
+  // returns edges followed by the edges of the tree path from v to the end
+  private int[] appendTreePath(int[] edges, int v) {
+    int length = edges.length;
+    for (int u = v; u != target; u = reverse.parent(u)) {
+      length++;
+    }
+    int[] path = Arrays.copyOf(edges, length);
+    for (int i = edges.length, u = v; u != target; i++, u = reverse.parent(u)) {
+      path[i] = reverse.parentEdge(u);
+    }
+    return path;
+  }
+
+  /**
+   * Builds the path that follows root up to its node at index spurIndex, then spurEdges from
+   * there, or, when root is null, the tree path from the start. The costs are summed from the
+   * start, so that equal paths always get equal costs.
+   */
+  private Path join(Path root, int spurIndex, int[] spurEdges, int spur) {
+    int[] edges;
+    if (root == null) {
+      edges = appendTreePath(new int[0], spur);
+    } else {
+      edges = Arrays.copyOf(root.edges, spurIndex + spurEdges.length);
+      System.arraycopy(spurEdges, 0, edges, spurIndex, spurEdges.length);
+    }
+    int[] nodes = new int[edges.length + 1];
+    double[] costs = new double[edges.length + 1];
+    nodes[0] = source;
+    for (int i = 0; i < edges.length; i++) {
+      nodes[i + 1] = graph.successorOf(edges[i]);
+      costs[i + 1] = costs[i] + graph.weightOf(edges[i]);
+    }
+    return new Path(nodes, edges, costs, root == null ? 0 : spurIndex);
+  }
+
+  /**
+   * Returns the cost of the cheapest path from v to the end in the unmasked graph, resuming the
+   * backward search until v is settled or nothing is left to settle.
+   */
+  private double costToEnd(int v) {
+    while (!reverseDone && !reverse.isSettled(v)) {
+      int id = reverse.settleNext();
+      if (id < 0) {
+        reverseDone = true;
+        break;
+      }
+      reverseFrom = id;
+      reverseCost = reverse.dist(id);
+      graph.forEachEdgeEntering(id, reverseStep);
+    }
+    return reverse.isSettled(v) ? reverse.dist(v) : Double.POSITIVE_INFINITY;
+  }
+
+  // relaxes one edge into the node that the backward search is visiting
+  private void reverseStep(int edge, int previous, double weight) {
+    reverse.relax(previous, reverseCost + weight, reverseFrom, edge);
+  }
+
+  /**
+   * Tests of KShortestPaths through DijkstraGraph.kShortestPaths, against every loopless path
+   * listed by brute force.
+   */
+  static class Tests {
+
+    /**
+     * kShortestPathsTest: Checks that kShortestPaths finds distinct loopless paths made of edges of
+     * the graph, with the same costs as the cheapest of all loopless paths listed by brute force,
+     * that it returns fewer paths when there are no more, and that the graph is left unchanged.
+     */
+    @Test
+    public void kShortestPathsTest() {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(12, 45, 1200);
+      int edgeCount = graphTester.getEdgeCount();
+      for (int start = 0; start < 12; start += 3) {
+        for (int end = 1; end < 12; end += 2) {
+          // list the costs of every loopless path from start to end, cheapest first
+          List<Double> expected = new ArrayList<>();
+          simplePathCosts(graphTester, start, end, new ArrayList<>(List.of(start)), 0.0, expected);
+          expected.sort(null);
+
+          List<PathResult<Integer>> paths = graphTester.kShortestPaths(start, end, 20);
+          Assertions.assertEquals(Math.min(20, expected.size()), paths.size(),
+              "kShortestPathsTest() [1.1]: FAILED found the wrong number of PATHS.");
+          List<List<Integer>> seen = new ArrayList<>();
+          for (int i = 0; i < paths.size(); i++) {
+            List<Integer> nodes = paths.get(i).getNodes();
+            Assertions.assertEquals(expected.get(i), paths.get(i).getTotalCost(), 1e-9,
+                "kShortestPathsTest() [1.2]: FAILED found a different COST.");
+            Assertions.assertEquals(nodes.size(), new java.util.HashSet<>(nodes).size(),
+                "kShortestPathsTest() [1.3]: FAILED found a PATH with a loop.");
+            Assertions.assertFalse(seen.contains(nodes),
+                "kShortestPathsTest() [1.4]: FAILED found the same PATH twice.");
+            seen.add(nodes);
+            for (int j = 0; j + 1 < nodes.size(); j++) {
+              Assertions.assertTrue(graphTester.containsEdge(nodes.get(j), nodes.get(j + 1)),
+                  "kShortestPathsTest() [1.5]: FAILED found a PATH through a missing edge.");
+            }
+          }
+        }
+      }
+      Assertions.assertEquals(edgeCount, graphTester.getEdgeCount(),
+          "kShortestPathsTest() [2.1]: FAILED changed the graph.");
+      Assertions.assertEquals(List.of(List.of(4)),
+          graphTester.kShortestPaths(4, 4, 3).stream().map(PathResult::getNodes).toList(),
+          "kShortestPathsTest() [2.2]: FAILED found more than the empty PATH to START.");
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> graphTester.kShortestPaths(0, 1, 0),
+          "kShortestPathsTest() [2.3]: FAILED accepted a K that is not positive.");
+
+      // the self edge of A never makes a second loopless path, and D and E are never reached
+      DijkstraGraph<String, Double> edgeCases =
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>());
+      Assertions.assertEquals(List.of(List.of("A", "B", "C")),
+          edgeCases.kShortestPaths("A", "C", 5).stream().map(PathResult::getNodes).toList(),
+          "kShortestPathsTest() [3.1]: FAILED found a PATH through a self EDGE.");
+      Assertions.assertTrue(edgeCases.kShortestPaths("A", "D", 5).isEmpty()
+          && edgeCases.kShortestPaths("D", "A", 5).isEmpty(),
+          "kShortestPathsTest() [3.2]: FAILED found a PATH to or from an isolated NODE.");
+      Assertions.assertThrows(java.util.NoSuchElementException.class,
+          () -> edgeCases.kShortestPaths("A", "E", 5),
+          "kShortestPathsTest() [3.3]: FAILED found a PATH to a removed NODE.");
+    }
+
+    /**
+     * Test helper that adds the cost of every loopless path from the last node of path to end to
+     * costs, by depth first search.
+     */
+    static void simplePathCosts(DijkstraGraph<Integer, Double> graph, int last, int end,
+        List<Integer> path, double cost, List<Double> costs) {
+      if (last == end) {
+        costs.add(cost);
+        return;
+      }
+      for (int next = 0; next < graph.getNodeCount(); next++) {
+        if (!path.contains(next) && graph.containsEdge(last, next)) {
+          path.add(next);
+          simplePathCosts(graph, next, end, path, cost + graph.getEdge(last, next), costs);
+          path.remove(path.size() - 1);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,321 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A SearchHeuristic for graphs without node positions, that uses the ALT technique (A*,
+ * Landmarks and the Triangle inequality). A few nodes of the graph are picked as landmarks, and
+ * the cost of the shortest path from each landmark to every node, and from every node back to each
+ * landmark, is computed once up front. For any landmark L, the triangle inequality bounds the cost
+ * from a node v to the target t from below by both d(L, t) - d(L, v) and d(v, L) - d(t, L), and
+ * the estimate is the largest of these bounds over all landmarks. Such estimates are consistent.
+ *
+ * Landmarks are picked with farthest selection: the first is the node farthest from an arbitrary
+ * node, and each next one is the node farthest from the landmarks picked so far, so that they end
+ * up around the edges of the graph, where they give the tightest bounds. The costs are kept in two
+ * flat double arrays indexed by landmark and node id, and can be written to a stream and read back
+ * so that they do not have to be computed again every time the same graph is loaded.
+ *
+ * The tables describe the graph as it was when they were built, so they must be built again after
+ * the graph changes. Any number of threads can share one LandmarkHeuristic.
+ *
+ * @param NodeType the data type stored at each graph node
+ */
+public class LandmarkHeuristic<NodeType> implements SearchHeuristic<NodeType> {
+
+  private static final int MAGIC = 0x414C5431; // "ALT1", at the start of every written table
+
+  private final DijkstraGraph<NodeType, ?> graph; // the graph the tables were built for
+  private final int nodeCount; // the node id bound of graph when the tables were built
+  private final int[] landmarks; // the id of each landmark
+  // fromLandmark[l * nodeCount + v] is the cost from landmark l to node v
+  private final double[] fromLandmark;
+  // toLandmark[l * nodeCount + v] is the cost from node v to landmark l
+  private final double[] toLandmark;
+
+  private LandmarkHeuristic(DijkstraGraph<NodeType, ?> graph, int nodeCount, int[] landmarks,
+      double[] fromLandmark, double[] toLandmark) {
+    this.graph = graph;
+    this.nodeCount = nodeCount;
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+  }
+
+  /**
+   * Picks up to count landmarks in graph, and computes the cost of the shortest paths from and to
+   * each of them with one forward and one backward search per landmark.
+   *
+   * @param graph the graph to build the tables for
+   * @param count the number of landmarks, which is reduced to the number of nodes when larger
+   * @return the landmark heuristic for graph
+   * @throws IllegalArgumentException if count is less than 1
+   * @throws NoSuchElementException   if graph has no nodes
+   */
+  public static <NodeType> LandmarkHeuristic<NodeType> build(DijkstraGraph<NodeType, ?> graph,
+      int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("At least one landmark is needed.");
+    }
+    if (graph.getNodeCount() == 0) {
+      throw new NoSuchElementException("Landmarks cannot be picked in an empty graph.");
+    }
+    int n = graph.getNodeIdBound();
+    count = Math.min(count, graph.getNodeCount());
+    int[] landmarks = new int[count];
+    double[] fromLandmark = new double[count * n];
+    double[] toLandmark = new double[count * n];
+
+    // the first landmark is the node farthest from the node with the smallest id
+    int seed = 0;
+    while (graph.nodesById.get(seed) == null) {
+      seed++;
+    }
+    double[] nearest = new double[n]; // cost between each node and its nearest landmark
+    graph.singleSourceCosts(seed, false, nearest, 0);
+    for (int v = 0; v < n; v++) {
+      if (nearest[v] == Double.POSITIVE_INFINITY) {
+        nearest[v] = -1.0; // only nodes that seed reaches can be the first landmark
+      }
+    }
+    landmarks[0] = farthest(graph, nearest);
+    Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+    for (int l = 0; l < count; l++) {
+      graph.singleSourceCosts(landmarks[l], false, fromLandmark, l * n);
+      graph.singleSourceCosts(landmarks[l], true, toLandmark, l * n);
+      if (l + 1 == count) {
+        break;
+      }
+      // nodes that no landmark reaches in either direction stay at infinity and are picked first
+      for (int v = 0, i = l * n; v < n; v++, i++) {
+        nearest[v] = Math.min(nearest[v], Math.min(fromLandmark[i], toLandmark[i]));
+      }
+      // a landmark is 0.0 from itself, which ties with nodes behind 0 weight edges, so rule it out
+      nearest[landmarks[l]] = -1.0;
+      landmarks[l + 1] = farthest(graph, nearest);
+    }
+    return new LandmarkHeuristic<>(graph, n, landmarks, fromLandmark, toLandmark);
+  }
+
+  // returns the id of the node with the largest cost, the one with the smallest id among ties
+  private static int farthest(DijkstraGraph<?, ?> graph, double[] costs) {
+    int best = -1;
+    for (int v = 0; v < costs.length; v++) {
+      if (graph.nodesById.get(v) != null && (best < 0 || costs[v] > costs[best])) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Reads landmark tables that were stored by write, for the graph they were built for.
+   *
+   * @param in    the stream to read from, which is not closed
+   * @param graph the graph that the tables were built for
+   * @return the landmark heuristic for graph
+   * @throws IOException if the stream cannot be read, does not hold landmark tables, or holds
+   *                     tables that were built for a different graph
+   */
+  public static <NodeType> LandmarkHeuristic<NodeType> read(InputStream in,
+      DijkstraGraph<NodeType, ?> graph) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("The stream does not hold landmark tables.");
+    }
+    int n = data.readInt();
+    long fingerprint = data.readLong();
+    if (n != graph.getNodeIdBound() || fingerprint != fingerprint(graph)) {
+      throw new IOException("The landmark tables were built for a different graph.");
+    }
+    int count = data.readInt();
+    if (count < 1 || count > n) {
+      throw new IOException("The landmark tables are corrupt.");
+    }
+    int[] landmarks = new int[count];
+    for (int l = 0; l < count; l++) {
+      landmarks[l] = data.readInt();
+    }
+    double[] fromLandmark = new double[count * n];
+    double[] toLandmark = new double[count * n];
+    for (int i = 0; i < fromLandmark.length; i++) {
+      fromLandmark[i] = data.readDouble();
+    }
+    for (int i = 0; i < toLandmark.length; i++) {
+      toLandmark[i] = data.readDouble();
+    }
+    return new LandmarkHeuristic<>(graph, n, landmarks, fromLandmark, toLandmark);
+  }
+
+  /**
+   * Writes these landmark tables, along with a fingerprint of the nodes and edges of the graph
+   * they were built for, so that read can reject them for any other graph.
+   *
+   * @param out the stream to write to, which is flushed but not closed
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(nodeCount);
+    data.writeLong(fingerprint(graph));
+    data.writeInt(landmarks.length);
+    for (int landmark : landmarks) {
+      data.writeInt(landmark);
+    }
+    for (double cost : fromLandmark) {
+      data.writeDouble(cost);
+    }
+    for (double cost : toLandmark) {
+      data.writeDouble(cost);
+    }
+    data.flush();
+  }
+
+  // hashes the data of every node and the successor and weight of every edge, in id order
+  private static <NodeType, EdgeType extends Number> long fingerprint(
+      DijkstraGraph<NodeType, EdgeType> graph) {
+    long hash = graph.getNodeIdBound();
+    for (int id = 0; id < graph.getNodeIdBound(); id++) {
+      BaseGraph<NodeType, EdgeType>.Node node = graph.nodesById.get(id);
+      if (node == null) {
+        hash = hash * 31;
+        continue;
+      }
+      hash = hash * 31 + node.data.hashCode();
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+        hash = (hash * 31 + edge.successor.id) * 31 + Double.doubleToLongBits(edge.weight);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the graph that these landmark tables were built for.
+   *
+   * @return the graph
+   */
+  public DijkstraGraph<NodeType, ?> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the data in each landmark node, in the order in which the landmarks were picked.
+   *
+   * @return the landmarks
+   */
+  public List<NodeType> getLandmarks() {
+    List<NodeType> data = new ArrayList<>(landmarks.length);
+    for (int landmark : landmarks) {
+      data.add(graph.nodesById.get(landmark).data);
+    }
+    return data;
+  }
+
+  @Override
+  public double estimate(NodeType node, NodeType target) {
+    return estimate(graph.nodes.get(node).id, graph.nodes.get(target).id);
+  }
+
+  /**
+   * Returns the largest lower bound that any landmark gives on the cost from the node with id v to
+   * the node with id t. Bounds that involve a node a landmark cannot reach, or cannot be reached
+   * from, are skipped.
+   *
+   * @param v the id of the node to estimate from
+   * @param t the id of the target node
+   * @return a lower bound of at least 0.0 on the cost from v to t
+   */
+  public double estimate(int v, int t) {
+    if (v >= nodeCount || t >= nodeCount) {
+      return 0.0; // a node added after the tables were built
+    }
+    double best = 0.0;
+    for (int base = 0; base < fromLandmark.length; base += nodeCount) {
+      // d(v, t) >= d(L, t) - d(L, v)
+      double bound = fromLandmark[base + t] - fromLandmark[base + v];
+      if (bound > best && bound != Double.POSITIVE_INFINITY) {
+        best = bound;
+      }
+      // d(v, t) >= d(v, L) - d(t, L)
+      bound = toLandmark[base + v] - toLandmark[base + t];
+      if (bound > best && bound != Double.POSITIVE_INFINITY) {
+        best = bound;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Tests of LandmarkHeuristic, both directing the searches of a DijkstraGraph and written to
+   * and read back from a stream.
+   */
+  static class Tests {
+
+    /**
+     * landmarkTest: Checks that A* searches with a LandmarkHeuristic find paths of the same cost as
+     * Dijkstra's algorithm between every pair of nodes in a random graph, that landmark tables read
+     * back after being written give the same estimates, and that tables are rejected for a
+     * different graph.
+     */
+    @Test
+    public void landmarkTest() throws java.io.IOException {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(60, 200, 600);
+      LandmarkHeuristic<Integer> landmarks = LandmarkHeuristic.build(graphTester, 4);
+      Assertions.assertEquals(4, landmarks.getLandmarks().size(),
+          "landmarkTest() [1.1]: FAILED did not pick the requested NUMBER of landmarks.");
+
+      for (int start = 0; start < 60; start++) {
+        for (int end = 0; end < 60; end++) {
+          int s = start;
+          int t = end;
+          graphTester.setHeuristic(null);
+          double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+          graphTester.setHeuristic(landmarks);
+          Assertions.assertEquals(expected,
+              TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t)),
+              "landmarkTest() [1.2]: FAILED found a different COST.");
+          Assertions.assertTrue(landmarks.estimate(s, t) <= expected,
+              "landmarkTest() [1.3]: FAILED estimated MORE than the shortest path cost.");
+        }
+      }
+
+      java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+      landmarks.write(bytes);
+      LandmarkHeuristic<Integer> copy = LandmarkHeuristic
+          .read(new java.io.ByteArrayInputStream(bytes.toByteArray()), graphTester);
+      for (int start = 0; start < 60; start++) {
+        for (int end = 0; end < 60; end++) {
+          Assertions.assertEquals(landmarks.estimate(start, end), copy.estimate(start, end),
+              "landmarkTest() [2.1]: FAILED read back a different ESTIMATE.");
+        }
+      }
+      Assertions.assertThrows(java.io.IOException.class,
+          () -> LandmarkHeuristic.read(new java.io.ByteArrayInputStream(bytes.toByteArray()),
+              TestGraphs.randomGraph(60, 200, 601)),
+          "landmarkTest() [2.2]: FAILED accepted tables built for a DIFFERENT graph.");
+
+      // as many landmarks as nodes, with 0 weight edges and the freed id of a removed node
+      DijkstraGraph<String, Double> small = TestGraphs.edgeCaseGraph(new DijkstraGraph<>());
+      List<String> picked = LandmarkHeuristic.build(small, 10).getLandmarks();
+      Assertions.assertEquals(4, new java.util.HashSet<>(picked).size(),
+          "landmarkTest() [3.1]: FAILED picked the same LANDMARK twice: " + picked);
+      LandmarkHeuristic<String> all = LandmarkHeuristic.build(small, 4);
+      Assertions.assertTrue(all.estimate("A", "A") == 0.0 && all.estimate("A", "D") == 0.0,
+          "landmarkTest() [3.2]: FAILED estimated a COST to itself or to an unreachable node.");
+      Assertions.assertEquals(1.0, all.estimate("A", "C"),
+          "landmarkTest() [3.3]: FAILED did not estimate the exact COST from every landmark.");
+    }
+  }
+}
@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of (id, key) pairs stored in two primitive arrays, using lazy deletion: an id
+ * is pushed again whenever its key is lowered, and the stale copies stay in the heap until they
+ * are polled. Callers skip ids they have already settled. This is the primitive counterpart of
+ * the java.util.PriorityQueue that DijkstraGraph originally used.
+ */
+public class LazyIntHeap implements IntPriorityQueue {
+
+  private int[] ids; // ids[i] is the id stored at heap position i
+  private double[] keys; // keys[i] is the key of ids[i]
+  private int size = 0;
+  private int peakSize = 0;
+
+  /**
+   * Creates an empty heap.
+   *
+   * @param capacity the number of entries to make room for, the heap grows as needed
+   */
+  public LazyIntHeap(int capacity) {
+    capacity = Math.max(1, capacity);
+    ids = new int[capacity];
+    keys = new double[capacity];
+  }
+
+  @Override
+  public void insertOrDecrease(int id, double key) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+      keys = Arrays.copyOf(keys, size * 2);
+    }
+    // sift the new entry up from the bottom of the heap
+    int i = size++;
+    peakSize = Math.max(peakSize, size);
+    while (i > 0) {
+      int up = (i - 1) >>> 1;
+      if (keys[up] <= key) {
+        break;
+      }
+      ids[i] = ids[up];
+      keys[i] = keys[up];
+      i = up;
+    }
+    ids[i] = id;
+    keys[i] = key;
+  }
+
+  @Override
+  public double minKey() {
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty.");
+    }
+    return keys[0];
+  }
+
+  @Override
+  public int pollMin() {
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty.");
+    }
+    int top = ids[0];
+    int id = ids[--size];
+    double key = keys[size];
+    // sift the last entry down from the top of the heap
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && keys[child + 1] < keys[child]) {
+        child++;
+      }
+      if (key <= keys[child]) {
+        break;
+      }
+      ids[i] = ids[child];
+      keys[i] = keys[child];
+      i = child;
+    }
+    ids[i] = id;
+    keys[i] = key;
+    return top;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int peakSize() {
+    return peakSize;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    peakSize = 0;
+  }
+}
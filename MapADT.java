@@ -59,6 +59,13 @@ public interface MapADT<KeyType, ValueType> {
      */
     public int getCapacity();
 
+    /**
+     * Grows this collection's capacity, when needed, so that it can hold
+     * size keys without having to grow again.
+     * @param size the number of keys this collection is expected to hold
+     */
+    public void ensureCapacity(int size);
+
     /**
      * Retrieves this collection's keys.
      * @return a list of keys in the underlying array for this collection
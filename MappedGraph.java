@@ -0,0 +1,936 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A MappedGraph is a read-only graph with String nodes that is stored in a binary snapshot file
+ * and searched straight from a memory mapping of that file. Opening a snapshot only maps it, so
+ * even a multi-GB map is ready for queries in milliseconds, without parsing any text and without
+ * copying nodes or edges onto the heap: the operating system pages the parts that queries touch
+ * in and out as needed, and processes that open the same file share those pages. Only the search
+ * state of each querying thread (see SearchWorkspace) lives on the heap.
+ *
+ * Snapshots are written from a CsrGraph or any GraphADT with write(), or converted from a .dot
+ * file on the command line with:
+ *     java MappedGraph graph.dot graph.snapshot [-reverse] [-landmarks N]
+ * A snapshot holds, in little endian order, with each section starting at a multiple of 8 bytes:
+ *
+ * - a header of 64 bytes: the magic number "SPG1", the format version, the flags of the optional
+ *   sections, the number of nodes, edges and landmarks, and the length of the string table
+ * - the offset of each node's name in the string table, as nodeCount + 1 longs
+ * - the node ids sorted by the UTF-8 bytes of their names, so names are looked up by binary search
+ * - the edges in CSR form (see CsrGraph): nodeCount + 1 offsets, the target of each edge, and the
+ *   weight of each edge as a double
+ * - optionally, the reverse adjacency in the same form, with the source of each edge instead of
+ *   its target, which costsTo() searches
+ * - optionally, the ids of a few landmarks and the cost of the shortest paths from and to each of
+ *   them (see LandmarkHeuristic), which turn point to point searches into A* searches
+ * - the string table: the UTF-8 bytes of every node name, in id order
+ *
+ * Each section is mapped in pieces of at most 1 GiB, since a single mapping cannot be larger than
+ * 2 GiB. Any number of threads can query one MappedGraph at the same time.
+ */
+public class MappedGraph {
+
+  private static final int MAGIC = 0x31475053; // "SPG1", read as a little endian int
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 64;
+  private static final int HAS_REVERSE = 1; // the flag of the reverse adjacency section
+  private static final int HAS_LANDMARKS = 2; // the flag of the landmark section
+  private static final int CHUNK_BITS = 30; // each mapping of a section covers at most 1 GiB
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private final int nodeCount;
+  private final int edgeCount;
+  private final int landmarkCount; // 0 when the snapshot has no landmark section
+  private final Section nameOffsets; // long per node, plus one for the end of the last name
+  private final Section sortedIds; // int per node
+  private final Section offsets; // int per node, plus one
+  private final Section targets; // int per edge
+  private final Section weights; // double per edge
+  private final Section reverseOffsets; // int per node plus one, null without reverse adjacency
+  private final Section sources; // int per edge, null without reverse adjacency
+  private final Section reverseWeights; // double per edge, null without reverse adjacency
+  private final Section landmarks; // int per landmark, null without landmarks
+  private final Section fromLandmark; // double per landmark and node, null without landmarks
+  private final Section toLandmark; // double per landmark and node, null without landmarks
+  private final Section names; // the UTF-8 bytes of every name
+  // the search state of each thread, reused by every query that thread runs
+  private final ThreadLocal<SearchWorkspace> workspaces;
+
+  /**
+   * Where each section of a snapshot starts, and how long it is, computed from the counts in the
+   * header, so that the writer and the reader always agree on the layout.
+   */
+  private static class Layout {
+    final long[] position = new long[12];
+    final long[] size = new long[12];
+    final long end;
+
+    // the indices of the sections, in file order
+    static final int NAME_OFFSETS = 0, SORTED_IDS = 1, OFFSETS = 2, TARGETS = 3, WEIGHTS = 4,
+        REVERSE_OFFSETS = 5, SOURCES = 6, REVERSE_WEIGHTS = 7, LANDMARKS = 8, FROM_LANDMARK = 9,
+        TO_LANDMARK = 10, NAMES = 11;
+
+    Layout(int flags, int nodeCount, int edgeCount, int landmarkCount, long nameBytes) {
+      boolean reverse = (flags & HAS_REVERSE) != 0;
+      size[NAME_OFFSETS] = 8L * (nodeCount + 1);
+      size[SORTED_IDS] = 4L * nodeCount;
+      size[OFFSETS] = 4L * (nodeCount + 1);
+      size[TARGETS] = 4L * edgeCount;
+      size[WEIGHTS] = 8L * edgeCount;
+      size[REVERSE_OFFSETS] = reverse ? 4L * (nodeCount + 1) : 0;
+      size[SOURCES] = reverse ? 4L * edgeCount : 0;
+      size[REVERSE_WEIGHTS] = reverse ? 8L * edgeCount : 0;
+      size[LANDMARKS] = 4L * landmarkCount;
+      size[FROM_LANDMARK] = 8L * landmarkCount * nodeCount;
+      size[TO_LANDMARK] = 8L * landmarkCount * nodeCount;
+      size[NAMES] = nameBytes;
+      long at = HEADER_BYTES;
+      for (int i = 0; i < size.length; i++) {
+        position[i] = at;
+        at = (at + size[i] + 7) & ~7L;
+      }
+      end = position[NAMES] + nameBytes;
+    }
+  }
+
+  /**
+   * The mappings of one section of the file. Sections start at multiples of 8 bytes and the
+   * mappings at multiples of 1 GiB into the section, so no value is ever split between two.
+   */
+  private static class Section {
+    final ByteBuffer[] chunks;
+
+    Section(FileChannel channel, long position, long size) throws IOException {
+      chunks = new ByteBuffer[(int) ((size + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS)];
+      for (int i = 0; i < chunks.length; i++) {
+        long start = (long) i << CHUNK_BITS;
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position + start,
+            Math.min(1L << CHUNK_BITS, size - start));
+        chunks[i] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+
+    byte getByte(long at) {
+      return chunks[(int) (at >>> CHUNK_BITS)].get((int) (at & CHUNK_MASK));
+    }
+
+    int getInt(long index) {
+      long at = index << 2;
+      return chunks[(int) (at >>> CHUNK_BITS)].getInt((int) (at & CHUNK_MASK));
+    }
+
+    long getLong(long index) {
+      long at = index << 3;
+      return chunks[(int) (at >>> CHUNK_BITS)].getLong((int) (at & CHUNK_MASK));
+    }
+
+    double getDouble(long index) {
+      long at = index << 3;
+      return chunks[(int) (at >>> CHUNK_BITS)].getDouble((int) (at & CHUNK_MASK));
+    }
+  }
+
+  private MappedGraph(FileChannel channel, ByteBuffer header) throws IOException {
+    int flags = header.getInt(8);
+    nodeCount = header.getInt(12);
+    edgeCount = header.getInt(16);
+    landmarkCount = header.getInt(20);
+    long nameBytes = header.getLong(24);
+    if (nodeCount < 0 || edgeCount < 0 || landmarkCount < 0 || nameBytes < 0
+        || landmarkCount > 0 && (flags & HAS_LANDMARKS) == 0) {
+      throw new IOException("The snapshot's header is corrupt.");
+    }
+    Layout layout = new Layout(flags, nodeCount, edgeCount, landmarkCount, nameBytes);
+    if (channel.size() < layout.end) {
+      throw new IOException("The snapshot is truncated: " + channel.size() + " of "
+          + layout.end + " bytes.");
+    }
+
+    Section[] sections = new Section[layout.size.length];
+    for (int i = 0; i < sections.length; i++) {
+      if (layout.size[i] > 0) {
+        sections[i] = new Section(channel, layout.position[i], layout.size[i]);
+      }
+    }
+    nameOffsets = sections[Layout.NAME_OFFSETS];
+    sortedIds = sections[Layout.SORTED_IDS];
+    offsets = sections[Layout.OFFSETS];
+    targets = sections[Layout.TARGETS];
+    weights = sections[Layout.WEIGHTS];
+    boolean reverse = (flags & HAS_REVERSE) != 0;
+    reverseOffsets = reverse ? sections[Layout.REVERSE_OFFSETS] : null;
+    sources = reverse ? sections[Layout.SOURCES] : null;
+    reverseWeights = reverse ? sections[Layout.REVERSE_WEIGHTS] : null;
+    landmarks = sections[Layout.LANDMARKS];
+    fromLandmark = sections[Layout.FROM_LANDMARK];
+    toLandmark = sections[Layout.TO_LANDMARK];
+    names = sections[Layout.NAMES];
+    workspaces = ThreadLocal
+        .withInitial(() -> new SearchWorkspace(nodeCount, QueueStrategy.BINARY_HEAP));
+  }
+
+  /**
+   * Maps a snapshot file that was written by write(). The file must not be modified while it is
+   * mapped. The mappings stay valid until this graph is garbage collected.
+   *
+   * @param file the snapshot to open
+   * @return the graph stored in file
+   * @throws IOException if the file cannot be read, or is not a snapshot of a supported version
+   */
+  public static MappedGraph open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // read the whole header, however many reads it takes
+      }
+      if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a graph snapshot.");
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IOException(file + " is a snapshot of unsupported version "
+            + header.getInt(4) + ".");
+      }
+      return new MappedGraph(channel, header);
+    }
+  }
+
+  /**
+   * Writes any graph with String nodes to a snapshot file. BaseGraphs are frozen into a CsrGraph
+   * first, and the edges of other IndexedGraphs, like OffHeapGraph, are listed node by node. Only
+   * implementations that cannot list the edges leaving a node are asked about every pair of nodes.
+   *
+   * @param graph         the graph to write
+   * @param file          the file to create or overwrite
+   * @param reverse       true to store the reverse adjacency too
+   * @param landmarkCount the number of landmarks to store, or 0 for none
+   * @throws IOException              if the file cannot be written
+   * @throws IllegalArgumentException if any edge weight is negative, or landmarkCount is negative
+   */
+  @SuppressWarnings("unchecked")
+  public static void write(GraphADT<String, ? extends Number> graph, Path file, boolean reverse,
+      int landmarkCount) throws IOException {
+    if (graph instanceof BaseGraph) {
+      write(((BaseGraph<String, ?>) graph).freeze(), file, reverse, landmarkCount);
+      return;
+    }
+    List<String> all = graph.getAllNodes();
+    CsrGraph.Builder<String> builder = new CsrGraph.Builder<>(all.size(), graph.getEdgeCount());
+    for (String node : all) {
+      builder.addNode(node);
+    }
+    if (graph instanceof IndexedGraph) {
+      IndexedGraph<String> indexed = (IndexedGraph<String>) graph;
+      for (String pred : all) {
+        indexed.forEachEdgeLeaving(indexed.idOf(pred),
+            (edge, neighbor, weight) -> builder.addEdge(pred, indexed.dataOf(neighbor), weight));
+      }
+    } else {
+      for (String pred : all) {
+        for (String succ : all) {
+          if (graph.containsEdge(pred, succ)) {
+            builder.addEdge(pred, succ, graph.getEdge(pred, succ).doubleValue());
+          }
+        }
+      }
+    }
+    write(builder.build(), file, reverse, landmarkCount);
+  }
+
+  /**
+   * Writes a frozen graph to a snapshot file, with node ids in the same order as in graph.
+   *
+   * @param graph         the graph to write
+   * @param file          the file to create or overwrite
+   * @param reverse       true to store the reverse adjacency too
+   * @param landmarkCount the number of landmarks to store, or 0 for none
+   * @throws IOException              if the file cannot be written
+   * @throws IllegalArgumentException if landmarkCount is negative
+   */
+  public static void write(CsrGraph<String> graph, Path file, boolean reverse, int landmarkCount)
+      throws IOException {
+    if (landmarkCount < 0) {
+      throw new IllegalArgumentException("The number of landmarks must not be negative.");
+    }
+    int n = graph.getNodeCount();
+    int m = graph.getEdgeCount();
+    landmarkCount = Math.min(landmarkCount, n);
+    byte[][] nameBytes = new byte[n][];
+    long totalNameBytes = 0;
+    for (int v = 0; v < n; v++) {
+      nameBytes[v] = graph.dataOf(v).getBytes(StandardCharsets.UTF_8);
+      totalNameBytes += nameBytes[v].length;
+    }
+    Integer[] sorted = new Integer[n];
+    for (int v = 0; v < n; v++) {
+      sorted[v] = v;
+    }
+    Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(nameBytes[a], nameBytes[b]));
+
+    // the reverse adjacency is a counting sort of the edges by their target
+    int[] reverseOffsets = null;
+    int[] sources = null;
+    double[] reverseWeights = null;
+    if (reverse) {
+      reverseOffsets = new int[n + 1];
+      sources = new int[m];
+      reverseWeights = new double[m];
+      for (int e = 0; e < m; e++) {
+        reverseOffsets[graph.targets[e] + 1]++;
+      }
+      for (int v = 0; v < n; v++) {
+        reverseOffsets[v + 1] += reverseOffsets[v];
+      }
+      int[] next = Arrays.copyOf(reverseOffsets, n);
+      for (int u = 0; u < n; u++) {
+        for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+          int slot = next[graph.targets[e]]++;
+          sources[slot] = u;
+          reverseWeights[slot] = graph.weights[e];
+        }
+      }
+    }
+    int flags = (reverse ? HAS_REVERSE : 0) | (landmarkCount > 0 ? HAS_LANDMARKS : 0);
+    Layout layout = new Layout(flags, n, m, landmarkCount, totalNameBytes);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Output out = new Output(channel);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(flags);
+      out.putInt(n);
+      out.putInt(m);
+      out.putInt(landmarkCount);
+      out.putLong(totalNameBytes);
+      out.padTo(layout.position[Layout.NAME_OFFSETS]);
+      long nameAt = 0;
+      for (int v = 0; v < n; v++) {
+        out.putLong(nameAt);
+        nameAt += nameBytes[v].length;
+      }
+      out.putLong(nameAt);
+      out.padTo(layout.position[Layout.SORTED_IDS]);
+      for (int v : sorted) {
+        out.putInt(v);
+      }
+      out.padTo(layout.position[Layout.OFFSETS]);
+      for (int u = 0; u <= n; u++) {
+        out.putInt(graph.offsets[u]);
+      }
+      out.padTo(layout.position[Layout.TARGETS]);
+      for (int e = 0; e < m; e++) {
+        out.putInt(graph.targets[e]);
+      }
+      out.padTo(layout.position[Layout.WEIGHTS]);
+      for (int e = 0; e < m; e++) {
+        out.putDouble(graph.weights[e]);
+      }
+      if (reverse) {
+        out.padTo(layout.position[Layout.REVERSE_OFFSETS]);
+        for (int offset : reverseOffsets) {
+          out.putInt(offset);
+        }
+        out.padTo(layout.position[Layout.SOURCES]);
+        for (int source : sources) {
+          out.putInt(source);
+        }
+        out.padTo(layout.position[Layout.REVERSE_WEIGHTS]);
+        for (double weight : reverseWeights) {
+          out.putDouble(weight);
+        }
+      }
+      if (landmarkCount > 0) {
+        writeLandmarks(graph, landmarkCount, out, layout);
+      }
+      out.padTo(layout.position[Layout.NAMES]);
+      for (byte[] bytes : nameBytes) {
+        out.putBytes(bytes);
+      }
+      out.flush();
+    }
+  }
+
+  /**
+   * Picks landmarks with farthest selection, like LandmarkHeuristic.build does, and writes their
+   * ids and the cost of the shortest paths from and to each of them.
+   */
+  private static void writeLandmarks(CsrGraph<String> graph, int count, Output out,
+      Layout layout) throws IOException {
+    int n = graph.getNodeCount();
+    CsrGraph.Builder<String> reversed = new CsrGraph.Builder<>(n, graph.getEdgeCount());
+    for (int v = 0; v < n; v++) {
+      reversed.addNode(graph.dataOf(v));
+    }
+    for (int u = 0; u < n; u++) {
+      for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+        reversed.addEdge(graph.targets[e], u, graph.weights[e]);
+      }
+    }
+    CsrDijkstra<String> forward = new CsrDijkstra<>(graph);
+    CsrDijkstra<String> backward = new CsrDijkstra<>(reversed.build());
+
+    int[] picked = new int[count];
+    double[][] from = new double[count][];
+    double[][] to = new double[count][];
+    // the first landmark is the node farthest from node 0, among the nodes that node 0 reaches
+    double[] nearest = forward.costsFrom(graph.dataOf(0));
+    for (int v = 0; v < n; v++) {
+      if (nearest[v] == Double.POSITIVE_INFINITY) {
+        nearest[v] = -1.0;
+      }
+    }
+    picked[0] = farthest(nearest);
+    Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+    for (int l = 0; l < count; l++) {
+      from[l] = forward.costsFrom(graph.dataOf(picked[l]));
+      to[l] = backward.costsFrom(graph.dataOf(picked[l]));
+      if (l + 1 == count) {
+        break;
+      }
+      for (int v = 0; v < n; v++) {
+        nearest[v] = Math.min(nearest[v], Math.min(from[l][v], to[l][v]));
+      }
+      picked[l + 1] = farthest(nearest);
+    }
+
+    out.padTo(layout.position[Layout.LANDMARKS]);
+    for (int landmark : picked) {
+      out.putInt(landmark);
+    }
+    out.padTo(layout.position[Layout.FROM_LANDMARK]);
+    for (double[] costs : from) {
+      for (double cost : costs) {
+        out.putDouble(cost);
+      }
+    }
+    out.padTo(layout.position[Layout.TO_LANDMARK]);
+    for (double[] costs : to) {
+      for (double cost : costs) {
+        out.putDouble(cost);
+      }
+    }
+  }
+
+  // returns the index of the largest cost, the smallest index among ties
+  private static int farthest(double[] costs) {
+    int best = 0;
+    for (int v = 1; v < costs.length; v++) {
+      if (costs[v] > costs[best]) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Writes little endian values to a channel through a buffer, keeping track of the position.
+   */
+  private static class Output {
+    final FileChannel channel;
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    long position = 0;
+
+    Output(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    void putInt(int value) throws IOException {
+      room(4).putInt(value);
+      position += 4;
+    }
+
+    void putLong(long value) throws IOException {
+      room(8).putLong(value);
+      position += 8;
+    }
+
+    void putDouble(double value) throws IOException {
+      room(8).putDouble(value);
+      position += 8;
+    }
+
+    void putBytes(byte[] bytes) throws IOException {
+      for (int at = 0; at < bytes.length;) {
+        int length = Math.min(bytes.length - at, buffer.capacity());
+        room(length).put(bytes, at, length);
+        at += length;
+      }
+      position += bytes.length;
+    }
+
+    // writes zeros up to the start of the next section
+    void padTo(long start) throws IOException {
+      while (position < start) {
+        room(1).put((byte) 0);
+        position++;
+      }
+    }
+
+    ByteBuffer room(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+      return buffer;
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Checks whether the snapshot holds the reverse adjacency, which costsTo() needs.
+   *
+   * @return true if the edges entering each node can be listed
+   */
+  public boolean hasReverseEdges() {
+    return reverseOffsets != null;
+  }
+
+  /**
+   * Returns the number of landmarks whose tables direct point to point searches.
+   *
+   * @return the number of landmarks, 0 when searches use Dijkstra's algorithm
+   */
+  public int getLandmarkCount() {
+    return landmarkCount;
+  }
+
+  /**
+   * Returns the names of the landmarks, in the order in which they were picked.
+   *
+   * @return the landmarks, none when searches use Dijkstra's algorithm
+   */
+  public List<String> getLandmarks() {
+    List<String> list = new ArrayList<>(landmarkCount);
+    for (int l = 0; l < landmarkCount; l++) {
+      list.add(dataOf(landmarks.getInt(l)));
+    }
+    return list;
+  }
+
+  /**
+   * Returns the id of the node with the provided name, by binary search over the names in the
+   * order of their UTF-8 bytes.
+   *
+   * @param name the name to look up
+   * @return the id of that node, or -1 when no node has this name
+   */
+  public int idOf(String name) {
+    if (name == null) {
+      return -1;
+    }
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = nodeCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int id = sortedIds.getInt(middle);
+      int comparison = compareName(id, key);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  // compares the UTF-8 bytes of the name of node id with key, as unsigned bytes
+  private int compareName(int id, byte[] key) {
+    long start = nameOffsets.getLong(id);
+    long length = nameOffsets.getLong(id + 1) - start;
+    for (int i = 0; i < length && i < key.length; i++) {
+      int difference = (names.getByte(start + i) & 0xFF) - (key[i] & 0xFF);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return Long.compare(length, key.length);
+  }
+
+  /**
+   * Returns the name of the node with the provided id.
+   *
+   * @param id the id of a node in this graph
+   * @return the name of that node
+   */
+  public String dataOf(int id) {
+    long start = nameOffsets.getLong(id);
+    byte[] bytes = new byte[(int) (nameOffsets.getLong(id + 1) - start)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = names.getByte(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Retrieves a list of the names of all nodes, in id order.
+   *
+   * @return list of all node names
+   */
+  public List<String> getAllNodes() {
+    List<String> list = new ArrayList<>(nodeCount);
+    for (int id = 0; id < nodeCount; id++) {
+      list.add(dataOf(id));
+    }
+    return list;
+  }
+
+  /**
+   * Returns the index of the first edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index of u's first edge, for target() and weight()
+   */
+  public int firstEdge(int u) {
+    return offsets.getInt(u);
+  }
+
+  /**
+   * Returns the index one past the last edge leaving node u.
+   *
+   * @param u the id of a node
+   * @return index just after u's last edge
+   */
+  public int endEdge(int u) {
+    return offsets.getInt(u + 1);
+  }
+
+  /**
+   * Returns the id of the node that edge e leads to.
+   *
+   * @param e the index of an edge
+   * @return the id of e's successor
+   */
+  public int target(int e) {
+    return targets.getInt(e);
+  }
+
+  /**
+   * Returns the weight of edge e.
+   *
+   * @param e the index of an edge
+   * @return the weight of e
+   */
+  public double weight(int e) {
+    return weights.getDouble(e);
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node named start to the node named end.
+   *
+   * @param start the name of the starting node for the path
+   * @param end   the name of the destination node for the path
+   * @return the cost of the shortest path from start to end
+   * @throws NoSuchElementException when no path from start to end is found, or either name does
+   *                                not belong to a node
+   */
+  public double shortestPathCost(String start, String end) {
+    int target = requireId(end);
+    return search(requireId(start), target).dist(target);
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node
+   * named start to the node named end.
+   *
+   * @param start the name of the starting node for the path
+   * @param end   the name of the destination node for the path
+   * @return the shortest path from start to end
+   * @throws NoSuchElementException when no path from start to end is found, or either name does
+   *                                not belong to a node
+   */
+  public PathResult<String> shortestPath(String start, String end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    SearchWorkspace workspace = search(source, target);
+    int length = 0;
+    for (int v = target; v != source; v = workspace.parent(v)) {
+      length++;
+    }
+    // walk back from target, filling the path and its legs from the end
+    String[] path = new String[length + 1];
+    double[] legs = new double[length];
+    for (int i = length, v = target; i >= 0; i--, v = workspace.parent(v)) {
+      path[i] = dataOf(v);
+      if (i > 0) {
+        legs[i - 1] = weights.getDouble(workspace.parentEdge(v));
+      }
+    }
+    return new PathResult<>(Arrays.asList(path), legs);
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node named start to every node that can be
+   * reached from it at a cost of budget or less, including start itself at a cost of 0.0.
+   *
+   * @param start  the name of the starting node
+   * @param budget the maximum path cost for a node to be included
+   * @return map from the name of each reachable node to its shortest path cost
+   * @throws NoSuchElementException when start does not belong to a node
+   */
+  public MapADT<String, Double> reachableWithin(String start, double budget) {
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeCount, QueueStrategy.BINARY_HEAP);
+    workspace.start(requireId(start));
+    MapADT<String, Double> reached = new OpenAddressingMap<>();
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(u);
+      if (cost > budget) {
+        break;
+      }
+      reached.put(dataOf(u), cost);
+      for (int e = offsets.getInt(u), end = offsets.getInt(u + 1); e < end; e++) {
+        workspace.relax(targets.getInt(e), cost + weights.getDouble(e), u, e);
+      }
+    }
+    return reached;
+  }
+
+  /**
+   * Returns the cost of the shortest path from every node to the node named end, with one search
+   * backward over the reverse adjacency.
+   *
+   * @param end the name of the destination node for the paths
+   * @return costs[id] is the cost from the node with that id to end, or Double.POSITIVE_INFINITY
+   *         when end cannot be reached from it
+   * @throws NoSuchElementException when end does not belong to a node
+   * @throws IllegalStateException  when the snapshot was written without the reverse adjacency
+   */
+  public double[] costsTo(String end) {
+    if (!hasReverseEdges()) {
+      throw new IllegalStateException("The snapshot was written without reverse edges.");
+    }
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeCount, QueueStrategy.BINARY_HEAP);
+    workspace.start(requireId(end));
+    double[] costs = new double[nodeCount];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    int v;
+    while ((v = workspace.settleNext()) >= 0) {
+      double cost = workspace.dist(v);
+      costs[v] = cost;
+      for (int e = reverseOffsets.getInt(v), last = reverseOffsets.getInt(v + 1); e < last; e++) {
+        workspace.relax(sources.getInt(e), cost + reverseWeights.getDouble(e), v, e);
+      }
+    }
+    return costs;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source in this thread's workspace until target is settled, or
+   * an A* search directed by the landmarks when the snapshot has them.
+   */
+  private SearchWorkspace search(int source, int target) {
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeCount, QueueStrategy.BINARY_HEAP);
+    workspace.start(source);
+    int u;
+    while ((u = workspace.settleNext()) >= 0) {
+      if (u == target) {
+        return workspace;
+      }
+      double cost = workspace.dist(u);
+      for (int e = offsets.getInt(u), end = offsets.getInt(u + 1); e < end; e++) {
+        int v = targets.getInt(e);
+        double newCost = cost + weights.getDouble(e);
+        if (landmarkCount == 0) {
+          workspace.relax(v, newCost, u, e);
+        } else if (!workspace.isSettled(v)
+            && !(workspace.isReached(v) && newCost >= workspace.dist(v))) {
+          workspace.relax(v, newCost, newCost + estimate(v, target), u, e);
+        }
+      }
+    }
+    throw new NoSuchElementException("No path from " + dataOf(source) + " to " + dataOf(target)
+        + " was found.");
+  }
+
+  // the largest lower bound on the cost from v to t given by any landmark, see LandmarkHeuristic
+  private double estimate(int v, int t) {
+    double best = 0.0;
+    for (long base = 0; base < (long) landmarkCount * nodeCount; base += nodeCount) {
+      double bound = fromLandmark.getDouble(base + t) - fromLandmark.getDouble(base + v);
+      if (bound > best && bound != Double.POSITIVE_INFINITY) {
+        best = bound;
+      }
+      bound = toLandmark.getDouble(base + v) - toLandmark.getDouble(base + t);
+      if (bound > best && bound != Double.POSITIVE_INFINITY) {
+        best = bound;
+      }
+    }
+    return best;
+  }
+
+  // looks up the id of a node, throwing like CsrDijkstra does for missing or null names
+  private int requireId(String name) {
+    if (name == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    int id = idOf(name);
+    if (id < 0) {
+      throw new NoSuchElementException("No node contains " + name + ".");
+    }
+    return id;
+  }
+
+  /**
+   * Converts a .dot file into a snapshot, loading it like Backend.loadGraphData does, so that
+   * repeated edges keep the weight given last.
+   */
+  public static void main(String[] args) throws IOException {
+    boolean reverse = false;
+    int landmarkCount = 0;
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-reverse")) {
+        reverse = true;
+      } else if (args[i].equals("-landmarks") && i + 1 < args.length) {
+        landmarkCount = Integer.parseInt(args[++i]);
+      } else {
+        files.add(args[i]);
+      }
+    }
+    if (files.size() != 2) {
+      System.err.println("Usage: java MappedGraph graph.dot graph.snapshot [-reverse]"
+          + " [-landmarks N]");
+      System.exit(2);
+    }
+    long begin = System.nanoTime();
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+    new Backend(graph).loadGraphData(files.get(0));
+    write(graph, Paths.get(files.get(1)), reverse, landmarkCount);
+    System.err.printf("Wrote %d nodes and %d edges in %.1f s%n", graph.getNodeCount(),
+        graph.getEdgeCount(), (System.nanoTime() - begin) / 1e9);
+  }
+
+  /**
+   * Tests of MappedGraph snapshots written from a DijkstraGraph and mapped back.
+   */
+  static class Tests {
+
+    /**
+     * mappedGraphTest: Checks that a graph written to a snapshot file and mapped back has the same
+     * nodes, looked up by names with non-ASCII characters, and the same shortest paths and costs as
+     * the graph it was written from, with and without landmarks, and that costsTo over the reverse
+     * edges matches costs from every node.
+     */
+    @Test
+    public void mappedGraphTest() throws java.io.IOException {
+      java.util.Random random = new java.util.Random(1300);
+      DijkstraGraph<String, Double> graphTester = new DijkstraGraph<>();
+      String[] names = new String[40];
+      for (int i = 0; i < names.length; i++) {
+        names[i] = (i % 3 == 0 ? "Stra\u00dfe " : i % 3 == 1 ? "Hall " : "\u00dcnion ") + i;
+        graphTester.insertNode(names[i]);
+      }
+      for (int i = 0; i < 120; i++) {
+        graphTester.insertEdge(names[random.nextInt(40)], names[random.nextInt(40)],
+            (double) random.nextInt(20));
+      }
+      java.nio.file.Path file = java.nio.file.Files.createTempFile("graph", ".snapshot");
+      try {
+        for (int landmarks : new int[] {0, 4}) {
+          MappedGraph.write(graphTester, file, true, landmarks);
+          MappedGraph mapped = MappedGraph.open(file);
+          Assertions.assertTrue(mapped.getNodeCount() == 40 && mapped.getEdgeCount()
+              == graphTester.getEdgeCount() && mapped.getLandmarkCount() == landmarks,
+              "mappedGraphTest() [1.1]: FAILED did not keep every NODE and EDGE.");
+          Assertions.assertEquals(-1, mapped.idOf("Stra\u00dfe"),
+              "mappedGraphTest() [1.2]: FAILED found a NODE that does not exist.");
+          for (String start : names) {
+            Assertions.assertEquals(start, mapped.dataOf(mapped.idOf(start)),
+                "mappedGraphTest() [2.1]: FAILED did not find a NODE by its name.");
+            double[] costsTo = mapped.costsTo(start);
+            for (String end : names) {
+              double expected =
+                  TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(start, end));
+              Assertions.assertEquals(expected,
+                  TestGraphs.costOrInfinity(() -> mapped.shortestPathCost(start, end)),
+                  "mappedGraphTest() [2.2]: FAILED found a different COST.");
+              Assertions.assertEquals(
+                  TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(end, start)),
+                  costsTo[mapped.idOf(end)],
+                  "mappedGraphTest() [2.3]: FAILED costsTo found a different COST.");
+              if (expected < Double.POSITIVE_INFINITY) {
+                List<String> path = mapped.shortestPath(start, end).getNodes();
+                double cost = 0.0;
+                for (int i = 0; i + 1 < path.size(); i++) {
+                  cost += graphTester.getEdge(path.get(i), path.get(i + 1));
+                }
+                Assertions.assertEquals(expected, cost,
+                    "mappedGraphTest() [2.4]: FAILED found a PATH of a different cost.");
+              }
+            }
+          }
+        }
+        java.nio.file.Files.write(file, new byte[] {1, 2, 3});
+        Assertions.assertThrows(java.io.IOException.class, () -> MappedGraph.open(file),
+            "mappedGraphTest() [3.1]: FAILED opened a file that is not a snapshot.");
+
+        // both writers must skip the freed id of a removed node
+        List<GraphADT<String, Double>> edgeGraphs = List.of(
+            TestGraphs.edgeCaseGraph(new DijkstraGraph<>()),
+            TestGraphs.edgeCaseGraph(new OffHeapGraph()));
+        for (GraphADT<String, Double> edgeGraph : edgeGraphs) {
+          MappedGraph.write(edgeGraph, file, true, 2);
+          MappedGraph edgeCases = MappedGraph.open(file);
+          Assertions.assertTrue(edgeCases.getNodeCount() == 4 && edgeCases.getEdgeCount() == 3
+              && edgeCases.idOf("E") < 0,
+              "mappedGraphTest() [4.1]: FAILED wrote a removed NODE or its EDGES.");
+          Assertions.assertEquals(3,
+              edgeCases.reachableWithin("A", Double.POSITIVE_INFINITY).getSize(),
+              "mappedGraphTest() [4.2]: FAILED an infinite budget reached an isolated NODE.");
+          Assertions.assertEquals(List.of("A"), edgeCases.shortestPath("A", "A").getNodes(),
+              "mappedGraphTest() [4.3]: FAILED the PATH to START is not just START.");
+          double[] costsTo = edgeCases.costsTo("C");
+          Assertions.assertTrue(costsTo[edgeCases.idOf("A")] == 1.0
+              && costsTo[edgeCases.idOf("D")] == Double.POSITIVE_INFINITY,
+              "mappedGraphTest() [4.4]: FAILED costsTo found the wrong COSTS.");
+        }
+      } finally {
+        java.nio.file.Files.delete(file);
+      }
+    }
+  }
+}
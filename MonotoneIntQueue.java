@@ -0,0 +1,55 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This interface represents a min-priority queue of int ids with non-negative long keys, for
+ * searches that never add a key smaller than the last key they polled, as Dijkstra's algorithm
+ * over whole number weights never does. Such queues can file ids by the bits or the value of their
+ * keys instead of comparing keys. Lowering the key of an id means adding it again, so callers skip
+ * ids they have already settled.
+ */
+public interface MonotoneIntQueue {
+
+  /**
+   * Adds an id with the provided key.
+   *
+   * @param id  the id to add
+   * @param key the key of the id, no smaller than the last key polled
+   * @throws IllegalArgumentException if the queue cannot hold key
+   */
+  public void add(int id, long key);
+
+  /**
+   * Returns the smallest key in this queue.
+   *
+   * @return the smallest key
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public long minKey();
+
+  /**
+   * Removes an id with the smallest key from this queue.
+   *
+   * @return the id that was removed
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public int pollMin();
+
+  /**
+   * Checks whether this queue holds no entries.
+   *
+   * @return true if the queue is empty
+   */
+  public boolean isEmpty();
+
+  /**
+   * Returns the number of entries in this queue, counting every copy of an id.
+   *
+   * @return the number of entries
+   */
+  public int size();
+
+  /**
+   * Removes every entry, and allows keys from 0 again.
+   */
+  public void clear();
+}
@@ -0,0 +1,1108 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * An OffHeapGraph is a mutable graph with String nodes and Double weights that keeps its nodes,
+ * edges and names outside the Java heap, in direct ByteBuffers, so that maps far larger than the
+ * heap can be loaded and searched without the garbage collector ever scanning them. Where a
+ * DijkstraGraph spends a Node object, two ArrayLists and a map entry on each node and an Edge
+ * object, a boxed Double and two list entries on each edge, an OffHeapGraph stores
+ *
+ * - each node as a record of 32 bytes: the first edge leaving it and the first edge entering it,
+ *   the next node in its hash bucket, the length, offset and hash of its name
+ * - each edge as a record of 24 bytes: its predecessor and successor, the next edge leaving the
+ *   same predecessor and the next edge entering the same successor, and its weight
+ * - each name as its UTF-8 bytes, in an append-only byte arena
+ * - the hash table from names to node ids as an array of bucket heads
+ *
+ * Records are addressed by id, and ids of removed nodes and edges are reused, chained through the
+ * records they leave behind. The bytes of a removed node's name are only reclaimed once every node
+ * has been removed, or the graph is cleared as Backend.loadGraphData() does before loading a file,
+ * and every arena is then reused from its start. Searches run over the records directly and keep
+ * their state in this thread's SearchWorkspace, so the only heap that a query needs is the
+ * workspace and the result it returns.
+ *
+ * Off-heap memory is limited by -XX:MaxDirectMemorySize (by default the maximum heap size), not by
+ * -Xmx, and is released when the buffers of a graph become unreachable. Any number of threads may
+ * query an OffHeapGraph at the same time, as long as no thread modifies it meanwhile.
+ */
+public class OffHeapGraph implements GraphADT<String, Double>, IndexedGraph<String> {
+
+  // the byte offsets of the fields of a node record
+  private static final int NODE_BYTES = 32;
+  private static final int FIRST_LEAVING = 0; // the first edge leaving the node, or -1
+  private static final int FIRST_ENTERING = 4; // the first edge entering the node, or -1
+  private static final int NEXT_IN_BUCKET = 8; // the next node in the bucket, or the next free id
+  private static final int NAME_LENGTH = 12; // the length of the name in bytes, -1 when removed
+  private static final int NAME_OFFSET = 16; // where the name starts in the name arena, as a long
+  private static final int NAME_HASH = 24; // the hashCode() of the name
+  // the byte offsets of the fields of an edge record
+  private static final int EDGE_BYTES = 24;
+  private static final int PREDECESSOR = 0; // -1 when the edge was removed
+  private static final int SUCCESSOR = 4;
+  private static final int NEXT_LEAVING = 8; // the next edge leaving the predecessor, or free id
+  private static final int NEXT_ENTERING = 12; // the next edge entering the successor, or -1
+  private static final int WEIGHT = 16; // the weight as a double
+
+  private static final int RECORD_CHUNK_BITS = 16; // records per buffer, as a power of two
+  private static final int NAME_CHUNK_BITS = 20; // bytes per buffer of the name arena
+
+  private final Arena nodeRecords = new Arena(NODE_BYTES, RECORD_CHUNK_BITS);
+  private final Arena edgeRecords = new Arena(EDGE_BYTES, RECORD_CHUNK_BITS);
+  private final Arena names = new Arena(1, NAME_CHUNK_BITS);
+  private Arena buckets; // per bucket, the id + 1 of its first node, or 0 when empty
+  private int bucketMask; // the number of buckets minus one
+
+  private int nodeBound = 0; // one more than the largest node id ever used
+  private int edgeBound = 0; // one more than the largest edge id ever used
+  private int freeNode = -1; // the most recently freed node id, or -1
+  private int freeEdge = -1; // the most recently freed edge id, or -1
+  private int nodeCount = 0;
+  private int edgeCount = 0;
+  private long nameBytes = 0; // the bytes of the name arena used so far
+  private int modifications = 0;
+
+  private QueueStrategy queueStrategy = QueueStrategy.BINARY_HEAP;
+  private final ThreadLocal<SearchWorkspace> workspaces =
+      ThreadLocal.withInitial(() -> new SearchWorkspace(nodeBound, queueStrategy));
+  private final ThreadLocal<SearchWorkspace> reverseWorkspaces =
+      ThreadLocal.withInitial(() -> new SearchWorkspace(nodeBound, queueStrategy));
+
+  /**
+   * Records of a fixed size, stored in direct buffers that each hold a power of two of them, so
+   * that the arena grows by adding buffers without ever copying the records it already holds.
+   * Buffers are allocated on demand and are zeroed by the JVM.
+   */
+  private static class Arena {
+    final int recordBytes;
+    final int chunkBits;
+    final int chunkMask;
+    ByteBuffer[] chunks = new ByteBuffer[0];
+
+    Arena(int recordBytes, int chunkBits) {
+      this.recordBytes = recordBytes;
+      this.chunkBits = chunkBits;
+      this.chunkMask = (1 << chunkBits) - 1;
+    }
+
+    // makes room for the records with ids below count
+    void ensure(long count) {
+      int needed = (int) ((count + chunkMask) >>> chunkBits);
+      if (needed <= chunks.length) {
+        return;
+      }
+      int old = chunks.length;
+      chunks = Arrays.copyOf(chunks, needed);
+      for (int i = old; i < needed; i++) {
+        chunks[i] = ByteBuffer.allocateDirect(recordBytes << chunkBits)
+            .order(ByteOrder.nativeOrder());
+      }
+    }
+
+    int getInt(long record, int field) {
+      return chunks[(int) (record >>> chunkBits)]
+          .getInt((int) (record & chunkMask) * recordBytes + field);
+    }
+
+    void putInt(long record, int field, int value) {
+      chunks[(int) (record >>> chunkBits)]
+          .putInt((int) (record & chunkMask) * recordBytes + field, value);
+    }
+
+    long getLong(long record, int field) {
+      return chunks[(int) (record >>> chunkBits)]
+          .getLong((int) (record & chunkMask) * recordBytes + field);
+    }
+
+    void putLong(long record, int field, long value) {
+      chunks[(int) (record >>> chunkBits)]
+          .putLong((int) (record & chunkMask) * recordBytes + field, value);
+    }
+
+    double getDouble(long record, int field) {
+      return chunks[(int) (record >>> chunkBits)]
+          .getDouble((int) (record & chunkMask) * recordBytes + field);
+    }
+
+    void putDouble(long record, int field, double value) {
+      chunks[(int) (record >>> chunkBits)]
+          .putDouble((int) (record & chunkMask) * recordBytes + field, value);
+    }
+
+    byte getByte(long record) {
+      return chunks[(int) (record >>> chunkBits)].get((int) (record & chunkMask));
+    }
+
+    void putByte(long record, byte value) {
+      chunks[(int) (record >>> chunkBits)].put((int) (record & chunkMask), value);
+    }
+  }
+
+  /**
+   * Creates an empty graph.
+   */
+  public OffHeapGraph() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty graph whose hash table has room for the provided number of nodes before it
+   * needs to grow.
+   *
+   * @param expectedNodes the number of nodes the graph is expected to hold
+   */
+  public OffHeapGraph(int expectedNodes) {
+    int bucketCount = Integer.highestOneBit(Math.max(16, expectedNodes - 1) << 1);
+    buckets = new Arena(4, RECORD_CHUNK_BITS);
+    buckets.ensure(bucketCount);
+    bucketMask = bucketCount - 1;
+  }
+
+  /**
+   * Sets the kind of priority queue that searches use.
+   *
+   * @param queueStrategy the priority queue for searches to use
+   */
+  public void setQueueStrategy(QueueStrategy queueStrategy) {
+    this.queueStrategy = queueStrategy;
+  }
+
+  /**
+   * Returns the kind of priority queue that searches use.
+   *
+   * @return the priority queue that searches use
+   */
+  public QueueStrategy getQueueStrategy() {
+    return queueStrategy;
+  }
+
+  /**
+   * Returns the number of bytes of direct memory that this graph's buffers take up.
+   *
+   * @return the off-heap size of this graph in bytes
+   */
+  public long getOffHeapBytes() {
+    long bytes = 0;
+    for (Arena arena : new Arena[] {nodeRecords, edgeRecords, names, buckets}) {
+      bytes += (long) arena.chunks.length * (arena.recordBytes << arena.chunkBits);
+    }
+    return bytes;
+  }
+
+  // the hash table
+
+  // finds the id of the node named by the UTF-8 bytes key with the provided hash, or -1
+  private int find(byte[] key, int hash) {
+    for (int id = buckets.getInt(hash & bucketMask, 0) - 1; id >= 0;
+        id = nodeRecords.getInt(id, NEXT_IN_BUCKET)) {
+      if (nodeRecords.getInt(id, NAME_HASH) == hash && nameEquals(id, key)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  // checks whether the name of node id consists of the bytes in key
+  private boolean nameEquals(int id, byte[] key) {
+    if (nodeRecords.getInt(id, NAME_LENGTH) != key.length) {
+      return false;
+    }
+    long start = nodeRecords.getLong(id, NAME_OFFSET);
+    for (int i = 0; i < key.length; i++) {
+      if (names.getByte(start + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // puts node id at the head of its bucket
+  private void link(int id) {
+    int bucket = nodeRecords.getInt(id, NAME_HASH) & bucketMask;
+    nodeRecords.putInt(id, NEXT_IN_BUCKET, buckets.getInt(bucket, 0) - 1);
+    buckets.putInt(bucket, 0, id + 1);
+  }
+
+  // takes node id out of its bucket
+  private void unlink(int id) {
+    int bucket = nodeRecords.getInt(id, NAME_HASH) & bucketMask;
+    int next = nodeRecords.getInt(id, NEXT_IN_BUCKET);
+    int current = buckets.getInt(bucket, 0) - 1;
+    if (current == id) {
+      buckets.putInt(bucket, 0, next + 1);
+      return;
+    }
+    while (nodeRecords.getInt(current, NEXT_IN_BUCKET) != id) {
+      current = nodeRecords.getInt(current, NEXT_IN_BUCKET);
+    }
+    nodeRecords.putInt(current, NEXT_IN_BUCKET, next);
+  }
+
+  // doubles the number of buckets, and moves every node into its new bucket
+  private void grow() {
+    rehash((bucketMask + 1) << 1);
+  }
+
+  // replaces the buckets with bucketCount empty buckets, a power of two, and moves every node into
+  // its new bucket
+  private void rehash(int bucketCount) {
+    buckets = new Arena(4, RECORD_CHUNK_BITS);
+    buckets.ensure(bucketCount);
+    bucketMask = bucketCount - 1;
+    for (int id = 0; id < nodeBound; id++) {
+      if (nodeRecords.getInt(id, NAME_LENGTH) >= 0) {
+        link(id);
+      }
+    }
+  }
+
+  // nodes
+
+  /**
+   * Insert a new node into the graph.
+   *
+   * @param data is the data item stored in the new node
+   * @return true if the data is unique and can be inserted into a new node, or false if this data
+   *         is already in the graph
+   * @throws NullPointerException if data is null
+   */
+  @Override
+  public boolean insertNode(String data) {
+    byte[] key = data.getBytes(StandardCharsets.UTF_8); // throws NPE when data is null
+    int hash = data.hashCode();
+    if (find(key, hash) >= 0) {
+      return false;
+    }
+    // reuse the id of a removed node when there is one
+    int id;
+    if (freeNode >= 0) {
+      id = freeNode;
+      freeNode = nodeRecords.getInt(id, NEXT_IN_BUCKET);
+    } else {
+      id = nodeBound++;
+      nodeRecords.ensure(nodeBound);
+    }
+    names.ensure(nameBytes + key.length);
+    for (int i = 0; i < key.length; i++) {
+      names.putByte(nameBytes + i, key[i]);
+    }
+    nodeRecords.putInt(id, FIRST_LEAVING, -1);
+    nodeRecords.putInt(id, FIRST_ENTERING, -1);
+    nodeRecords.putInt(id, NAME_LENGTH, key.length);
+    nodeRecords.putLong(id, NAME_OFFSET, nameBytes);
+    nodeRecords.putInt(id, NAME_HASH, hash);
+    nameBytes += key.length;
+    link(id);
+    if (++nodeCount > bucketMask + 1) {
+      grow();
+    }
+    modifications++;
+    return true;
+  }
+
+  /**
+   * Remove a node from the graph. And also remove all edges adjacent to that node.
+   *
+   * @param data is the data item stored in the node to be removed
+   * @return true if a vertex with data is found and removed, or false if that data value is not
+   *         found in the graph
+   * @throws NullPointerException if data is null
+   */
+  @Override
+  public boolean removeNode(String data) {
+    if (data == null) {
+      throw new NullPointerException("NODE data must not be NULL.");
+    }
+    int id = idOf(data);
+    if (id < 0) {
+      return false;
+    }
+    // remove the edges leaving this node from their successors, then those entering it from their
+    // predecessors, reading each next edge before its record is freed
+    for (int edge = nodeRecords.getInt(id, FIRST_LEAVING); edge >= 0;) {
+      int next = edgeRecords.getInt(edge, NEXT_LEAVING);
+      unlinkEntering(edge);
+      releaseEdge(edge);
+      edge = next;
+    }
+    for (int edge = nodeRecords.getInt(id, FIRST_ENTERING); edge >= 0;) {
+      int next = edgeRecords.getInt(edge, NEXT_ENTERING);
+      unlinkLeaving(edge);
+      releaseEdge(edge);
+      edge = next;
+    }
+    unlink(id);
+    nodeRecords.putInt(id, NAME_LENGTH, -1);
+    nodeRecords.putInt(id, NEXT_IN_BUCKET, freeNode);
+    freeNode = id;
+    if (--nodeCount == 0) {
+      // nothing refers to any record or name any more, so start over at the front of each arena
+      nodeBound = 0;
+      edgeBound = 0;
+      freeNode = -1;
+      freeEdge = -1;
+      nameBytes = 0;
+    }
+    modifications++;
+    return true;
+  }
+
+  /**
+   * Insert a new node for each of the provided data items, growing the node records and the hash
+   * table once for all of them. Data items that are already in the graph are skipped, as they are
+   * by insertNode().
+   *
+   * @param data the data items stored in the new nodes
+   * @return the number of nodes that were inserted
+   * @throws NullPointerException if any of the data items is null
+   */
+  @Override
+  public int insertNodes(List<String> data) {
+    int expected = nodeCount + data.size();
+    // removed ids are reused first, so no id reaches beyond the larger of these
+    nodeRecords.ensure(Math.max(nodeBound, expected));
+    if (expected > bucketMask + 1) {
+      rehash(Integer.highestOneBit(expected - 1) << 1);
+    }
+    int inserted = 0;
+    for (String item : data) {
+      if (insertNode(item)) {
+        inserted++;
+      }
+    }
+    return inserted;
+  }
+
+  /**
+   * Remove every node and edge from the graph. Records are not visited one by one, only the
+   * buckets of the hash table are emptied, and every arena is reused from its start.
+   */
+  @Override
+  public void clear() {
+    for (int bucket = 0; bucket <= bucketMask; bucket++) {
+      buckets.putInt(bucket, 0, 0);
+    }
+    nodeBound = 0;
+    edgeBound = 0;
+    freeNode = -1;
+    freeEdge = -1;
+    nodeCount = 0;
+    edgeCount = 0;
+    nameBytes = 0;
+    modifications++;
+  }
+
+  /**
+   * Check whether the graph contains a node with the provided data.
+   *
+   * @param data the node contents to check for
+   * @return true if data item is stored in a node within the graph, or false otherwise
+   */
+  @Override
+  public boolean containsNode(String data) {
+    return idOf(data) >= 0;
+  }
+
+  /**
+   * Retrieves a list of all node data from this graph, in id order.
+   *
+   * @return list of all node data
+   */
+  @Override
+  public List<String> getAllNodes() {
+    List<String> list = new ArrayList<>(nodeCount);
+    for (int id = 0; id < nodeBound; id++) {
+      if (nodeRecords.getInt(id, NAME_LENGTH) >= 0) {
+        list.add(dataOf(id));
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  // edges
+
+  /**
+   * Insert a new directed edge with non-negative weight into the graph. Or if an edge between
+   * pred and succ already exists, update the data stored in that edge with the new weight.
+   *
+   * @param pred   is the data item contained in the new edge's predecesor node
+   * @param succ   is the data item contained in the new edge's successor node
+   * @param weight is the non-negative data item stored in the new edge
+   * @return true if the edge could be inserted or updated, or false if the pred or succ data are
+   *         not found in any graph nodes or if the weight is negative or not a number
+   */
+  @Override
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    if (from < 0 || to < 0 || !(weight >= 0.0)) {
+      return false;
+    }
+    // when an edge already exists within the graph, update its weight
+    int edge = findEdge(from, to);
+    if (edge < 0) {
+      if (freeEdge >= 0) {
+        edge = freeEdge;
+        freeEdge = edgeRecords.getInt(edge, NEXT_LEAVING);
+      } else {
+        edge = edgeBound++;
+        edgeRecords.ensure(edgeBound);
+      }
+      edgeRecords.putInt(edge, PREDECESSOR, from);
+      edgeRecords.putInt(edge, SUCCESSOR, to);
+      edgeRecords.putInt(edge, NEXT_LEAVING, nodeRecords.getInt(from, FIRST_LEAVING));
+      edgeRecords.putInt(edge, NEXT_ENTERING, nodeRecords.getInt(to, FIRST_ENTERING));
+      nodeRecords.putInt(from, FIRST_LEAVING, edge);
+      nodeRecords.putInt(to, FIRST_ENTERING, edge);
+      edgeCount++;
+    }
+    edgeRecords.putDouble(edge, WEIGHT, weight);
+    modifications++;
+    return true;
+  }
+
+  /**
+   * Insert or update the directed edge from preds.get(i) to succs.get(i) with the weight
+   * weights.get(i) for every index i, as insertEdge() does, after growing the edge records once
+   * for all of them.
+   *
+   * @param preds   the data items contained in the edges' predecessor nodes
+   * @param succs   the data items contained in the edges' successor nodes
+   * @param weights the non-negative data items stored in the edges
+   * @return the number of edges that were inserted or updated
+   * @throws IllegalArgumentException if the three lists differ in size
+   */
+  @Override
+  public int insertEdges(List<String> preds, List<String> succs, List<Double> weights) {
+    if (preds.size() != succs.size() || preds.size() != weights.size()) {
+      throw new IllegalArgumentException("Expected as many successors and weights as"
+          + " predecessors: " + preds.size() + ", " + succs.size() + ", " + weights.size());
+    }
+    edgeRecords.ensure(Math.max(edgeBound, edgeCount + preds.size()));
+    int inserted = 0;
+    for (int i = 0; i < preds.size(); i++) {
+      if (insertEdge(preds.get(i), succs.get(i), weights.get(i))) {
+        inserted++;
+      }
+    }
+    return inserted;
+  }
+
+  /**
+   * Remove an edge from the graph.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return true if the edge could be removed, or false if such an edge is not found in the graph
+   */
+  @Override
+  public boolean removeEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    int edge = from < 0 || to < 0 ? -1 : findEdge(from, to);
+    if (edge < 0) {
+      return false;
+    }
+    unlinkLeaving(edge);
+    unlinkEntering(edge);
+    releaseEdge(edge);
+    modifications++;
+    return true;
+  }
+
+  /**
+   * Check if edge is in the graph.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return true if the edge is found in the graph, or false other
+   */
+  @Override
+  public boolean containsEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    return from >= 0 && to >= 0 && findEdge(from, to) >= 0;
+  }
+
+  /**
+   * Return the data associated with a specific edge.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return the non-negative data from the edge between those nodes
+   * @throws NoSuchElementException if either node or the edge between them are not found within
+   *                                this graph
+   */
+  @Override
+  public Double getEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    int edge = from < 0 || to < 0 ? -1 : findEdge(from, to);
+    if (edge < 0) {
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    }
+    return edgeRecords.getDouble(edge, WEIGHT);
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  @Override
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  // finds the edge from node from to node to, or -1
+  private int findEdge(int from, int to) {
+    for (int edge = nodeRecords.getInt(from, FIRST_LEAVING); edge >= 0;
+        edge = edgeRecords.getInt(edge, NEXT_LEAVING)) {
+      if (edgeRecords.getInt(edge, SUCCESSOR) == to) {
+        return edge;
+      }
+    }
+    return -1;
+  }
+
+  // takes edge out of the list of edges leaving its predecessor
+  private void unlinkLeaving(int edge) {
+    int from = edgeRecords.getInt(edge, PREDECESSOR);
+    int next = edgeRecords.getInt(edge, NEXT_LEAVING);
+    int current = nodeRecords.getInt(from, FIRST_LEAVING);
+    if (current == edge) {
+      nodeRecords.putInt(from, FIRST_LEAVING, next);
+      return;
+    }
+    while (edgeRecords.getInt(current, NEXT_LEAVING) != edge) {
+      current = edgeRecords.getInt(current, NEXT_LEAVING);
+    }
+    edgeRecords.putInt(current, NEXT_LEAVING, next);
+  }
+
+  // takes edge out of the list of edges entering its successor
+  private void unlinkEntering(int edge) {
+    int to = edgeRecords.getInt(edge, SUCCESSOR);
+    int next = edgeRecords.getInt(edge, NEXT_ENTERING);
+    int current = nodeRecords.getInt(to, FIRST_ENTERING);
+    if (current == edge) {
+      nodeRecords.putInt(to, FIRST_ENTERING, next);
+      return;
+    }
+    while (edgeRecords.getInt(current, NEXT_ENTERING) != edge) {
+      current = edgeRecords.getInt(current, NEXT_ENTERING);
+    }
+    edgeRecords.putInt(current, NEXT_ENTERING, next);
+  }
+
+  // makes the id of an unlinked edge available for reuse
+  private void releaseEdge(int edge) {
+    edgeRecords.putInt(edge, PREDECESSOR, -1);
+    edgeRecords.putInt(edge, NEXT_LEAVING, freeEdge);
+    freeEdge = edge;
+    edgeCount--;
+  }
+
+  // IndexedGraph
+
+  @Override
+  public int getNodeIdBound() {
+    return nodeBound;
+  }
+
+  @Override
+  public int getEdgeIdBound() {
+    return edgeBound;
+  }
+
+  @Override
+  public int getModificationCount() {
+    return modifications;
+  }
+
+  @Override
+  public int idOf(String data) {
+    if (data == null) {
+      return -1;
+    }
+    return find(data.getBytes(StandardCharsets.UTF_8), data.hashCode());
+  }
+
+  @Override
+  public String dataOf(int id) {
+    long start = nodeRecords.getLong(id, NAME_OFFSET);
+    byte[] bytes = new byte[nodeRecords.getInt(id, NAME_LENGTH)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = names.getByte(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int successorOf(int edge) {
+    return edgeRecords.getInt(edge, SUCCESSOR);
+  }
+
+  @Override
+  public double weightOf(int edge) {
+    return edgeRecords.getDouble(edge, WEIGHT);
+  }
+
+  @Override
+  public void forEachEdgeLeaving(int node, EdgeVisitor visitor) {
+    for (int edge = nodeRecords.getInt(node, FIRST_LEAVING); edge >= 0;
+        edge = edgeRecords.getInt(edge, NEXT_LEAVING)) {
+      visitor.visit(edge, edgeRecords.getInt(edge, SUCCESSOR),
+          edgeRecords.getDouble(edge, WEIGHT));
+    }
+  }
+
+  @Override
+  public void forEachEdgeEntering(int node, EdgeVisitor visitor) {
+    for (int edge = nodeRecords.getInt(node, FIRST_ENTERING); edge >= 0;
+        edge = edgeRecords.getInt(edge, NEXT_ENTERING)) {
+      visitor.visit(edge, edgeRecords.getInt(edge, PREDECESSOR),
+          edgeRecords.getDouble(edge, WEIGHT));
+    }
+  }
+
+  // searches
+
+  // looks up the ids of start and end, throwing like DijkstraGraph when either is missing
+  private int[] requireNodes(String start, String end) {
+    if (start == null || end == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    int source = idOf(start);
+    int target = idOf(end);
+    if (source < 0 || target < 0) {
+      throw new NoSuchElementException("Either START or END data does not exist in the graph.");
+    }
+    return new int[] {source, target};
+  }
+
+  // looks up the id of start, throwing when it is not in the graph
+  private int requireStart(String start) {
+    int source = idOf(start);
+    if (source < 0) {
+      throw new NoSuchElementException("START data does not exist in the graph.");
+    }
+    return source;
+  }
+
+  // relaxes every edge leaving node id of a search in workspace, up to the cost limit
+  private void relaxLeaving(SearchWorkspace workspace, int id, double limit) {
+    double cost = workspace.dist(id);
+    for (int edge = nodeRecords.getInt(id, FIRST_LEAVING); edge >= 0;
+        edge = edgeRecords.getInt(edge, NEXT_LEAVING)) {
+      double newCost = cost + edgeRecords.getDouble(edge, WEIGHT);
+      if (newCost <= limit) {
+        workspace.relax(edgeRecords.getInt(edge, SUCCESSOR), newCost, id, edge);
+      }
+    }
+  }
+
+  /**
+   * Runs a search from source in this thread's workspace until target is settled.
+   *
+   * @throws NoSuchElementException when no path from source to target is found
+   */
+  private SearchWorkspace search(int source, int target) {
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeBound, queueStrategy);
+    workspace.start(source);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      if (id == target) {
+        return workspace;
+      }
+      relaxLeaving(workspace, id, Double.POSITIVE_INFINITY);
+    }
+    throw new NoSuchElementException("No path from START to END was found.");
+  }
+
+  /**
+   * Runs a search from source in this thread's workspace until every one of the targets has been
+   * settled, or every node that source can reach has been, and returns the workspace.
+   */
+  private SearchWorkspace searchToAll(int source, int[] targets) {
+    int[] sortedTargets = targets.clone();
+    Arrays.sort(sortedTargets);
+    int remaining = 0;
+    for (int i = 0; i < sortedTargets.length; i++) {
+      if (i == 0 || sortedTargets[i] != sortedTargets[i - 1]) {
+        remaining++;
+      }
+    }
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeBound, queueStrategy);
+    workspace.start(source);
+    int id;
+    while (remaining > 0 && (id = workspace.settleNext()) >= 0) {
+      if (Arrays.binarySearch(sortedTargets, id) >= 0) {
+        remaining--;
+      }
+      relaxLeaving(workspace, id, Double.POSITIVE_INFINITY);
+    }
+    return workspace;
+  }
+
+  // reads the path to target off the parent edges of a finished search from source
+  private PathResult<String> pathTo(SearchWorkspace workspace, int source, int target) {
+    int length = 0;
+    for (int id = target; id != source; id = workspace.parent(id)) {
+      length++;
+    }
+    int[] edges = new int[length];
+    for (int i = length - 1, id = target; i >= 0; i--, id = workspace.parent(id)) {
+      edges[i] = workspace.parentEdge(id);
+    }
+    List<String> path = new ArrayList<>(length + 1);
+    double[] legCosts = new double[length];
+    path.add(dataOf(source));
+    for (int i = 0; i < length; i++) {
+      path.add(dataOf(edgeRecords.getInt(edges[i], SUCCESSOR)));
+      legCosts[i] = edgeRecords.getDouble(edges[i], WEIGHT);
+    }
+    return new PathResult<>(path, legCosts);
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  @Override
+  public List<String> shortestPathData(String start, String end) {
+    return new ArrayList<>(shortestPath(start, end).getNodes());
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to the node
+   * containing the end data.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  @Override
+  public double shortestPathCost(String start, String end) {
+    int[] ids = requireNodes(start, end);
+    return search(ids[0], ids[1]).dist(ids[1]);
+  }
+
+  /**
+   * Returns the node data, the cost of each edge, and the cumulative costs along the shortest path
+   * from the node with the provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  @Override
+  public PathResult<String> shortestPath(String start, String end) {
+    int[] ids = requireNodes(start, end);
+    return pathTo(search(ids[0], ids[1]), ids[0], ids[1]);
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to every node
+   * that can be reached from it at a cost of budget or less, including the start node itself.
+   *
+   * @param start  the data item in the starting node for the paths
+   * @param budget the maximum path cost for a node to be included
+   * @return map from the data in each reachable node to its shortest path cost
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  @Override
+  public MapADT<String, Double> reachableWithin(String start, double budget) {
+    int source = requireStart(start);
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeBound, queueStrategy);
+    workspace.start(source);
+    OpenAddressingMap<String, Double> reached = new OpenAddressingMap<>();
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      if (workspace.dist(id) > budget) {
+        break;
+      }
+      reached.put(dataOf(id), workspace.dist(id));
+      relaxLeaving(workspace, id, budget);
+    }
+    return reached;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to each of the
+   * nodes containing the end data, in the order of ends, from a single search.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends  the data items in the destination nodes for the paths
+   * @return the cost of the shortest path to each end, or Double.POSITIVE_INFINITY for ends that
+   *         cannot be reached
+   * @throws NoSuchElementException when start or any of ends does not correspond to a graph node
+   */
+  @Override
+  public double[] shortestPathCosts(String start, List<String> ends) {
+    int source = requireStart(start);
+    int[] endIds = requireEnds(ends);
+    SearchWorkspace workspace = searchToAll(source, endIds);
+    double[] costs = new double[endIds.length];
+    for (int i = 0; i < endIds.length; i++) {
+      costs[i] = workspace.isSettled(endIds[i]) ? workspace.dist(endIds[i])
+          : Double.POSITIVE_INFINITY;
+    }
+    return costs;
+  }
+
+  /**
+   * Returns the shortest paths from the node containing the start data to each of the nodes
+   * containing the end data, in the order of ends, from a single search.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param ends  the data items in the destination nodes for the paths
+   * @return the shortest path to each end, or an empty result for ends that cannot be reached
+   * @throws NoSuchElementException when start or any of ends does not correspond to a graph node
+   */
+  @Override
+  public List<PathResult<String>> shortestPaths(String start, List<String> ends) {
+    int source = requireStart(start);
+    int[] endIds = requireEnds(ends);
+    SearchWorkspace workspace = searchToAll(source, endIds);
+    List<PathResult<String>> paths = new ArrayList<>(endIds.length);
+    for (int target : endIds) {
+      paths.add(workspace.isSettled(target) ? pathTo(workspace, source, target)
+          : PathResult.empty());
+    }
+    return paths;
+  }
+
+  // looks up the ids of ends, throwing when any of them is not in the graph
+  private int[] requireEnds(List<String> ends) {
+    int[] endIds = new int[ends.size()];
+    for (int i = 0; i < endIds.length; i++) {
+      endIds[i] = idOf(ends.get(i));
+      if (endIds[i] < 0) {
+        throw new NoSuchElementException("END data does not exist in the graph.");
+      }
+    }
+    return endIds;
+  }
+
+  /**
+   * Returns the tree of shortest paths from the node containing the start data to every node it
+   * can reach, computed by one full Dijkstra search. Unlike DijkstraGraph, this graph keeps no
+   * cache of trees, since a tree's arrays live on the heap.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree from start
+   * @throws NoSuchElementException when start does not correspond to a graph node
+   */
+  @Override
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    if (start == null) {
+      throw new NullPointerException("START data must not be NULL.");
+    }
+    int source = requireStart(start);
+    SearchWorkspace workspace = workspaces.get();
+    workspace.reset(nodeBound, queueStrategy);
+    workspace.start(source);
+    int id;
+    while ((id = workspace.settleNext()) >= 0) {
+      relaxLeaving(workspace, id, Double.POSITIVE_INFINITY);
+    }
+
+    // copy the settled part of the workspace out into arrays that the tree can keep
+    double[] dist = new double[nodeBound];
+    int[] parent = new int[nodeBound];
+    double[] legs = new double[nodeBound];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, -1);
+    for (int i = 0; i < workspace.settledCount(); i++) {
+      int v = workspace.settledAt(i);
+      dist[v] = workspace.dist(v);
+      if (v != source) {
+        parent[v] = workspace.parent(v);
+        legs[v] = edgeRecords.getDouble(workspace.parentEdge(v), WEIGHT);
+      }
+    }
+    return new ShortestPathTree<>(this, source, dist, parent, legs, workspace.settledCount());
+  }
+
+  /**
+   * Returns up to k of the cheapest loopless paths from the node containing the start data to the
+   * node containing the end data, cheapest first, see KShortestPaths.
+   *
+   * @param start the data item in the starting node for the paths
+   * @param end   the data item in the destination node for the paths
+   * @param k     the largest number of paths to return
+   * @return the paths, fewer than k when there are no more loopless paths, and none when no path
+   *         from start to end exists
+   * @throws IllegalArgumentException when k is not positive
+   * @throws NoSuchElementException   when either start or end data do not correspond to a graph
+   *                                  node
+   */
+  @Override
+  public List<PathResult<String>> kShortestPaths(String start, String end, int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("K must be positive: " + k);
+    }
+    int[] ids = requireNodes(start, end);
+    return new KShortestPaths<>(this, workspaces.get(), reverseWorkspaces.get(), queueStrategy,
+        ids[0], ids[1]).find(k);
+  }
+
+  /**
+   * offHeapGraphTest: Checks that an OffHeapGraph holds the same nodes and edges as a DijkstraGraph
+   * that receives the same changes, including removed nodes and edges whose ids are reused and
+   * updated weights, and finds paths of the same costs, shortest path trees and k shortest paths.
+   */
+  @Test
+  public void offHeapGraphTest() {
+    java.util.Random random = new java.util.Random(1400);
+    DijkstraGraph<String, Double> graphTester = new DijkstraGraph<>();
+    OffHeapGraph offHeap = new OffHeapGraph(4);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      names.add((i % 2 == 0 ? "Stra\u00dfe " : "Hall ") + i);
+      Assertions.assertTrue(
+          graphTester.insertNode(names.get(i)) && offHeap.insertNode(names.get(i)),
+          "offHeapGraphTest() [1.1]: FAILED did not insert a NODE.");
+    }
+    Assertions.assertFalse(offHeap.insertNode(names.get(7)),
+        "offHeapGraphTest() [1.2]: FAILED inserted a NODE twice.");
+    Assertions.assertFalse(offHeap.insertEdge(names.get(1), names.get(2), -1.0),
+        "offHeapGraphTest() [1.3]: FAILED inserted an EDGE with a negative weight.");
+    Assertions.assertThrows(NullPointerException.class, () -> offHeap.insertNode(null),
+        "offHeapGraphTest() [1.4]: FAILED inserted a NULL node.");
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 200; i++) {
+        String pred = names.get(random.nextInt(names.size()));
+        String succ = names.get(random.nextInt(names.size()));
+        double weight = random.nextInt(20);
+        graphTester.insertEdge(pred, succ, weight);
+        offHeap.insertEdge(pred, succ, weight);
+      }
+      for (int i = 0; i < 30; i++) {
+        String pred = names.get(random.nextInt(names.size()));
+        String succ = names.get(random.nextInt(names.size()));
+        Assertions.assertEquals(graphTester.removeEdge(pred, succ), offHeap.removeEdge(pred, succ),
+            "offHeapGraphTest() [2.1]: FAILED removed a different EDGE.");
+      }
+      for (int i = 0; i < 5; i++) {
+        String name = names.remove(random.nextInt(names.size()));
+        graphTester.removeNode(name);
+        Assertions.assertTrue(offHeap.removeNode(name) && !offHeap.containsNode(name),
+            "offHeapGraphTest() [2.2]: FAILED did not remove a NODE.");
+        names.add("New " + round + "." + i);
+        graphTester.insertNode(names.get(names.size() - 1));
+        offHeap.insertNode(names.get(names.size() - 1));
+      }
+
+      Assertions.assertTrue(graphTester.getNodeCount() == offHeap.getNodeCount()
+          && new java.util.HashSet<>(graphTester.getAllNodes()).equals(
+              new java.util.HashSet<>(offHeap.getAllNodes())),
+          "offHeapGraphTest() [3.1]: FAILED holds different NODES.");
+      int edges = 0;
+      for (String pred : names) {
+        for (String succ : names) {
+          if (graphTester.containsEdge(pred, succ)) {
+            edges++;
+            Assertions.assertEquals(graphTester.getEdge(pred, succ), offHeap.getEdge(pred, succ),
+                "offHeapGraphTest() [3.2]: FAILED holds a different EDGE.");
+          } else {
+            Assertions.assertFalse(offHeap.containsEdge(pred, succ),
+                "offHeapGraphTest() [3.3]: FAILED holds an EDGE that was removed.");
+          }
+        }
+      }
+      Assertions.assertEquals(edges, offHeap.getEdgeCount(),
+          "offHeapGraphTest() [3.4]: FAILED counted the EDGES wrong.");
+      Assertions.assertTrue(offHeap.getNodeIdBound() <= 60 + round * 5,
+          "offHeapGraphTest() [3.5]: FAILED did not reuse the ids of removed NODES.");
+
+      for (int i = 0; i < 10; i++) {
+        String start = names.get(random.nextInt(names.size()));
+        ShortestPathTree<String> tree = offHeap.shortestPathTree(start);
+        for (String end : names) {
+          double expected =
+              TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(start, end));
+          Assertions.assertEquals(expected,
+              TestGraphs.costOrInfinity(() -> offHeap.shortestPathCost(start, end)),
+              "offHeapGraphTest() [4.1]: FAILED found a different COST.");
+          Assertions.assertEquals(expected, tree.isReachable(end) ? tree.costTo(end)
+              : Double.POSITIVE_INFINITY,
+              "offHeapGraphTest() [4.2]: FAILED built a different TREE.");
+          if (expected < Double.POSITIVE_INFINITY) {
+            Assertions.assertEquals(expected, offHeap.shortestPath(start, end).getTotalCost(),
+                "offHeapGraphTest() [4.3]: FAILED found a PATH of a different cost.");
+          }
+        }
+        String end = names.get(random.nextInt(names.size()));
+        List<PathResult<String>> expected = graphTester.kShortestPaths(start, end, 5);
+        List<PathResult<String>> actual = offHeap.kShortestPaths(start, end, 5);
+        Assertions.assertEquals(expected.size(), actual.size(),
+            "offHeapGraphTest() [4.4]: FAILED found a different number of PATHS.");
+        for (int j = 0; j < expected.size(); j++) {
+          Assertions.assertEquals(expected.get(j).getTotalCost(), actual.get(j).getTotalCost(),
+              "offHeapGraphTest() [4.5]: FAILED found k PATHS of different costs.");
+        }
+      }
+    }
+    ShortestPathTree<String> tree = offHeap.shortestPathTree(names.get(0));
+    offHeap.insertEdge(names.get(0), names.get(1), 1.0);
+    Assertions.assertFalse(tree.isCurrent(),
+        "offHeapGraphTest() [5.1]: FAILED kept a TREE current after a change.");
+    Assertions.assertThrows(NoSuchElementException.class,
+        () -> offHeap.shortestPath(names.get(0), "nowhere"),
+        "offHeapGraphTest() [5.2]: FAILED found a path to a missing NODE.");
+    for (String name : names) {
+      offHeap.removeNode(name);
+    }
+    Assertions.assertTrue(offHeap.getNodeCount() == 0 && offHeap.getEdgeCount() == 0
+        && offHeap.getNodeIdBound() == 0 && offHeap.insertNode(names.get(3))
+        && offHeap.getAllNodes().equals(List.of(names.get(3))),
+        "offHeapGraphTest() [5.3]: FAILED did not start over once every NODE was removed.");
+
+    OffHeapGraph edgeCases = TestGraphs.edgeCaseGraph(new OffHeapGraph());
+    Assertions.assertTrue(edgeCases.getEdgeCount() == 3 && edgeCases.containsEdge("A", "A")
+        && !edgeCases.containsNode("E"),
+        "offHeapGraphTest() [6.1]: FAILED kept the EDGES of a removed node.");
+    Assertions.assertEquals(3,
+        edgeCases.reachableWithin("A", Double.POSITIVE_INFINITY).getSize(),
+        "offHeapGraphTest() [6.2]: FAILED an infinite budget reached an isolated NODE.");
+    Assertions.assertArrayEquals(new double[] {1.0, Double.POSITIVE_INFINITY, 0.0},
+        edgeCases.shortestPathCosts("A", List.of("C", "D", "A")),
+        "offHeapGraphTest() [6.3]: FAILED found the wrong COSTS.");
+    Assertions.assertEquals(List.of("A"), edgeCases.shortestPath("A", "A").getNodes(),
+        "offHeapGraphTest() [6.4]: FAILED the PATH to START is not just START.");
+    Assertions.assertTrue(edgeCases.insertNode("F") && edgeCases.getNodeIdBound() == 5,
+        "offHeapGraphTest() [6.5]: FAILED did not reuse the freed id of a removed NODE.");
+  }
+}
@@ -0,0 +1,393 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * This MapADT implementation stores its keys and values directly in parallel arrays using open
+ * addressing with linear probing, rather than in chains of linked list nodes. The (spread) hash
+ * code of each key is cached alongside it, so probing only calls equals() on keys whose hash
+ * matches, and resizing never calls hashCode() again. Each get, put, and remove makes a single
+ * pass over the probe sequence, and removal shifts later entries back instead of leaving
+ * tombstones behind.
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // instance fields
+  protected Object[] keys; // keys[i] == null marks an empty slot
+  protected Object[] values; // value stored with keys[i]
+  protected int[] hashes; // cached spread hash of keys[i]
+  private int size; // stores number of elements in the table
+  private int mask; // capacity - 1, capacity is always a power of two
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final double LOAD_FACTOR_THRESHOLD = 0.75;
+
+  /**
+   * Constructs a new map whose capacity is the smallest power of two that is at least the
+   * requested capacity.
+   *
+   * @param capacity the initial capacity of the map
+   * @throws IllegalArgumentException if the capacity is less than or equal to 0
+   */
+  public OpenAddressingMap(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be greater than 0.");
+    }
+    allocate(Math.max(2, Integer.highestOneBit(capacity - 1) << 1));
+  }
+
+  /**
+   * Constructs a new map with the default capacity.
+   */
+  public OpenAddressingMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Adds a new key,value pair/mapping to this collection.
+   *
+   * @param key   the key of the key,value pair
+   * @param value the value that key maps to
+   * @throws IllegalArgumentException if key already maps to a value
+   * @throws NullPointerException     if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    // check for NULL key
+    if (key == null) {
+      throw new NullPointerException("Adding NULL key is not allowed.");
+    }
+
+    // probe until either the key or an empty slot is found
+    int hash = spread(key.hashCode());
+    int index = hash & mask;
+    while (keys[index] != null) {
+      if (hashes[index] == hash && keys[index].equals(key)) {
+        throw new IllegalArgumentException("Adding duplicate KEY is not allowed.");
+      }
+      index = (index + 1) & mask;
+    }
+
+    // adding new KEY-VALUE pair in the empty slot
+    keys[index] = key;
+    values[index] = value;
+    hashes[index] = hash;
+    size++;
+
+    // check load factor
+    if (size >= LOAD_FACTOR_THRESHOLD * keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  /**
+   * Checks whether a key maps to a value in this collection.
+   *
+   * @param key the key to check
+   * @return true if the key maps to a value, and false is the key doesn't map to a value
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return key != null && indexOf(key) >= 0;
+  }
+
+  /**
+   * Retrieves the specific value that a key maps to.
+   *
+   * @param key the key to look up
+   * @return the value that key maps to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    // check for NULL key
+    if (key == null) {
+      throw new NullPointerException("NULL key is not allowed.");
+    }
+
+    int index = indexOf(key);
+    if (index < 0) {
+      throw new NoSuchElementException("No such KEY found.");
+    }
+    return (ValueType) values[index];
+  }
+
+  /**
+   * Remove the mapping for a key from this collection.
+   *
+   * @param key the key whose mapping to remove
+   * @return the value that the removed key mapped to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    // check for NULL key
+    if (key == null) {
+      throw new NullPointerException("NULL key is not allowed.");
+    }
+
+    int index = indexOf(key);
+    if (index < 0) {
+      throw new NoSuchElementException("No such KEY was found to remove.");
+    }
+    ValueType removed = (ValueType) values[index];
+
+    // shift later entries of the same probe run back into the gap, so that lookups never stop
+    // early at an empty slot that used to hold a key they had probed past
+    int gap = index;
+    int next = (gap + 1) & mask;
+    while (keys[next] != null) {
+      int home = hashes[next] & mask;
+      // the entry at next may move into the gap only if its home slot is not in (gap, next]
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        hashes[gap] = hashes[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = null;
+    values[gap] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes all key,value pairs from this collection.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    this.size = 0;
+  }
+
+  /**
+   * Retrieves the number of keys stored in this collection.
+   *
+   * @return the number of keys stored in this collection
+   */
+  @Override
+  public int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Retrieves this collection's capacity.
+   *
+   * @return the size of the underlying arrays for this collection
+   */
+  @Override
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /**
+   * Grows this collection's capacity, when needed, so that it can hold size keys without being
+   * resized again, by resizing it at most once.
+   *
+   * @param size the number of keys this collection is expected to hold
+   */
+  @Override
+  public void ensureCapacity(int size) {
+    int capacity = keys.length;
+    while (size >= LOAD_FACTOR_THRESHOLD * capacity) {
+      capacity *= 2;
+    }
+    if (capacity > keys.length) {
+      resize(capacity);
+    }
+  }
+
+  /**
+   * Retrieves this collection's keys.
+   *
+   * @return a list of keys in the underlying array for this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<KeyType> getKeys() {
+    List<KeyType> list = new ArrayList<>(size);
+    for (Object key : keys) {
+      if (key != null) {
+        list.add((KeyType) key);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Helper method that finds the slot holding a key in a single pass over its probe sequence.
+   *
+   * @param key the non-null key to search for
+   * @return the index of the slot holding key, or -1 when key is not stored in this collection
+   */
+  private int indexOf(Object key) {
+    int hash = spread(key.hashCode());
+    int index = hash & mask;
+    while (keys[index] != null) {
+      if (hashes[index] == hash && keys[index].equals(key)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Helper method that mixes the bits of a hash code, so that keys with similar hash codes (like
+   * consecutive Integers) do not end up in one long probe run.
+   *
+   * @param hashCode the key's hash code
+   * @return the spread hash code
+   */
+  private static int spread(int hashCode) {
+    int h = hashCode * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  // replaces the arrays with empty arrays of the provided power of two capacity
+  private void allocate(int capacity) {
+    this.keys = new Object[capacity];
+    this.values = new Object[capacity];
+    this.hashes = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Helper method that moves every entry into arrays of the new capacity. Each entry's cached hash
+   * gives its new slot directly, so keys are neither rehashed nor compared during a resize.
+   *
+   * @param newCapacity the new capacity, a power of two
+   */
+  private void resize(int newCapacity) {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    int[] oldHashes = hashes;
+    allocate(newCapacity);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int index = oldHashes[i] & mask;
+        while (keys[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+        hashes[index] = oldHashes[i];
+      }
+    }
+  }
+
+  ////////////////////////// JUNIT TESTS ///////////////////////////////////
+
+  /**
+   * OpenAddressingMapTest01: Validates put(), containsKey() and get() for valid and invalid inputs.
+   *
+   * Expected: For valid inputs, every key added with put() is found by containsKey() and get()
+   * returns its value. Null and duplicate keys are rejected with the appropriate exceptions, and
+   * get() on a missing key throws NoSuchElementException.
+   */
+  @Test
+  void OpenAddressingMapTest01() {
+    // create map for tests
+    OpenAddressingMap<String, Integer> testMap = new OpenAddressingMap<>();
+
+    // Test 01: calling put(), containsKey() and get() with VALID input
+    for (int i = 1; i <= 5; i++) {
+      testMap.put("key" + i, i * 10);
+    }
+    Assertions.assertTrue(testMap.getSize() == 5 && testMap.containsKey("key1")
+        && testMap.containsKey("key5") && testMap.get("key3").equals(30),
+        "OpenAddressingMapTest01() [1.1]: FAILED did not store the expected KEYS and VALUES.");
+
+    // Test 02: calling put(), containsKey() and get() with INVALID input
+    Assertions.assertThrows(NullPointerException.class, () -> testMap.put(null, 10),
+        "OpenAddressingMapTest01() [2.1]: FAILED put() did not throw EXPECTED exception for NULL input.");
+    Assertions.assertThrows(IllegalArgumentException.class, () -> testMap.put("key1", 10),
+        "OpenAddressingMapTest01() [2.2]: FAILED put() did not throw EXPECTED exception for DUPLICATE input.");
+    Assertions.assertFalse(testMap.containsKey(null) || testMap.containsKey("key7"),
+        "OpenAddressingMapTest01() [2.3]: FAILED containsKey() found a key that is not stored.");
+    Assertions.assertThrows(NoSuchElementException.class, () -> testMap.get("key8"),
+        "OpenAddressingMapTest01() [2.4]: FAILED get() did not throw EXPECTED exception for non-existing keys.");
+  }
+
+  /**
+   * OpenAddressingMapTest02: Validates that remove() keeps every other key reachable, even when
+   * the removed key sat in the middle of a probe run that other keys had to probe past.
+   *
+   * Expected: After removing every third key from a densely filled map, each remaining key can
+   * still be found with its original value, and each removed key is gone.
+   */
+  @Test
+  void OpenAddressingMapTest02() {
+    // create map for tests, small enough that many keys share probe runs
+    OpenAddressingMap<Integer, String> testMap = new OpenAddressingMap<>(2);
+    for (int i = 0; i < 1000; i++) {
+      testMap.put(i, "value" + i);
+    }
+
+    // Test 01: calling remove() with VALID inputs
+    for (int i = 0; i < 1000; i += 3) {
+      Assertions.assertEquals("value" + i, testMap.remove(i),
+          "OpenAddressingMapTest02() [1.1]: FAILED remove() did not return the expected value.");
+    }
+    for (int i = 0; i < 1000; i++) {
+      if (i % 3 == 0) {
+        Assertions.assertFalse(testMap.containsKey(i),
+            "OpenAddressingMapTest02() [1.2]: FAILED removed key " + i + " is still present.");
+      } else {
+        Assertions.assertEquals("value" + i, testMap.get(i),
+            "OpenAddressingMapTest02() [1.3]: FAILED key " + i + " was lost by remove().");
+      }
+    }
+    Assertions.assertEquals(666, testMap.getSize(),
+        "OpenAddressingMapTest02() [1.4]: FAILED remove() did not update the size.");
+
+    // Test 02: calling remove() with INVALID input
+    Assertions.assertThrows(NoSuchElementException.class, () -> testMap.remove(0),
+        "OpenAddressingMapTest02() [2.1]: FAILED remove() did not throw EXPECTED exception for non-existing keys.");
+    Assertions.assertThrows(NullPointerException.class, () -> testMap.remove(null),
+        "OpenAddressingMapTest02() [2.2]: FAILED remove() did not throw EXPECTED exception for NULL keys.");
+  }
+
+  /**
+   * OpenAddressingMapTest03: Validates resizing and clear().
+   *
+   * Expected: The capacity doubles whenever the load factor threshold is reached, every key stays
+   * accessible across resizes, and clear() removes all keys while keeping the capacity.
+   */
+  @Test
+  void OpenAddressingMapTest03() {
+    // create map for tests
+    OpenAddressingMap<Integer, String> testMap = new OpenAddressingMap<>(4);
+
+    // Test 01: the fourth key of a four slot map would leave no empty slot, so it resizes first
+    testMap.put(1, "key1");
+    testMap.put(2, "key2");
+    Assertions.assertEquals(4, testMap.getCapacity(),
+        "OpenAddressingMapTest03() [1.1]: FAILED resized before reaching the load factor.");
+    testMap.put(3, "key3");
+    Assertions.assertEquals(8, testMap.getCapacity(),
+        "OpenAddressingMapTest03() [1.2]: FAILED did not resize as expected.");
+
+    // Test 02: many resizes keep every key
+    for (int i = 4; i <= 100; i++) {
+      testMap.put(i, "key" + i);
+    }
+    Assertions.assertTrue(testMap.getCapacity() == 256 && testMap.getSize() == 100
+        && testMap.getKeys().size() == 100 && testMap.get(77).equals("key77"),
+        "OpenAddressingMapTest03() [2.1]: FAILED lost keys while resizing.");
+
+    // Test 03: clear() removes all keys but keeps the capacity
+    testMap.clear();
+    Assertions.assertTrue(testMap.getSize() == 0 && testMap.getCapacity() == 256
+        && !testMap.containsKey(77),
+        "OpenAddressingMapTest03() [3.1]: FAILED clear() did not remove all the elements.");
+  }
+}
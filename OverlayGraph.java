@@ -0,0 +1,751 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * An OverlayGraph answers shortest path queries on a DijkstraGraph whose edge weights change over
+ * time, using customizable route planning (CRP). Its work is split in three phases:
+ *
+ * - Preprocessing, done once by build(), only looks at the structure of the graph. It partitions
+ *   the nodes into cells of at most cellSizes[0] nodes, groups those cells into cells of at most
+ *   cellSizes[1] nodes, and so on, so that every level's cells are unions of the cells of the level
+ *   below. A node is an entry of a cell when an edge from outside the cell enters it, and an exit
+ *   when an edge leaves the cell from it.
+ *
+ * - Customization computes, for every cell, the cost of the shortest path inside the cell from
+ *   each of its entries to each of its exits. Cells of the lowest level search the graph's own
+ *   edges, and cells of higher levels search the entry to exit costs of their sub cells, so each
+ *   cell is cheap to customize. After weights change with insertEdge, edgeUpdated() marks the
+ *   cells that contain the changed edges, and customize() only customizes those cells again, along
+ *   with the cells above them whose costs may have changed as a result.
+ *
+ * - A query runs Dijkstra's algorithm from the start, but only follows the graph's own edges in
+ *   the lowest level cells of the start and the end. Elsewhere it jumps straight from the entries
+ *   to the exits of the largest cell that contains neither the start nor the end, so it settles
+ *   few nodes. Paths are unpacked back into the graph's own edges by searching inside each cell
+ *   that a jump crossed.
+ *
+ * Queries see the weights as they were at the last customization, never a mix of old and new
+ * ones: customization builds a new set of costs on the side and swaps it in when it is complete.
+ * Adding or removing nodes or edges changes the structure of the graph, and needs a new
+ * OverlayGraph. Any number of threads can run queries on one OverlayGraph, while customization is
+ * serialized.
+ */
+public class OverlayGraph<NodeType> {
+
+  /**
+   * The edge weights and the entry to exit costs of every cell, as of one customization. A Metric
+   * is never modified once it is installed, so a query can keep using the one it started with.
+   */
+  private static final class Metric {
+    final double[] weights; // weights[e] is the weight of edge e
+    final double[][][] cliques; // cliques[level][cell][i * exits + j], from entry i to exit j
+
+    Metric(double[] weights, double[][][] cliques) {
+      this.weights = weights;
+      this.cliques = cliques;
+    }
+  }
+
+  protected final DijkstraGraph<NodeType, ?> graph; // the graph whose weights are customized
+  protected final int levels; // the number of levels of cells
+
+  // the edges of the graph at preprocessing time, in CSR form indexed by node id
+  protected final int[] offsets; // edges of node u are at indices offsets[u] .. offsets[u+1]-1
+  protected final int[] targets; // successor id of each edge
+  protected final int[] edgeIds; // the id of each edge in the graph, to read its weight from
+
+  protected final int[][] cell; // cell[level][v] is the cell of node v, or -1 for unused ids
+  protected final int[][] parentCell; // parentCell[level][c] is the cell one level up holding c
+  protected final int[][][] entries; // entries[level][c] are the ids of the entries of cell c
+  protected final int[][][] exits; // exits[level][c] are the ids of the exits of cell c
+  protected final int[][] entryIndex; // entryIndex[level][v] is v's index in its cell's entries
+
+  private volatile Metric metric; // the costs that queries use
+  private final boolean[] pending; // edges marked by edgeUpdated since the last customization
+  private final List<Integer> pendingEdges = new ArrayList<>();
+
+  // each thread's query workspace, followed by one workspace per level for unpacking paths
+  protected final ThreadLocal<SearchWorkspace[]> workspaces;
+
+  private OverlayGraph(DijkstraGraph<NodeType, ?> graph, int[] offsets, int[] targets,
+      int[] edgeIds, int[][] cell, int[][] parentCell, int[][][] entries, int[][][] exits,
+      int[][] entryIndex) {
+    this.graph = graph;
+    this.levels = cell.length;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.edgeIds = edgeIds;
+    this.cell = cell;
+    this.parentCell = parentCell;
+    this.entries = entries;
+    this.exits = exits;
+    this.entryIndex = entryIndex;
+    this.pending = new boolean[targets.length];
+    int n = offsets.length - 1;
+    this.workspaces = ThreadLocal.withInitial(() -> {
+      SearchWorkspace[] spaces = new SearchWorkspace[levels + 1];
+      for (int i = 0; i < spaces.length; i++) {
+        spaces[i] = new SearchWorkspace(n, QueueStrategy.BINARY_HEAP);
+      }
+      return spaces;
+    });
+  }
+
+  /**
+   * Partitions the nodes of graph into nested levels of cells, and customizes every cell with the
+   * graph's current weights. Cells are grown outward from one node or sub cell at a time over the
+   * graph's edges, in either direction, until they reach their level's size limit.
+   *
+   * @param graph     the graph to answer queries on
+   * @param cellSizes the largest number of nodes in a cell of each level, from the lowest level up
+   * @return the overlay graph of graph
+   * @throws IllegalArgumentException if no cell size is given, or the sizes do not increase
+   */
+  public static <NodeType> OverlayGraph<NodeType> build(DijkstraGraph<NodeType, ?> graph,
+      int... cellSizes) {
+    if (cellSizes.length == 0) {
+      throw new IllegalArgumentException("At least one level of cells is needed.");
+    }
+    for (int i = 0; i < cellSizes.length; i++) {
+      if (cellSizes[i] < 1 || (i > 0 && cellSizes[i] <= cellSizes[i - 1])) {
+        throw new IllegalArgumentException("Cell sizes must be positive and increasing: "
+            + Arrays.toString(cellSizes));
+      }
+    }
+
+    int n = graph.getNodeIdBound();
+    int[] offsets = new int[n + 1];
+    List<Integer> targetList = new ArrayList<>();
+    List<Integer> edgeIdList = new ArrayList<>();
+    copyEdges(graph, offsets, targetList, edgeIdList);
+    int[] targets = new int[targetList.size()];
+    int[] edgeIds = new int[targets.length];
+    for (int e = 0; e < targets.length; e++) {
+      targets[e] = targetList.get(e);
+      edgeIds[e] = edgeIdList.get(e);
+    }
+
+    int levels = cellSizes.length;
+    int[][] cell = new int[levels][];
+    int[][] parentCell = new int[levels][];
+    int[] cellCounts = new int[levels];
+    // the units that cells are grown from: single nodes for the lowest level, cells above that
+    int[] unitOf = new int[n];
+    int[] unitSize = new int[n];
+    int unitCount = n;
+    for (int v = 0; v < n; v++) {
+      unitOf[v] = graph.nodesById.get(v) == null ? -1 : v;
+      unitSize[v] = unitOf[v] < 0 ? 0 : 1;
+    }
+    for (int level = 0; level < levels; level++) {
+      int[] regionOf = growRegions(offsets, targets, unitOf, unitSize, unitCount,
+          cellSizes[level]);
+      int regionCount = 0;
+      for (int region : regionOf) {
+        regionCount = Math.max(regionCount, region + 1);
+      }
+      cell[level] = new int[n];
+      int[] regionSize = new int[regionCount];
+      for (int v = 0; v < n; v++) {
+        cell[level][v] = unitOf[v] < 0 ? -1 : regionOf[unitOf[v]];
+        if (cell[level][v] >= 0) {
+          regionSize[cell[level][v]]++;
+        }
+      }
+      if (level > 0) {
+        parentCell[level - 1] = new int[cellCounts[level - 1]];
+        for (int c = 0; c < cellCounts[level - 1]; c++) {
+          parentCell[level - 1][c] = regionOf[c];
+        }
+      }
+      cellCounts[level] = regionCount;
+      unitOf = cell[level];
+      unitSize = regionSize;
+      unitCount = regionCount;
+    }
+    parentCell[levels - 1] = new int[cellCounts[levels - 1]]; // there is no level above the top
+
+    // an edge whose ends are in different cells of a level makes them an exit and an entry there
+    int[][][] entries = new int[levels][][];
+    int[][][] exits = new int[levels][][];
+    int[][] entryIndex = new int[levels][n];
+    for (int level = 0; level < levels; level++) {
+      boolean[] isEntry = new boolean[n];
+      boolean[] isExit = new boolean[n];
+      for (int u = 0; u < n; u++) {
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+          if (cell[level][u] != cell[level][targets[e]]) {
+            isExit[u] = true;
+            isEntry[targets[e]] = true;
+          }
+        }
+      }
+      entries[level] = collect(cell[level], cellCounts[level], isEntry);
+      exits[level] = collect(cell[level], cellCounts[level], isExit);
+      Arrays.fill(entryIndex[level], -1);
+      for (int[] cellEntries : entries[level]) {
+        for (int i = 0; i < cellEntries.length; i++) {
+          entryIndex[level][cellEntries[i]] = i;
+        }
+      }
+    }
+
+    OverlayGraph<NodeType> overlay = new OverlayGraph<>(graph, offsets, targets, edgeIds, cell,
+        parentCell, entries, exits, entryIndex);
+    overlay.customizeAll();
+    return overlay;
+  }
+
+  // copies the edges leaving each node id, in list order, into CSR offsets, targets and edge ids
+  private static <NodeType, EdgeType extends Number> void copyEdges(
+      DijkstraGraph<NodeType, EdgeType> graph, int[] offsets, List<Integer> targets,
+      List<Integer> edgeIds) {
+    for (int u = 0; u < offsets.length - 1; u++) {
+      BaseGraph<NodeType, EdgeType>.Node node = graph.nodesById.get(u);
+      if (node != null) {
+        for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+          targets.add(edge.successor.id);
+          edgeIds.add(edge.id);
+        }
+      }
+      offsets[u + 1] = targets.size();
+    }
+  }
+
+  /**
+   * Groups units into regions of at most limit nodes. Each region starts at the first unit that
+   * no region holds yet, and grows breadth first over the edges between units, in either
+   * direction, adding every neighboring unit that still fits.
+   *
+   * @return the region of each unit
+   */
+  private static int[] growRegions(int[] offsets, int[] targets, int[] unitOf, int[] unitSize,
+      int unitCount, int limit) {
+    // the units next to each unit, over edges in either direction, in CSR form
+    int n = unitOf.length;
+    int[] degree = new int[unitCount + 1];
+    for (int u = 0; u < n; u++) {
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        int a = unitOf[u];
+        int b = unitOf[targets[e]];
+        if (a != b) {
+          degree[a + 1]++;
+          degree[b + 1]++;
+        }
+      }
+    }
+    for (int a = 0; a < unitCount; a++) {
+      degree[a + 1] += degree[a];
+    }
+    int[] next = Arrays.copyOf(degree, unitCount);
+    int[] neighbors = new int[degree[unitCount]];
+    for (int u = 0; u < n; u++) {
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        int a = unitOf[u];
+        int b = unitOf[targets[e]];
+        if (a != b) {
+          neighbors[next[a]++] = b;
+          neighbors[next[b]++] = a;
+        }
+      }
+    }
+
+    int[] regionOf = new int[unitCount];
+    Arrays.fill(regionOf, -1);
+    int[] queue = new int[unitCount];
+    int regions = 0;
+    for (int start = 0; start < unitCount; start++) {
+      if (regionOf[start] >= 0 || unitSize[start] == 0) {
+        continue;
+      }
+      int region = regions++;
+      int size = unitSize[start];
+      int head = 0;
+      int tail = 0;
+      regionOf[start] = region;
+      queue[tail++] = start;
+      while (head < tail) {
+        int a = queue[head++];
+        for (int i = degree[a]; i < degree[a + 1]; i++) {
+          int b = neighbors[i];
+          if (regionOf[b] < 0 && size + unitSize[b] <= limit) {
+            regionOf[b] = region;
+            size += unitSize[b];
+            queue[tail++] = b;
+          }
+        }
+      }
+    }
+    return regionOf;
+  }
+
+  // lists the marked nodes of each cell, in id order
+  private static int[][] collect(int[] cellOf, int cellCount, boolean[] marked) {
+    int[] counts = new int[cellCount];
+    for (int v = 0; v < marked.length; v++) {
+      if (marked[v]) {
+        counts[cellOf[v]]++;
+      }
+    }
+    int[][] lists = new int[cellCount][];
+    for (int c = 0; c < cellCount; c++) {
+      lists[c] = new int[counts[c]];
+    }
+    Arrays.fill(counts, 0);
+    for (int v = 0; v < marked.length; v++) {
+      if (marked[v]) {
+        lists[cellOf[v]][counts[cellOf[v]]++] = v;
+      }
+    }
+    return lists;
+  }
+
+  /**
+   * Returns the number of levels of cells.
+   *
+   * @return the number of levels
+   */
+  public int getLevelCount() {
+    return levels;
+  }
+
+  /**
+   * Returns the number of cells in one level.
+   *
+   * @param level the level, where 0 is the lowest level
+   * @return the number of cells in that level
+   */
+  public int getCellCount(int level) {
+    return entries[level].length;
+  }
+
+  /**
+   * Records that the weight of the edge from pred to succ was changed with insertEdge. The change
+   * is not visible to queries until the next call to customize().
+   *
+   * @param pred the data item in the node the edge leaves
+   * @param succ the data item in the node the edge enters
+   * @throws NoSuchElementException if the graph had no such edge when this overlay was built
+   */
+  public synchronized void edgeUpdated(NodeType pred, NodeType succ) {
+    int u = requireId(pred);
+    int v = requireId(succ);
+    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+      if (targets[e] == v) {
+        if (!pending[e]) {
+          pending[e] = true;
+          pendingEdges.add(e);
+        }
+        return;
+      }
+    }
+    throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+  }
+
+  /**
+   * Reads the weights of the edges recorded by edgeUpdated() from the graph, customizes every cell
+   * whose costs they may change, and then installs the new costs for the queries that start from
+   * then on. A cell of the lowest level is customized when it contains both ends of an updated
+   * edge, and a higher cell when it contains both ends or the costs of one of its sub cells
+   * changed.
+   *
+   * @return the number of cells that were customized
+   */
+  public synchronized int customize() {
+    if (pendingEdges.isEmpty()) {
+      return 0;
+    }
+    Metric old = metric;
+    double[] weights = old.weights.clone();
+    double[][][] cliques = new double[levels][][];
+    boolean[][] dirty = new boolean[levels][];
+    for (int level = 0; level < levels; level++) {
+      cliques[level] = old.cliques[level].clone();
+      dirty[level] = new boolean[cliques[level].length];
+    }
+    for (int e : pendingEdges) {
+      pending[e] = false;
+      weights[e] = graph.edgesById.get(edgeIds[e]).weight;
+      int u = sourceOf(e);
+      for (int level = 0; level < levels; level++) {
+        if (cell[level][u] == cell[level][targets[e]]) {
+          dirty[level][cell[level][u]] = true;
+        }
+      }
+    }
+    pendingEdges.clear();
+
+    int customized = 0;
+    SearchWorkspace workspace = new SearchWorkspace(offsets.length - 1, QueueStrategy.BINARY_HEAP);
+    Metric fresh = new Metric(weights, cliques);
+    for (int level = 0; level < levels; level++) {
+      for (int c = 0; c < dirty[level].length; c++) {
+        if (!dirty[level][c]) {
+          continue;
+        }
+        double[] costs = customizeCell(fresh, level, c, workspace);
+        customized++;
+        if (!Arrays.equals(costs, cliques[level][c]) && level + 1 < levels) {
+          dirty[level + 1][parentCell[level][c]] = true;
+        }
+        cliques[level][c] = costs;
+      }
+    }
+    metric = fresh;
+    return customized;
+  }
+
+  /**
+   * Reads every edge weight from the graph, customizes every cell, and then installs the new costs
+   * for the queries that start from then on.
+   *
+   * @return the number of cells that were customized
+   */
+  public synchronized int customizeAll() {
+    double[] weights = new double[targets.length];
+    for (int e = 0; e < weights.length; e++) {
+      pending[e] = false;
+      weights[e] = graph.edgesById.get(edgeIds[e]).weight;
+    }
+    pendingEdges.clear();
+    double[][][] cliques = new double[levels][][];
+    Metric fresh = new Metric(weights, cliques);
+    SearchWorkspace workspace = new SearchWorkspace(offsets.length - 1, QueueStrategy.BINARY_HEAP);
+    int customized = 0;
+    for (int level = 0; level < levels; level++) {
+      cliques[level] = new double[entries[level].length][];
+      for (int c = 0; c < cliques[level].length; c++) {
+        cliques[level][c] = customizeCell(fresh, level, c, workspace);
+        customized++;
+      }
+    }
+    metric = fresh;
+    return customized;
+  }
+
+  // computes the entry to exit costs of a cell from the weights and the lower cells of metric
+  private double[] customizeCell(Metric metric, int level, int c, SearchWorkspace workspace) {
+    int[] cellEntries = entries[level][c];
+    int[] cellExits = exits[level][c];
+    double[] costs = new double[cellEntries.length * cellExits.length];
+    for (int i = 0; i < cellEntries.length; i++) {
+      searchCell(metric, level, c, cellEntries[i], -1, workspace);
+      for (int j = 0; j < cellExits.length; j++) {
+        costs[i * cellExits.length + j] = workspace.dist(cellExits[j]);
+      }
+    }
+    return costs;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source without leaving cell c of the provided level, until
+   * target is settled, or until every node it can reach is settled when target is -1. In the
+   * lowest level the search follows the graph's own edges, and in higher levels it follows the
+   * entry to exit costs of the sub cells, along with the edges between sub cells. Jumps across a
+   * sub cell are recorded with the parent edge -(level + 1), where level is the sub cell's level.
+   */
+  private void searchCell(Metric metric, int level, int c, int source, int target,
+      SearchWorkspace workspace) {
+    workspace.reset(offsets.length - 1, QueueStrategy.BINARY_HEAP);
+    workspace.start(source);
+    int x;
+    while ((x = workspace.settleNext()) >= 0 && x != target) {
+      double cost = workspace.dist(x);
+      if (level == 0) {
+        for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+          if (cell[0][targets[e]] == c) {
+            workspace.relax(targets[e], cost + metric.weights[e], x, e);
+          }
+        }
+        continue;
+      }
+      int sub = cell[level - 1][x];
+      relaxClique(metric, level - 1, x, cost, workspace);
+      for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+        int y = targets[e];
+        if (cell[level][y] == c && cell[level - 1][y] != sub) {
+          workspace.relax(y, cost + metric.weights[e], x, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * When x is an entry of its cell in level, offers the paths across that cell to its exits. This
+   * is skipped when x was itself reached across that cell, since the path across the cell through
+   * x is never cheaper than the one from the entry that x was reached from.
+   */
+  private void relaxClique(Metric metric, int level, int x, double cost,
+      SearchWorkspace workspace) {
+    int i = entryIndex[level][x];
+    if (i < 0 || workspace.parentEdge(x) == -(level + 2)) {
+      return;
+    }
+    int c = cell[level][x];
+    int[] cellExits = exits[level][c];
+    double[] costs = metric.cliques[level][c];
+    for (int j = 0, k = i * cellExits.length; j < cellExits.length; j++, k++) {
+      if (costs[k] < Double.POSITIVE_INFINITY) {
+        workspace.relax(cellExits[j], cost + costs[k], x, -(level + 2));
+      }
+    }
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the node with
+   * the provided start value through the node with the provided end value, using the weights of
+   * the last customization. Every leg is an edge of the graph.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    Metric current = metric;
+    SearchWorkspace[] spaces = workspaces.get();
+    search(current, source, target, spaces[0]);
+
+    // collect the steps back from target, then unpack them in order from source
+    int steps = 0;
+    for (int v = target; v != source; v = spaces[0].parent(v)) {
+      steps++;
+    }
+    int[] stepNodes = new int[steps];
+    int[] stepEdges = new int[steps];
+    for (int i = steps - 1, v = target; i >= 0; i--, v = spaces[0].parent(v)) {
+      stepNodes[i] = v;
+      stepEdges[i] = spaces[0].parentEdge(v);
+    }
+    List<Integer> nodes = new ArrayList<>();
+    List<Double> legs = new ArrayList<>();
+    nodes.add(source);
+    for (int i = 0; i < steps; i++) {
+      unpack(current, nodes.get(nodes.size() - 1), stepNodes[i], stepEdges[i], spaces, nodes,
+          legs);
+    }
+
+    List<NodeType> path = new ArrayList<>(nodes.size());
+    for (int id : nodes) {
+      path.add(graph.nodesById.get(id).data);
+    }
+    double[] legCosts = new double[legs.size()];
+    for (int i = 0; i < legCosts.length; i++) {
+      legCosts[i] = legs.get(i);
+    }
+    return new PathResult<>(path, legCosts);
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  /**
+   * Returns the cost of the shortest path from the node containing the start data to the node
+   * containing the end data, using the weights of the last customization.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  public double shortestPathCost(NodeType start, NodeType end) {
+    int target = requireId(end);
+    SearchWorkspace workspace = workspaces.get()[0];
+    search(metric, requireId(start), target, workspace);
+    return workspace.dist(target);
+  }
+
+  /**
+   * Runs the overlay search from source until target is settled. At each settled node x, the
+   * search picks the highest level in which x's cell holds neither source nor target: it follows
+   * the graph's own edges when there is no such level, and otherwise crosses that cell from entry
+   * x to each of its exits, and follows the edges that leave that cell.
+   *
+   * @throws NoSuchElementException when target cannot be reached from source
+   */
+  private void search(Metric metric, int source, int target, SearchWorkspace workspace) {
+    workspace.reset(offsets.length - 1, QueueStrategy.BINARY_HEAP);
+    workspace.start(source);
+    int x;
+    while ((x = workspace.settleNext()) >= 0) {
+      if (x == target) {
+        return;
+      }
+      double cost = workspace.dist(x);
+      int level = 0;
+      while (level < levels && cell[level][x] != cell[level][source]
+          && cell[level][x] != cell[level][target]) {
+        level++;
+      }
+      if (level == 0) {
+        for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+          workspace.relax(targets[e], cost + metric.weights[e], x, e);
+        }
+        continue;
+      }
+      level--; // the highest level whose cell of x holds neither end
+      relaxClique(metric, level, x, cost, workspace);
+      int c = cell[level][x];
+      for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+        if (cell[level][targets[e]] != c) {
+          workspace.relax(targets[e], cost + metric.weights[e], x, e);
+        }
+      }
+    }
+    throw new NoSuchElementException("No path from START to END was found.");
+  }
+
+  /**
+   * Appends the graph's own edges along one step of a search from u to v to nodes and legs. A step
+   * over an edge is appended as it is, while a jump across a cell is unpacked by searching the
+   * cell again from u to v, and unpacking the steps of that search in turn, with one workspace per
+   * level.
+   */
+  private void unpack(Metric metric, int u, int v, int edge, SearchWorkspace[] spaces,
+      List<Integer> nodes, List<Double> legs) {
+    if (edge >= 0) {
+      nodes.add(v);
+      legs.add(metric.weights[edge]);
+      return;
+    }
+    int level = -edge - 2;
+    SearchWorkspace workspace = spaces[level + 1];
+    searchCell(metric, level, cell[level][u], u, v, workspace);
+    int steps = 0;
+    for (int x = v; x != u; x = workspace.parent(x)) {
+      steps++;
+    }
+    int[] stepNodes = new int[steps];
+    int[] stepEdges = new int[steps];
+    for (int i = steps - 1, x = v; i >= 0; i--, x = workspace.parent(x)) {
+      stepNodes[i] = x;
+      stepEdges[i] = workspace.parentEdge(x);
+    }
+    // the steps are copied out first, since unpacking them reuses the lower workspaces
+    int from = u;
+    for (int i = 0; i < steps; i++) {
+      unpack(metric, from, stepNodes[i], stepEdges[i], spaces, nodes, legs);
+      from = stepNodes[i];
+    }
+  }
+
+  // returns the id of the node that edge e leaves, by binary search over the offsets
+  private int sourceOf(int e) {
+    int low = 0;
+    int high = offsets.length - 2;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (offsets[mid] <= e) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  // looks up the id of a node, throwing like DijkstraGraph does for missing or null data
+  protected int requireId(NodeType data) {
+    if (data == null) {
+      throw new NullPointerException("START and END data must not be NULL.");
+    }
+    if (!graph.containsNode(data)) {
+      throw new NoSuchElementException("Either START or END data does not exist in the graph.");
+    }
+    int id = graph.nodes.get(data).id;
+    if (id >= offsets.length - 1) {
+      throw new NoSuchElementException(data + " was added after the overlay was built.");
+    }
+    return id;
+  }
+
+  /**
+   * Tests of OverlayGraph, whose instances only come from build().
+   */
+  static class Tests {
+
+    /**
+     * overlayGraphTest: Checks that an OverlayGraph with two levels of cells finds paths of the
+     * same cost as Dijkstra's algorithm between every pair of nodes in a random graph, that its
+     * unpacked paths only use edges of the graph and add up to that cost, and that this still holds
+     * after a batch of weight updates is customized, which only customizes some of the cells again.
+     */
+    @Test
+    public void overlayGraphTest() {
+      DijkstraGraph<Integer, Double> graphTester = TestGraphs.randomGraph(120, 360, 700);
+      OverlayGraph<Integer> overlay = OverlayGraph.build(graphTester, 6, 30);
+      java.util.Random random = new java.util.Random(701);
+
+      for (int round = 0; round < 3; round++) {
+        for (int start = 0; start < 120; start++) {
+          for (int end = 0; end < 120; end++) {
+            int s = start;
+            int t = end;
+            double expected = TestGraphs.costOrInfinity(() -> graphTester.shortestPathCost(s, t));
+            TestGraphs.assertShortestPath("overlayGraphTest", graphTester, s, t, expected,
+                () -> overlay.shortestPathCost(s, t), () -> overlay.shortestPath(s, t));
+          }
+        }
+
+        // change the weights of a few edges, which only takes effect once customized
+        for (int updated = 0; updated < 5;) {
+          int pred = random.nextInt(120);
+          int succ = random.nextInt(120);
+          if (graphTester.containsEdge(pred, succ)) {
+            graphTester.insertEdge(pred, succ, (double) random.nextInt(20));
+            overlay.edgeUpdated(pred, succ);
+            updated++;
+          }
+        }
+        int cells = overlay.getCellCount(0) + overlay.getCellCount(1);
+        int customized = overlay.customize();
+        Assertions.assertTrue(customized > 0 && customized < cells,
+            "overlayGraphTest() [2.1]: FAILED customized " + customized + " of " + cells
+                + " CELLS.");
+      }
+
+      // built straight from a graph whose ids have a gap where a node was removed
+      DijkstraGraph<String, Double> edgeGraph =
+          TestGraphs.edgeCaseGraph(new DijkstraGraph<String, Double>());
+      OverlayGraph<String> edgeCases = OverlayGraph.build(edgeGraph, 2, 3);
+      Assertions.assertTrue(edgeCases.shortestPathCost("A", "A") == 0.0
+          && edgeCases.shortestPathData("A", "A").equals(List.of("A")),
+          "overlayGraphTest() [3.1]: FAILED the PATH to START is not just START.");
+      Assertions.assertEquals(List.of("A", "B", "C"), edgeCases.shortestPathData("A", "C"),
+          "overlayGraphTest() [3.2]: FAILED did not unpack a 0 weight LEG.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeCases.shortestPathCost("A", "D"),
+          "overlayGraphTest() [3.3]: FAILED found a path to an isolated NODE.");
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> edgeCases.edgeUpdated("A", "D"),
+          "overlayGraphTest() [3.4]: FAILED accepted an update of a missing EDGE.");
+      edgeGraph.insertEdge("A", "A", 5.0);
+      edgeCases.edgeUpdated("A", "A");
+      edgeCases.customize();
+      Assertions.assertEquals(1.0, edgeCases.shortestPathCost("A", "C"),
+          "overlayGraphTest() [3.5]: FAILED an updated self EDGE changed a COST.");
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> OverlayGraph.build(edgeGraph, 3, 3),
+          "overlayGraphTest() [3.6]: FAILED accepted cell sizes that do not increase.");
+    }
+  }
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A PathResult describes one path through a graph: the data of the nodes along the path, the cost
+ * of each edge (leg) between consecutive nodes, the cumulative cost of reaching each node from the
+ * start, and the total cost of the whole path. A result without any nodes means that no path was
+ * found.
+ *
+ * PathResults are immutable, so the arrays returned by its getters must not be modified.
+ */
+public class PathResult<NodeType> {
+
+  private final List<NodeType> nodes; // start node first, end node last
+  private final double[] legCosts; // legCosts[i] is the cost from nodes[i] to nodes[i+1]
+  private final double[] cumulativeCosts; // cumulativeCosts[i] is the cost from start to nodes[i]
+
+  /**
+   * Creates a path result from the node data and leg costs along a path.
+   *
+   * @param nodes    the data of each node along the path, from start to end
+   * @param legCosts the cost of each edge along the path, one fewer than the number of nodes
+   * @throws IllegalArgumentException if there is not exactly one leg between each pair of nodes
+   */
+  public PathResult(List<NodeType> nodes, double[] legCosts) {
+    if (!nodes.isEmpty() && legCosts.length != nodes.size() - 1 || nodes.isEmpty()
+        && legCosts.length != 0) {
+      throw new IllegalArgumentException("A path with " + nodes.size() + " nodes cannot have "
+          + legCosts.length + " legs.");
+    }
+    this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    this.legCosts = legCosts;
+    this.cumulativeCosts = new double[nodes.size()];
+    for (int i = 0; i < legCosts.length; i++) {
+      cumulativeCosts[i + 1] = cumulativeCosts[i] + legCosts[i];
+    }
+  }
+
+  /**
+   * Returns a result that represents the absence of any path.
+   *
+   * @return an empty path result
+   */
+  public static <NodeType> PathResult<NodeType> empty() {
+    return new PathResult<>(Collections.emptyList(), new double[0]);
+  }
+
+  /**
+   * Checks whether this result represents the absence of a path.
+   *
+   * @return true if no path was found, false otherwise
+   */
+  public boolean isEmpty() {
+    return nodes.isEmpty();
+  }
+
+  /**
+   * Returns the data from each node along this path, starting with the start node and ending with
+   * the end node.
+   *
+   * @return unmodifiable list of node data along this path
+   */
+  public List<NodeType> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the cost of each edge along this path, in order.
+   *
+   * @return array with the cost of each leg, one shorter than the list of nodes
+   */
+  public double[] getLegCosts() {
+    return legCosts;
+  }
+
+  /**
+   * Returns the leg costs of this path as a list, for callers that work with collections.
+   *
+   * @return list with the cost of each leg along this path
+   */
+  public List<Double> getLegCostList() {
+    List<Double> list = new ArrayList<>(legCosts.length);
+    for (double cost : legCosts) {
+      list.add(cost);
+    }
+    return list;
+  }
+
+  /**
+   * Returns the cost of reaching each node along this path from the start node.
+   *
+   * @return array with the cumulative cost at each node, starting with 0.0
+   */
+  public double[] getCumulativeCosts() {
+    return cumulativeCosts;
+  }
+
+  /**
+   * Returns the total cost of this path, or positive infinity when no path was found.
+   *
+   * @return the sum of all leg costs along this path
+   */
+  public double getTotalCost() {
+    if (isEmpty()) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return cumulativeCosts[cumulativeCosts.length - 1];
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * The kinds of priority queue that the shortest path searches can be configured to use.
+ */
+public enum QueueStrategy {
+
+  /**
+   * Lazy deletion: every relaxation that lowers a cost adds a new entry, and stale entries are
+   * skipped when polled. DijkstraGraph uses a java.util.PriorityQueue of SearchNodes in this mode,
+   * which is its original behaviour, while int based engines use a LazyIntHeap.
+   */
+  LAZY,
+
+  /**
+   * An indexed binary heap with true decrease-key, which holds each node at most once.
+   */
+  BINARY_HEAP,
+
+  /**
+   * An indexed 4-ary heap with true decrease-key. It is shallower than a binary heap, so polls
+   * touch fewer cache lines, at the cost of comparing more children per level.
+   */
+  QUATERNARY_HEAP;
+
+  /**
+   * Creates an int keyed priority queue of this kind.
+   *
+   * @param capacity the number of ids the queue should have room for, it grows as needed
+   * @return a new, empty priority queue
+   */
+  public IntPriorityQueue newQueue(int capacity) {
+    switch (this) {
+      case BINARY_HEAP:
+        return new IndexedDaryHeap(2, capacity);
+      case QUATERNARY_HEAP:
+        return new IndexedDaryHeap(4, capacity);
+      default:
+        return new LazyIntHeap(capacity);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A monotone min-heap of (id, key) pairs with non-negative long keys, as used by Dijkstra's
+ * algorithm over whole number weights, where no key added is ever smaller than the last key
+ * polled. Entry i lives in bucket b when the highest bit in which its key differs from the last
+ * polled key is bit b - 1, and in bucket 0 when the two are equal. Polling takes any entry of
+ * bucket 0, and when bucket 0 is empty, first moves the entries of the lowest non-empty bucket
+ * down into lower buckets, relative to the smallest key among them. Each entry moves down at most
+ * 64 times, and no keys are ever compared in a sift, so adds cost O(1) and polls O(64) amortized.
+ *
+ * Unlike a BucketQueue, a RadixHeap places no bound on the weights, so IntCsrDijkstra uses one for
+ * graphs whose weights are too large for buckets.
+ */
+public class RadixHeap implements MonotoneIntQueue {
+
+  // bucket 0, and one per bit below the sign bit, which non-negative keys never differ in
+  private static final int BUCKETS = 64;
+
+  private final int[][] ids = new int[BUCKETS][]; // ids[b][i] is the id of entry i of bucket b
+  private final long[][] keys = new long[BUCKETS][]; // keys[b][i] is the key of ids[b][i]
+  private final int[] sizes = new int[BUCKETS];
+  private long occupied = 0; // bit b is set when bucket b holds entries
+  private long last = 0; // the key most recently polled, no smaller key may be added
+  private int size = 0;
+
+  /**
+   * Creates an empty heap.
+   */
+  public RadixHeap() {
+    for (int b = 0; b < BUCKETS; b++) {
+      ids[b] = new int[4];
+      keys[b] = new long[4];
+    }
+  }
+
+  @Override
+  public void add(int id, long key) {
+    if (key < last) {
+      throw new IllegalArgumentException("Key " + key + " is smaller than the last key polled, "
+          + last + ".");
+    }
+    put(bucketOf(key), id, key);
+    size++;
+  }
+
+  @Override
+  public long minKey() {
+    refill();
+    return keys[0][sizes[0] - 1];
+  }
+
+  @Override
+  public int pollMin() {
+    refill();
+    size--;
+    if (--sizes[0] == 0) {
+      occupied &= ~1L;
+    }
+    return ids[0][sizes[0]];
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(sizes, 0);
+    occupied = 0;
+    size = 0;
+    last = 0;
+  }
+
+  // the bucket that an entry with this key belongs in, relative to last
+  private int bucketOf(long key) {
+    return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+  }
+
+  private void put(int bucket, int id, long key) {
+    int at = sizes[bucket]++;
+    occupied |= 1L << bucket;
+    if (at == ids[bucket].length) {
+      ids[bucket] = Arrays.copyOf(ids[bucket], at * 2);
+      keys[bucket] = Arrays.copyOf(keys[bucket], at * 2);
+    }
+    ids[bucket][at] = id;
+    keys[bucket][at] = key;
+  }
+
+  // makes sure that bucket 0 holds the entries with the smallest key
+  private void refill() {
+    if (sizes[0] > 0) {
+      return;
+    }
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty.");
+    }
+    int bucket = Long.numberOfTrailingZeros(occupied);
+    int count = sizes[bucket];
+    int[] movedIds = ids[bucket];
+    long[] movedKeys = keys[bucket];
+    long min = movedKeys[0];
+    for (int i = 1; i < count; i++) {
+      min = Math.min(min, movedKeys[i]);
+    }
+    // every entry of the bucket now differs from last in a lower bit, so none of them lands back
+    // in this bucket, and its arrays can be read while the others are written
+    last = min;
+    sizes[bucket] = 0;
+    occupied &= ~(1L << bucket);
+    for (int i = 0; i < count; i++) {
+      put(bucketOf(movedKeys[i]), movedIds[i], movedKeys[i]);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This Executor runs the HttpServer's exchanges on worker threads instead of on the server's single
+ * dispatcher thread. Two execution modes are supported:
+ *
+ * - POOL: a fixed-size pool of platform threads, plus a bounded number of queued exchanges
+ * - VIRTUAL: a new virtual thread per exchange (requires a Java runtime with virtual threads)
+ *
+ * In both modes at most threads + queueDepth exchanges are admitted at once. An exchange that
+ * arrives while the server is full is instead handed to a single rejection thread, which runs it
+ * with the overloaded flag set, so that its handler can cheaply reject it (see isOverloaded()).
+ * Running an exchange reads its request line and headers with blocking I/O, so exchanges never
+ * run on the dispatcher thread, where one slow client would stall every other connection. When
+ * even the rejection thread's queue is full, the exchange is dropped without being read, and the
+ * server closes its connection once it times out (see WebApp).
+ */
+public class RequestExecutor implements Executor {
+
+  /**
+   * The ways in which admitted exchanges can be executed.
+   */
+  public enum Mode {
+    POOL, VIRTUAL
+  }
+
+  // set only on the rejection thread, while it runs an exchange that was not admitted
+  private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+
+  private final Mode mode;
+  private final ExecutorService workers; // runs every admitted exchange
+  private final ExecutorService rejecter; // runs exchanges that were not admitted, to reject them
+  private final Semaphore admissions; // one permit per running or queued exchange
+  private final int capacity; // total number of permits
+
+  /**
+   * Creates an executor with the provided execution mode and limits.
+   *
+   * @param mode       whether exchanges run on pooled platform threads or virtual threads
+   * @param threads    the number of platform threads in POOL mode; in VIRTUAL mode every admitted
+   *                   exchange starts at once on its own virtual thread, so up to threads +
+   *                   queueDepth exchanges run concurrently
+   * @param queueDepth the number of admitted exchanges allowed to wait for a free thread in POOL
+   *                   mode, on top of the threads that are running
+   * @throws IllegalArgumentException if threads is not positive or queueDepth is negative
+   * @throws IllegalStateException    if VIRTUAL mode is requested on a runtime without virtual
+   *                                  threads
+   */
+  public RequestExecutor(Mode mode, int threads, int queueDepth) {
+    if (threads <= 0 || queueDepth < 0) {
+      throw new IllegalArgumentException("Thread count must be positive and queue depth must not"
+          + " be negative.");
+    }
+    this.mode = mode;
+    this.capacity = threads + queueDepth;
+    this.admissions = new Semaphore(capacity);
+    if (mode == Mode.VIRTUAL) {
+      this.workers = newVirtualThreadPerTaskExecutor();
+    } else {
+      // admissions already bound the queue, so the pool's own queue never rejects
+      AtomicInteger count = new AtomicInteger();
+      ThreadFactory factory = task -> {
+        Thread thread = new Thread(task, "webapp-worker-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+      this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(), factory);
+    }
+    this.rejecter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(capacity), task -> {
+          Thread thread = new Thread(task, "webapp-rejecter");
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  /**
+   * Creates an executor configured by the following system properties:
+   *
+   * - webapp.executor: "pool" (default) or "virtual"
+   * - webapp.threads: worker count, defaults to the number of available processors
+   * - webapp.queue: queue depth, defaults to 4 times the worker count
+   *
+   * @return a newly configured RequestExecutor
+   */
+  public static RequestExecutor fromSystemProperties() {
+    Mode mode = Mode.valueOf(System.getProperty("webapp.executor", "pool").toUpperCase());
+    int threads = Integer.getInteger("webapp.threads", Runtime.getRuntime().availableProcessors());
+    int queueDepth = Integer.getInteger("webapp.queue", 4 * threads);
+    return new RequestExecutor(mode, threads, queueDepth);
+  }
+
+  /**
+   * Returns true when the exchange handled by the calling thread was not admitted, and should be
+   * answered with 503 Service Unavailable instead of being processed.
+   *
+   * @return true if the current exchange is being rejected because the server is overloaded
+   */
+  public static boolean isOverloaded() {
+    return OVERLOADED.get();
+  }
+
+  /**
+   * Runs the provided exchange on a worker when a permit is available, or otherwise queues it for
+   * the rejection thread, which runs it with the overloaded flag set. The calling (dispatcher)
+   * thread never runs an exchange itself.
+   *
+   * @param exchange the task that the HttpServer wants to run
+   */
+  @Override
+  public void execute(Runnable exchange) {
+    if (!admissions.tryAcquire()) {
+      rejecter.execute(() -> {
+        OVERLOADED.set(true);
+        try {
+          exchange.run();
+        } finally {
+          OVERLOADED.set(false);
+        }
+      });
+      return;
+    }
+    try {
+      workers.execute(() -> {
+        try {
+          exchange.run();
+        } finally {
+          admissions.release();
+        }
+      });
+    } catch (RuntimeException e) {
+      admissions.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Stops accepting exchanges and lets the ones already admitted finish.
+   */
+  public void shutdown() {
+    workers.shutdown();
+    rejecter.shutdown();
+  }
+
+  /**
+   * Returns a short human readable description of this executor's configuration.
+   */
+  @Override
+  public String toString() {
+    return mode.name().toLowerCase() + " executor admitting " + capacity + " exchanges";
+  }
+
+  // looks up Executors.newVirtualThreadPerTaskExecutor, which is only present on newer runtimes
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads are not available on Java "
+          + Runtime.version().feature() + ", use webapp.executor=pool instead.", e);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/**
+ * A SearchHeuristic estimates the cost of the cheapest path from a node to the target of a search,
+ * so that an A* search can expand the nodes that look closest to the target first.
+ *
+ * To keep A* searches exact, estimates must never exceed the true cost (admissible), and must
+ * never drop by more than the weight of an edge from one end of that edge to the other
+ * (consistent): estimate(u, t) <= weight(u, v) + estimate(v, t). Every consistent heuristic that
+ * estimates 0.0 at the target itself is also admissible.
+ *
+ * @param NodeType the data type stored at each graph node
+ */
+@FunctionalInterface
+public interface SearchHeuristic<NodeType> {
+
+  /**
+   * Returns a lower bound on the cost of the cheapest path from node to target.
+   *
+   * @param node   the data item in the node to estimate from
+   * @param target the data item in the destination node of the search
+   * @return a lower bound of at least 0.0 on the cost from node to target
+   */
+  public double estimate(NodeType node, NodeType target);
+
+  /**
+   * Returns the heuristic that estimates every cost as 0.0, which turns an A* search back into
+   * Dijkstra's algorithm.
+   *
+   * @return the zero heuristic
+   */
+  public static <NodeType> SearchHeuristic<NodeType> zero() {
+    return (node, target) -> 0.0;
+  }
+}
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * A SearchWorkspace holds all of the per-node state that one shortest path search needs, in dense
+ * primitive arrays indexed by node id: the tentative cost of each node, the node and edge it was
+ * reached through, whether it has been settled, and the order in which nodes were settled. It
+ * also owns the priority queue of the search.
+ *
+ * Workspaces are meant to be reused for search after search (typically one per thread). Instead of
+ * clearing every array, reset() bumps a generation counter, and an entry only counts as reached or
+ * settled when its stamp equals the current generation. Starting a new search therefore costs
+ * O(1), and a search allocates nothing once the arrays have grown to the size of the graph.
+ *
+ * The meaning of the ids stored in parentEdge is up to the search engine, for example an Edge id
+ * of a BaseGraph or an edge index of a CsrGraph.
+ */
+public class SearchWorkspace {
+
+  protected double[] dist; // tentative cost of each reached node
+  protected int[] parent; // node id each reached node was reached from, or -1 for the source
+  protected int[] parentEdge; // id of the edge each reached node was reached through, or -1
+  protected int[] reachedStamp; // equals generation for nodes reached by the current search
+  protected int[] settledStamp; // equals generation for nodes settled by the current search
+  protected int generation = 0;
+  protected int[] settledOrder; // ids of the settled nodes, in the order they were settled
+  protected int settledCount = 0;
+  protected IntPriorityQueue queue;
+  protected QueueStrategy strategy;
+
+  /**
+   * Creates a workspace with room for the provided number of node ids.
+   *
+   * @param capacity the number of node ids to make room for
+   * @param strategy the kind of priority queue to use
+   */
+  public SearchWorkspace(int capacity, QueueStrategy strategy) {
+    capacity = Math.max(1, capacity);
+    this.dist = new double[capacity];
+    this.parent = new int[capacity];
+    this.parentEdge = new int[capacity];
+    this.reachedStamp = new int[capacity];
+    this.settledStamp = new int[capacity];
+    this.settledOrder = new int[capacity];
+    this.strategy = strategy;
+    this.queue = strategy.newQueue(capacity);
+    this.generation = 1;
+  }
+
+  /**
+   * Prepares this workspace for a new search over node ids below capacity. Every node becomes
+   * unreached and unsettled, and the queue becomes empty.
+   *
+   * @param capacity a bound on the ids of the nodes that the next search may reach
+   * @param strategy the kind of priority queue the next search should use
+   */
+  public void reset(int capacity, QueueStrategy strategy) {
+    if (capacity > dist.length) {
+      int grown = Math.max(capacity, dist.length + (dist.length >> 1));
+      dist = Arrays.copyOf(dist, grown);
+      parent = Arrays.copyOf(parent, grown);
+      parentEdge = Arrays.copyOf(parentEdge, grown);
+      reachedStamp = Arrays.copyOf(reachedStamp, grown);
+      settledStamp = Arrays.copyOf(settledStamp, grown);
+      settledOrder = Arrays.copyOf(settledOrder, grown);
+    }
+    if (strategy != this.strategy) {
+      this.strategy = strategy;
+      this.queue = strategy.newQueue(dist.length);
+    } else {
+      queue.clear();
+    }
+    settledCount = 0;
+    generation++;
+    if (generation == Integer.MAX_VALUE) {
+      // the stamps are about to wrap around, so clear them for real once in a long while
+      Arrays.fill(reachedStamp, 0);
+      Arrays.fill(settledStamp, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Returns the number of node ids this workspace currently has room for.
+   *
+   * @return the length of the per-node arrays
+   */
+  public int capacity() {
+    return dist.length;
+  }
+
+  /**
+   * Returns the priority queue of the current search.
+   *
+   * @return the queue of node ids keyed by tentative cost
+   */
+  public IntPriorityQueue queue() {
+    return queue;
+  }
+
+  /**
+   * Reaches the source node of a search with a cost of 0.0 and queues it.
+   *
+   * @param source the id of the node to start from
+   */
+  public void start(int source) {
+    start(source, 0.0);
+  }
+
+  /**
+   * Reaches a source node of a search with the provided initial cost and queues it. Searches with
+   * several sources call this once per source.
+   *
+   * @param source the id of the node to start from
+   * @param cost   the cost at which this source is reached
+   */
+  public void start(int source, double cost) {
+    dist[source] = cost;
+    parent[source] = -1;
+    parentEdge[source] = -1;
+    reachedStamp[source] = generation;
+    queue.insertOrDecrease(source, cost);
+  }
+
+  /**
+   * Offers a path to node v with the provided cost. When v is unsettled and this is cheaper than
+   * any path to v offered so far, v's cost and parents are updated and v is queued.
+   *
+   * @param v      the id of the node that was reached
+   * @param cost   the cost of the offered path to v
+   * @param from   the id of the node this path reaches v from
+   * @param viaEdge the id of the edge this path reaches v through
+   * @return true if the offered path improved v's cost
+   */
+  public boolean relax(int v, double cost, int from, int viaEdge) {
+    return relax(v, cost, cost, from, viaEdge);
+  }
+
+  /**
+   * Offers a path to node v like relax(v, cost, from, viaEdge), but queues v with the provided
+   * priority instead of its cost, as goal directed searches like A* do.
+   *
+   * @param v        the id of the node that was reached
+   * @param cost     the cost of the offered path to v
+   * @param priority the key to queue v with when the path is an improvement
+   * @param from     the id of the node this path reaches v from
+   * @param viaEdge  the id of the edge this path reaches v through
+   * @return true if the offered path improved v's cost
+   */
+  public boolean relax(int v, double cost, double priority, int from, int viaEdge) {
+    if (settledStamp[v] == generation) {
+      return false;
+    }
+    if (reachedStamp[v] == generation && cost >= dist[v]) {
+      return false;
+    }
+    dist[v] = cost;
+    parent[v] = from;
+    parentEdge[v] = viaEdge;
+    reachedStamp[v] = generation;
+    queue.insertOrDecrease(v, priority);
+    return true;
+  }
+
+  /**
+   * Removes the cheapest unsettled node from the queue and settles it, skipping any stale entries
+   * that a lazy queue returns for nodes that were already settled.
+   *
+   * @return the id of the newly settled node, or -1 when no unsettled node is left in the queue
+   */
+  public int settleNext() {
+    while (!queue.isEmpty()) {
+      int u = queue.pollMin();
+      if (settledStamp[u] != generation) {
+        settledStamp[u] = generation;
+        settledOrder[settledCount++] = u;
+        return u;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks whether node v has been reached by the current search.
+   *
+   * @param v the id of a node
+   * @return true if a path to v has been found
+   */
+  public boolean isReached(int v) {
+    return v < reachedStamp.length && reachedStamp[v] == generation;
+  }
+
+  /**
+   * Checks whether node v has been settled by the current search, which means that its cost is
+   * final.
+   *
+   * @param v the id of a node
+   * @return true if v's shortest path cost is known
+   */
+  public boolean isSettled(int v) {
+    return v < settledStamp.length && settledStamp[v] == generation;
+  }
+
+  /**
+   * Returns the cost of the cheapest path to v found by the current search.
+   *
+   * @param v the id of a node
+   * @return v's tentative or final cost, or positive infinity when v was not reached
+   */
+  public double dist(int v) {
+    return isReached(v) ? dist[v] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the node that the cheapest path to v comes from.
+   *
+   * @param v the id of a reached node
+   * @return the id of v's parent, or -1 if v is a source
+   */
+  public int parent(int v) {
+    return parent[v];
+  }
+
+  /**
+   * Returns the edge that the cheapest path to v arrives through.
+   *
+   * @param v the id of a reached node
+   * @return the id of the edge into v, or -1 if v is a source
+   */
+  public int parentEdge(int v) {
+    return parentEdge[v];
+  }
+
+  /**
+   * Returns the number of nodes settled by the current search.
+   *
+   * @return how many nodes have been settled
+   */
+  public int settledCount() {
+    return settledCount;
+  }
+
+  /**
+   * Returns the i-th node settled by the current search.
+   *
+   * @param i an index below settledCount()
+   * @return the id of the node that was settled i-th
+   */
+  public int settledAt(int i) {
+    return settledOrder[i];
+  }
+}
@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A ShortestPathTree holds the result of one full Dijkstra search from a start node of an
+ * IndexedGraph: the cost of the shortest path from the start to every node, and the parent of
+ * every node along that path, in dense arrays indexed by node id. Any shortest path from the start
+ * can then be read off the tree in time proportional to its length, and the nodes within a travel
+ * budget can be listed without searching again.
+ *
+ * A tree describes the graph as it was when the tree was built. Once the graph's nodes, edges or
+ * weights change, isCurrent() returns false, and the methods that look nodes up throw an
+ * IllegalStateException rather than answer from stale costs. Trees are immutable, so any number of
+ * threads can share one, see DijkstraGraph.shortestPathTree() and OffHeapGraph.shortestPathTree().
+ */
+public class ShortestPathTree<NodeType> {
+
+  private final IndexedGraph<NodeType> graph; // the graph the tree was built from
+  private final int modifications; // the graph's modification count when the tree was built
+  private final int source; // the id of the start node
+  private final double[] dist; // dist[v] is the cost from the start to v, infinite if unreached
+  private final int[] parent; // parent[v] is the id of the node before v, -1 for start/unreached
+  private final double[] legs; // legs[v] is the cost of the edge from parent[v] to v
+  private final int reachedCount; // the number of nodes reached from the start
+
+  /**
+   * Creates a tree from the arrays of a finished search. The arrays are kept, not copied.
+   */
+  ShortestPathTree(IndexedGraph<NodeType> graph, int source, double[] dist, int[] parent,
+      double[] legs, int reachedCount) {
+    this.graph = graph;
+    this.modifications = graph.getModificationCount();
+    this.source = source;
+    this.dist = dist;
+    this.parent = parent;
+    this.legs = legs;
+    this.reachedCount = reachedCount;
+  }
+
+  /**
+   * Checks whether the graph is unchanged since this tree was built.
+   *
+   * @return true if the tree's costs and paths still hold for the graph
+   */
+  public boolean isCurrent() {
+    return graph.getModificationCount() == modifications;
+  }
+
+  /**
+   * Returns the data in the start node of this tree.
+   *
+   * @return the start of every path in the tree
+   * @throws IllegalStateException if the graph changed since this tree was built
+   */
+  public NodeType getStart() {
+    requireCurrent();
+    return graph.dataOf(source);
+  }
+
+  /**
+   * Returns the number of nodes that can be reached from the start, including the start itself.
+   *
+   * @return the number of nodes in the tree
+   */
+  public int getReachedCount() {
+    return reachedCount;
+  }
+
+  /**
+   * Checks whether there is a path from the start to the node containing the end data.
+   *
+   * @param end the data item in the destination node
+   * @return true if end is in the graph and can be reached from the start
+   * @throws IllegalStateException if the graph changed since this tree was built
+   */
+  public boolean isReachable(NodeType end) {
+    requireCurrent();
+    int id = graph.idOf(end);
+    return id >= 0 && dist[id] < Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the start to the node containing the end data.
+   *
+   * @param end the data item in the destination node for the path
+   * @return the cost of the shortest path from the start to end
+   * @throws NoSuchElementException when end does not correspond to a graph node, or cannot be
+   *                                reached from the start
+   * @throws IllegalStateException  if the graph changed since this tree was built
+   */
+  public double costTo(NodeType end) {
+    return dist[requireReached(end)];
+  }
+
+  /**
+   * Returns the nodes, leg costs, and cumulative costs along the shortest path from the start to
+   * the node containing the end data, by following parents back from end.
+   *
+   * @param end the data item in the destination node for the path
+   * @return the shortest path from the start to end
+   * @throws NoSuchElementException when end does not correspond to a graph node, or cannot be
+   *                                reached from the start
+   * @throws IllegalStateException  if the graph changed since this tree was built
+   */
+  public PathResult<NodeType> pathTo(NodeType end) {
+    int target = requireReached(end);
+    int length = 0;
+    for (int v = target; v != source; v = parent[v]) {
+      length++;
+    }
+    List<NodeType> data = new ArrayList<>(Collections.nCopies(length + 1, null));
+    double[] legCosts = new double[length];
+    for (int i = length, v = target; i >= 0; i--, v = parent[v]) {
+      data.set(i, graph.dataOf(v));
+      if (i > 0) {
+        legCosts[i - 1] = legs[v];
+      }
+    }
+    return new PathResult<>(data, legCosts);
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the start to the node
+   * containing the end data.
+   *
+   * @param end the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException when end does not correspond to a graph node, or cannot be
+   *                                reached from the start
+   * @throws IllegalStateException  if the graph changed since this tree was built
+   */
+  public List<NodeType> pathDataTo(NodeType end) {
+    return pathTo(end).getNodes();
+  }
+
+  /**
+   * Returns the cost of the shortest path from the start to every node that can be reached from
+   * it at a cost of budget or less, including the start itself at a cost of 0.0, like
+   * DijkstraGraph.reachableWithin() does, but without searching.
+   *
+   * @param budget the maximum path cost for a node to be included
+   * @return map from the data in each reachable node to its shortest path cost
+   * @throws IllegalStateException if the graph changed since this tree was built
+   */
+  public MapADT<NodeType, Double> reachableWithin(double budget) {
+    requireCurrent();
+    OpenAddressingMap<NodeType, Double> reached = new OpenAddressingMap<>();
+    for (int v = 0; v < dist.length; v++) {
+      // unreached nodes and freed ids have an infinite cost, which an infinite budget allows
+      if (dist[v] < Double.POSITIVE_INFINITY && dist[v] <= budget) {
+        reached.put(graph.dataOf(v), dist[v]);
+      }
+    }
+    return reached;
+  }
+
+  // looks up the id of end, throwing when it is not in the graph or not reached from the start
+  private int requireReached(NodeType end) {
+    requireCurrent();
+    if (end == null) {
+      throw new NullPointerException("END data must not be NULL.");
+    }
+    int id = graph.idOf(end);
+    if (id < 0) {
+      throw new NoSuchElementException("END data does not exist in the graph.");
+    }
+    if (dist[id] == Double.POSITIVE_INFINITY) {
+      throw new NoSuchElementException("No path from START to END was found.");
+    }
+    return id;
+  }
+
+  private void requireCurrent() {
+    if (!isCurrent()) {
+      throw new IllegalStateException("The graph changed since this tree was built.");
+    }
+  }
+}
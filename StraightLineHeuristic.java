@@ -0,0 +1,92 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A SearchHeuristic for graphs whose nodes have positions on a plane. It estimates the cost from a
+ * node to the target as the straight line distance between them, divided by the highest travel
+ * speed of any edge, where the speed of an edge is the straight line distance between its ends
+ * divided by its cost. No path can cover a distance faster than its fastest edge, so this
+ * estimate is both admissible and consistent.
+ *
+ * Positions can be in any unit, for example meters or degrees, since the speed is measured in the
+ * same unit. Every node that a search may reach needs a position.
+ *
+ * @param NodeType the data type stored at each graph node
+ */
+public class StraightLineHeuristic<NodeType> implements SearchHeuristic<NodeType> {
+
+  private final MapADT<NodeType, double[]> positions; // the (x, y) position of each node
+  private double maxSpeed = 0.0; // highest distance per unit of cost over the admitted edges
+
+  /**
+   * Creates a heuristic over the provided positions, that does not yet admit any edge.
+   *
+   * @param positions map from each node to its { x, y } position
+   */
+  public StraightLineHeuristic(MapADT<NodeType, double[]> positions) {
+    this.positions = positions;
+  }
+
+  /**
+   * Creates a heuristic over the provided positions that assumes a known top speed, for example
+   * the speed limit of a road network.
+   *
+   * @param positions map from each node to its { x, y } position
+   * @param maxSpeed  the highest distance per unit of cost of any edge
+   */
+  public StraightLineHeuristic(MapADT<NodeType, double[]> positions, double maxSpeed) {
+    this(positions);
+    this.maxSpeed = maxSpeed;
+  }
+
+  /**
+   * Raises the top speed of this heuristic where needed, so that it stays admissible for an edge
+   * of the provided cost between pred and succ. Every edge of the graph must be admitted before
+   * the heuristic is used, unless the top speed was provided up front.
+   *
+   * @param pred the data item in the node the edge leaves
+   * @param succ the data item in the node the edge enters
+   * @param cost the cost of the edge
+   * @throws NoSuchElementException if either node has no position
+   */
+  public void admitEdge(NodeType pred, NodeType succ, double cost) {
+    double distance = distance(pred, succ);
+    if (distance > 0.0) {
+      maxSpeed = Math.max(maxSpeed, cost > 0.0 ? distance / cost : Double.POSITIVE_INFINITY);
+    }
+  }
+
+  /**
+   * Returns the highest distance per unit of cost of the edges admitted so far.
+   *
+   * @return the speed that distances are divided by
+   */
+  public double getMaxSpeed() {
+    return maxSpeed;
+  }
+
+  /**
+   * Checks whether a node has a position.
+   *
+   * @param node the data item in a node
+   * @return true if node has a position
+   */
+  public boolean hasPosition(NodeType node) {
+    return positions.containsKey(node);
+  }
+
+  @Override
+  public double estimate(NodeType node, NodeType target) {
+    // with an infinite top speed, or no edges at all, only 0.0 is a safe estimate
+    if (maxSpeed == 0.0 || maxSpeed == Double.POSITIVE_INFINITY) {
+      return 0.0;
+    }
+    return distance(node, target) / maxSpeed;
+  }
+
+  // returns the straight line distance between the positions of two nodes
+  private double distance(NodeType from, NodeType to) {
+    double[] a = positions.get(from);
+    double[] b = positions.get(to);
+    return Math.hypot(a[0] - b[0], a[1] - b[1]);
+  }
+}
@@ -0,0 +1,109 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Fixtures and assertions shared by the tests of the shortest path engines: random graphs to run
+ * them on, and checks of their answers against the costs that DijkstraGraph computes.
+ */
+public class TestGraphs {
+
+  private TestGraphs() {
+    // only static helpers
+  }
+
+  /**
+   * Builds a random graph with the provided number of nodes, numbered from 0, and roughly the
+   * provided number of edges with small integer weights (including some 0 weights).
+   *
+   * @param nodeCount the number of nodes
+   * @param edgeCount the number of edges to insert, where repeated pairs replace earlier edges
+   * @param seed      the seed of the random choices, so that every run builds the same graph
+   * @return the new graph
+   */
+  public static DijkstraGraph<Integer, Double> randomGraph(int nodeCount, int edgeCount,
+      long seed) {
+    java.util.Random random = new java.util.Random(seed);
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    for (int i = 0; i < nodeCount; i++) {
+      graph.insertNode(i);
+    }
+    for (int i = 0; i < edgeCount; i++) {
+      graph.insertEdge(random.nextInt(nodeCount), random.nextInt(nodeCount),
+          (double) random.nextInt(20));
+    }
+    return graph;
+  }
+
+  /**
+   * Fills an empty graph with the cases that differential tests on random graphs rarely hit: C is
+   * reached from A through a 0 weight edge, A has an edge to itself, D is isolated, and node E is
+   * inserted first and removed again, so that a freed id sits below the ids of the other nodes.
+   * The edges are A to B (1.0), B to C (0.0) and A to A (0.0).
+   *
+   * @param graph an empty graph
+   * @return graph, after filling it
+   */
+  public static <G extends GraphADT<String, Double>> G edgeCaseGraph(G graph) {
+    for (String node : new String[] {"E", "A", "B", "C", "D"}) {
+      graph.insertNode(node);
+    }
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 0.0);
+    graph.insertEdge("A", "A", 0.0);
+    graph.insertEdge("E", "A", 1.0);
+    graph.insertEdge("A", "E", 1.0);
+    graph.removeNode("E");
+    return graph;
+  }
+
+  /**
+   * Checks the answers of a shortest path engine for one pair of nodes of graph: the cost it finds
+   * must be expected, or it must find no path when expected is infinite, and otherwise its path
+   * must join start and end through edges of graph whose weights add up to expected. Failure
+   * messages name the calling test.
+   *
+   * @param test     the name of the calling test
+   * @param graph    the graph that the engine answers for
+   * @param start    the start of the path
+   * @param end      the end of the path
+   * @param expected the cost of the shortest path, infinite when there is none
+   * @param cost     asks the engine for the cost of the path
+   * @param query    asks the engine for the path itself
+   */
+  public static void assertShortestPath(String test, DijkstraGraph<Integer, Double> graph,
+      int start, int end, double expected, DoubleSupplier cost,
+      Supplier<PathResult<Integer>> query) {
+    Assertions.assertEquals(expected, costOrInfinity(cost),
+        test + "() [1.1]: FAILED found a different COST.");
+    if (expected == Double.POSITIVE_INFINITY) {
+      return;
+    }
+    PathResult<Integer> path = query.get();
+    List<Integer> nodes = path.getNodes();
+    Assertions.assertTrue(nodes.get(0) == start && nodes.get(nodes.size() - 1) == end,
+        test + "() [1.2]: FAILED the PATH does not join START and END.");
+    for (int i = 1; i < nodes.size(); i++) {
+      Assertions.assertEquals((double) graph.getEdge(nodes.get(i - 1), nodes.get(i)),
+          path.getLegCosts()[i - 1], test + "() [1.3]: FAILED a LEG is not an edge of the graph.");
+    }
+    Assertions.assertEquals(expected, path.getTotalCost(),
+        test + "() [1.4]: FAILED the PATH does not add up to the COST.");
+  }
+
+  /**
+   * Runs a path cost query, and reports a missing path as an infinite cost.
+   *
+   * @param query asks an engine for the cost of a path
+   * @return the cost, or Double.POSITIVE_INFINITY when the engine finds no path
+   */
+  public static double costOrInfinity(DoubleSupplier query) {
+    try {
+      return query.getAsDouble();
+    } catch (NoSuchElementException e) {
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+}
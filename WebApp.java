@@ -11,6 +11,9 @@ import java.io.File;
 import java.util.Scanner;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
 /**
@@ -26,8 +29,55 @@ import java.util.stream.Stream;
  *     compile WebApp in that location
  *     there is no need to run your sever, the provided index.cgi handles this 
  * Then visit through browser via https://cs400-web.cs.wisc.edu/CS_LOGIN/
+ *
+ * When running as a server, campus.dot is loaded once at startup.  Start
+ * the server with
+ *     java -Dwebapp.watch=true WebApp 80
+ * to reload it automatically whenever the file changes.  Start it with
+ * -Dwebapp.reload=true to also load it again on a POST request to
+ * http://localhost/reload, which is only accepted from the same machine:
+ *     curl -X POST http://localhost/reload
+ * A POST that arrives while a reload is already running gets 409 Conflict.
+ *
+ * Requests are handled concurrently by a RequestExecutor, which is tuned
+ * through these system properties (see RequestExecutor for details):
+ *     webapp.executor    pool (default) or virtual
+ *     webapp.threads     worker threads, defaults to the number of cores
+ *     webapp.queue       requests allowed to wait for a worker
+ *     webapp.backlog     connections the OS may queue before accept (64)
+ *     webapp.retryAfter  seconds sent in Retry-After when overloaded (1)
+ * Requests arriving while every worker and queue slot is taken receive a
+ * 503 Service Unavailable response.  Connections that take longer than
+ * sun.net.httpserver.maxReqTime seconds (30 unless set) to send a request
+ * are closed by the server, so that slow clients cannot hold threads.
+ *
+ * Visit http://EXTERNAL_IP/matrix?sources=A|B&targets=C|D|E to receive
+ * the walking times in seconds from each source to each target as JSON:
+ *     {"sources":["A","B"],"targets":["C","D","E"],"seconds":[[...],[...]]}
+ * where unreachable targets have a time of null.  Location names are
+ * separated by | characters.  Matrices with more than webapp.matrixCells
+ * (10000) sources times targets are rejected with 400 Bad Request.
+ *
+ * Add alternatives=N to a shortest path request (start=A&end=B) to see the
+ * N fastest routes that never visit a location twice, instead of just one.
+ * N must be a whole number from 1 to BackendInterface.MAX_ALTERNATIVE_PATHS
+ * (20); other values are answered with an error message.
+ *
+ * Start the server with -Dwebapp.landmarks=8 (or another number of
+ * landmarks) to direct searches with landmarks, see GraphSnapshot.
+ * Start it with -Dwebapp.offheap=true to keep the graph outside the Java
+ * heap instead, see OffHeapGraph.
+ * Start it with -Dwebapp.edgeindex=true to look edges up through a hash
+ * table while loading, see BaseGraph.setEdgeIndexed.
  */
 public class WebApp {
+    // the campus graph, loaded once and shared by every request
+    private static GraphStore store = null;
+    // seconds that overloaded clients are asked to wait before retrying
+    private static int retryAfterSeconds = 1;
+    // the most sources times targets that a single /matrix request may ask for
+    private static int maxMatrixCells = 10000;
+
     public static void main(String[] args) throws IOException {
 				// expects the port number as a command line argument to this program
 				// or if a non-numeric argument is passed treat this like the query
@@ -48,15 +98,50 @@ public class WebApp {
 						return;
 				}
 				
-				// configure and start server on this port, responding in this way
+				// load the campus graph once, rather than once per request, and
+				// optionally reload it whenever the file changes on disk
+				store = new GraphStore("./campus.dot");
+				if(Boolean.getBoolean("webapp.watch"))
+						store.startWatching();
+
+				// configure and start server on this port, responding in this way,
+				// closing connections whose requests stall before the server is made
+				if(System.getProperty("sun.net.httpserver.maxReqTime") == null)
+						System.setProperty("sun.net.httpserver.maxReqTime","30");
 				InetSocketAddress address = new InetSocketAddress(portNumber);
-				HttpServer server = HttpServer.create(address,8);
+				HttpServer server = HttpServer.create(address,
+								Integer.getInteger("webapp.backlog",64));
+				RequestExecutor executor = RequestExecutor.fromSystemProperties();
+				server.setExecutor(executor);
+				retryAfterSeconds = Integer.getInteger("webapp.retryAfter",1);
+				maxMatrixCells = Integer.getInteger("webapp.matrixCells",10000);
 				HttpContext context = server.createContext("/");
-				context.setHandler( WebApp::requestHandler );
-				System.out.println("Starting Campus Navigator Server...");
+				context.setHandler( admitted(WebApp::requestHandler) );
+				if(Boolean.getBoolean("webapp.reload"))
+						server.createContext("/reload").setHandler( admitted(WebApp::reloadHandler) );
+				server.createContext("/matrix").setHandler( admitted(WebApp::matrixHandler) );
+				System.out.println("Starting Campus Navigator Server with " + executor + "...");
 				server.start();
     }
 
+    // wraps a handler so that requests the executor could not admit are
+    // answered with 503 and a Retry-After header instead of being processed
+    private static HttpHandler admitted(HttpHandler handler) {
+				return exchange -> {
+						if(!RequestExecutor.isOverloaded()) {
+								handler.handle(exchange);
+								return;
+						}
+						try {
+								exchange.getResponseHeaders().set("Retry-After",
+								    Integer.toString(retryAfterSeconds));
+								exchange.sendResponseHeaders(503,-1);
+						} finally {
+								exchange.close();
+						}
+				};
+    }
+
     // http request handler handler for the context "/"
     public static void requestHandler(HttpExchange exchange) {
 				try {
@@ -68,8 +153,8 @@ public class WebApp {
 																					exchange.getRequestURI().getQuery());
 						System.out.println("Query includes args: "+keyValuePairs);
 	    
-						// create backend and frontend objects to respond to this request
-						FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+						// create a frontend over the shared snapshot to respond to this request
+						FrontendInterface frontend = new Frontend(store.current());
 						// compute answer to user's requested problem based on query args:
 						String response = generateResponseHTML(keyValuePairs,frontend);
 						// generate HTML prompts for user for make next requests
@@ -94,6 +179,128 @@ public class WebApp {
 				}
     }
 
+    // http request handler for the context "/reload", which swaps in a freshly
+    // loaded snapshot of the graph without interrupting requests in progress;
+    // only POST requests from the loopback address are accepted, and a request
+    // never waits for a reload that is already running
+    public static void reloadHandler(HttpExchange exchange) {
+				try {
+						if(!exchange.getRemoteAddress().getAddress().isLoopbackAddress()) {
+								exchange.sendResponseHeaders(403,-1);
+								exchange.close();
+								return;
+						}
+						if(!exchange.getRequestMethod().equals("POST")) {
+								exchange.getResponseHeaders().set("Allow","POST");
+								exchange.sendResponseHeaders(405,-1);
+								exchange.close();
+								return;
+						}
+						GraphSnapshot snapshot = store.tryReload();
+						if(snapshot == null) {
+								exchange.sendResponseHeaders(409,-1);
+								exchange.close();
+								return;
+						}
+						byte[] bytes = ("Reloaded " + snapshot.getFilename() + " with " +
+						    snapshot.getListOfAllLocations().size() + " locations.\n").getBytes();
+						exchange.sendResponseHeaders(200,bytes.length);
+						OutputStream out = exchange.getResponseBody();
+						out.write(bytes);
+						out.close();
+				} catch (Exception e) {
+						System.out.println("Exception Thrown: "+e.toString());
+						e.printStackTrace();
+						try { exchange.sendResponseHeaders(500,-1); }
+						catch(IOException i){} // do nothing when this fails
+				}
+    }
+
+    // http request handler for the context "/matrix", which answers with the
+    // walking times between every source and target as a JSON object, or
+    // with 400 Bad Request when a list is missing or names an unknown location
+    public static void matrixHandler(HttpExchange exchange) {
+				try {
+						Map<String,String> keyValuePairs = parseQuery(
+																					exchange.getRequestURI().getQuery());
+						int status = 200;
+						String json;
+						if(!keyValuePairs.containsKey("sources") ||
+							 !keyValuePairs.containsKey("targets")) {
+								status = 400;
+								json = "{\"error\":" + jsonString("Both sources and targets " +
+								    "must be given.") + "}";
+						} else {
+								List<String> sources = Arrays.asList(
+								    keyValuePairs.get("sources").split("\\|"));
+								List<String> targets = Arrays.asList(
+								    keyValuePairs.get("targets").split("\\|"));
+								if((long) sources.size() * targets.size() > maxMatrixCells) {
+										status = 400;
+										json = "{\"error\":" + jsonString("At most " +
+										    maxMatrixCells + " sources times targets can be " +
+										    "asked for at once.") + "}";
+								} else {
+										try {
+												double[][] seconds = store.current().distanceMatrix(
+												    sources,targets);
+												json = matrixJSON(sources,targets,seconds);
+										} catch(NoSuchElementException e) {
+												status = 400;
+												json = "{\"error\":" + jsonString(e.getMessage()) + "}";
+										}
+								}
+						}
+
+						byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+						exchange.getResponseHeaders().set("Content-Type",
+						    "application/json; charset=utf-8");
+						exchange.sendResponseHeaders(status,bytes.length);
+						OutputStream out = exchange.getResponseBody();
+						out.write(bytes);
+						out.close();
+				} catch (Exception e) {
+						System.out.println("Exception Thrown: "+e.toString());
+						e.printStackTrace();
+						try { exchange.sendResponseHeaders(500,-1); }
+						catch(IOException i){} // do nothing when this fails
+				}
+    }
+
+    // writes a distance matrix and the names of its rows and columns as JSON
+    static String matrixJSON(List<String> sources, List<String> targets,
+		    double[][] seconds) {
+				StringBuilder json = new StringBuilder("{\"sources\":[");
+				for(int i = 0; i < sources.size(); i++)
+						json.append(i > 0 ? "," : "").append(jsonString(sources.get(i)));
+				json.append("],\"targets\":[");
+				for(int j = 0; j < targets.size(); j++)
+						json.append(j > 0 ? "," : "").append(jsonString(targets.get(j)));
+				json.append("],\"seconds\":[");
+				for(int i = 0; i < seconds.length; i++) {
+						json.append(i > 0 ? ",[" : "[");
+						for(int j = 0; j < seconds[i].length; j++) {
+								json.append(j > 0 ? "," : "");
+								// JSON has no infinity, so unreachable targets are null
+								if(seconds[i][j] == Double.POSITIVE_INFINITY) json.append("null");
+								else json.append(seconds[i][j]);
+						}
+						json.append("]");
+				}
+				return json.append("]}").toString();
+    }
+
+    // quotes a string for JSON, escaping quotes, backslashes and control characters
+    static String jsonString(String text) {
+				StringBuilder quoted = new StringBuilder("\"");
+				for(char c : text.toCharArray()) {
+						if(c == '"' || c == '\\') quoted.append('\\').append(c);
+						else if(c < 0x20) quoted.append(String.format("\\u%04x",(int)c));
+						else quoted.append(c);
+				}
+				return quoted.append('"').toString();
+    }
+
     // reads key value pairs from the query string of a URI into a map
     private static Map<String,String> parseQuery(String query) {
 				HashMap<String,String> map = new HashMap<>();
@@ -109,20 +316,29 @@ public class WebApp {
 				return map;
     }
 
-    // creates a working Frontend, Backend, DijkstraGraph, and HashtableMap
-    private static FrontendInterface createWorkingFrontend(String filename) throws IOException {
-				GraphADT<String,Double> graph = new DijkstraGraph<>();
-				BackendInterface backend = new Backend(graph);
-				backend.loadGraphData(filename);			
-				FrontendInterface frontend = new Frontend(backend);
-				return frontend;
-    }
-
     // creates the html response for the kind of question requeted (if any)
     private static String generateResponseHTML(Map<String,String> keyValuePairs, FrontendInterface frontend) {
 				// compute response for shortest path request
 				String response = "<div id=\"response\">";
 				if(keyValuePairs.containsKey("start") &&
+					 keyValuePairs.containsKey("end") &&
+					 !keyValuePairs.getOrDefault("alternatives","").isBlank()) {
+						int alternatives;
+						try {
+								alternatives = Integer.parseInt(keyValuePairs.get("alternatives").trim());
+						} catch(NumberFormatException e) {
+								alternatives = 0; // not a number, so no routes are searched for
+						}
+						if(alternatives < 1 || alternatives > BackendInterface.MAX_ALTERNATIVE_PATHS)
+								response += "<p>The number of routes must be a whole number between 1 and " +
+										BackendInterface.MAX_ALTERNATIVE_PATHS + ".</p></div>";
+						else
+								response += frontend.generateAlternativePathsResponseHTML(
+								            keyValuePairs.get("start"),
+														keyValuePairs.get("end"),
+														alternatives) + "</div>";
+						// compute response for a single shortest path
+				} else if(keyValuePairs.containsKey("start") &&
 					 keyValuePairs.containsKey("end")) {
 						response += frontend.generateShortestPathResponseHTML(
 						            keyValuePairs.get("start"),
@@ -171,8 +387,9 @@ public class WebApp {
 						query = URLDecoder.decode(query, StandardCharsets.UTF_8);
 						Map<String,String> keyValuePairs = parseQuery(query);
 	    
-						// create backend and frontend objects to respond to this request
-						FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+						// this process only answers a single query, so load the graph once
+						// here and build a frontend over that snapshot
+						FrontendInterface frontend = new Frontend(new GraphSnapshot("./campus.dot"));
 						// compute answer to user's requested problem based on query args:
 						String response = generateResponseHTML(keyValuePairs,frontend);
 						// generate HTML prompts for user for make next requests